@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.sics.ace.AceException;
+
+/**
+ * Allocates unique, increasing sequence numbers from concurrent threads,
+ * e.g. the counter used as cti or the Exi Sequence Number of a Resource
+ * Server.
+ * 
+ * Numbers are handed out by an atomic increment. Before a number beyond the
+ * reserved range is handed out, a new block of <code>blockSize</code> numbers
+ * is reserved by persisting the new high-water mark through
+ * {@link #persist(long)}. A process restarting from the persisted value will
+ * therefore never reuse a number, at the cost of skipping the unused rest of
+ * the last block. Numbers are not rolled back when the request using them
+ * fails either.
+ * 
+ * @author agent
+ *
+ */
+public abstract class BlockAllocator {
+
+    /**
+     * The default number of values reserved by one write
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    /**
+     * The next value to hand out
+     */
+    private final AtomicLong next;
+
+    /**
+     * The first value not covered by the persisted reservation
+     */
+    private volatile long limit;
+
+    /**
+     * The number of values reserved by one write
+     */
+    private final int blockSize;
+
+    /**
+     * The largest value that may be handed out
+     */
+    private final long max;
+
+    /**
+     * Constructor.
+     * 
+     * @param start the first value to hand out, usually the value read from the database
+     * @param blockSize the number of values reserved by one write
+     * @param max the largest value that may be handed out, must be smaller
+     *     than Long.MAX_VALUE
+     */
+    public BlockAllocator(long start, int blockSize, long max) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("BlockAllocator requires a positive block size");
+        }
+        if (max == Long.MAX_VALUE) {
+            // The high-water mark after the last value must be representable
+            throw new IllegalArgumentException("BlockAllocator requires a maximum below Long.MAX_VALUE");
+        }
+        this.next = new AtomicLong(start);
+        this.limit = start;
+        this.blockSize = blockSize;
+        this.max = max;
+    }
+
+    /**
+     * Hand out the next value. Reserves a new block first, if required.
+     * 
+     * @return the value
+     * 
+     * @throws AceException if the reservation cannot be persisted or the values are exhausted
+     */
+    public long next() throws AceException {
+        long value = this.next.getAndIncrement();
+        if (value < this.limit) {
+            return value;
+        }
+        if (value > this.max) {
+            throw new AceException("No more sequence numbers available");
+        }
+        synchronized (this) {
+            if (value >= this.limit) {
+                long newLimit = this.max - value < this.blockSize
+                        ? this.max + 1 : value + this.blockSize;
+                persist(newLimit);
+                this.limit = newLimit;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Persist the next value to hand out, instead of the end of the reserved
+     * block. Must only be called when no more values are handed out, e.g.
+     * when closing, to avoid skipping the rest of the block after a restart.
+     * 
+     * @throws AceException if persisting fails
+     */
+    public synchronized void flush() throws AceException {
+        long value = this.next.get();
+        if (value > this.max + 1) {
+            value = this.max + 1;
+        }
+        persist(value);
+        this.limit = value;
+    }
+
+    /**
+     * @return the next value to hand out
+     */
+    public long peek() {
+        return this.next.get();
+    }
+
+    /**
+     * Persist a high-water mark, i.e. the value to start from after a restart.
+     * 
+     * @param highWater the first value not yet handed out or reserved
+     * 
+     * @throws AceException if persisting fails
+     */
+    protected abstract void persist(long highWater) throws AceException;
+}
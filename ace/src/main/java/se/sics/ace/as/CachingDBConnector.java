@@ -0,0 +1,590 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.CoseException;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.AceException;
+import se.sics.ace.COSEparams;
+
+/**
+ * A DBConnector caching the metadata of resource servers and clients.
+ * 
+ * Wraps another DBConnector and keeps the results of the lookups done for
+ * every token request, e.g. getSupportedProfile(), getRSS() or getCPSK(), in a
+ * bounded cache. The least recently used entries are evicted when the cache
+ * is full. The whole cache is invalidated when resource servers or clients are
+ * added or deleted through this connector. Changes made to the database by
+ * other means are not visible until then.
+ * 
+ * Token, grant and counter related methods are always passed through.
+ * 
+ * Returned keys are shared between calls and must not be modified.
+ * 
+ * @author agent
+ *
+ */
+public class CachingDBConnector implements DBConnector, AutoCloseable {
+
+    /**
+     * The default maximum number of cached results
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * Marks a result not in the cache
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * Stands for a cached null result
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The wrapped connector
+     */
+    private final DBConnector db;
+
+    /**
+     * The cached results by method name and parameters, in access order
+     */
+    private final LinkedHashMap<List<Object>, Object> cache;
+
+    /**
+     * Incremented on every invalidation, so that results loaded before are
+     * not stored afterwards
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor using the default maximum number of entries.
+     * 
+     * @param db the wrapped connector
+     */
+    public CachingDBConnector(DBConnector db) {
+        this(db, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param db the wrapped connector
+     * @param maxEntries the maximum number of cached results
+     */
+    public CachingDBConnector(DBConnector db, final int maxEntries) {
+        if (db == null || maxEntries <= 0) {
+            throw new IllegalArgumentException("CachingDBConnector requires a connector and positive maxEntries");
+        }
+        this.db = db;
+        this.cache = new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the number of results served from the cache
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of results loaded from the wrapped connector
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Drop all cached results, e.g. after the database was changed by other
+     * means than this connector.
+     */
+    public synchronized void invalidate() {
+        this.generation.incrementAndGet();
+        this.cache.clear();
+    }
+
+    /**
+     * Look up a cached result and count the hit or miss.
+     * 
+     * @param key the method name and parameters
+     * @return the result, or MISSING
+     */
+    private synchronized Object lookup(List<Object> key) {
+        Object value = this.cache.get(key);
+        if (value == null) {
+            this.misses.incrementAndGet();
+            return MISSING;
+        }
+        this.hits.incrementAndGet();
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * Store a result, unless the cache has been invalidated since loading it.
+     * 
+     * @param key the method name and parameters
+     * @param generation the generation before loading the result
+     * @param value the result
+     */
+    private synchronized void store(List<Object> key, long generation, Object value) {
+        if (this.generation.get() == generation) {
+            this.cache.put(key, value == null ? NULL : value);
+        }
+    }
+
+    private static Set<String> copy(Set<String> set) {
+        return set == null ? null : new HashSet<>(set);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> castSet(Object value) {
+        return (Set<String>) value;
+    }
+
+    @Override
+    public String getSupportedProfile(String clientId, Set<String> aud) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getSupportedProfile", clientId, copy(aud));
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (String) value;
+        }
+        long generation = this.generation.get();
+        String result = this.db.getSupportedProfile(clientId, aud);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public boolean hasDefaultProfile(String clientId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("hasDefaultProfile", clientId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (Boolean) value;
+        }
+        long generation = this.generation.get();
+        boolean result = this.db.hasDefaultProfile(clientId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public Set<String> getSupportedPopKeyTypes(Set<String> aud) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getSupportedPopKeyTypes", copy(aud));
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return copy(castSet(value));
+        }
+        long generation = this.generation.get();
+        Set<String> result = this.db.getSupportedPopKeyTypes(aud);
+        store(key, generation, copy(result));
+        return result;
+    }
+
+    @Override
+    public Short getSupportedTokenType(Set<String> aud) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getSupportedTokenType", copy(aud));
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (Short) value;
+        }
+        long generation = this.generation.get();
+        Short result = this.db.getSupportedTokenType(aud);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public COSEparams getSupportedCoseParams(Set<String> aud) throws AceException, CoseException {
+        List<Object> key = Arrays.<Object>asList("getSupportedCoseParams", copy(aud));
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (COSEparams) value;
+        }
+        long generation = this.generation.get();
+        COSEparams result = this.db.getSupportedCoseParams(aud);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public boolean isScopeSupported(String aud, String scope) throws AceException {
+        List<Object> key = Arrays.<Object>asList("isScopeSupported", aud, scope);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (Boolean) value;
+        }
+        long generation = this.generation.get();
+        boolean result = this.db.isScopeSupported(aud, scope);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public String getDefaultScope(String clientId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getDefaultScope", clientId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (String) value;
+        }
+        long generation = this.generation.get();
+        String result = this.db.getDefaultScope(clientId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public String getDefaultAudience(String clientId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getDefaultAudience", clientId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (String) value;
+        }
+        long generation = this.generation.get();
+        String result = this.db.getDefaultAudience(clientId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public Set<String> getRSS(String aud) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getRSS", aud);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return copy(castSet(value));
+        }
+        long generation = this.generation.get();
+        Set<String> result = this.db.getRSS(aud);
+        store(key, generation, copy(result));
+        return result;
+    }
+
+    @Override
+    public Set<String> getRSS() throws AceException {
+        List<Object> key = Arrays.<Object>asList("getRSS");
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return copy(castSet(value));
+        }
+        long generation = this.generation.get();
+        Set<String> result = this.db.getRSS();
+        store(key, generation, copy(result));
+        return result;
+    }
+
+    @Override
+    public long getExpTime(Set<String> aud) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getExpTime", copy(aud));
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (Long) value;
+        }
+        long generation = this.generation.get();
+        long result = this.db.getExpTime(aud);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public Set<String> getAudiences(String rsId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getAudiences", rsId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return copy(castSet(value));
+        }
+        long generation = this.generation.get();
+        Set<String> result = this.db.getAudiences(rsId);
+        store(key, generation, copy(result));
+        return result;
+    }
+
+    @Override
+    public Set<String> getOSCOREGroupManagers(String rsId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getOSCOREGroupManagers", rsId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return copy(castSet(value));
+        }
+        long generation = this.generation.get();
+        Set<String> result = this.db.getOSCOREGroupManagers(rsId);
+        store(key, generation, copy(result));
+        return result;
+    }
+
+    @Override
+    public Set<String> getScopes(String rsId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getScopes", rsId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return copy(castSet(value));
+        }
+        long generation = this.generation.get();
+        Set<String> result = this.db.getScopes(rsId);
+        store(key, generation, copy(result));
+        return result;
+    }
+
+    @Override
+    public OneKey getRsTokenPSK(String rsId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getRsTokenPSK", rsId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (OneKey) value;
+        }
+        long generation = this.generation.get();
+        OneKey result = this.db.getRsTokenPSK(rsId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public OneKey getRsAuthPSK(String rsId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getRsAuthPSK", rsId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (OneKey) value;
+        }
+        long generation = this.generation.get();
+        OneKey result = this.db.getRsAuthPSK(rsId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public OneKey getRsRPK(String rsId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getRsRPK", rsId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (OneKey) value;
+        }
+        long generation = this.generation.get();
+        OneKey result = this.db.getRsRPK(rsId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public OneKey getCPSK(String clientId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getCPSK", clientId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (OneKey) value;
+        }
+        long generation = this.generation.get();
+        OneKey result = this.db.getCPSK(clientId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public OneKey getCRPK(String clientId) throws AceException {
+        List<Object> key = Arrays.<Object>asList("getCRPK", clientId);
+        Object value = lookup(key);
+        if (value != MISSING) {
+            return (OneKey) value;
+        }
+        long generation = this.generation.get();
+        OneKey result = this.db.getCRPK(clientId);
+        store(key, generation, result);
+        return result;
+    }
+
+    @Override
+    public void addRS(String rsId, Set<String> profiles, Set<String> scopes, Set<String> auds,
+            Set<String> keyTypes, Set<Short> tokenTypes, Set<COSEparams> cose, long expiration, OneKey tokenPsk,
+            OneKey authPsk, OneKey publicKey) throws AceException {
+        try {
+            this.db.addRS(rsId, profiles, scopes, auds, keyTypes, tokenTypes, cose, expiration, tokenPsk, authPsk,
+                    publicKey);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void addOSCOREGroupManagers(String rsId, Set<String> auds) throws AceException {
+        try {
+            this.db.addOSCOREGroupManagers(rsId, auds);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void deleteRS(String rsId) throws AceException {
+        try {
+            this.db.deleteRS(rsId);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void addClient(String clientId, Set<String> profiles, String defaultScope, String defaultAud,
+            Set<String> keyTypes, OneKey sharedKey, OneKey publicKey) throws AceException {
+        try {
+            this.db.addClient(clientId, profiles, defaultScope, defaultAud, keyTypes, sharedKey, publicKey);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void deleteClient(String clientId) throws AceException {
+        try {
+            this.db.deleteClient(clientId);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void addToken(String cti, Map<Short, CBORObject> claims) throws AceException {
+        this.db.addToken(cti, claims);
+    }
+
+    @Override
+    public void deleteToken(String cti) throws AceException {
+        this.db.deleteToken(cti);
+    }
+
+    @Override
+    public void purgeExpiredTokens(long now) throws AceException {
+        this.db.purgeExpiredTokens(now);
+    }
+
+    @Override
+    public Map<Short, CBORObject> getClaims(String cti) throws AceException {
+        return this.db.getClaims(cti);
+    }
+
+    @Override
+    public Long getCtiCounter() throws AceException {
+        return this.db.getCtiCounter();
+    }
+
+    @Override
+    public void saveCtiCounter(Long cti) throws AceException {
+        this.db.saveCtiCounter(cti);
+    }
+
+    @Override
+    public int getExiSequenceNumber(String rsId) throws AceException {
+        return this.db.getExiSequenceNumber(rsId);
+    }
+
+    @Override
+    public void saveExiSequenceNumber(int sn, String rsId) throws AceException {
+        this.db.saveExiSequenceNumber(sn, rsId);
+    }
+
+    @Override
+    public void addCti2Client(String cti, String clientId) throws AceException {
+        this.db.addCti2Client(cti, clientId);
+    }
+
+    @Override
+    public Set<String> getClients() throws AceException {
+        return this.db.getClients();
+    }
+
+    @Override
+    public String getClient4Cti(String cti) throws AceException {
+        return this.db.getClient4Cti(cti);
+    }
+
+    @Override
+    public Set<String> getCtis4Client(String clientId) throws AceException {
+        return this.db.getCtis4Client(clientId);
+    }
+
+    @Override
+    public String getCti4Grant(String code) throws AceException {
+        return this.db.getCti4Grant(code);
+    }
+
+    @Override
+    public void addGrant(String code, String cti, Map<Short, CBORObject> claims, Map<Short, CBORObject> rsInfo)
+            throws AceException {
+        this.db.addGrant(code, cti, claims, rsInfo);
+    }
+
+    @Override
+    public void useGrant(String code) throws AceException {
+        this.db.useGrant(code);
+    }
+
+    @Override
+    public Map<Short, CBORObject> getRsInfo(String code) throws AceException {
+        return this.db.getRsInfo(code);
+    }
+
+    @Override
+    public boolean isGrantValid(String code) throws AceException {
+        return this.db.isGrantValid(code);
+    }
+
+    @Override
+    public void close() throws AceException {
+        invalidate();
+        this.db.close();
+    }
+}
@@ -40,6 +40,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -77,7 +79,11 @@ import se.sics.ace.cwt.CwtCryptoCtx;
  * that, assuming that the client will be denied by the PDP anyway. This requires a default deny policy in the PDP.
  * 
  * Note: This endpoint assigns a cti to each issued token based on a counter. The same value is also used as kid for the
- * proof-of-possession key associated to the token by means of the 'cnf' claim.
+ * proof-of-possession key associated to the token by means of the 'cnf' claim. The counter and the Exi Sequence Numbers
+ * are allocated by a {@link BlockAllocator}, which persists them in blocks. Values allocated to a request that fails
+ * are not reused.
+ * 
+ * Note: processMessage() may be called concurrently, e.g. from the executor threads of a CoAP server.
  * 
  * Note: This endpoint assumes that the sender Id (the one you get from Message.getSenderId()) for a secure session
  * created with a raw public key is generated with org.eclipse.californium.scandium.auth.RawPublicKeyIdentity.getName()
@@ -123,9 +129,14 @@ public class Token implements Endpoint, AutoCloseable {
     private static long expiration = 1000 * 60 * 10; // 10 minutes
 
     /**
-     * The counter for generating the cti
+     * The allocator of the counter used as cti
+     */
+    private BlockAllocator ctiAllocator;
+
+    /**
+     * The number of cti values and Exi Sequence Numbers reserved by one database write
      */
-    private Long cti = 0L;
+    private int idBlockSize;
 
     /**
      * The private key of the AS or null if there isn't any
@@ -142,11 +153,6 @@ public class Token implements Endpoint, AutoCloseable {
      */
     public static CBORObject authzCode = CBORObject.FromObject(Constants.GT_AUTHZ_CODE);
 
-    /**
-     * Converter to create the byte array from the cti number
-     */
-    private static ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
-
     /**
      * The claim types included in tokens generated by this Token instance
      */
@@ -173,21 +179,21 @@ public class Token implements Endpoint, AutoCloseable {
      * Incremented after having released an Access Token including OSCORE input material The current value is used for
      * the 'id' parameter in the OSCORE Security Context object in 'cnf'
      */
-    private int OSCORE_material_counter = 0;
+    private AtomicInteger OSCORE_material_counter = new AtomicInteger();
 
     /**
      * Store the association between the cti of an issued Access Token and the target audience intended to consume it.
      */
-    private Map<String, String> cti2aud = new HashMap<>();
+    private Map<String, String> cti2aud = new ConcurrentHashMap<>();
 
     /**
-     * Store the association between the name of the Resource Server and the next value to use as Sequence Number to
+     * Store the association between the name of the Resource Server and the allocator of the Sequence Numbers to
      * build the 'cti' claim when the 'exi' claim is included in the Access Token
      * 
      * The entry for a Resource Server is created when the first Access Token including 'exi' is issues, since the AS
      * process has started. The initial value of the Sequence Number is retrieved from the database.
      */
-    private Map<String, Integer> exiSequenceNumbers = new HashMap<>();
+    private Map<String, BlockAllocator> exiSequenceNumbers = new ConcurrentHashMap<>();
 
     /**
      * Relevant only when the DTLS profile is used with symmetric PoP key
@@ -195,7 +201,7 @@ public class Token implements Endpoint, AutoCloseable {
      * Store the association between the cti of an issued Acced Token and the 'kid' of the associated symmetric PoP key
      * generated by the AS
      */
-    private Map<String, CBORObject> cti2kid = new HashMap<>();
+    private Map<String, CBORObject> cti2kid = new ConcurrentHashMap<>();
 
     /**
      * Relevant only when the OSCORE profile is used
@@ -203,7 +209,7 @@ public class Token implements Endpoint, AutoCloseable {
      * Store the association between the cti of an issued Acced Token and the ID identifying the OSCORE Input Material.
      * Such an ID is stored as a CBOR byte string.
      */
-    private Map<String, CBORObject> cti2oscId = new HashMap<>();
+    private Map<String, CBORObject> cti2oscId = new ConcurrentHashMap<>();
 
     /**
      * Relevant only when the OSCORE profile is used
@@ -225,7 +231,7 @@ public class Token implements Endpoint, AutoCloseable {
      * 
      * It specifies information on the next Id Context to assign for each Resource Server
      */
-    private Map<String, IdContextInfo> idContextInfoMap = new HashMap<>();
+    private Map<String, IdContextInfo> idContextInfoMap = new ConcurrentHashMap<>();
 
     /**
      * Mapping between security identities of the peers and their names; it can be null
@@ -236,6 +242,11 @@ public class Token implements Endpoint, AutoCloseable {
      */
     private Map<String, String> peerIdentitiesToNames = null;
 
+    /**
+     * The background sweeper removing expired tokens from the database
+     */
+    private TokenExpirySweeper expirySweeper;
+
     /**
      * Constructor using default set of claims.
      * 
@@ -295,6 +306,36 @@ public class Token implements Endpoint, AutoCloseable {
     public Token(String asId, PDP pdp, DBConnector db, TimeProvider time, OneKey privateKey, Set<Short> claims,
             boolean setAudInCwtHeader, short masterSaltSize, boolean provideIdContext,
             Map<String, String> peerIdentitiesToNames) throws AceException {
+        this(asId, pdp, db, time, privateKey, claims, setAudInCwtHeader, masterSaltSize, provideIdContext,
+                peerIdentitiesToNames, null, BlockAllocator.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor that allows configuration of everything, including the
+     * removal of expired tokens.
+     * 
+     * @param asId the identifier of this AS
+     * @param pdp the PDP for deciding access
+     * @param db the database connector
+     * @param time the time provider
+     * @param privateKey the private key of the AS or null if there isn't any
+     * @param claims the claim types to include in tokens issued by this Token instance
+     * @param setAudInCwtHeader if true the AUD claim is inserted in the COSE header of a CWT generated by this AS in
+     *        order to be able to retrieve the right keys when the CWT is presented by the client instead of the RS for
+     *        introspection
+     * @param masterSaltSize the size in bytes of the OSCORE Master Salt
+     * @param provideIdContext true if the OSCORE Id Context has to be provided, false otherwise
+     * @param peerIdentitiesToNames mapping between security identities of the peers and their names; it can be null
+     * @param expirySweeper the sweeper removing expired tokens from the database, using the same db; if null, a
+     *        sweeper with default interval and batch size is used. It is started here and closed by {@link #close()}
+     * @param idBlockSize the number of cti values and Exi Sequence Numbers reserved by one database write
+     * 
+     * @throws AceException if fetching the cti from the database fails
+     */
+    public Token(String asId, PDP pdp, DBConnector db, TimeProvider time, OneKey privateKey, Set<Short> claims,
+            boolean setAudInCwtHeader, short masterSaltSize, boolean provideIdContext,
+            Map<String, String> peerIdentitiesToNames, TokenExpirySweeper expirySweeper, int idBlockSize)
+            throws AceException {
 
         Set<Short> localClaims = claims;
 
@@ -325,27 +366,35 @@ public class Token implements Endpoint, AutoCloseable {
         this.db = db;
         this.time = time;
         this.privateKey = privateKey;
-        this.cti = db.getCtiCounter();
+        this.idBlockSize = idBlockSize;
+        this.ctiAllocator = new BlockAllocator(db.getCtiCounter(), idBlockSize, Long.MAX_VALUE - 1) {
+
+            @Override
+            protected void persist(long highWater) throws AceException {
+                Token.this.db.saveCtiCounter(highWater);
+            }
+        };
         this.claims = new HashSet<>();
         this.claims.addAll(localClaims);
+        // If the 'exi' claim is included, ensure that the 'cti' claim is also
+        // included
+        if (this.claims.contains(Constants.EXI)) {
+            this.claims.add(Constants.CTI);
+        }
         this.setAudHeader = setAudInCwtHeader;
         this.masterSaltSize = masterSaltSize;
         this.provideIdContext = provideIdContext;
         this.peerIdentitiesToNames = peerIdentitiesToNames;
-
+        if (expirySweeper == null) {
+            expirySweeper = new TokenExpirySweeper(db, time);
+        }
+        this.expirySweeper = expirySweeper;
+        this.expirySweeper.start();
     }
 
     @Override
     public Message processMessage(Message msg) {
-        // Purge expired tokens from the database
-        try {
-            this.db.purgeExpiredTokens(this.time.getCurrentTime());
-        } catch (AceException e) {
-            LOGGER.severe("Database error: " + e.getMessage());
-			DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Database error");
-            return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
-        }
-
+        // Expired tokens are purged from the database by the expirySweeper
         if (msg == null) {// This should not happen
             LOGGER.severe("Token.processMessage() received null message");
             return null;
@@ -556,11 +605,6 @@ public class Token implements Endpoint, AutoCloseable {
         }
 
         boolean includeExi = this.claims.contains(Constants.EXI);
-        // If the 'exi' claim is included, ensure that the 'cti' claim is also
-        // included
-        if (includeExi) {
-            this.claims.add(Constants.CTI);
-        }
 
         // The construction of 'cti' depends on the presence/absence of the
         // 'exi' claim.
@@ -579,9 +623,15 @@ public class Token implements Endpoint, AutoCloseable {
             // The 'exi' claim is not included in the Access Token.
             // Thus, 'cti' can be easily built by using the related single
             // counter
-            ctiB = buffer.putLong(0, this.cti).array();
+            try {
+                ctiB = ByteBuffer.allocate(Long.BYTES).putLong(0, this.ctiAllocator.next()).array();
+            } catch (AceException e) {
+                LOGGER.severe("Message processing aborted (allocating cti): " + e.getMessage());
+                DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
+                        "Message processing aborted (allocating cti)");
+                return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
+            }
             ctiStr = Base64.getEncoder().encodeToString(ctiB);
-            this.cti++;
         } else {
             // The 'exi' claim is included in the Access Token.
             //
@@ -620,32 +670,20 @@ public class Token implements Endpoint, AutoCloseable {
             for (String rs : rsSet)
                 rsName = new String(rs);
 
-            // Retrieve the value of the Exi Sequence Number to use for this
+            // Allocate the value of the Exi Sequence Number to use for this
             // Resource Server
-            if (exiSequenceNumbers.containsKey(rsName)) {
-                exiSeqNum = exiSequenceNumbers.get(rsName).intValue();
-            } else {
-                // This is going to be the first Access Token including the
-                // 'exi' claim issued to this Resource Server since the AS
-                // process started. Then, retrieve the current Exi Sequence
-                // Number value for this Resource Server from the database.
-                try {
-                    exiSeqNum = db.getExiSequenceNumber(rsName);
-                } catch (AceException e) {
-                    LOGGER.severe("Message processing aborted: Error when retrieving the Exi Sequence Number"
-                            + " for the Resource Server with Audience " + audStr + " from the database.\n"
-                            + e.getMessage());
-                    DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
-                            "Message processing aborted: Error when retrieving the Exi Sequence Number"
-                                    + " for the Resource Server with Audience " + audStr + " from the database.");
-                    return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
-                }
+            try {
+                exiSeqNum = (int) getExiAllocator(rsName).next();
+            } catch (AceException e) {
+                LOGGER.severe("Message processing aborted: Error when retrieving the Exi Sequence Number"
+                        + " for the Resource Server with Audience " + audStr + " from the database.\n"
+                        + e.getMessage());
+                DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
+                        "Message processing aborted: Error when retrieving the Exi Sequence Number"
+                                + " for the Resource Server with Audience " + audStr + " from the database.");
+                return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
             }
 
-            // Update the local collection of Exi Sequence Numbers
-            Integer newSeqNum = Integer.valueOf(exiSeqNum + 1);
-            exiSequenceNumbers.put(rsName, newSeqNum);
-
             String rawCti = new String(rsName + String.valueOf(exiSeqNum));
             ctiB = rawCti.getBytes(Constants.charset);
             ctiStr = Base64.getEncoder().encodeToString(ctiB);
@@ -658,24 +696,12 @@ public class Token implements Endpoint, AutoCloseable {
         try {
             profileStr = this.db.getSupportedProfile(id, aud);
         } catch (AceException e) {
-            if (!includeExi) {
-                this.cti--; // roll-back
-            } else {
-                // roll-back
-                exiSequenceNumbers.put(rsName, exiSeqNum);
-            }
             LOGGER.severe("Message processing aborted (finding profile): " + e.getMessage());
             DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
                     "Message processing aborted (finding profile)");
             return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
         }
         if (profileStr == null) {
-            if (!includeExi) {
-                this.cti--; // roll-back
-            } else {
-                // roll-back
-                exiSequenceNumbers.put(rsName, exiSeqNum);
-            }
             CBORObject map = CBORObject.NewMap();
             map.Add(Constants.ERROR, Constants.INCOMPATIBLE_PROFILES);
             LOGGER.log(Level.INFO, "Message processing aborted: " + "No compatible profile found");
@@ -686,12 +712,6 @@ public class Token implements Endpoint, AutoCloseable {
         short profile = Constants.getProfileAbbrev(profileStr);
 
         if (tokenType != AccessTokenFactory.CWT_TYPE && tokenType != AccessTokenFactory.REF_TYPE) {
-            if (!includeExi) {
-                this.cti--; // roll-back
-            } else {
-                // roll-back
-                exiSequenceNumbers.put(rsName, exiSeqNum);
-            }
             CBORObject map = CBORObject.NewMap();
             map.Add(Constants.ERROR, "Unsupported token type");
             LOGGER.log(Level.INFO, "Message processing aborted: " + "Unsupported token type");
@@ -782,12 +802,6 @@ public class Token implements Endpoint, AutoCloseable {
                     // check if PSK is supported for proof-of-possession
                     try {
                         if (!isSupported(keyType, aud)) {
-                            if (!includeExi) {
-                                this.cti--; // roll-back
-                            } else {
-                                // roll-back
-                                exiSequenceNumbers.put(rsName, exiSeqNum);
-                            }
                             CBORObject map = CBORObject.NewMap();
                             map.Add(Constants.ERROR, Constants.UNSUPPORTED_POP_KEY);
                             LOGGER.log(Level.INFO, "Message processing aborted: " + "Unsupported pop key type PSK");
@@ -796,12 +810,6 @@ public class Token implements Endpoint, AutoCloseable {
                             return msg.failReply(Message.FAIL_BAD_REQUEST, map);
                         }
                     } catch (AceException e) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         LOGGER.severe("Message processing aborted " + "(finding key type): " + e.getMessage());
                         DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
                                 "Message processing aborted " + "(finding key type)");
@@ -840,12 +848,6 @@ public class Token implements Endpoint, AutoCloseable {
                             claims.put(Constants.CNF, coseKey);
                         }
                     } catch (NoSuchAlgorithmException | CoseException e) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         LOGGER.severe("Message processing aborted " + "(making PSK): " + e.getMessage());
                         DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
                                 "Message processing aborted " + "(making PSK)");
@@ -858,12 +860,6 @@ public class Token implements Endpoint, AutoCloseable {
                     // Check that the kid is well-formed
                     CBORObject kidC = cnf.get(Constants.COSE_KID_CBOR);
                     if (!kidC.getType().equals(CBORType.ByteString)) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         LOGGER.info("Message processing aborted: " + " Malformed kid in request parameter 'cnf'");
                         DhtLogger.sendLog(TYPE_WARNING, PRIO_MEDIUM, CAT_STATUS, DEVICE_NAME,
                                 "Message processing aborted: " + " Malformed kid in request parameter 'cnf'");
@@ -881,12 +877,6 @@ public class Token implements Endpoint, AutoCloseable {
                         ctiSet = this.db.getCtis4Client(id);
 
                     } catch (AceException e) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         LOGGER.severe(
                                 "Message processing aborted " + "(finding cti of issues tokens): " + e.getMessage());
                         DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
@@ -920,12 +910,6 @@ public class Token implements Endpoint, AutoCloseable {
                                     continue;
                                 }
                             } catch (AceException e) {
-                                if (!includeExi) {
-                                    this.cti--; // roll-back
-                                } else {
-                                    // roll-back
-                                    exiSequenceNumbers.put(rsName, exiSeqNum);
-                                }
                                 LOGGER.severe("Message processing aborted " + "(finding previously released token): "
                                         + e.getMessage());
                                 DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
@@ -946,12 +930,6 @@ public class Token implements Endpoint, AutoCloseable {
                                 try {
                                     myClaims = this.db.getClaims(myCti);
                                 } catch (AceException e) {
-                                    if (!includeExi) {
-                                        this.cti--; // roll-back
-                                    } else {
-                                        // roll-back
-                                        exiSequenceNumbers.put(rsName, exiSeqNum);
-                                    }
                                     LOGGER.severe("Message processing aborted "
                                             + "(finding previously released token): " + e.getMessage());
                                     DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
@@ -1011,12 +989,6 @@ public class Token implements Endpoint, AutoCloseable {
                                 // Generate OSCORE cnf
                                 CBORObject oscId = this.cti2oscId.get(oldCti);
                                 if (oscId == null) {
-                                    if (!includeExi) {
-                                        this.cti--; // roll-back
-                                    } else {
-                                        // roll-back
-                                        exiSequenceNumbers.put(rsName, exiSeqNum);
-                                    }
                                     LOGGER.severe("Message processing aborted "
                                             + "(finding OSCORE ID when updating access rights)");
                                     DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME,
@@ -1060,12 +1032,6 @@ public class Token implements Endpoint, AutoCloseable {
                     try {
                         key = getKey(cnf, id);
                     } catch (AceException | CoseException e) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         LOGGER.severe("Message processing aborted: " + e.getMessage());
                         DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
                         if (e.getMessage().startsWith("Malformed")) {
@@ -1077,12 +1043,6 @@ public class Token implements Endpoint, AutoCloseable {
                         return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
                     }
                     if (key == null) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         CBORObject map = CBORObject.NewMap();
                         map.Add(Constants.ERROR, Constants.INVALID_REQUEST);
                         map.Add(Constants.ERROR_DESCRIPTION, "Couldn't retrieve RPK");
@@ -1094,12 +1054,6 @@ public class Token implements Endpoint, AutoCloseable {
 
                     if (key.get(KeyKeys.KeyType).equals(KeyKeys.KeyType_Octet)) {
                         // Client tried to submit a symmetric key => reject
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         CBORObject map = CBORObject.NewMap();
                         map.Add(Constants.ERROR, Constants.INVALID_REQUEST);
                         map.Add(Constants.ERROR_DESCRIPTION, "Client tried to provide cnf PSK");
@@ -1117,12 +1071,6 @@ public class Token implements Endpoint, AutoCloseable {
                     try {
                         RawPublicKeyIdentity rpkId = new RawPublicKeyIdentity(key.AsPublicKey());
                         if (!rpkId.getName().equals(id)) {
-                            if (!includeExi) {
-                                this.cti--; // roll-back
-                            } else {
-                                // roll-back
-                                exiSequenceNumbers.put(rsName, exiSeqNum);
-                            }
                             CBORObject map = CBORObject.NewMap();
                             map.Add(Constants.ERROR, Constants.UNSUPPORTED_POP_KEY);
                             LOGGER.log(Level.INFO, "Message processing aborted: " + "Client used unauthenticated RPK");
@@ -1132,12 +1080,6 @@ public class Token implements Endpoint, AutoCloseable {
                         }
 
                     } catch (CoseException e) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         CBORObject map = CBORObject.NewMap();
                         map.Add(Constants.ERROR, Constants.UNSUPPORTED_POP_KEY);
                         LOGGER.log(Level.INFO, "Message processing aborted: " + "Unsupported pop key type RPK");
@@ -1150,12 +1092,6 @@ public class Token implements Endpoint, AutoCloseable {
                     // Can the audience support this?
                     try {
                         if (!isSupported(keyType, aud)) {
-                            if (!includeExi) {
-                                this.cti--; // roll-back
-                            } else {
-                                // roll-back
-                                exiSequenceNumbers.put(rsName, exiSeqNum);
-                            }
                             CBORObject map = CBORObject.NewMap();
                             map.Add(Constants.ERROR, Constants.UNSUPPORTED_POP_KEY);
                             LOGGER.log(Level.INFO, "Message processing aborted: " + "Unsupported pop key type RPK");
@@ -1164,12 +1100,6 @@ public class Token implements Endpoint, AutoCloseable {
                             return msg.failReply(Message.FAIL_BAD_REQUEST, map);
                         }
                     } catch (AceException e) {
-                        if (!includeExi) {
-                            this.cti--; // roll-back
-                        } else {
-                            // roll-back
-                            exiSequenceNumbers.put(rsName, exiSeqNum);
-                        }
                         LOGGER.severe("Message processing aborted: " + e.getMessage());
                         DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
                         return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
@@ -1196,24 +1126,6 @@ public class Token implements Endpoint, AutoCloseable {
         try {
             token = AccessTokenFactory.generateToken(tokenType, claims);
         } catch (AceException e) {
-            if (!includeExi) {
-                this.cti--; // roll-back
-            } else {
-                // roll-back
-                exiSequenceNumbers.put(rsName, exiSeqNum);
-            }
-
-            // If the OSCORE profile is used, and this was a first-released
-            // Token to this client for RS in question, roll-back the counter
-            // used for the 'id' parameter in the OSCORE Security Context and
-            // the Id Context value assigned for this Resource Server
-            if (profile == Constants.COAP_OSCORE && updateAccessRights == false) {
-                this.OSCORE_material_counter--;
-                if (this.idContextInfoMap.containsKey(audStr)) {
-                    this.idContextInfoMap.get(audStr).rollback();
-                }
-            }
-
             LOGGER.severe("Message processing aborted: " + e.getMessage());
             DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
             return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
@@ -1243,24 +1155,6 @@ public class Token implements Endpoint, AutoCloseable {
             // Otherwise, no need to explicitly indicate the used profile
 
         } catch (AceException e) {
-            if (!includeExi) {
-                this.cti--; // roll-back
-            } else {
-                // roll-back
-                exiSequenceNumbers.put(rsName, exiSeqNum);
-            }
-
-            // If the OSCORE profile is used, and this was a first-released
-            // Token to this client for RS in question, roll-back the counter
-            // used for the 'id' parameter in the OSCORE Security Context and
-            // the Id Context value assigned for this Resource Server
-            if (profile == Constants.COAP_OSCORE && updateAccessRights == false) {
-                this.OSCORE_material_counter--;
-                if (this.idContextInfoMap.containsKey(audStr)) {
-                    this.idContextInfoMap.get(audStr).rollback();
-                }
-            }
-
             LOGGER.severe("Message processing aborted: " + e.getMessage());
             DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
             return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
@@ -1283,25 +1177,6 @@ public class Token implements Endpoint, AutoCloseable {
             try {
                 rscnfs = makeRsCnf(aud);
             } catch (AceException e) {
-                if (!includeExi) {
-                    this.cti--; // roll-back
-                } else {
-                    // roll-back
-                    exiSequenceNumbers.put(rsName, exiSeqNum);
-                }
-
-                // If the OSCORE profile is used, and this was a first-released
-                // Token to this client for RS in question, roll-back the
-                // counter used for the 'id' parameter in the OSCORE Security
-                // Context and the Id Context value assigned for this Resource
-                // Server
-                if (profile == Constants.COAP_OSCORE && updateAccessRights == false) {
-                    this.OSCORE_material_counter--;
-                    if (this.idContextInfoMap.containsKey(audStr)) {
-                        this.idContextInfoMap.get(audStr).rollback();
-                    }
-                }
-
                 LOGGER.severe("Message processing aborted: " + e.getMessage());
                 DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
                 return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
@@ -1325,49 +1200,11 @@ public class Token implements Endpoint, AutoCloseable {
             try {
                 ctx = EndpointUtils.makeCommonCtx(aud, this.db, this.privateKey, sign);
             } catch (AceException | CoseException e) {
-                if (!includeExi) {
-                    this.cti--; // roll-back
-                } else {
-                    // roll-back
-                    exiSequenceNumbers.put(rsName, exiSeqNum);
-                }
-
-                // If the OSCORE profile is used, and this was a first-released
-                // Token to this client for RS in question, roll-back the
-                // counter used for the 'id' parameter in the OSCORE Security
-                // Context and the Id Context value assigned for this Resource
-                // Server
-                if (profile == Constants.COAP_OSCORE && updateAccessRights == false) {
-                    this.OSCORE_material_counter--;
-                    if (this.idContextInfoMap.containsKey(audStr)) {
-                        this.idContextInfoMap.get(audStr).rollback();
-                    }
-                }
-
                 LOGGER.severe("Message processing aborted: " + e.getMessage());
                 DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
                 return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
             }
             if (ctx == null) {
-                if (!includeExi) {
-                    this.cti--; // roll-back
-                } else {
-                    // roll-back
-                    exiSequenceNumbers.put(rsName, exiSeqNum);
-                }
-
-                // If the OSCORE profile is used, and this was a first-released
-                // Token to this client for RS in question, roll-back the
-                // counter used for the 'id' parameter in the OSCORE Security
-                // Context and the Id Context value assigned for this Resource
-                // Server
-                if (profile == Constants.COAP_OSCORE && updateAccessRights == false) {
-                    this.OSCORE_material_counter--;
-                    if (this.idContextInfoMap.containsKey(audStr)) {
-                        this.idContextInfoMap.get(audStr).rollback();
-                    }
-                }
-
                 CBORObject map = CBORObject.NewMap();
                 map.Add(Constants.ERROR, "No common security context found for audience");
                 LOGGER.log(Level.INFO, "Message processing aborted: No common security context found for audience");
@@ -1390,25 +1227,6 @@ public class Token implements Endpoint, AutoCloseable {
             try {
                 rsInfo.Add(Constants.ACCESS_TOKEN, cwt.encode(ctx, null, uHeaders).EncodeToBytes());
             } catch (IllegalStateException | InvalidCipherTextException | CoseException | AceException e) {
-                if (!includeExi) {
-                    this.cti--; // roll-back
-                } else {
-                    // roll-back
-                    exiSequenceNumbers.put(rsName, exiSeqNum);
-                }
-
-                // If the OSCORE profile is used, and this was a first-released
-                // Token to this client for RS in question, roll-back the
-                // counter used for the 'id' parameter in the OSCORE Security
-                // Context and the Id Context value assigned for this Resource
-                // Server
-                if (profile == Constants.COAP_OSCORE && updateAccessRights == false) {
-                    this.OSCORE_material_counter--;
-                    if (this.idContextInfoMap.containsKey(audStr)) {
-                        this.idContextInfoMap.get(audStr).rollback();
-                    }
-                }
-
                 LOGGER.severe("Message processing aborted: " + e.getMessage());
                 DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Message processing aborted");
                 return msg.failReply(Message.FAIL_INTERNAL_SERVER_ERROR, null);
@@ -1444,10 +1262,8 @@ public class Token implements Endpoint, AutoCloseable {
 
             this.db.addToken(ctiStr, claims);
             this.db.addCti2Client(ctiStr, id);
-            if (!includeExi) {
-                this.db.saveCtiCounter(this.cti);
-            } else {
-                this.db.saveExiSequenceNumber(exiSeqNum + 1, rsName);
+            if (claims.containsKey(Constants.EXP)) {
+                this.expirySweeper.track(ctiStr, claims.get(Constants.EXP).AsNumber().ToInt64Checked());
             }
 
             // In case the client has asked to use a PSK, store further
@@ -1497,28 +1313,12 @@ public class Token implements Endpoint, AutoCloseable {
             }
 
         } catch (AceException e) {
-            if (!includeExi) {
-                this.cti--; // roll-back
-            } else {
-                // roll-back
-                exiSequenceNumbers.put(rsName, exiSeqNum);
-            }
 
             this.cti2aud.remove(ctiStr);
 
             if (keyType != null && keyType.equals("PSK")) {
 
                 if (profile == Constants.COAP_OSCORE) {
-                    if (updateAccessRights == false) {
-                        // Roll-back the counter used for the 'id' parameter in
-                        // the OSCORE Security Context and the Id Context value
-                        // assigned for this Resource Server
-                        this.OSCORE_material_counter--;
-                        if (this.idContextInfoMap.containsKey(audStr)) {
-                            this.idContextInfoMap.get(audStr).rollback();
-                        }
-                    }
-
                     this.cti2oscId.remove(ctiStr);
                 } else if (profile == Constants.COAP_DTLS) {
                     this.cti2kid.remove(ctiStr);
@@ -1549,6 +1349,38 @@ public class Token implements Endpoint, AutoCloseable {
         return msg.successReply(Message.CREATED, rsInfo);
     }
 
+    /**
+     * Get the allocator of the Exi Sequence Numbers for a Resource Server.
+     * 
+     * If this is going to be the first Access Token including the 'exi' claim issued to this Resource Server since the
+     * AS process started, the current Exi Sequence Number value for this Resource Server is retrieved from the
+     * database.
+     * 
+     * @param rsName the name of the Resource Server
+     * @return the allocator
+     * @throws AceException if retrieving the Exi Sequence Number from the database fails
+     */
+    private BlockAllocator getExiAllocator(final String rsName) throws AceException {
+        BlockAllocator allocator = this.exiSequenceNumbers.get(rsName);
+        if (allocator == null) {
+            // The database stores the high-water mark as an int, which is at
+            // most the maximum value plus one
+            allocator = new BlockAllocator(this.db.getExiSequenceNumber(rsName), this.idBlockSize,
+                    Integer.MAX_VALUE - 1) {
+
+                @Override
+                protected void persist(long highWater) throws AceException {
+                    Token.this.db.saveExiSequenceNumber(Math.toIntExact(highWater), rsName);
+                }
+            };
+            BlockAllocator previous = this.exiSequenceNumbers.putIfAbsent(rsName, allocator);
+            if (previous != null) {
+                allocator = previous;
+            }
+        }
+        return allocator;
+    }
+
     /**
      * Populate RS_CNF
      * 
@@ -1578,14 +1410,13 @@ public class Token implements Endpoint, AutoCloseable {
      * 
      * @return the value of a 'cnf' claim as an "OSCORE_Input_Material" CBOR object
      */
-    synchronized private CBORObject makeOscoreCnf(byte[] masterSecret, String rsName) {
+    private CBORObject makeOscoreCnf(byte[] masterSecret, String rsName) {
         CBORObject osccnf = CBORObject.NewMap();
         CBORObject osc = CBORObject.NewMap();
 
         osc.Add(Constants.OS_MS, masterSecret);
 
-        osc.Add(Constants.OS_ID, Util.intToBytes(OSCORE_material_counter));
-        OSCORE_material_counter++;
+        osc.Add(Constants.OS_ID, Util.intToBytes(OSCORE_material_counter.getAndIncrement()));
 
         if (masterSaltSize != 0) {
             byte[] masterSalt = new byte[masterSaltSize];
@@ -1595,13 +1426,14 @@ public class Token implements Endpoint, AutoCloseable {
 
         if (this.provideIdContext == true) {
 
-            IdContextInfo idContextInfo;
-            if (this.idContextInfoMap.containsKey(rsName)) {
-                idContextInfo = this.idContextInfoMap.get(rsName);
-            } else {
+            IdContextInfo idContextInfo = this.idContextInfoMap.get(rsName);
+            if (idContextInfo == null) {
                 // This is the first Access Token for this Resource Server
                 idContextInfo = new IdContextInfo();
-                this.idContextInfoMap.put(rsName, idContextInfo);
+                IdContextInfo previous = this.idContextInfoMap.putIfAbsent(rsName, idContextInfo);
+                if (previous != null) {
+                    idContextInfo = previous;
+                }
             }
 
             byte[] idContext = idContextInfo.getIdContext();
@@ -1754,6 +1586,7 @@ public class Token implements Endpoint, AutoCloseable {
      */
     public void removeToken(String cti) throws AceException {
         this.db.deleteToken(cti);
+        this.expirySweeper.untrack(cti);
 
         this.cti2aud.remove(cti);
         this.cti2oscId.remove(cti);
@@ -1762,12 +1595,20 @@ public class Token implements Endpoint, AutoCloseable {
         // FIXME: Add the token to the TRL
     }
 
+    /**
+     * @return the sweeper removing expired tokens, e.g. to read its metrics
+     */
+    public TokenExpirySweeper getExpirySweeper() {
+        return this.expirySweeper;
+    }
+
     @Override
     public void close() throws AceException {
-        this.db.saveCtiCounter(this.cti);
+        this.expirySweeper.close();
+        this.ctiAllocator.flush();
 
-        for (String rs : exiSequenceNumbers.keySet())
-            this.db.saveExiSequenceNumber(exiSequenceNumbers.get(rs).intValue(), rs);
+        for (BlockAllocator allocator : exiSequenceNumbers.values())
+            allocator.flush();
 
         this.db.close();
     }
@@ -1838,28 +1679,6 @@ public class Token implements Endpoint, AutoCloseable {
 
         }
 
-        // Free up the Id Context latest assigned for this Resource Server
-        synchronized public void rollback() {
-
-            if (currentValue != 0) {
-                currentValue--;
-            } else {
-                switch (currentSize) {
-                case 1: // Restore the maximum value: 2^31 - 1 --- The other
-                        // half is for negative integers
-                    currentSize = 4;
-                    currentValue = (1 << ((currentSize * 8) - 1)) - 1;
-                    break;
-                case 2: // Restore the maximum value: 2^8 - 1
-                case 3: // Restore the maximum value: 2^16 - 1
-                case 4: // Restore the maximum value: 2^24 - 1
-                    currentSize--;
-                    currentValue = (1 << (currentSize * 8)) - 1;
-                    break;
-                }
-            }
-        }
-
     }
 
 }
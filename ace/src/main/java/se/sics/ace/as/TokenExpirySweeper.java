@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import se.sics.ace.AceException;
+import se.sics.ace.TimeProvider;
+import se.sics.ace.as.logging.DhtLogger;
+import static se.sics.ace.as.logging.Const.*;
+
+/**
+ * Removes expired tokens from the database in the background.
+ *
+ * Tokens issued by the /token endpoint are registered with their expiration
+ * time in an in-memory index ordered by expiration. A sweep only looks at the
+ * head of that index and deletes at most <code>batchSize</code> expired
+ * tokens, so that issuing tokens neither waits for nor competes with a full
+ * scan of the claims table.
+ *
+ * Tokens stored in the database by an earlier run are not part of the index.
+ * These are removed by a full purge through
+ * {@link DBConnector#purgeExpiredTokens(long)}, which runs at the first sweep
+ * and then every <code>fullPurgeInterval</code> milliseconds.
+ *
+ * Metrics about the sweeps are available via the getters, e.g. the purge lag,
+ * i.e. how late an expired token was removed, and the number of tokens removed
+ * by the last sweep.
+ *
+ * @author agent
+ *
+ */
+public class TokenExpirySweeper implements AutoCloseable {
+
+    /**
+     * The logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(TokenExpirySweeper.class.getName());
+
+    /**
+     * The default interval between sweeps in milliseconds
+     */
+    public static final long DEFAULT_INTERVAL = 10000L;
+
+    /**
+     * The default maximum number of tokens removed by a single sweep
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * The default interval between full purges of the database in milliseconds
+     */
+    public static final long DEFAULT_FULL_PURGE_INTERVAL = 1000L * 60 * 60; // 1 hour
+
+    /**
+     * The database connector the tokens are removed from
+     */
+    private final DBConnector db;
+
+    /**
+     * The time provider, also used for the expiration times in the index
+     */
+    private final TimeProvider time;
+
+    /**
+     * The interval between sweeps in milliseconds
+     */
+    private final long interval;
+
+    /**
+     * The maximum number of tokens removed by a single sweep
+     */
+    private final int batchSize;
+
+    /**
+     * The interval between full purges in milliseconds, 0 for only one full
+     * purge at the first sweep
+     */
+    private final long fullPurgeInterval;
+
+    /**
+     * The expiry index, ordered by expiration time
+     */
+    private final PriorityBlockingQueue<Expiry> index = new PriorityBlockingQueue<>();
+
+    /**
+     * The expiration time of the indexed tokens that are still valid. Entries
+     * are removed when a token is deleted otherwise, so that stale entries in
+     * the index are skipped.
+     */
+    private final Map<String, Long> tracked = new ConcurrentHashMap<>();
+
+    /**
+     * The time of the next full purge, or Long.MIN_VALUE if none has been
+     * done yet
+     */
+    private long nextFullPurge = Long.MIN_VALUE;
+
+    private ScheduledExecutorService executor;
+
+    private volatile boolean running;
+
+    private ScheduledFuture<?> task;
+
+    private final AtomicLong sweeps = new AtomicLong();
+
+    private final AtomicLong removedLastSweep = new AtomicLong();
+
+    private final AtomicLong removedTotal = new AtomicLong();
+
+    private final AtomicLong lastPurgeLag = new AtomicLong();
+
+    private final AtomicLong maxPurgeLag = new AtomicLong();
+
+    /**
+     * Constructor using the default interval and batch size.
+     *
+     * @param db the database connector
+     * @param time the time provider
+     */
+    public TokenExpirySweeper(DBConnector db, TimeProvider time) {
+        this(db, time, DEFAULT_INTERVAL, DEFAULT_BATCH_SIZE, DEFAULT_FULL_PURGE_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param db the database connector
+     * @param time the time provider
+     * @param interval the interval between sweeps in milliseconds
+     * @param batchSize the maximum number of tokens removed by a single sweep
+     * @param fullPurgeInterval the interval between full purges of the
+     *        database in milliseconds, 0 to do a full purge only at the first
+     *        sweep
+     */
+    public TokenExpirySweeper(DBConnector db, TimeProvider time, long interval, int batchSize,
+            long fullPurgeInterval) {
+        if (db == null || time == null) {
+            throw new IllegalArgumentException("TokenExpirySweeper requires non-null db and time");
+        }
+        if (interval <= 0L || batchSize <= 0 || fullPurgeInterval < 0L) {
+            throw new IllegalArgumentException("TokenExpirySweeper requires positive interval and batch size");
+        }
+        this.db = db;
+        this.time = time;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.fullPurgeInterval = fullPurgeInterval;
+    }
+
+    /**
+     * Start sweeping in the background. Does nothing if already started.
+     */
+    public synchronized void start() {
+        if (this.executor != null) {
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "TokenExpirySweeper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.running = true;
+        this.task = this.executor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    // Continue right away while full batches are removed
+                    while (TokenExpirySweeper.this.running && sweep() == TokenExpirySweeper.this.batchSize) {
+                        Thread.yield();
+                    }
+                } catch (AceException e) {
+                    LOGGER.severe("Database error while purging expired tokens: " + e.getMessage());
+                    DhtLogger.sendLog(TYPE_ERROR, PRIO_HIGH, CAT_STATUS, DEVICE_NAME, "Database error");
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Purging expired tokens failed", e);
+                }
+            }
+        }, 0L, this.interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register an issued token.
+     *
+     * @param cti the token identifier Base64 encoded
+     * @param exp the expiration time of the token
+     */
+    public void track(String cti, long exp) {
+        this.tracked.put(cti, exp);
+        this.index.add(new Expiry(cti, exp));
+    }
+
+    /**
+     * Unregister a token that has been removed by other means.
+     *
+     * @param cti the token identifier Base64 encoded
+     */
+    public void untrack(String cti) {
+        this.tracked.remove(cti);
+    }
+
+    /**
+     * Remove up to <code>batchSize</code> expired tokens from the database.
+     * Also does a full purge, if one is due.
+     *
+     * Usually called by the background task, but may also be called directly.
+     *
+     * @return the number of indexed tokens removed
+     *
+     * @throws AceException if removing a token from the database fails
+     */
+    public synchronized int sweep() throws AceException {
+        long now = this.time.getCurrentTime();
+        if (this.nextFullPurge == Long.MIN_VALUE
+                || (this.fullPurgeInterval > 0L && now >= this.nextFullPurge)) {
+            this.db.purgeExpiredTokens(now);
+            this.nextFullPurge = now + this.fullPurgeInterval;
+        }
+
+        int removed = 0;
+        long lag = 0L;
+        while (removed < this.batchSize) {
+            Expiry head = this.index.peek();
+            // Same condition as DBConnector.purgeExpiredTokens()
+            if (head == null || now <= head.exp) {
+                break;
+            }
+            this.index.poll();
+            if (!this.tracked.remove(head.cti, head.exp)) {
+                // Already deleted, or re-registered with another expiration
+                continue;
+            }
+            try {
+                this.db.deleteToken(head.cti);
+            } catch (AceException e) {
+                // Retry with the next sweep
+                track(head.cti, head.exp);
+                throw e;
+            }
+            lag = Math.max(lag, now - head.exp);
+            removed++;
+        }
+
+        this.sweeps.incrementAndGet();
+        this.removedLastSweep.set(removed);
+        this.removedTotal.addAndGet(removed);
+        this.lastPurgeLag.set(lag);
+        if (lag > this.maxPurgeLag.get()) {
+            this.maxPurgeLag.set(lag);
+        }
+        if (removed > 0) {
+            LOGGER.fine("Purged " + removed + " expired tokens, purge lag " + lag);
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of sweeps done so far
+     */
+    public long getSweepCount() {
+        return this.sweeps.get();
+    }
+
+    /**
+     * @return the number of tokens removed by the last sweep
+     */
+    public long getRemovedLastSweep() {
+        return this.removedLastSweep.get();
+    }
+
+    /**
+     * @return the number of tokens removed by all sweeps
+     */
+    public long getRemovedTotal() {
+        return this.removedTotal.get();
+    }
+
+    /**
+     * @return the largest time between expiration and removal of a token
+     *         removed by the last sweep
+     */
+    public long getLastPurgeLag() {
+        return this.lastPurgeLag.get();
+    }
+
+    /**
+     * @return the largest time between expiration and removal of any token
+     *         removed so far
+     */
+    public long getMaxPurgeLag() {
+        return this.maxPurgeLag.get();
+    }
+
+    /**
+     * @return the number of tokens in the expiry index
+     */
+    public int getTrackedCount() {
+        return this.tracked.size();
+    }
+
+    /**
+     * Stop sweeping in the background. Tokens are still registered and can be
+     * removed by calling {@link #sweep()}.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = this.executor;
+            if (executor == null) {
+                return;
+            }
+            this.running = false;
+            this.task.cancel(false);
+            this.executor = null;
+            this.task = null;
+        }
+        executor.shutdown();
+        try {
+            // Don't let a running sweep use the database after closing
+            executor.awaitTermination(this.interval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An entry of the expiry index
+     */
+    private static class Expiry implements Comparable<Expiry> {
+
+        private final String cti;
+
+        private final long exp;
+
+        Expiry(String cti, long exp) {
+            this.cti = cti;
+            this.exp = exp;
+        }
+
+        @Override
+        public int compareTo(Expiry o) {
+            return Long.compare(this.exp, o.exp);
+        }
+    }
+}
@@ -34,6 +34,7 @@ package se.sics.ace.coap.rs.oscoreProfile;
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -77,11 +78,6 @@ public class OscoreAuthzInfo extends AuthzInfo {
     private static final Logger LOGGER 
         = Logger.getLogger(OscoreAuthzInfo.class.getName());
 
-    /**
-     * Temporary storage for the CNF claim
-     */
-    private CBORObject cnf;
-
 	/**
 	 * Constructor.
 	 * 
@@ -109,7 +105,7 @@ public class OscoreAuthzInfo extends AuthzInfo {
 	}
 
 	@Override
-	public synchronized Message processMessage(Message msg) {
+	public Message processMessage(Message msg) {
 	    LOGGER.log(Level.INFO, "received message: " + msg);
 	    CBORObject cbor = null;
 	    
@@ -201,12 +197,14 @@ public class OscoreAuthzInfo extends AuthzInfo {
             return msg.failReply(Message.FAIL_BAD_REQUEST, map);
         }
 
-        Message reply = super.processToken(tokenAsCbor, msg);
+        Map<Short, CBORObject> stored = new HashMap<>();
+        Message reply = super.processToken(tokenAsCbor, msg, stored);
         if (reply.getMessageCode() != Message.CREATED) {
             return reply;
         }
         
-        if (this.cnf == null) {//Should never happen, caught in TokenRepository
+        CBORObject cnf = stored.get(Constants.CNF);
+        if (cnf == null) {//Should never happen, caught in TokenRepository
             LOGGER.info("Missing required parameter 'cnf'");
             CBORObject map = CBORObject.NewMap();
             map.Add(Constants.ERROR, Constants.INVALID_REQUEST);
@@ -238,7 +236,7 @@ public class OscoreAuthzInfo extends AuthzInfo {
 	   
 	        OscoreSecurityContext osc;
 	        try {
-	            osc = new OscoreSecurityContext(this.cnf);
+	            osc = new OscoreSecurityContext(cnf);
 	            
 	        } catch (AceException e) {
 	            CBORObject map = CBORObject.NewMap();
@@ -327,11 +325,6 @@ public class OscoreAuthzInfo extends AuthzInfo {
         return msg.successReply(reply.getMessageCode(), payload);
 	}
 
-	@Override
-	protected synchronized void processOther(Map<Short, CBORObject> claims) {
-	    this.cnf = claims.get(Constants.CNF);
-	}
-
     @Override
     public void close() throws AceException {
        super.close();
@@ -31,13 +31,17 @@
  *******************************************************************************/
 package se.sics.ace.examples;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import com.upokecenter.cbor.CBORObject;
 import com.upokecenter.cbor.CBORType;
 
 import se.sics.ace.AceException;
+import se.sics.ace.rs.CompiledScope;
+import se.sics.ace.rs.ScopeCompiler;
 import se.sics.ace.rs.ScopeValidator;
 
 /**
@@ -46,7 +50,7 @@ import se.sics.ace.rs.ScopeValidator;
  * @author Ludwig Seitz and Marco Tiloca
  *
  */
-public class Aif implements ScopeValidator {
+public class Aif implements ScopeValidator, ScopeCompiler {
 
     /**
      * Representation of GET in the AIF
@@ -188,4 +192,27 @@ public class Aif implements ScopeValidator {
     	return isScopeMeaningful(scope);
     }
     
+    @Override
+    public CompiledScope compileScope(CBORObject scope) throws AceException {
+        if (!scope.getType().equals(CBORType.Array)) {
+            throw new AceException("scope must be a CBOR array in Aif");
+        }
+        
+        // The AIF already encodes the actions as bitmask, with
+        // the bit of each action at the same position
+        long allActions = powers[powers.length - 1] * 2L - 1;
+        Map<String, Long> permissions = new HashMap<>();
+        for (int i=0; i<scope.size();i++) {
+            CBORObject scopeElement = scope.get(i);
+            if (!scopeElement.getType().equals(CBORType.Array)) {
+                throw new AceException("Invalid scope format");
+            }
+            String resource = scopeElement.get(0).AsString();
+            long actions = scopeElement.get(1).AsNumber().ToInt16Checked() & allActions;
+            Long previous = permissions.get(resource);
+            permissions.put(resource, (previous == null) ? actions : previous | actions);
+        }
+        return new CompiledScope(permissions);
+    }
+    
 }
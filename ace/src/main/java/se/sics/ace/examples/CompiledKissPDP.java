@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.examples;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import se.sics.ace.AceException;
+import se.sics.ace.as.DBConnector;
+
+/**
+ * A KissPDP deciding from an in-memory copy of its ACLs.
+ * 
+ * The token, introspect and access tables are loaded into an immutable
+ * snapshot, indexing the scopes by client and RS. The decisions are taken
+ * from the current snapshot without SQL queries and without locking. Every
+ * change of the ACLs through this PDP is written to the database as by 
+ * KissPDP, and then a fresh snapshot is loaded and swapped in. Changes made
+ * to the tables by other means are only seen after calling reload().
+ * 
+ * The RSs of an audience are still resolved by a DBConnector, which can be
+ * a CachingDBConnector to avoid SQL queries there as well.
+ * 
+ * @author agent
+ *
+ */
+public class CompiledKissPDP extends KissPDP {
+
+    /**
+     * The connector to load the ACLs from
+     */
+    private final SQLConnector connection;
+
+    /**
+     * The connector resolving the RSs of an audience
+     */
+    private final DBConnector audiences;
+
+    /**
+     * The current snapshot of the ACLs
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructor, resolving audiences with the same connector.
+     * 
+     * @param connection  the database connector
+     * @throws AceException 
+     */
+    public CompiledKissPDP(SQLConnector connection) throws AceException {
+        this(connection, connection);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param connection  the database connector
+     * @param audiences  the connector resolving the RSs of an audience
+     * @throws AceException 
+     */
+    public CompiledKissPDP(SQLConnector connection, DBConnector audiences) 
+            throws AceException {
+        super(connection);
+        if (audiences == null) {
+            throw new AceException(
+                    "CompiledKissPDP requires non-null audiences connector");
+        }
+        this.connection = connection;
+        this.audiences = audiences;
+        this.snapshot = load();
+    }
+
+    /**
+     * Load a fresh snapshot of the ACLs from the database, e.g. after they
+     * were changed without this PDP.
+     * 
+     * @throws AceException
+     */
+    public synchronized void reload() throws AceException {
+        this.snapshot = load();
+    }
+
+    @Override
+    public boolean canAccessToken(String clientId) throws AceException {
+        if (clientId == null) {
+            throw new AceException(
+                    "canAccessToken() requires non-null clientId");
+        }
+        return this.snapshot.token.contains(clientId);
+    }
+
+    @Override
+    public IntrospectAccessLevel getIntrospectAccessLevel(String rsId) 
+            throws AceException {
+        if (rsId == null) {
+            throw new AceException(
+                    "getIntrospectAccessLevel() requires non-null rsId");
+        }
+        IntrospectAccessLevel level = this.snapshot.introspect.get(rsId);
+        return (level == null) ? IntrospectAccessLevel.NONE : level;
+    }
+
+    @Override
+    public String canAccess(String clientId, Set<String> aud, Object scope) 
+            throws AceException {
+        if (clientId == null) {
+            throw new AceException(
+                    "canAccess() requires non-null clientId");
+        }
+        if (aud == null) {
+            throw new AceException(
+                    "canAccess() requires non-null audience");
+        }
+        if (scope == null) {
+            throw new AceException(
+                    "canAccess() requires non-null scope");
+        }
+
+        Set<String> rss = new HashSet<>();
+        for (String audE : aud) {
+            rss.addAll(this.audiences.getRSS(audE));
+        }
+        if (rss.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Set<String>> clientACL = this.snapshot.access.get(clientId);
+        if (clientACL == null) {
+            return null;
+        }
+        //The scopes the client can access on all RSs of the audience
+        Set<String> scopes = null;
+        for (String rs : rss) {
+            Set<String> rsScopes = clientACL.get(rs);
+            if (rsScopes == null) {
+                //The client can access nothing on this RS
+                return null;
+            }
+            if (scopes == null) {
+                scopes = rsScopes;
+            } else if (scopes != rsScopes) {
+                Set<String> remains = new HashSet<>(scopes);
+                remains.retainAll(rsScopes);
+                scopes = remains;
+            }
+        }
+        if (scopes.isEmpty()) {
+            return null;
+        }
+
+        String scopeStr;
+        if (scope instanceof String) {
+            scopeStr = (String)scope;
+        } else {
+            throw new AceException(
+                    "KissPDP does not support non-String scopes");
+        }
+        String[] requestedScopes = scopeStr.split(" ");
+        StringBuilder grantedScopes = new StringBuilder();
+        for (int i=0; i<requestedScopes.length; i++) {
+            if (scopes.contains(requestedScopes[i])) {
+                if (grantedScopes.length() > 0) {
+                    grantedScopes.append(' ');
+                }
+                grantedScopes.append(requestedScopes[i]);
+            }
+        }
+        if (grantedScopes.length() == 0) {
+            return null;
+        }
+        return grantedScopes.toString();
+    }
+
+    @Override
+    public Map<String, Set<String>> getAllAccess(String id) 
+            throws AceException {
+        if (id == null) {
+            throw new AceException(
+                    "getAllAccess() requires non-null id");
+        }
+        Map<String, Set<String>> accessMap = new HashMap<>();
+        Map<String, Set<String>> clientACL = this.snapshot.access.get(id);
+        if (clientACL != null) {
+            for (Map.Entry<String, Set<String>> e : clientACL.entrySet()) {
+                accessMap.put(e.getKey(), new HashSet<>(e.getValue()));
+            }
+        }
+        return accessMap;
+    }
+
+    @Override
+    public synchronized void addTokenAccess(String id) throws AceException {
+        super.addTokenAccess(id);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void addIntrospectAccess(String id, 
+            IntrospectAccessLevel accessLevel) throws AceException {
+        super.addIntrospectAccess(id, accessLevel);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void addAccess(String cid, String rid, String scope) 
+            throws AceException {
+        super.addAccess(cid, rid, scope);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void revokeTokenAccess(String id) throws AceException {
+        super.revokeTokenAccess(id);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void revokeIntrospectAccess(String id) 
+            throws AceException {
+        super.revokeIntrospectAccess(id);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void revokeAccess(String cid, String rid, String scope)
+            throws AceException {
+        super.revokeAccess(cid, rid, scope);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void revokeAllAccess(String id) throws AceException {
+        super.revokeAllAccess(id);
+        this.snapshot = load();
+    }
+
+    @Override
+    public synchronized void revokeAllRsAccess(String cid, String rid) 
+            throws AceException {
+        super.revokeAllRsAccess(cid, rid);
+        this.snapshot = load();
+    }
+
+    /**
+     * Load a snapshot of the ACLs from the database.
+     * 
+     * @return  the snapshot
+     * @throws AceException
+     */
+    private Snapshot load() throws AceException {
+        Set<String> token = new HashSet<>();
+        Map<String, IntrospectAccessLevel> introspect = new HashMap<>();
+        Map<String, Map<String, Set<String>>> access = new HashMap<>();
+        SQLDBAdapter adapter = this.connection.getAdapter();
+        try (Connection conn = adapter.getDBConnection();
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet result = stmt.executeQuery(
+                    adapter.updateEngineSpecificSQL(
+                            "SELECT * FROM " + tokenTable + ";"))) {
+                while (result.next()) {
+                    token.add(result.getString(DBConnector.idColumn));
+                }
+            }
+            try (ResultSet result = stmt.executeQuery(
+                    adapter.updateEngineSpecificSQL(
+                            "SELECT * FROM " + introspectTable + ";"))) {
+                while (result.next()) {
+                    //As KissPDP, the first entry of an RS applies
+                    String id = result.getString(DBConnector.idColumn);
+                    if (!introspect.containsKey(id)) {
+                        introspect.put(id, 
+                                result.getBoolean(introspectClaimsColumn)
+                                ? IntrospectAccessLevel.ACTIVE_AND_CLAIMS
+                                : IntrospectAccessLevel.ACTIVE_ONLY);
+                    }
+                }
+            }
+            try (ResultSet result = stmt.executeQuery(
+                    adapter.updateEngineSpecificSQL(
+                            "SELECT * FROM " + accessTable + ";"))) {
+                while (result.next()) {
+                    String cid = result.getString(DBConnector.idColumn);
+                    String rid = result.getString(DBConnector.rsIdColumn);
+                    Map<String, Set<String>> clientACL = access.get(cid);
+                    if (clientACL == null) {
+                        clientACL = new HashMap<>();
+                        access.put(cid, clientACL);
+                    }
+                    Set<String> scopes = clientACL.get(rid);
+                    if (scopes == null) {
+                        scopes = new HashSet<>();
+                        clientACL.put(rid, scopes);
+                    }
+                    scopes.add(result.getString(DBConnector.scopeColumn));
+                }
+            }
+        } catch (SQLException e) {
+            throw new AceException(e.getMessage());
+        }
+        for (Map.Entry<String, Map<String, Set<String>>> client 
+                : access.entrySet()) {
+            for (Map.Entry<String, Set<String>> e 
+                    : client.getValue().entrySet()) {
+                e.setValue(Collections.unmodifiableSet(e.getValue()));
+            }
+            client.setValue(Collections.unmodifiableMap(client.getValue()));
+        }
+        return new Snapshot(token, introspect, access);
+    }
+
+    /**
+     * An immutable snapshot of the ACLs.
+     */
+    private static class Snapshot {
+
+        /**
+         * The clients allowed to access the token endpoint
+         */
+        private final Set<String> token;
+
+        /**
+         * The introspection access level by RS
+         */
+        private final Map<String, IntrospectAccessLevel> introspect;
+
+        /**
+         * The scopes by RS by client
+         */
+        private final Map<String, Map<String, Set<String>>> access;
+
+        private Snapshot(Set<String> token, 
+                Map<String, IntrospectAccessLevel> introspect,
+                Map<String, Map<String, Set<String>>> access) {
+            this.token = Collections.unmodifiableSet(token);
+            this.introspect = Collections.unmodifiableMap(introspect);
+            this.access = Collections.unmodifiableMap(access);
+        }
+    }
+}
@@ -44,6 +44,8 @@ import com.upokecenter.cbor.CBORType;
 
 import se.sics.ace.AceException;
 import se.sics.ace.rs.AudienceValidator;
+import se.sics.ace.rs.CompiledScope;
+import se.sics.ace.rs.ScopeCompiler;
 import se.sics.ace.rs.ScopeValidator;
 
 /**
@@ -56,7 +58,7 @@ import se.sics.ace.rs.ScopeValidator;
  * @author Ludwig Seitz and Marco Tiloca
  *
  */
-public class KissValidator implements AudienceValidator, ScopeValidator {
+public class KissValidator implements AudienceValidator, ScopeValidator, ScopeCompiler {
 
     /**
      * The audiences we recognize
@@ -170,4 +172,32 @@ public class KissValidator implements AudienceValidator, ScopeValidator {
     public boolean isScopeMeaningful(CBORObject scope, String aud) throws AceException {
         return isScopeMeaningful(scope);
     }
+
+    @Override
+    public CompiledScope compileScope(CBORObject scope) throws AceException {
+        if (!scope.getType().equals(CBORType.TextString)) {
+            throw new AceException("Scope must be a String in KissValidator");
+        }
+        Map<String, Long> permissions = new HashMap<>();
+        String[] scopes = scope.AsString().split(" ");
+        for (String subscope : scopes) {
+            Map<String, Set<Short>> resources = this.myScopes.get(subscope);
+            if (resources == null) {
+                continue;
+            }
+            for (Map.Entry<String, Set<Short>> e : resources.entrySet()) {
+                long actions = 0L;
+                for (Short action : e.getValue()) {
+                    long bit = CompiledScope.actionBit(action);
+                    if (bit == 0L) {
+                        return null; // Not representable, leave it to scopeMatch()
+                    }
+                    actions |= bit;
+                }
+                Long previous = permissions.get(e.getKey());
+                permissions.put(e.getKey(), (previous == null) ? actions : previous | actions);
+            }
+        }
+        return new CompiledScope(permissions);
+    }
 }
@@ -0,0 +1,618 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.examples;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.CoseException;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.AceException;
+import se.sics.ace.COSEparams;
+import se.sics.ace.as.DBConnector;
+
+/**
+ * A DBConnector using a pool of SQL connections.
+ * 
+ * The {@link SQLConnector} synchronizes every method on a single connection.
+ * This class instead keeps up to <code>poolSize</code> {@link SQLConnector}
+ * instances, each with its own connection and its own prepared statements.
+ * Every call borrows one of them, so that concurrent calls, e.g. from the
+ * /token and /introspect endpoints, run in parallel on different connections.
+ * 
+ * The cti counter and the exi sequence numbers are always read and written
+ * through one dedicated connection, so that these updates are applied in the
+ * order they are made, as with a single {@link SQLConnector}.
+ * 
+ * Note that methods updating several tables, e.g. addRS() or deleteRS(), are
+ * not atomic to concurrent readers on other connections.
+ * 
+ * @author agent
+ *
+ */
+public class PooledSQLConnector implements DBConnector, AutoCloseable {
+
+    /**
+     * The default number of pooled connections
+     */
+    public static final int DEFAULT_POOL_SIZE = 8;
+
+    /**
+     * Time in milliseconds to wait for a free connection
+     */
+    private static final long BORROW_TIMEOUT = 30000L;
+
+    /**
+     * The DB adapter used to open new connections
+     */
+    private final SQLDBAdapter adapter;
+
+    /**
+     * The maximum number of pooled connections
+     */
+    private final int poolSize;
+
+    /**
+     * The idle connectors
+     */
+    private final LinkedBlockingQueue<SQLConnector> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * All connectors created by this pool
+     */
+    private final List<SQLConnector> all = new ArrayList<>();
+
+    /**
+     * The connector for the cti counter and the exi sequence numbers
+     */
+    private final SQLConnector counters;
+
+    private boolean closed = false;
+
+    /**
+     * Constructor using the default pool size.
+     * 
+     * @param dbAdapter an adapter already set up with the database information, specific for each engine.
+     * 
+     * @throws SQLException if the first connection cannot be opened
+     */
+    public PooledSQLConnector(SQLDBAdapter dbAdapter) throws SQLException {
+        this(dbAdapter, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param dbAdapter an adapter already set up with the database information, specific for each engine.
+     * @param poolSize the maximum number of pooled connections, not counting the connection used for the cti
+     *        counter and the exi sequence numbers
+     * 
+     * @throws SQLException if the first connection cannot be opened
+     */
+    public PooledSQLConnector(SQLDBAdapter dbAdapter, int poolSize) throws SQLException {
+        if (dbAdapter == null || poolSize <= 0) {
+            throw new IllegalArgumentException("PooledSQLConnector requires an adapter and a positive pool size");
+        }
+        this.adapter = dbAdapter;
+        this.poolSize = poolSize;
+        this.counters = new SQLConnector(dbAdapter);
+    }
+
+    /**
+     * @return the number of connections opened so far, not counting the connection used for the cti counter and
+     *         the exi sequence numbers
+     */
+    public synchronized int getOpenConnections() {
+        return this.all.size();
+    }
+
+    /**
+     * Get an idle connector, opening a new connection if none is idle and the pool is not yet full.
+     * 
+     * @return the connector, to be returned with {@link #release(SQLConnector)}
+     * 
+     * @throws AceException if the pool is closed, no connection can be opened, or no connector got idle in time
+     */
+    private SQLConnector borrow() throws AceException {
+        SQLConnector connector = this.idle.poll();
+        if (connector != null) {
+            return connector;
+        }
+        synchronized (this) {
+            if (this.closed) {
+                throw new AceException("Connector is closed");
+            }
+            if (this.all.size() < this.poolSize) {
+                try {
+                    connector = new SQLConnector(this.adapter);
+                } catch (SQLException e) {
+                    throw new AceException(e.getMessage());
+                }
+                this.all.add(connector);
+                return connector;
+            }
+        }
+        try {
+            connector = this.idle.poll(BORROW_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AceException("Interrupted while waiting for a database connection");
+        }
+        if (connector == null) {
+            throw new AceException("No database connection available");
+        }
+        return connector;
+    }
+
+    /**
+     * Return a connector to the pool.
+     * 
+     * @param connector the connector from {@link #borrow()}
+     */
+    private void release(SQLConnector connector) {
+        this.idle.offer(connector);
+    }
+
+    @Override
+    public String getSupportedProfile(String clientId, Set<String> aud) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getSupportedProfile(clientId, aud);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public boolean hasDefaultProfile(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.hasDefaultProfile(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedPopKeyTypes(Set<String> aud) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getSupportedPopKeyTypes(aud);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Short getSupportedTokenType(Set<String> aud) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getSupportedTokenType(aud);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public COSEparams getSupportedCoseParams(Set<String> aud) throws AceException, CoseException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getSupportedCoseParams(aud);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public boolean isScopeSupported(String aud, String scope) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.isScopeSupported(aud, scope);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public String getDefaultScope(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getDefaultScope(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public String getDefaultAudience(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getDefaultAudience(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getRSS(String aud) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getRSS(aud);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getRSS() throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getRSS();
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public long getExpTime(Set<String> aud) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getExpTime(aud);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getAudiences(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getAudiences(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getOSCOREGroupManagers(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getOSCOREGroupManagers(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getScopes(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getScopes(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public OneKey getRsTokenPSK(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getRsTokenPSK(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public OneKey getRsAuthPSK(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getRsAuthPSK(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public OneKey getRsRPK(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getRsRPK(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public OneKey getCPSK(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getCPSK(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public OneKey getCRPK(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getCRPK(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void addRS(String rsId, Set<String> profiles, Set<String> scopes, Set<String> auds,
+            Set<String> keyTypes, Set<Short> tokenTypes, Set<COSEparams> cose, long expiration, OneKey tokenPsk,
+            OneKey authPsk, OneKey publicKey) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.addRS(rsId, profiles, scopes, auds, keyTypes, tokenTypes, cose, expiration, tokenPsk, authPsk,
+                    publicKey);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void addOSCOREGroupManagers(String rsId, Set<String> auds) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.addOSCOREGroupManagers(rsId, auds);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void deleteRS(String rsId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.deleteRS(rsId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void addClient(String clientId, Set<String> profiles, String defaultScope, String defaultAud,
+            Set<String> keyTypes, OneKey sharedKey, OneKey publicKey) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.addClient(clientId, profiles, defaultScope, defaultAud, keyTypes, sharedKey, publicKey);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void deleteClient(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.deleteClient(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void addToken(String cti, Map<Short, CBORObject> claims) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.addToken(cti, claims);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void deleteToken(String cti) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.deleteToken(cti);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void purgeExpiredTokens(long now) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.purgeExpiredTokens(now);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Map<Short, CBORObject> getClaims(String cti) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getClaims(cti);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Long getCtiCounter() throws AceException {
+        return this.counters.getCtiCounter();
+    }
+
+    @Override
+    public void saveCtiCounter(Long cti) throws AceException {
+        this.counters.saveCtiCounter(cti);
+    }
+
+    @Override
+    public int getExiSequenceNumber(String rsId) throws AceException {
+        return this.counters.getExiSequenceNumber(rsId);
+    }
+
+    @Override
+    public void saveExiSequenceNumber(int sn, String rsId) throws AceException {
+        this.counters.saveExiSequenceNumber(sn, rsId);
+    }
+
+    @Override
+    public void addCti2Client(String cti, String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.addCti2Client(cti, clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getClients() throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getClients();
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public String getClient4Cti(String cti) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getClient4Cti(cti);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Set<String> getCtis4Client(String clientId) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getCtis4Client(clientId);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public String getCti4Grant(String code) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getCti4Grant(code);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void addGrant(String code, String cti, Map<Short, CBORObject> claims, Map<Short, CBORObject> rsInfo)
+            throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.addGrant(code, cti, claims, rsInfo);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public void useGrant(String code) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            connector.useGrant(code);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public Map<Short, CBORObject> getRsInfo(String code) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.getRsInfo(code);
+        } finally {
+            release(connector);
+        }
+    }
+
+    @Override
+    public boolean isGrantValid(String code) throws AceException {
+        SQLConnector connector = borrow();
+        try {
+            return connector.isGrantValid(code);
+        } finally {
+            release(connector);
+        }
+    }
+
+    /**
+     * Close all connections. After this any other method calls to this
+     * object will lead to an exception.
+     * 
+     * @throws AceException
+     */
+    @Override
+    public void close() throws AceException {
+        List<SQLConnector> connectors;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            connectors = new ArrayList<>(this.all);
+        }
+        this.idle.clear();
+        AceException error = null;
+        connectors.add(this.counters);
+        for (SQLConnector connector : connectors) {
+            try {
+                connector.close();
+            } catch (AceException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
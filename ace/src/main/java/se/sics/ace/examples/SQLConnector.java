@@ -77,9 +77,9 @@ public class SQLConnector implements DBConnector, AutoCloseable {
 	private Connection conn = null;
 	
 	/**
-	 * Records if the singleton connector is connected or disconnected
+	 * Records if this connector is connected or disconnected
 	 */
-	private static boolean isConnected = false;
+	private boolean isConnected = false;
 
 	/**
 	 * A prepared INSERT statement to add a new Resource Server.
@@ -521,7 +521,7 @@ public class SQLConnector implements DBConnector, AutoCloseable {
 		this.adapter = dbAdapter;
 
 		this.conn = dbAdapter.getDBConnection();
-		SQLConnector.isConnected = true;
+		this.isConnected = true;
 	        
 		this.insertRS = this.conn.prepareStatement(
 		        dbAdapter.updateEngineSpecificSQL("INSERT INTO "
@@ -941,11 +941,13 @@ public class SQLConnector implements DBConnector, AutoCloseable {
 	 */
 	@Override
 	public synchronized void close() throws AceException {
-	    if (SQLConnector.isConnected) {
-			SQLConnector.isConnected = false;
+	    if (this.isConnected) {
+			this.isConnected = false;
 	        try {
 	            this.conn.close();
-	            SQLConnector.connector = null;
+	            if (SQLConnector.connector == this) {
+	                SQLConnector.connector = null;
+	            }
 	        } catch (SQLException e)
 			{
 				throw new AceException(e.getMessage());
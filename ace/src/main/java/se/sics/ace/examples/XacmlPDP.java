@@ -34,10 +34,15 @@ package se.sics.ace.examples;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.wso2.balana.PDPConfig;
 import org.wso2.balana.attr.StringAttribute;
@@ -56,12 +61,46 @@ import se.sics.ace.as.PDP;
 /**
  * A PDP that uses XACML to provide access control decisions.
  * 
+ * The decisions are cached by subject, audiences and scope, with the least
+ * recently used decisions evicted when the cache is full. The cache is
+ * cleared when the policies are reloaded with reloadPolicies().
+ * 
  * @author Ludwig Seitz
  *
  */
 public class XacmlPDP implements PDP {
 
-	private org.wso2.balana.PDP pdp;
+    /**
+     * The default maximum number of cached decisions
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /**
+     * Marks a cached null decision
+     */
+    private static final Object NULL = new Object();
+
+	private volatile org.wso2.balana.PDP pdp;
+	
+	/**
+	 * The directory to load the policy files from
+	 */
+	private final String policyDirectory;
+	
+	/**
+	 * The cached decisions in access order, null if decisions are not cached
+	 */
+	private final LinkedHashMap<List<Object>, Object> decisions;
+	
+	/**
+	 * Incremented on every reload of the policies, so that decisions taken
+	 * with the old policies are not cached afterwards
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	
+	private final AtomicLong hits = new AtomicLong();
+	
+	private final AtomicLong misses = new AtomicLong();
 
 	/**
 	 * The standard URI for listing a subject's id
@@ -131,15 +170,173 @@ public class XacmlPDP implements PDP {
 	private String defaultScope;
 	
 	/**
-	 * Constructor, load policy files from a directory.
+	 * Constructor, load policy files from a directory, caching up to 
+	 * DEFAULT_CACHE_SIZE decisions.
 	 * 
 	 * @param defaultAud  The defaultAudience, can be null.
 	 * @param defaultScope  The default Scope, can be null.
 	 * @param policyDirectory 
 	 */
 	public XacmlPDP(String policyDirectory, String defaultAud, String defaultScope) {
+		this(policyDirectory, defaultAud, defaultScope, DEFAULT_CACHE_SIZE);
+	}
+	
+	/**
+	 * Constructor, load policy files from a directory.
+	 * 
+	 * @param policyDirectory  the directory of the policy files
+	 * @param defaultAud  The defaultAudience, can be null.
+	 * @param defaultScope  The default Scope, can be null.
+	 * @param cacheSize  the maximum number of cached decisions, 
+	 *     0 to not cache decisions
+	 */
+	public XacmlPDP(String policyDirectory, String defaultAud, 
+	        String defaultScope, final int cacheSize) {
+		if (cacheSize < 0) {
+		    throw new IllegalArgumentException(
+		            "XacmlPDP requires a non-negative cacheSize");
+		}
 		this.defaultAud = defaultAud == null ? "" : defaultAud;
 		this.defaultScope = defaultScope == null ? "" : defaultScope;
+		this.policyDirectory = policyDirectory;
+		this.pdp = loadPolicies(policyDirectory);
+		if (cacheSize == 0) {
+		    this.decisions = null;
+		} else {
+		    this.decisions = new LinkedHashMap<List<Object>, Object>(
+		            16, 0.75f, true) {
+		        private static final long serialVersionUID = 1L;
+		        
+		        @Override
+		        protected boolean removeEldestEntry(
+		                Map.Entry<List<Object>, Object> eldest) {
+		            return size() > cacheSize;
+		        }
+		    };
+		}
+	}
+	
+	/**
+	 * Load the policy files from the policy directory again, e.g. after 
+	 * they were changed, and clear the cached decisions.
+	 */
+	public void reloadPolicies() {
+	    org.wso2.balana.PDP reloaded = loadPolicies(this.policyDirectory);
+	    synchronized (this) {
+	        this.pdp = reloaded;
+	        this.generation.incrementAndGet();
+	        if (this.decisions != null) {
+	            this.decisions.clear();
+	        }
+	    }
+	}
+	
+	/**
+	 * @return the number of decisions served from the cache
+	 */
+	public long getHits() {
+	    return this.hits.get();
+	}
+	
+	/**
+	 * @return the number of decisions not served from the cache
+	 */
+	public long getMisses() {
+	    return this.misses.get();
+	}
+	
+	@Override
+	public boolean canAccessToken(String clientId) {
+	    List<Object> key = Arrays.<Object>asList("canAccessToken", clientId);
+	    Object cached = lookup(key);
+	    if (cached != null) {
+	        return (Boolean)cached;
+	    }
+	    long generation = this.generation.get();
+	    boolean decision = evaluateTokenAccess(clientId);
+	    store(key, generation, decision);
+	    return decision;
+	}
+	
+	@Override
+	public IntrospectAccessLevel getIntrospectAccessLevel(String rsId) {
+	    List<Object> key 
+	        = Arrays.<Object>asList("getIntrospectAccessLevel", rsId);
+	    Object cached = lookup(key);
+	    if (cached != null) {
+	        return (IntrospectAccessLevel)cached;
+	    }
+	    long generation = this.generation.get();
+	    IntrospectAccessLevel decision = evaluateIntrospectAccess(rsId);
+	    store(key, generation, decision);
+	    return decision;
+	}
+	
+	@Override
+	public String canAccess(String clientId, Set<String> aud, Object scopes) 
+	        throws AceException {
+	    Set<String> audKey = (aud == null) 
+	            ? Collections.<String>emptySet() : new HashSet<>(aud);
+	    List<Object> key 
+	        = Arrays.<Object>asList("canAccess", clientId, audKey, scopes);
+	    Object cached = lookup(key);
+	    if (cached != null) {
+	        return (cached == NULL) ? null : (String)cached;
+	    }
+	    long generation = this.generation.get();
+	    String decision = evaluateAccess(clientId, aud, scopes);
+	    store(key, generation, (decision == null) ? NULL : decision);
+	    return decision;
+	}
+	
+	/**
+	 * Look up a cached decision.
+	 * 
+	 * @param key  the decision key
+	 * @return  the cached decision, or null if there is none
+	 */
+	private Object lookup(List<Object> key) {
+	    if (this.decisions == null) {
+	        return null;
+	    }
+	    Object cached;
+	    synchronized (this) {
+	        cached = this.decisions.get(key);
+	    }
+	    if (cached == null) {
+	        this.misses.incrementAndGet();
+	    } else {
+	        this.hits.incrementAndGet();
+	    }
+	    return cached;
+	}
+	
+	/**
+	 * Cache a decision, unless the policies have been reloaded since it
+	 * was taken.
+	 * 
+	 * @param key  the decision key
+	 * @param generation  the generation before taking the decision
+	 * @param decision  the decision
+	 */
+	private void store(List<Object> key, long generation, Object decision) {
+	    if (this.decisions == null) {
+	        return;
+	    }
+	    synchronized (this) {
+	        if (this.generation.get() == generation) {
+	            this.decisions.put(key, decision);
+	        }
+	    }
+	}
+	
+	/**
+	 * Load the policy files of a directory into a new Balana PDP.
+	 * 
+	 * @param policyDirectory  the directory of the policy files
+	 * @return  the PDP
+	 */
+	private static org.wso2.balana.PDP loadPolicies(String policyDirectory) {
 		Set<String> fileNames 
 			= getFilesInFolder(policyDirectory, ".xml");
 		PolicyFinder pf = new PolicyFinder();
@@ -147,11 +344,10 @@ public class XacmlPDP implements PDP {
 			= new FileBasedPolicyFinderModule(fileNames);
 		pf.setModules(Collections.singleton(pfm));
 		pfm.init(pf);
-		this.pdp = new org.wso2.balana.PDP(new PDPConfig(null, pf, null));
+		return new org.wso2.balana.PDP(new PDPConfig(null, pf, null));
 	}
 	
-	@Override
-	public boolean canAccessToken(String clientId) {
+	private boolean evaluateTokenAccess(String clientId) {
 		Set<Attributes> attributes = new HashSet<>();
 		attributes.add(tokenResource);
 		StringAttribute subjectAV = new StringAttribute(clientId);
@@ -171,8 +367,7 @@ public class XacmlPDP implements PDP {
         return true;
 	}
 
-	@Override
-	public IntrospectAccessLevel getIntrospectAccessLevel(String rsId) {
+	private IntrospectAccessLevel evaluateIntrospectAccess(String rsId) {
 		Set<Attributes> attributes = new HashSet<>();
 		attributes.add(introspectResource);
 		StringAttribute subjectAV = new StringAttribute(rsId);
@@ -192,9 +387,8 @@ public class XacmlPDP implements PDP {
         return IntrospectAccessLevel.ACTIVE_AND_CLAIMS;
 	}
 
-	@Override
-	public String canAccess(String clientId, Set<String> aud, Object scopes) 
-			throws AceException {
+	private String evaluateAccess(String clientId, Set<String> aud, 
+	        Object scopes) throws AceException {
 		Set<Attributes> attributes = new HashSet<>();
 		StringAttribute subjectAV = new StringAttribute(clientId);
 		Attribute subject 
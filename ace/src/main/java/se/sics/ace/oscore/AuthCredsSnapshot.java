@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.oscore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.upokecenter.cbor.CBORObject;
+
+import se.sics.ace.Constants;
+
+/**
+ * An immutable snapshot of the authentication credentials of the members of
+ * an OSCORE group, as returned by the Group Manager in response to an
+ * Authentication Credential Request.
+ *
+ * The response with the authentication credentials of all the group members
+ * is encoded once, when the snapshot is created. Responses to requests with
+ * 'get_creds' filters are built from an index by Sender ID and by roles.
+ *
+ * A new snapshot is created by {@link GroupInfo#getAuthCredsSnapshot()} when
+ * the version of the keying material or the group membership has changed.
+ *
+ * @author agent
+ *
+ */
+public class AuthCredsSnapshot {
+
+    private final int version;
+
+    private final long revision;
+
+    // The Sender IDs, authentication credentials and roles of the group members, in the same order
+    private final List<byte[]> senderIds;
+    private final List<CBORObject> authCreds;
+    private final int[] roles;
+
+    // Index of the group members by Sender ID
+    private final Map<ByteBuffer, Integer> sidIndex;
+
+    // Index of the group members by combination of roles
+    private final Map<Integer, BitSet> rolesIndex;
+
+    // The encoded response with the authentication credentials of all the group members
+    private final byte[] encoded;
+
+    /**
+     * Creates a snapshot of the authentication credentials of the group members
+     *
+     * @param version    the version of the symmetric keying material
+     * @param revision   the revision of the group membership
+     * @param senderIds  the Sender IDs of the group members
+     * @param authCreds  the authentication credentials of the group members, in the order of the Sender IDs
+     * @param roles      the roles of the group members encoded in the AIF data model, in the order of the Sender IDs
+     */
+    AuthCredsSnapshot(final int version, final long revision, final List<byte[]> senderIds,
+                      final List<CBORObject> authCreds, final int[] roles) {
+
+        this.version = version;
+        this.revision = revision;
+        this.senderIds = Collections.unmodifiableList(new ArrayList<byte[]>(senderIds));
+        this.authCreds = Collections.unmodifiableList(new ArrayList<CBORObject>(authCreds));
+        this.roles = roles.clone();
+
+        this.sidIndex = new HashMap<ByteBuffer, Integer>();
+        this.rolesIndex = new HashMap<Integer, BitSet>();
+        for (int i = 0; i < this.roles.length; i++) {
+            this.sidIndex.put(ByteBuffer.wrap(this.senderIds.get(i)), i);
+            BitSet members = this.rolesIndex.get(this.roles[i]);
+            if (members == null) {
+                members = new BitSet();
+                this.rolesIndex.put(this.roles[i], members);
+            }
+            members.set(i);
+        }
+
+        BitSet all = new BitSet();
+        all.set(0, this.roles.length);
+        this.encoded = encode(all);
+
+    }
+
+    /**
+     *  Return the version of the symmetric keying material of this snapshot
+     *
+     * @return  the version of the symmetric keying material
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     *  Return the revision of the group membership of this snapshot
+     *
+     * @return  the revision of the group membership
+     */
+    public long getRevision() {
+        return this.revision;
+    }
+
+    /**
+     *  Return the number of group members with an authentication credential
+     *
+     * @return  the number of group members
+     */
+    public int size() {
+        return this.roles.length;
+    }
+
+    /**
+     *  Return a tag identifying this snapshot, e.g. for use as ETag
+     *
+     * @return  the tag, as 8 bytes
+     */
+    public byte[] getTag() {
+        return ByteBuffer.allocate(8).putInt(this.version).putInt((int) this.revision).array();
+    }
+
+    /**
+     *  Return the encoded response with the authentication credentials of all the group members
+     *
+     * @return  the CBOR map with 'num', 'creds', 'peer_roles' and 'peer_identifiers', as encoded bytes
+     */
+    public byte[] getEncoded() {
+        return this.encoded.clone();
+    }
+
+    /**
+     *  Return the encoded response with the authentication credentials selected by the 'get_creds' filters.
+     *  The authentication credentials are selected as in the previous per-request processing:
+     *
+     *  If the inclusion flag is true, a credential is included if the roles of its owner match one
+     *  of the role filters, or if the Sender ID of its owner is in the Sender ID filter.
+     *
+     *  If the inclusion flag is false, a credential is included if the Sender ID of its owner is not
+     *  in the Sender ID filter.
+     *
+     * @param inclusionFlag     the inclusion flag
+     * @param requestedRoles    the role filters, each encoded in the AIF data model
+     * @param requestedSenderIds  the Sender ID filter
+     * @return  the CBOR map with 'num', 'creds', 'peer_roles' and 'peer_identifiers', as encoded bytes
+     */
+    public byte[] getEncoded(final boolean inclusionFlag, final Set<Integer> requestedRoles,
+                             final Set<ByteBuffer> requestedSenderIds) {
+
+        BitSet selected = new BitSet();
+
+        if (inclusionFlag) {
+
+            // Group members whose roles match at least one role filter
+            for (Map.Entry<Integer, BitSet> entry : this.rolesIndex.entrySet()) {
+                int memberRoles = entry.getKey();
+                for (Integer filter : requestedRoles) {
+                    int filterRoles = filter.intValue();
+                    if (filterRoles == (filterRoles & memberRoles)) {
+                        selected.or(entry.getValue());
+                        break;
+                    }
+                }
+            }
+
+            // Group members in the Sender ID filter
+            for (ByteBuffer sid : requestedSenderIds) {
+                Integer index = this.sidIndex.get(sid);
+                if (index != null) {
+                    selected.set(index);
+                }
+            }
+
+        }
+        else {
+
+            // All group members, except those in the Sender ID filter
+            selected.set(0, this.roles.length);
+            for (ByteBuffer sid : requestedSenderIds) {
+                Integer index = this.sidIndex.get(sid);
+                if (index != null) {
+                    selected.clear(index);
+                }
+            }
+
+        }
+
+        if (selected.cardinality() == this.roles.length) {
+            return getEncoded();
+        }
+
+        return encode(selected);
+
+    }
+
+    /**
+     *  Encode the response with the selected authentication credentials
+     *
+     * @param selected  the indexes of the selected group members
+     * @return  the encoded CBOR map
+     */
+    private byte[] encode(final BitSet selected) {
+
+        CBORObject myResponse = CBORObject.NewMap();
+
+        CBORObject authCredsArray = CBORObject.NewArray();
+        CBORObject peerRoles = CBORObject.NewArray();
+        CBORObject peerIdentifiers = CBORObject.NewArray();
+
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            authCredsArray.Add(this.authCreds.get(i));
+            peerRoles.Add(this.roles[i]);
+            peerIdentifiers.Add(this.senderIds.get(i));
+        }
+
+        myResponse.Add(Constants.NUM, CBORObject.FromObject(this.version));
+
+        myResponse.Add(Constants.CREDS, authCredsArray);
+        myResponse.Add(Constants.PEER_ROLES, peerRoles);
+        myResponse.Add(Constants.PEER_IDENTIFIERS, peerIdentifiers);
+
+        return myResponse.EncodeToBytes();
+
+    }
+
+}
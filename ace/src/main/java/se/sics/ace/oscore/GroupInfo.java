@@ -31,9 +31,12 @@
  *******************************************************************************/
 package se.sics.ace.oscore;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -72,7 +75,7 @@ public class GroupInfo {
 	
 	// Each set of the list refers to a different size of Sender IDs.
 	// The element with index 0 includes as elements Sender IDs with size 1 byte.
-	private List<Set<Integer>> usedSenderIds = new ArrayList<Set<Integer>>();
+	private List<SenderIdSet> usedSenderIds = new ArrayList<SenderIdSet>();
 	
 	private int senderIdSize; // Size in bytes of the byte array representation of Sender IDs 
 	private int maxSenderIdValue;
@@ -131,6 +134,8 @@ public class GroupInfo {
 	private CBORObject groupPolicies = null;
 	
 	private int version; // Version of the current symmetric keying material
+	private long membershipRevision = 0; // Incremented when authentication credentials or roles of group members change
+	private AuthCredsSnapshot authCredsSnapshot = null; // Snapshot of the authentication credentials, for the current version and revision
 	private boolean status; // True if the group is currently active, false otherwise
 	
 	private OneKey gmKeyPair;   // The asymmetric key pair of the Group Manager, as a OneKey object
@@ -222,7 +227,7 @@ public class GroupInfo {
     	for (int i = 0; i < 4; i++) {
         	// Empty sets of assigned Sender IDs; one set for each possible Sender ID size in bytes.
         	// The set with index 0 refers to Sender IDs with size 1 byte
-    		usedSenderIds.add(new HashSet<Integer>());
+    		usedSenderIds.add(new SenderIdSet(maxSenderIdValueForSize(i + 1)));
     		
         	// Empty sets of stored authentication credentials; one set for each possible Sender ID size in bytes.
         	// The set with index 0 refers to Sender IDs with size 1 byte
@@ -739,11 +744,90 @@ public class GroupInfo {
      *  Return the whole collection of Sender IDs assigned so far.
      *  Note that this includes also Sender IDs of members that have left the group.
      *  On top of uniqueness, there is not re-cycling of previously assigned Sender IDs.
+     *  The returned sets are read-only views, which reflect later allocations of the same size.
      * @return   The whole collection of assigned Sender IDs.
      */
     synchronized public List<Set<Integer>> getUsedSenderIds() {
     	
-    	return this.usedSenderIds;
+    	List<Set<Integer>> views = new ArrayList<Set<Integer>>(this.usedSenderIds.size());
+    	for (SenderIdSet ids : this.usedSenderIds) {
+    		views.add(Collections.unmodifiableSet(ids));
+    	}
+    	return Collections.unmodifiableList(views);
+    	
+    }
+    
+    /**
+     * Return the largest Sender ID value for a Sender ID size.
+     * @param size   the size in bytes of the Sender ID
+     * @return   the largest Sender ID value
+     */
+    private static int maxSenderIdValueForSize(final int size) {
+    	
+    	if (size == 4)
+    		return (1 << 31) - 1;
+    	return (1 << (size * 8)) - 1;
+    	
+    }
+    
+    /**
+     * Take a snapshot of the allocated Sender IDs of all sizes, e.g. to
+     * store it together with the other information of the group.
+     * @return   the snapshot, as the current Sender ID size followed by the
+     *           length and the content of the snapshot for each Sender ID size
+     */
+    synchronized public byte[] getSenderIdSnapshot() {
+    	
+    	byte[][] snapshots = new byte[this.usedSenderIds.size()][];
+    	int length = 1;
+    	for (int i = 0; i < snapshots.length; i++) {
+    		snapshots[i] = this.usedSenderIds.get(i).snapshot();
+    		length += Integer.BYTES + snapshots[i].length;
+    	}
+    	ByteBuffer buf = ByteBuffer.allocate(length);
+    	buf.put((byte) this.senderIdSize);
+    	for (byte[] snapshot : snapshots) {
+    		buf.putInt(snapshot.length);
+    		buf.put(snapshot);
+    	}
+    	return buf.array();
+    	
+    }
+    
+    /**
+     * Restore the allocated Sender IDs of all sizes from a snapshot.
+     * @param snapshot   the snapshot taken with getSenderIdSnapshot()
+     * @return   true if the snapshot has been restored, false if it is malformed
+     */
+    synchronized public boolean restoreSenderIds(final byte[] snapshot) {
+    	
+    	ByteBuffer buf = ByteBuffer.wrap(snapshot);
+    	try {
+    		int size = buf.get();
+    		if (size < 1 || size > 4)
+    			return false;
+    		byte[][] snapshots = new byte[this.usedSenderIds.size()][];
+    		for (int i = 0; i < snapshots.length; i++) {
+    			snapshots[i] = new byte[buf.getInt()];
+    			buf.get(snapshots[i]);
+    		}
+    		if (buf.hasRemaining())
+    			return false;
+    		
+    		// Restore into new sets first, to keep the current state if one is malformed
+    		List<SenderIdSet> restored = new ArrayList<SenderIdSet>();
+    		for (int i = 0; i < snapshots.length; i++) {
+    			SenderIdSet ids = new SenderIdSet(maxSenderIdValueForSize(i + 1));
+    			ids.restore(snapshots[i]);
+    			restored.add(ids);
+    		}
+    		this.usedSenderIds = restored;
+    		this.senderIdSize = size;
+    		this.maxSenderIdValue = maxSenderIdValueForSize(size);
+    		return true;
+    	} catch (BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+    		return false;
+    	}
     	
     }
     
@@ -762,24 +846,16 @@ public class GroupInfo {
         	if (this.senderIdSize > 4)
         		return null;
         	
-        	if (this.senderIdSize == 4)
-        		this.maxSenderIdValue = (1 << 31) - 1;
-        	else
-        		this.maxSenderIdValue = (1 << (this.senderIdSize * 8)) - 1;
+        	this.maxSenderIdValue = maxSenderIdValueForSize(this.senderIdSize);
     	}
     	
-    	byte[] senderIdByteArray = null;
-    	for (int i = 0; i <= this.maxSenderIdValue; i++) {
-    		if (!this.usedSenderIds.get(this.senderIdSize - 1).contains(i)) {
-    			this.usedSenderIds.get(this.senderIdSize - 1).add(i);
-    			
-    			senderIdByteArray = new byte[this.senderIdSize];
-    			senderIdByteArray = Util.intToBytes(i, this.senderIdSize);
-    			break;
-    		}
-    	}
+    	// Take the lowest free value, including values released before
+    	SenderIdSet ids = this.usedSenderIds.get(this.senderIdSize - 1);
+    	int id = ids.nextFree();
+    	if (id < 0 || !ids.allocate(id))
+    		return null;
     	
-    	return senderIdByteArray;
+    	return Util.intToBytes(id, this.senderIdSize);
     	
     }
     
@@ -798,7 +874,7 @@ public class GroupInfo {
     		return false;
     	
     	// The specified Sender ID has been already assigned - And no recycling is admitted
-    	if (this.usedSenderIds.get(this.senderIdSize - 1).contains(Util.bytesToInt(id)))
+    	if (this.usedSenderIds.get(this.senderIdSize - 1).isAllocated(Util.bytesToInt(id)))
     		return false;
     	
     	// In case the input array is 4 bytes in size and encoding a negative integer, this will return false
@@ -816,12 +892,7 @@ public class GroupInfo {
     	if (id < 0 || id > this.maxSenderIdValue)
     		return false;
     	
-    	if (!this.usedSenderIds.get(senderIdSize - 1).contains(id)) {
-    		this.usedSenderIds.get(senderIdSize - 1).add(id);
-    		return true;
-    	}
-    	
-    	return false;
+    	return this.usedSenderIds.get(senderIdSize - 1).allocate(id);
     	
     }
     
@@ -869,12 +940,8 @@ public class GroupInfo {
     	if (id < 0 || id > maxValue)
     		return false;
     	
-    	if (this.usedSenderIds.get(size - 1).contains(id)) {
-    		this.usedSenderIds.get(size - 1).remove(id);
-			return true;
-    	}
-    	
-    	return false;
+    	// The released value is the first candidate for the next allocation
+    	return this.usedSenderIds.get(size - 1).release(id);
     	
     }
     
@@ -907,7 +974,7 @@ public class GroupInfo {
     	// The group member is not a monitor and has already been assigned a Sender ID
     	else {
 	    	// Double-check that the specified Sender ID has been in fact allocated
-	    	if (this.usedSenderIds.get(this.senderIdSize - 1).contains(Util.bytesToInt(id)))
+	    	if (this.usedSenderIds.get(this.senderIdSize - 1).isAllocated(Util.bytesToInt(id)))
 	    		nodeName = new String(Utils.bytesToHex(this.groupIdPrefix) +
 	    				              Utils.bytesToHex(Util.intToBytes(this.groupIdEpoch, this.groupIdEpochSize)) +
 	    				              this.nodeNameSeparator +
@@ -1108,6 +1175,7 @@ public class GroupInfo {
     	// This overwrites a possible existing entry, if the group member has received a new Sender ID value
     	// Consider the inner map related to the size in bytes of the Sender ID
     	this.nodeRoles.get(sid.length - 1).put(Util.bytesToInt(sid), roles);
+    	this.membershipRevision++;
     	
     }   
     
@@ -1150,6 +1218,7 @@ public class GroupInfo {
 	    		return false;
 	    	
 	    	this.nodeRoles.get(sid.length - 1).remove(Util.bytesToInt(sid));
+	    	this.membershipRevision++;
 	    	
 	    	deleteAuthCred(sid);
 	    	
@@ -1222,6 +1291,7 @@ public class GroupInfo {
     		return false;
     	
     	this.authCredRepo.get(sid.length - 1).put(CBORObject.FromObject(sid), cred);
+    	this.membershipRevision++;
     	
     	return true;
     	
@@ -1243,11 +1313,68 @@ public class GroupInfo {
     		return false;
     	
     	this.authCredRepo.get(sid.length - 1).remove(CBORObject.FromObject(sid));
+    	this.membershipRevision++;
     	
     	return true;
     	
     }
     
+    /**
+     * Return a snapshot of the authentication credentials of the current group members,
+     * together with their roles and Sender IDs.
+     * 
+     * The snapshot is created again only if the version of the symmetric keying material
+     * or the group membership has changed since the last call.
+     * 
+     * @return  The snapshot of the authentication credentials of the current group members
+     */
+    synchronized public AuthCredsSnapshot getAuthCredsSnapshot() {
+    	
+    	if (this.authCredsSnapshot != null && this.authCredsSnapshot.getVersion() == this.version
+    			&& this.authCredsSnapshot.getRevision() == this.membershipRevision) {
+    		return this.authCredsSnapshot;
+    	}
+    	
+    	List<byte[]> senderIds = new ArrayList<byte[]>();
+    	List<CBORObject> authCreds = new ArrayList<CBORObject>();
+    	List<Integer> roles = new ArrayList<Integer>();
+    	
+    	// Go through each size of Sender ID, i.e. from 1 (i=0) to 4 (i=3) bytes
+    	for (int i = 0; i < this.authCredRepo.size(); i++) {
+    		
+    		for (Map.Entry<CBORObject, CBORObject> pair : authCredRepo.get(i).entrySet()) {
+    			
+    			// This should never happen; silently ignore
+    			if (pair.getValue() == null)
+    				continue;
+    			
+    			byte[] sid = pair.getKey().GetByteString();
+    			Integer memberRoles = this.nodeRoles.get(i).get(Util.bytesToInt(sid));
+    			
+    			// This should never happen; silently ignore
+    			if (memberRoles == null)
+    				continue;
+    			
+    			senderIds.add(sid);
+    			authCreds.add(pair.getValue());
+    			roles.add(memberRoles);
+    			
+    		}
+    		
+    	}
+    	
+    	int[] rolesArray = new int[roles.size()];
+    	for (int i = 0; i < rolesArray.length; i++) {
+    		rolesArray[i] = roles.get(i);
+    	}
+    	
+    	this.authCredsSnapshot = new AuthCredsSnapshot(this.version, this.membershipRevision,
+    			senderIds, authCreds, rolesArray);
+    	
+    	return this.authCredsSnapshot;
+    	
+    }
+    
     /**
      *  Return the current version of the symmetric keying material
 	 *
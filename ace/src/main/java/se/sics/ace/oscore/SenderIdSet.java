@@ -0,0 +1,531 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.oscore;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The set of allocated Sender ID values of one Sender ID size in an OSCORE group.
+ * 
+ * The values are kept in a hierarchical bitmap. The value range is split into
+ * chunks of 2^16 values, which are created when the first value in them is
+ * allocated and dropped when they become empty again. Each chunk keeps a
+ * summary with one bit per word of 64 values, set when the word is full, and
+ * the set keeps one bit per chunk, set when the chunk is full. Finding the
+ * lowest free value with {@link #nextFree()} therefore only visits one word
+ * on each level, starting from a hint on the lowest chunk that may have a
+ * free value.
+ * 
+ * A snapshot of the set can be taken with {@link #snapshot()} and later
+ * restored with {@link #restore(byte[])}.
+ * 
+ * This class is not thread-safe. GroupInfo only accesses it while holding
+ * its own lock.
+ * 
+ * @author agent
+ *
+ */
+public class SenderIdSet extends AbstractSet<Integer> {
+
+    /**
+     * The number of bits of a value selecting the position within a chunk
+     */
+    private static final int CHUNK_BITS = 16;
+    
+    /**
+     * The number of values in a chunk
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    
+    /**
+     * The mask of the position within a chunk
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    /**
+     * The number of words of a chunk
+     */
+    private static final int WORDS_PER_CHUNK = CHUNK_SIZE / Long.SIZE;
+    
+    /**
+     * The number of words of the summary of a chunk
+     */
+    private static final int SUMMARY_WORDS = WORDS_PER_CHUNK / Long.SIZE;
+    
+    /**
+     * The largest value of this set
+     */
+    private final int maxValue;
+    
+    /**
+     * The number of chunks covering the values from 0 to maxValue
+     */
+    private final int numChunks;
+    
+    /**
+     * The index of the last chunk, if it is only partially used by values up
+     * to maxValue, or -1. The unused part is marked as allocated.
+     */
+    private final int partialChunk;
+    
+    /**
+     * The chunks, grown as needed
+     */
+    private Chunk[] chunks;
+    
+    /**
+     * One bit per chunk, set if the chunk is full
+     */
+    private final long[] fullChunks;
+    
+    /**
+     * The index of the lowest chunk that may have a free value
+     */
+    private int hint;
+    
+    /**
+     * The number of allocated values
+     */
+    private int size;
+    
+    /**
+     * Incremented on each change, to detect concurrent modification while iterating
+     */
+    private int modCount;
+    
+    /**
+     * Constructor.
+     * 
+     * @param maxValue  the largest value that can be allocated
+     */
+    public SenderIdSet(int maxValue) {
+        if (maxValue < 0) {
+            throw new IllegalArgumentException("The maximum Sender ID value must not be negative");
+        }
+        this.maxValue = maxValue;
+        this.numChunks = (maxValue >>> CHUNK_BITS) + 1;
+        this.partialChunk = ((maxValue & CHUNK_MASK) != CHUNK_MASK) ? this.numChunks - 1 : -1;
+        this.fullChunks = new long[(this.numChunks + Long.SIZE - 1) / Long.SIZE];
+        reset();
+    }
+    
+    /**
+     * @return  the largest value that can be allocated
+     */
+    public int getMaxValue() {
+        return this.maxValue;
+    }
+    
+    /**
+     * Check if a value is allocated.
+     * 
+     * @param value  the value
+     * @return  true if the value is allocated, false otherwise
+     */
+    public boolean isAllocated(int value) {
+        if (value < 0 || value > this.maxValue) {
+            return false;
+        }
+        Chunk chunk = getChunk(value >>> CHUNK_BITS);
+        return chunk != null && chunk.get(value & CHUNK_MASK);
+    }
+    
+    /**
+     * Allocate a value.
+     * 
+     * @param value  the value
+     * @return  true if the value has been allocated, false if it was already
+     *     allocated or is out of range
+     */
+    public boolean allocate(int value) {
+        if (value < 0 || value > this.maxValue) {
+            return false;
+        }
+        int index = value >>> CHUNK_BITS;
+        Chunk chunk = getChunk(index);
+        if (chunk == null) {
+            chunk = createChunk(index);
+        }
+        if (!chunk.set(value & CHUNK_MASK)) {
+            return false;
+        }
+        chunk.count++;
+        this.size++;
+        this.modCount++;
+        if (chunk.isFull()) {
+            this.fullChunks[index >>> 6] |= 1L << index;
+        }
+        return true;
+    }
+    
+    /**
+     * Release an allocated value, so that it can be allocated again.
+     * 
+     * @param value  the value
+     * @return  true if the value has been released, false if it was not allocated
+     */
+    public boolean release(int value) {
+        if (value < 0 || value > this.maxValue) {
+            return false;
+        }
+        int index = value >>> CHUNK_BITS;
+        Chunk chunk = getChunk(index);
+        if (chunk == null || !chunk.clear(value & CHUNK_MASK)) {
+            return false;
+        }
+        chunk.count--;
+        this.size--;
+        this.modCount++;
+        this.fullChunks[index >>> 6] &= ~(1L << index);
+        if (chunk.count == 0 && index != this.partialChunk) {
+            this.chunks[index] = null;
+        }
+        if (index < this.hint) {
+            this.hint = index;
+        }
+        return true;
+    }
+    
+    /**
+     * Find the lowest value that is not allocated. The value is not allocated
+     * by this method.
+     * 
+     * @return  the lowest free value, or -1 if all values are allocated
+     */
+    public int nextFree() {
+        int from = this.hint;
+        for (int w = from >>> 6; w < this.fullChunks.length; w++) {
+            long free = ~this.fullChunks[w];
+            if (w == from >>> 6) {
+                free &= -1L << from;
+            }
+            if (free == 0L) {
+                continue;
+            }
+            int index = (w << 6) + Long.numberOfTrailingZeros(free);
+            if (index >= this.numChunks) {
+                break;
+            }
+            this.hint = index;
+            Chunk chunk = getChunk(index);
+            int low = (chunk == null) ? 0 : chunk.firstClear();
+            return (index << CHUNK_BITS) | low;
+        }
+        this.hint = this.numChunks;
+        return -1;
+    }
+    
+    /**
+     * Take a snapshot of the allocated values.
+     * 
+     * The snapshot encodes the allocated values as runs of consecutive values,
+     * i.e. the number of runs followed by the first value and the length of
+     * each run, as 4 byte integers.
+     * 
+     * @return  the snapshot
+     */
+    public byte[] snapshot() {
+        int runs = 0;
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        buf.putInt(0);
+        long start = nextAllocated(0L);
+        while (start >= 0) {
+            long end = start;
+            long next = nextAllocated(end + 1);
+            while (next == end + 1) {
+                end = next;
+                next = nextAllocated(end + 1);
+            }
+            if (buf.remaining() < 2 * Integer.BYTES) {
+                buf = ByteBuffer.allocate(buf.capacity() * 2).put((ByteBuffer) buf.flip());
+            }
+            buf.putInt((int) start);
+            buf.putInt((int) (end - start + 1));
+            runs++;
+            start = next;
+        }
+        buf.putInt(0, runs);
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+    
+    /**
+     * Replace the allocated values with the ones of a snapshot.
+     * 
+     * @param snapshot  the snapshot taken with {@link #snapshot()}
+     * 
+     * @throws IllegalArgumentException  if the snapshot is malformed or
+     *     includes values out of the range of this set
+     */
+    public void restore(byte[] snapshot) {
+        ByteBuffer buf = ByteBuffer.wrap(snapshot);
+        try {
+            int runs = buf.getInt();
+            if (runs < 0 || buf.remaining() != runs * 2 * Integer.BYTES) {
+                throw new IllegalArgumentException("Malformed Sender ID snapshot");
+            }
+            long[] values = new long[runs * 2];
+            for (int i = 0; i < runs; i++) {
+                long start = buf.getInt();
+                long length = buf.getInt();
+                if (start < 0 || length <= 0 || start + length - 1 > this.maxValue) {
+                    throw new IllegalArgumentException("Sender ID snapshot out of range");
+                }
+                values[2 * i] = start;
+                values[2 * i + 1] = length;
+            }
+            reset();
+            for (int i = 0; i < runs; i++) {
+                for (long v = values[2 * i]; v < values[2 * i] + values[2 * i + 1]; v++) {
+                    allocate((int) v);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed Sender ID snapshot");
+        }
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return (o instanceof Integer) && isAllocated((Integer) o);
+    }
+    
+    @Override
+    public boolean add(Integer value) {
+        if (value < 0 || value > this.maxValue) {
+            throw new IllegalArgumentException("Sender ID value out of range");
+        }
+        return allocate(value);
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        return (o instanceof Integer) && release((Integer) o);
+    }
+    
+    @Override
+    public int size() {
+        return this.size;
+    }
+    
+    @Override
+    public void clear() {
+        reset();
+    }
+    
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            
+            private long next = nextAllocated(0L);
+            private long last = -1L;
+            private int expectedModCount = SenderIdSet.this.modCount;
+            
+            @Override
+            public boolean hasNext() {
+                return this.next >= 0;
+            }
+            
+            @Override
+            public Integer next() {
+                if (this.next < 0) {
+                    throw new NoSuchElementException();
+                }
+                if (this.expectedModCount != SenderIdSet.this.modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                this.last = this.next;
+                this.next = nextAllocated(this.next + 1);
+                return (int) this.last;
+            }
+            
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+                release((int) this.last);
+                this.last = -1L;
+                this.expectedModCount = SenderIdSet.this.modCount;
+            }
+        };
+    }
+    
+    /**
+     * Remove all values, and mark the values above maxValue in the last
+     * chunk as allocated.
+     */
+    private void reset() {
+        this.chunks = new Chunk[0];
+        Arrays.fill(this.fullChunks, 0L);
+        this.hint = 0;
+        this.size = 0;
+        this.modCount++;
+        if (this.partialChunk >= 0) {
+            Chunk chunk = createChunk(this.partialChunk);
+            for (int low = (this.maxValue & CHUNK_MASK) + 1; low < CHUNK_SIZE; low++) {
+                chunk.set(low);
+            }
+        }
+    }
+    
+    /**
+     * Find the lowest allocated value starting from a value.
+     * 
+     * @param from  the value to start from
+     * @return  the lowest allocated value not smaller than from, or -1 if there is none
+     */
+    private long nextAllocated(long from) {
+        for (long value = from; value <= this.maxValue; ) {
+            int index = (int) (value >>> CHUNK_BITS);
+            Chunk chunk = getChunk(index);
+            if (chunk != null && chunk.count > 0) {
+                int low = chunk.nextSet((int) value & CHUNK_MASK);
+                if (low >= 0) {
+                    long found = ((long) index << CHUNK_BITS) | low;
+                    return (found <= this.maxValue) ? found : -1L;
+                }
+            }
+            value = (long) (index + 1) << CHUNK_BITS;
+        }
+        return -1L;
+    }
+    
+    private Chunk getChunk(int index) {
+        return (index < this.chunks.length) ? this.chunks[index] : null;
+    }
+    
+    private Chunk createChunk(int index) {
+        if (index >= this.chunks.length) {
+            int length = Math.min(this.numChunks, Math.max(index + 1, this.chunks.length * 2));
+            this.chunks = Arrays.copyOf(this.chunks, length);
+        }
+        Chunk chunk = new Chunk();
+        this.chunks[index] = chunk;
+        return chunk;
+    }
+    
+    /**
+     * A chunk of 2^16 values
+     */
+    private static final class Chunk {
+        
+        /**
+         * One bit per value
+         */
+        private final long[] words = new long[WORDS_PER_CHUNK];
+        
+        /**
+         * One bit per word, set if the word is full
+         */
+        private final long[] fullWords = new long[SUMMARY_WORDS];
+        
+        /**
+         * The number of allocated values, not counting the ones above maxValue
+         */
+        private int count;
+        
+        private boolean get(int low) {
+            return (this.words[low >>> 6] & (1L << low)) != 0L;
+        }
+        
+        private boolean set(int low) {
+            int w = low >>> 6;
+            long bit = 1L << low;
+            if ((this.words[w] & bit) != 0L) {
+                return false;
+            }
+            this.words[w] |= bit;
+            if (this.words[w] == -1L) {
+                this.fullWords[w >>> 6] |= 1L << w;
+            }
+            return true;
+        }
+        
+        private boolean clear(int low) {
+            int w = low >>> 6;
+            long bit = 1L << low;
+            if ((this.words[w] & bit) == 0L) {
+                return false;
+            }
+            this.words[w] &= ~bit;
+            this.fullWords[w >>> 6] &= ~(1L << w);
+            return true;
+        }
+        
+        private boolean isFull() {
+            for (long summary : this.fullWords) {
+                if (summary != -1L) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * @return  the lowest free position, or -1 if the chunk is full
+         */
+        private int firstClear() {
+            for (int s = 0; s < SUMMARY_WORDS; s++) {
+                long free = ~this.fullWords[s];
+                if (free != 0L) {
+                    int w = (s << 6) + Long.numberOfTrailingZeros(free);
+                    return (w << 6) + Long.numberOfTrailingZeros(~this.words[w]);
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * @param from  the position to start from
+         * @return  the lowest set position not smaller than from, or -1 if there is none
+         */
+        private int nextSet(int from) {
+            int w = from >>> 6;
+            long bits = this.words[w] & (-1L << from);
+            while (true) {
+                if (bits != 0L) {
+                    return (w << 6) + Long.numberOfTrailingZeros(bits);
+                }
+                if (++w == WORDS_PER_CHUNK) {
+                    return -1;
+                }
+                bits = this.words[w];
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ package se.sics.ace.oscore.rs;
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -82,10 +83,6 @@ public class OscoreAuthzInfoGroupOSCORE extends AuthzInfo {
     private static final Logger LOGGER 
         = Logger.getLogger(OscoreAuthzInfoGroupOSCORE.class.getName());
 
-    /**
-     * Temporary storage for the CNF claim
-     */
-    private CBORObject cnf;
     
     /**
 	 * Handles audience validation
@@ -96,7 +93,7 @@ public class OscoreAuthzInfoGroupOSCORE extends AuthzInfo {
      * OSCORE groups active under the Group Manager
      */
 
-	private Map<String, GroupInfo> activeGroups;
+	private volatile Map<String, GroupInfo> activeGroups;
 	
 	private final String rootGroupMembershipResource = "ace-group";
 	
@@ -130,7 +127,7 @@ public class OscoreAuthzInfoGroupOSCORE extends AuthzInfo {
 	}
 
 	@Override
-	public synchronized Message processMessage(Message msg) {
+	public Message processMessage(Message msg) {
 	    LOGGER.log(Level.INFO, "received message: " + msg);
 	    CBORObject token = null;
 	    CBORObject cbor = null;
@@ -247,12 +244,14 @@ public class OscoreAuthzInfoGroupOSCORE extends AuthzInfo {
             return msg.failReply(Message.FAIL_BAD_REQUEST, map);
         }
         
-        Message reply = super.processToken(tokenAsCbor, msg);
+        Map<Short, CBORObject> stored = new HashMap<>();
+        Message reply = super.processToken(tokenAsCbor, msg, stored);
         if (reply.getMessageCode() != Message.CREATED) {
             return reply;
         }
         
-        if (this.cnf == null) { //Should never happen, caught in TokenRepository
+        CBORObject cnf = stored.get(Constants.CNF);
+        if (cnf == null) { //Should never happen, caught in TokenRepository
             LOGGER.info("Missing required parameter 'cnf'");
             CBORObject map = CBORObject.NewMap();
             map.Add(Constants.ERROR, Constants.INVALID_REQUEST);
@@ -281,7 +280,7 @@ public class OscoreAuthzInfoGroupOSCORE extends AuthzInfo {
 	                
 	        OscoreSecurityContext osc;
 	        try {
-	            osc = new OscoreSecurityContext(this.cnf);
+	            osc = new OscoreSecurityContext(cnf);
 	        } catch (AceException e) {
 	            CBORObject map = CBORObject.NewMap();
 	            map.Add(Constants.ERROR, Constants.INVALID_REQUEST);
@@ -526,14 +525,10 @@ public class OscoreAuthzInfoGroupOSCORE extends AuthzInfo {
 	/**
 	 * @param activeGroups
 	 */
-	public synchronized void setActiveGroups(Map<String, GroupInfo> activeGroups) {
+	public void setActiveGroups(Map<String, GroupInfo> activeGroups) {
 		this.activeGroups = activeGroups;
 	}
 	
-	@Override
-	protected synchronized void processOther(Map<Short, CBORObject> claims) {
-	    this.cnf = claims.get(Constants.CNF);
-	}
 
     @Override
     public void close() throws AceException {
@@ -68,6 +68,10 @@ import se.sics.ace.cwt.CwtCryptoCtx;
  * Note this implementation requires the following claims in a CWT:
  * iss, sub, scope, aud.
  * 
+ * Tokens are processed concurrently: verifying a token and checking its
+ * claims does not hold any lock, while storing it in the TokenRepository
+ * is serialized with the other tokens of the same subject.
+ * 
  * @author Ludwig Seitz and Marco Tiloca
  *
  */
@@ -115,6 +119,23 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
 	 */
 	private static List<Set<Integer>> usedRecipientIds = new ArrayList<Set<Integer>>();
 	
+	/**
+	 * The number of locks serializing the storage of tokens
+	 */
+	private static final int STORAGE_LOCKS = 64;
+	
+	/**
+	 * The locks serializing the storage of tokens of the same subject,
+	 * selected by the hash of the subject
+	 */
+	private final Object[] storageLocks = new Object[STORAGE_LOCKS];
+	
+	/**
+	 * The lock serializing the storage of tokens with an 'exi' claim,
+	 * since their Sequence Numbers are checked against a common one
+	 */
+	private final Object exiLock = new Object();
+	
 	/**
 	 * Constructor. Needs an initialized TokenRepository.
 	 * 
@@ -154,10 +175,13 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
     		usedRecipientIds.add(new HashSet<Integer>());
     	}
     	
+    	for (int i = 0; i < STORAGE_LOCKS; i++) {
+    	    this.storageLocks[i] = new Object();
+    	}
 	}
 
 	@Override
-	public synchronized Message processMessage(Message msg) {
+	public Message processMessage(Message msg) {
 	    LOGGER.log(Level.INFO, "received message: " + msg);
 	    CBORObject token = null;
 	    try {
@@ -171,11 +195,27 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
 	    return processToken(token, msg);
 	}
 	
-	protected synchronized Message processToken(CBORObject token,  Message msg) {
+	protected Message processToken(CBORObject token,  Message msg) {
+	    return processToken(token, msg, null);
+	}
+	
+	/**
+	 * Process an access token and store it.
+	 * 
+	 * Subclasses processing the claims of the token after it is stored,
+	 * e.g. to create a security context from the cnf claim, get them 
+	 * through the stored map, since tokens are processed concurrently.
+	 * 
+	 * @param token  the token as CBOR
+	 * @param msg  the message carrying the token
+	 * @param stored  the map receiving the claims of the stored token, 
+	 *     can be null. It is left empty, if the token is not stored.
+	 * 
+	 * @return  the reply to the message
+	 */
+	protected Message processToken(CBORObject token,  Message msg, 
+	        Map<Short, CBORObject> stored) {
 	    Map<Short, CBORObject> claims = null;
-	    
-        byte[] recipientId = null;
-        boolean recipientIdFound = false;
 
 		//1. Check whether it is a CWT or REF type
 	    if (token.getType().equals(CBORType.ByteString)) {
@@ -338,6 +378,34 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
             return msg.failReply(Message.FAIL_BAD_REQUEST, map);
 	    }
 	    
+	    // The token is verified and its claims checked, which is done 
+	    // concurrently. Only storing it is serialized per subject.
+	    Message reply;
+	    synchronized (getStorageLock(claims, msg.getSenderId())) {
+	        reply = storeToken(token, claims, msg);
+	    }
+	    if (stored != null && reply.getMessageCode() == Message.CREATED) {
+	        stored.putAll(claims);
+	    }
+	    return reply;
+	}
+	
+	/**
+	 * Store the claims of a verified token and create the reply.
+	 * 
+	 * This is called holding the storage lock of the token's subject.
+	 * 
+	 * @param token  the token as CBOR
+	 * @param claims  the checked claims of the token
+	 * @param msg  the message carrying the token
+	 * 
+	 * @return  the reply to the message
+	 */
+	private Message storeToken(CBORObject token, Map<Short, CBORObject> claims,
+	        Message msg) {
+        byte[] recipientId = null;
+        boolean recipientIdFound = false;
+	    
 	    //8. Handle EXI if present
 	    int exiSeqNum = handleExi(claims);
 	    if (exiSeqNum < -1) {
@@ -596,18 +664,46 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
         return msg.successReply(Message.CREATED, rep);
 	}
 	
+	/**
+	 * Get the lock serializing the storage of a token.
+	 * 
+	 * Tokens posted over a secure channel are stored one at a time per 
+	 * subject of the channel, other tokens one at a time per confirmation 
+	 * claim. Tokens with an 'exi' claim are all stored one at a time.
+	 * 
+	 * @param claims  the claims of the token
+	 * @param sid  the subject of the secure channel, can be null
+	 * 
+	 * @return  the lock
+	 */
+	private Object getStorageLock(Map<Short, CBORObject> claims, String sid) {
+	    if (claims.containsKey(Constants.EXI)) {
+	        return this.exiLock;
+	    }
+	    int hash = 0;
+	    if (sid != null) {
+	        hash = sid.hashCode();
+	    } else if (claims.get(Constants.CNF) != null) {
+	        hash = claims.get(Constants.CNF).hashCode();
+	    }
+	    return this.storageLocks[(hash & 0x7fffffff) % STORAGE_LOCKS];
+	}
+	
 	/**
 	 * Extension point for handling other special claims.
 	 * 
 	 * @param claims all claims
 	 */
-	protected synchronized void processOther(Map<Short, CBORObject> claims) {
+	protected void processOther(Map<Short, CBORObject> claims) {
 	    //No processing needed
     }
 
     /**
 	 * Process a message containing a CWT.
 	 * 
+	 * A token verified before is not verified again, but its claims are 
+	 * taken from the VerifiedTokenCache of the TokenRepository.
+	 * 
 	 * Note: The behavior implemented here is the following:
 	 * If we have an introspection handler, we try to introspect,
 	 * if introspection fails we just return the claims from the CWT,
@@ -625,12 +721,19 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
 	 * 
 	 * @throws Exception  when using a not supported key wrap
 	 */
-	protected synchronized Map<Short,CBORObject> processCWT(CBORObject token)
+	protected Map<Short,CBORObject> processCWT(CBORObject token)
 	        throws IntrospectionException, AceException, 
 	        CoseException, Exception {
-	    CWT cwt = CWT.processCOSE(token.EncodeToBytes(), this.ctx);
+	    byte[] cose = token.EncodeToBytes();
+	    VerifiedTokenCache verified 
+	        = TokenRepository.getInstance().getVerifiedTokenCache();
+	    Map<Short, CBORObject> claims = verified.get(cose, this.ctx);
+	    if (claims == null) {
+	        CWT cwt = CWT.processCOSE(cose, this.ctx);
+	        claims = cwt.getClaims();
+	        verified.put(cose, this.ctx, claims);
+	    }
 	    //Check if we can introspect this token
-	    Map<Short, CBORObject> claims = cwt.getClaims();
 	   if (this.intro != null) {
 	       CBORObject cti = claims.get(Constants.CTI);
 	       if (cti != null && cti.getType().equals(CBORType.ByteString)) {
@@ -653,7 +756,7 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
 	 * @throws AceException
 	 * @throws IntrospectionException 
 	 */
-    protected synchronized Map<Short, CBORObject> processReferenceToken(CBORObject token)
+    protected Map<Short, CBORObject> processReferenceToken(CBORObject token)
                 throws AceException, IntrospectionException {
 		// This should be a CBOR String
         if (token.getType() != CBORType.ByteString) {
@@ -691,7 +794,7 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
      *          -3 : the 'cti' claim is present but it is not formatted as expected
      *          -4 : the Sequence Number encoded in the 'cti' claim is not greater than the stored highest Sequence Number
      */
-    private synchronized int handleExi(Map<Short, CBORObject> claims) {
+    private int handleExi(Map<Short, CBORObject> claims) {
     	
         CBORObject exi = claims.get(Constants.EXI);
         if (exi == null) {
@@ -730,7 +833,7 @@ public class AuthzInfo implements Endpoint, AutoCloseable {
      * Handle cnonce if required
      * @throws AceException 
      */
-    private synchronized void handleCnonce(Map<Short, CBORObject> claims) throws AceException {
+    private void handleCnonce(Map<Short, CBORObject> claims) throws AceException {
         if (this.checkCnonce) {
             CnonceHandler.getInstance().checkNonce(claims);
         }
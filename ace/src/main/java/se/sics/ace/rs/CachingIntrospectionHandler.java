@@ -0,0 +1,453 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.upokecenter.cbor.CBORObject;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.TimeProvider;
+
+/**
+ * An IntrospectionHandler caching the introspection results of another one,
+ * e.g. of a DtlspIntrospection or an OscoreIntrospection, which otherwise
+ * does a round trip to the AS for every access check.
+ * 
+ * Results of active tokens are cached for a maximum time, but not beyond the
+ * 'exp' of the token. Results of inactive or unknown tokens are cached for a
+ * shorter time, so that a token posted to the AS shortly afterwards is not
+ * rejected for long. The least recently used results are evicted when the
+ * cache is full. Errors are not cached.
+ * 
+ * Concurrent lookups of the same token not in the cache wait for a single
+ * introspection. If a refresh executor is set, a cached active result is
+ * refreshed in the background when it is accessed within the refresh time
+ * before it expires, so that frequently used tokens don't wait for the AS.
+ * 
+ * All times are in milliseconds of the TimeProvider, the same as the 'exp'
+ * claims of the TokenRepository.
+ * 
+ * Returned results are shared between calls and must not be modified.
+ * 
+ * @author agent
+ *
+ */
+public class CachingIntrospectionHandler implements IntrospectionHandler {
+
+    /**
+     * The logger
+     */
+    private static final Logger LOGGER 
+        = Logger.getLogger(CachingIntrospectionHandler.class.getName());
+
+    /**
+     * The default maximum time to cache a result of an active token
+     */
+    public static final long DEFAULT_TTL = 60000L;
+
+    /**
+     * The default time to cache a result of an inactive or unknown token
+     */
+    public static final long DEFAULT_NEGATIVE_TTL = 5000L;
+
+    /**
+     * The default maximum number of cached results
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * The wrapped handler
+     */
+    private final IntrospectionHandler handler;
+
+    /**
+     * The time provider
+     */
+    private final TimeProvider time;
+
+    /**
+     * The maximum time to cache a result of an active token
+     */
+    private final long ttl;
+
+    /**
+     * The time to cache a result of an inactive or unknown token
+     */
+    private final long negativeTtl;
+
+    /**
+     * The executor refreshing results in the background, or null
+     */
+    private final Executor refresher;
+
+    /**
+     * The time before the expiry of a result to refresh it
+     */
+    private final long refreshAhead;
+
+    /**
+     * The cached results by Base64 encoded token reference, in access order
+     */
+    private final LinkedHashMap<String, Result> cache;
+
+    /**
+     * The introspections in progress by Base64 encoded token reference
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Result>> inFlight 
+        = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation, so that results introspected before
+     * are not stored afterwards
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong introspections = new AtomicLong();
+
+    /**
+     * Constructor using the default times and maximum number of entries,
+     * without background refresh.
+     * 
+     * @param handler  the wrapped handler
+     * @param time  the time provider
+     */
+    public CachingIntrospectionHandler(IntrospectionHandler handler, 
+            TimeProvider time) {
+        this(handler, time, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, 
+                DEFAULT_MAX_ENTRIES, null, 0L);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param handler  the wrapped handler
+     * @param time  the time provider
+     * @param ttl  the maximum time to cache a result of an active token
+     * @param negativeTtl  the time to cache a result of an inactive or 
+     *     unknown token, 0 to not cache them
+     * @param maxEntries  the maximum number of cached results
+     * @param refresher  the executor refreshing results in the background,
+     *     can be null
+     * @param refreshAhead  the time before the expiry of a result to refresh
+     *     it, if a refresher is set
+     */
+    public CachingIntrospectionHandler(IntrospectionHandler handler, 
+            TimeProvider time, long ttl, long negativeTtl, 
+            final int maxEntries, Executor refresher, long refreshAhead) {
+        if (handler == null || time == null) {
+            throw new IllegalArgumentException(
+                    "CachingIntrospectionHandler requires a handler and a time provider");
+        }
+        if (ttl <= 0 || negativeTtl < 0 || maxEntries <= 0 
+                || refreshAhead < 0 || refreshAhead >= ttl) {
+            throw new IllegalArgumentException(
+                    "CachingIntrospectionHandler requires positive ttl and maxEntries,"
+                    + " and refreshAhead less than ttl");
+        }
+        this.handler = handler;
+        this.time = time;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.refresher = refresher;
+        this.refreshAhead = refreshAhead;
+        this.cache = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the number of results served from the cache
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of lookups not served from the cache
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the number of introspections done by the wrapped handler,
+     *     including background refreshes
+     */
+    public long getIntrospections() {
+        return this.introspections.get();
+    }
+
+    /**
+     * @return the number of cached results, including expired ones
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Drop the cached result of a token, e.g. after it was revoked.
+     * 
+     * @param tokenReference  the token reference (cti)
+     */
+    public synchronized void invalidate(byte[] tokenReference) {
+        this.generation.incrementAndGet();
+        this.cache.remove(Base64.getEncoder().encodeToString(tokenReference));
+    }
+
+    /**
+     * Drop all cached results.
+     */
+    public synchronized void invalidate() {
+        this.generation.incrementAndGet();
+        this.cache.clear();
+    }
+
+    @Override
+    public Map<Short, CBORObject> getParams(byte[] tokenReference)
+            throws IntrospectionException, AceException {
+        String key = Base64.getEncoder().encodeToString(tokenReference);
+        long now = this.time.getCurrentTime();
+        Result result = lookup(key, now);
+        if (result != null) {
+            if (now >= result.refreshAt) {
+                refresh(key, tokenReference, result);
+            }
+            return result.params;
+        }
+        
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletableFuture<Result> pending = this.inFlight.putIfAbsent(key, future);
+        if (pending != null) {
+            //Wait for the introspection of another caller
+            return await(pending).params;
+        }
+        try {
+            long generation = this.generation.get();
+            result = introspect(tokenReference);
+            store(key, generation, result);
+            future.complete(result);
+            return result.params;
+        } catch (IntrospectionException | AceException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Look up a cached result, drop it if expired and count the hit or miss.
+     * 
+     * @param key  the Base64 encoded token reference
+     * @param now  the current time
+     * @return  the result, or null if there is none
+     */
+    private synchronized Result lookup(String key, long now) {
+        Result result = this.cache.get(key);
+        if (result != null && now >= result.expiresAt) {
+            this.cache.remove(key);
+            result = null;
+        }
+        if (result == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Store a result, unless it is already expired or the cache has been
+     * invalidated since introspecting it.
+     * 
+     * @param key  the Base64 encoded token reference
+     * @param generation  the generation before introspecting
+     * @param result  the result
+     */
+    private synchronized void store(String key, long generation, Result result) {
+        if (this.generation.get() == generation 
+                && result.expiresAt > this.time.getCurrentTime()) {
+            this.cache.put(key, result);
+        }
+    }
+
+    /**
+     * Introspect a token with the wrapped handler.
+     * 
+     * @param tokenReference  the token reference (cti)
+     * @return  the result with its expiry and refresh time
+     * @throws IntrospectionException
+     * @throws AceException
+     */
+    private Result introspect(byte[] tokenReference) 
+            throws IntrospectionException, AceException {
+        this.introspections.incrementAndGet();
+        Map<Short, CBORObject> params = this.handler.getParams(tokenReference);
+        long now = this.time.getCurrentTime();
+        if (params == null) {
+            return new Result(null, now + this.negativeTtl, Long.MAX_VALUE);
+        }
+        params = Collections.unmodifiableMap(new HashMap<>(params));
+        CBORObject active = params.get(Constants.ACTIVE);
+        if (active == null || !active.isTrue()) {
+            return new Result(params, now + this.negativeTtl, Long.MAX_VALUE);
+        }
+        long expiresAt = now + this.ttl;
+        CBORObject exp = params.get(Constants.EXP);
+        if (exp != null && exp.isNumber() && exp.AsNumber().IsInteger()) {
+            expiresAt = Math.min(expiresAt, exp.AsNumber().ToInt64Checked());
+        }
+        long refreshAt = (this.refresher == null) 
+                ? Long.MAX_VALUE : expiresAt - this.refreshAhead;
+        return new Result(params, expiresAt, refreshAt);
+    }
+
+    /**
+     * Refresh a cached result in the background, unless it is already being
+     * refreshed.
+     * 
+     * @param key  the Base64 encoded token reference
+     * @param tokenReference  the token reference (cti)
+     * @param result  the cached result
+     */
+    private void refresh(final String key, final byte[] tokenReference, 
+            final Result result) {
+        if (!result.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        final long generation = this.generation.get();
+        try {
+            this.refresher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        store(key, generation, introspect(tokenReference));
+                    } catch (IntrospectionException | AceException 
+                            | RuntimeException e) {
+                        LOGGER.fine("Refreshing introspection of " + key 
+                                + " failed: " + e.getMessage());
+                        //Try again on the next access
+                        result.refreshing.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Wait for the introspection of another caller.
+     * 
+     * @param pending  the pending result
+     * @return  the result
+     * @throws IntrospectionException
+     * @throws AceException
+     */
+    private static Result await(CompletableFuture<Result> pending) 
+            throws IntrospectionException, AceException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AceException("Interrupted while waiting for introspection");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IntrospectionException) {
+                throw (IntrospectionException) cause;
+            }
+            if (cause instanceof AceException) {
+                throw (AceException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AceException(cause.getMessage());
+        }
+    }
+
+    /**
+     * An introspection result with its expiry and refresh time.
+     */
+    private static class Result {
+
+        /**
+         * The introspected parameters, null for an unknown token
+         */
+        private final Map<Short, CBORObject> params;
+
+        /**
+         * The time the result expires
+         */
+        private final long expiresAt;
+
+        /**
+         * The time to refresh the result in the background
+         */
+        private final long refreshAt;
+
+        /**
+         * The result is being refreshed
+         */
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Result(Map<Short, CBORObject> params, long expiresAt, long refreshAt) {
+            this.params = params;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
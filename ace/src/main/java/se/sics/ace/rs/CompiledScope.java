@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The permissions granted by a scope, compiled once when a token is added so
+ * that access checks do not have to parse the scope again.
+ * 
+ * Maps each resource to a bitmask of the allowed actions, where bit
+ * <code>n</code> is set if the action with the value <code>n</code> is
+ * allowed. Actions are limited to the values 0 to {@link #MAX_ACTION}.
+ * 
+ * Instances are immutable.
+ * 
+ * @author agent
+ *
+ */
+public final class CompiledScope {
+
+    /**
+     * The largest action value that can be represented
+     */
+    public static final int MAX_ACTION = Long.SIZE - 1;
+    
+    /**
+     * Maps the resources to the bitmask of allowed actions
+     */
+    private final Map<String, Long> permissions;
+    
+    /**
+     * Constructor.
+     * 
+     * @param permissions  maps the resources to the bitmask of allowed actions
+     */
+    public CompiledScope(Map<String, Long> permissions) {
+        if (permissions == null) {
+            throw new IllegalArgumentException("CompiledScope requires non-null permissions");
+        }
+        this.permissions = Collections.unmodifiableMap(new HashMap<>(permissions));
+    }
+    
+    /**
+     * Get the bit representing an action in the bitmask.
+     * 
+     * @param action  the action
+     * @return  the bit, or 0 if the action cannot be represented
+     */
+    public static long actionBit(int action) {
+        if (action < 0 || action > MAX_ACTION) {
+            return 0L;
+        }
+        return 1L << action;
+    }
+    
+    /**
+     * Does this scope include the given resource.
+     * 
+     * @param resource  the resource
+     * @return  true if the scope includes the resource, false if not
+     */
+    public boolean matchResource(String resource) {
+        return this.permissions.containsKey(resource);
+    }
+    
+    /**
+     * Does this scope include the given resource and action.
+     * 
+     * @param resource  the resource
+     * @param action  the action on the resource
+     * @return  true if the scope includes the resource and the action, false if not
+     */
+    public boolean match(String resource, short action) {
+        Long actions = this.permissions.get(resource);
+        return actions != null && (actions & actionBit(action)) != 0L;
+    }
+    
+    /**
+     * @return  the resources mapped to the bitmask of allowed actions
+     */
+    public Map<String, Long> getPermissions() {
+        return this.permissions;
+    }
+}
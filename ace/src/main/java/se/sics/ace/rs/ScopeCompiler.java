@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import com.upokecenter.cbor.CBORObject;
+
+import se.sics.ace.AceException;
+
+/**
+ * An optional extension of scope validators, that can compile a scope into
+ * a {@link CompiledScope}.
+ * 
+ * The compiled scope must give the same results as
+ * {@link ScopeValidator#scopeMatchResource(CBORObject, String)} and
+ * {@link ScopeValidator#scopeMatch(CBORObject, String, Object)}. The
+ * {@link TokenRepository} compiles the scope of each token when the token is
+ * added, if its validator implements this interface.
+ * 
+ * @author agent
+ *
+ */
+public interface ScopeCompiler {
+
+    /**
+     * Compile a scope.
+     * 
+     * @param scope  the scope
+     * @return  the compiled scope, or null if the scope cannot be represented
+     *     as a CompiledScope and has to be checked by the validator
+     * @throws AceException  if the scope is malformed
+     */
+    CompiledScope compileScope(CBORObject scope) throws AceException;
+}
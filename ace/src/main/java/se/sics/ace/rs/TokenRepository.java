@@ -38,14 +38,21 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.logging.Logger;
 
 import org.eclipse.californium.elements.auth.RawPublicKeyIdentity;
@@ -87,6 +94,14 @@ import se.sics.ace.cwt.CwtCryptoCtx;
  * This class is implemented as a singleton to ensure that all users see
  * the same repository (and yes I know that parameterized singletons are bad 
  * style, go ahead and suggest a better solution).
+ * 
+ * Each token is kept as one record, reachable from its cti and through
+ * secondary indexes by kid and subject identity. Tokens with an expiration
+ * time are also kept in an index ordered by expiration, so that purging
+ * only visits the expired tokens. Methods changing the repository are
+ * synchronized, while lookups such as canAccess() read the concurrent
+ * indexes without locking. Only when a token is due for removal does
+ * canAccess() wait for the purge.
  *  
  * @author Ludwig Seitz and Marco Tiloca
  *
@@ -130,9 +145,29 @@ public class TokenRepository implements AutoCloseable {
     private boolean closed = true;
     
 	/**
-	 * Maps the base64 encoded cti to the claims of the corresponding token
+	 * Maps the base64 encoded cti to the record of the corresponding token
+	 */
+	private Map<String, TokenRecord> tokens;
+	
+	/**
+	 * The tokens with an expiration time, ordered by expiration time
+	 */
+	private NavigableSet<TokenRecord> expiryIndex;
+	
+	/**
+	 * Maps the Sequence Number of tokens including the 'exi' claim to the base64 encoded cti
 	 */
-	private Map<String, Map<Short, CBORObject>> cti2claims;
+	private NavigableMap<Integer, String> exiIndex;
+	
+	/**
+	 * Maps a pop-key kid to the base64 encoded ctis of the tokens bound to it
+	 */
+	private Map<String, Set<String>> kid2ctis;
+	
+	/**
+	 * Map a kid to the subject identity using it
+	 */
+	private Map<String, String> kid2sid;
 	
 	
 	/**
@@ -165,6 +200,11 @@ public class TokenRepository implements AutoCloseable {
 	 */
 	private Map<String, String>sid2id;
 	
+	/**
+	 * Map an OSCORE input material identifier to the subject identity
+	 */
+	private Map<String, String>id2sid;
+	
 	/**
 	 * Map a subject identity to the rsnonce possibly provided upon Token posting
 	 * This is relevant when joining an OSCORE Group, with the RS acting as Group Manager
@@ -214,7 +254,12 @@ public class TokenRepository implements AutoCloseable {
 	 * Related to Access Tokens including the 'exi' claim, this has as value the highest
 	 * Sequence Number received in any of such Tokens, as encoded in the 'cti' claim 
 	 */
-	private int topExiSequenceNumber;	
+	private volatile int topExiSequenceNumber;	
+	
+	/**
+	 * The claims of already verified tokens, dropped when a token is removed
+	 */
+	private VerifiedTokenCache verifiedTokens;
 
 	/**
 	 * The singleton getter.
@@ -276,20 +321,32 @@ public class TokenRepository implements AutoCloseable {
 	        String tokenFile, CwtCryptoCtx ctx, byte[] keyDerivationKey, int derivedKeySize, TimeProvider time, String rsId) 
 			        throws IOException, AceException {
 	    this.closed = false;
-	    this.cti2claims = new HashMap<>();
-	    this.kid2key = new HashMap<>();
-	    this.cti2kid = new HashMap<>();
-	    this.sid2kid = new HashMap<>();
-	    this.sid2cti = new HashMap<>();
-	    this.id2cti = new HashMap<>();
-	    this.sid2id = new HashMap<>();
-	    this.sid2rsnonce = new HashMap<>();
+	    this.tokens = new ConcurrentHashMap<>();
+	    this.expiryIndex = new ConcurrentSkipListSet<>(new Comparator<TokenRecord>() {
+	        @Override
+	        public int compare(TokenRecord r1, TokenRecord r2) {
+	            int cmp = Long.compare(r1.exp, r2.exp);
+	            return (cmp != 0) ? cmp : r1.cti.compareTo(r2.cti);
+	        }
+	    });
+	    this.exiIndex = new ConcurrentSkipListMap<>();
+	    this.kid2ctis = new ConcurrentHashMap<>();
+	    this.kid2sid = new ConcurrentHashMap<>();
+	    this.kid2key = new ConcurrentHashMap<>();
+	    this.cti2kid = new ConcurrentHashMap<>();
+	    this.sid2kid = new ConcurrentHashMap<>();
+	    this.sid2cti = new ConcurrentHashMap<>();
+	    this.id2cti = new ConcurrentHashMap<>();
+	    this.sid2id = new ConcurrentHashMap<>();
+	    this.id2sid = new ConcurrentHashMap<>();
+	    this.sid2rsnonce = new ConcurrentHashMap<>();
 	    this.scopeValidator = scopeValidator;
 	    this.time = time;
 	    this.keyDerivationKey = keyDerivationKey;
 	    this.derivedKeySize = derivedKeySize;
 		this.topExiSequenceNumber = -1;
 		this.rsId = rsId;
+		this.verifiedTokens = new VerifiedTokenCache(time);
 
 	    if (tokenFile == null) {
 	        throw new IllegalArgumentException("Must provide a token file path");
@@ -373,6 +430,30 @@ public class TokenRepository implements AutoCloseable {
         } else {		
 		    cti = Base64.getEncoder().encodeToString(cticb.GetByteString());
 		}
+		
+		TokenRecord record = new TokenRecord(cti);
+		CBORObject exp = claims.get(Constants.EXP);
+		if (exp != null) {
+		    if (!(exp.isNumber() && exp.AsNumber().IsInteger())) {
+		        throw new AceException("Expiration time is in wrong format");
+		    }
+		    record.exp = exp.AsNumber().ToInt64Checked();
+		}
+		CBORObject nbf = claims.get(Constants.NBF);
+		if (nbf != null) {
+		    if (!(nbf.isNumber() && nbf.AsNumber().IsInteger())) {
+		        throw new AceException("NotBefore time is in wrong format");
+		    }
+		    record.nbf = nbf.AsNumber().ToInt64Checked();
+		}
+		if (this.scopeValidator instanceof ScopeCompiler) {
+		    try {
+		        record.scope = ((ScopeCompiler) this.scopeValidator).compileScope(so);
+		    } catch (AceException e) {
+		        // Leave it to the validator, which reports the error on access
+		        LOGGER.fine("Could not compile scope of token " + cti + ": " + e.getMessage());
+		    }
+		}
 
 		//Store the pop-key
 		boolean storeKey = true;
@@ -390,7 +471,8 @@ public class TokenRepository implements AutoCloseable {
         boolean repostedOscoreToken = false;
         byte[] oldOscoreRecipientId = null;
         byte[] oldOscoreContextId = null;
-		if (this.cti2claims.containsKey(cti)) {
+		TokenRecord storedRecord = this.tokens.get(cti);
+		if (storedRecord != null) {
 			
 			if (cnf.getKeys().contains(Constants.OSCORE_Input_Material) && sid == null) {
 				
@@ -400,7 +482,7 @@ public class TokenRepository implements AutoCloseable {
 				// establishment of a new OSCORE Security Context, which /authz-info already takes care of. 
 				
 				// The already stored token must also have been related to OSCORE
-				CBORObject storedCnf = this.cti2claims.get(cti).get(Constants.CNF);
+				CBORObject storedCnf = storedRecord.claims.get(Constants.CNF);
 				if (storedCnf.getKeys().contains(Constants.OSCORE_Input_Material) == false) {
 					throw new AceException("Duplicate cti");
 				}
@@ -408,6 +490,8 @@ public class TokenRepository implements AutoCloseable {
 				// This same Token remains. Later on, it has to be associated with the new
 				// client identity and the old OSCORE Security Context has to be deleted.
 				repostedOscoreToken = true;
+				record.sids.addAll(storedRecord.sids);
+				record.ids.addAll(storedRecord.ids);
 				oldOscoreRecipientId = storedCnf.get(Constants.OSCORE_Input_Material).
 									   get(Constants.OS_CLIENTID).GetByteString();
 				oldOscoreContextId = storedCnf.get(Constants.OSCORE_Input_Material).
@@ -525,7 +609,7 @@ public class TokenRepository implements AutoCloseable {
 			                      // preserving the same security association used to protect this Token POST and
 			                      // associated to the Token to supersede
 			                      
-	      	              		  Map<Short, CBORObject> storedClaims = cti2claims.get(storedCti);
+	      	              		  Map<Short, CBORObject> storedClaims = getClaims(storedCti);
 	      	              		  CBORObject storedCnf = storedClaims.get(Constants.CNF);
 	      	              		
 	      	              		  // The following should never happen, being this an already stored Token
@@ -543,10 +627,10 @@ public class TokenRepository implements AutoCloseable {
 			                      claims.put(Constants.CNF, storedCnf);
 			                      	
 			                      // Store the association between the CTI of the new Token and the same current kid
-			                      this.cti2kid.put(cti, receivedKid);
+			                      bindKid(cti, receivedKid);
 			                      
 			                      // Store the association between the same current subjectId and the CTI of the new Token
-			                      this.sid2cti.put(sid, cti);
+			                      bindSid(record, sid);
 			                      
 			                      // The same PoP key remains in use
 			                      storeKey = false;
@@ -568,7 +652,7 @@ public class TokenRepository implements AutoCloseable {
               }
               if (storeKey) {
 	              OneKey key = new OneKey(ckey);
-	              processKey(key, sid, cti);
+	              processKey(key, sid, record);
               }
             }
             catch (CoseException e) {
@@ -585,7 +669,7 @@ public class TokenRepository implements AutoCloseable {
               msg.decrypt(ctx.getKey());
               CBORObject keyData = CBORObject.DecodeFromBytes(msg.GetContent());
               OneKey key = new OneKey(keyData);
-              processKey(key, sid, cti);
+              processKey(key, sid, record);
           } catch (CoseException e) {
               LOGGER.severe("Error while decrypting a cnf claim: "
                       + e.getMessage());
@@ -619,7 +703,7 @@ public class TokenRepository implements AutoCloseable {
             		// Now check that the stored Token is actually
             		// associated to an OSCORE Security Context 
             		
-            		Map<Short, CBORObject> storedClaims = cti2claims.get(storedCti);
+            		Map<Short, CBORObject> storedClaims = getClaims(storedCti);
             		CBORObject storedCnf = storedClaims.get(Constants.CNF);
             		
             		// The following should never happen, being this an already stored Token
@@ -654,16 +738,16 @@ public class TokenRepository implements AutoCloseable {
                     	claims.put(Constants.CNF, storedCnf);
                     	
                     	// Store the association between the same current subjectId and the CTI of the new Token
-                    	this.sid2cti.put(sid, cti);
+                    	bindSid(record, sid);
                     	
                     	// Store the association between the CTI of the new Token and kid, with kid equal to the subjectId 
-                        this.cti2kid.put(cti, sid);
+                        bindKid(cti, sid);
 
                     	// Store the association between the immutable identifier of the OSCORE input material
                     	// and the base64 encoded cti of this Access Token; this will be updated in case a new
                     	// Access Token with updated access rights (and a new cti) is posted as still associated
                     	// to this OSCORE input material identifier and hence to the same kid
-                    	this.id2cti.put(kid, cti);
+                    	bindId(record, kid);
                     	
                     	// Delete the old Token that has been replaced
                     	removeToken(storedCti);
@@ -694,7 +778,7 @@ public class TokenRepository implements AutoCloseable {
 	                throw new AceException("Token refers to unknown kid");
 	            }
 	            //Store the association between token and known key
-	            this.cti2kid.put(cti, kid);
+	            bindKid(cti, kid);
 	            
 	            // Since the Token POST is not protected, there is no Subject ID available
 	            // at all for the moment, to store the associations sid2kid and sid2cti
@@ -722,13 +806,13 @@ public class TokenRepository implements AutoCloseable {
         	subjectId += kid;
         	
         	// Store the association between subjectId and kid, with kid equal to the subjectId
-        	this.sid2kid.put(subjectId, subjectId);
+        	bindSubject(subjectId, subjectId);
         	
         	// Store the association between subjectId and the Token CTI
-        	this.sid2cti.put(subjectId, cti);
+        	bindSid(record, subjectId);
         	
         	// Store the association between CTI and kid, with kid equal to the subjectId
-            this.cti2kid.put(cti, subjectId);
+            bindKid(cti, subjectId);
             
             if (repostedOscoreToken == true) {
             	// The same Token has been reposted through an unprotected request
@@ -763,11 +847,12 @@ public class TokenRepository implements AutoCloseable {
                 // Access Token with updated access rights (and a new cti) is posted as still associated
                 // to this OSCORE input material identifier and hence to the same kid
             	String id = Base64.getEncoder().encodeToString(osc.getId());
-	            this.id2cti.put(id, cti);
+	            bindId(record, id);
 	            
                 // Store the association between the subjectId and
 	            // the immutable identifier of the OSCORE input material
 	            this.sid2id.put(subjectId, id);
+	            this.id2sid.put(id, subjectId);
 	            
             }
             
@@ -801,13 +886,21 @@ public class TokenRepository implements AutoCloseable {
 	    		
 	    		TokenRepository.getInstance().setTopExiSequenceNumber(exiSeqNum);
 	    	}
+	    	record.exiSeqNum = exiSeqNum;
 	    		
 	    } 
         
         //Now store the claims. Need deep copy here
         Map<Short, CBORObject> foo = new HashMap<>();
         foo.putAll(claims);
-        this.cti2claims.put(cti, foo);
+        record.claims = foo;
+        this.tokens.put(cti, record);
+        if (record.exp != null) {
+            this.expiryIndex.add(record);
+        }
+        if (record.exiSeqNum >= 0) {
+            this.exiIndex.put(record.exiSeqNum, cti);
+        }
 	    
         persist();
         
@@ -819,12 +912,12 @@ public class TokenRepository implements AutoCloseable {
 	 * 
 	 * @param key  the key
 	 * @param sid  the subject identifier
-	 * @param cti  the token's identifier
+	 * @param record  the record of the token
 	 * 
 	 * @throws AceException
 	 * @throws CoseException
 	 */
-	private void processKey(OneKey key, String sid, String cti) 
+	private void processKey(OneKey key, String sid, TokenRecord record) 
 	        throws AceException, CoseException {
 	    
 	    String kid = null;
@@ -857,8 +950,8 @@ public class TokenRepository implements AutoCloseable {
         	// Add the new subject ID only if it is actually new, i.e. this is
         	// not an attempt to update access rights of an already stored Token
         	if (!sid2kid.containsKey(sid) && !sid2cti.containsKey(sid)) {
-	            this.sid2kid.put(sid, kid);
-	        	this.sid2cti.put(sid, cti);
+	            bindSubject(sid, kid);
+	        	bindSid(record, sid);
         	}
         	else {
 	            LOGGER.severe("A new PoP key must be provided through an unprotected Token POST");
@@ -871,17 +964,86 @@ public class TokenRepository implements AutoCloseable {
             //Scandium needs a special mapping for raw public keys
             RawPublicKeyIdentity rpk  = new RawPublicKeyIdentity(key.AsPublicKey());
             
-            this.sid2kid.put(rpk.getName(), kid);
-        	this.sid2cti.put(rpk.getName(), cti);
+            bindSubject(rpk.getName(), kid);
+        	bindSid(record, rpk.getName());
         }
         
         else { //Take the kid as sid
-            this.sid2kid.put(kid, kid);
-        	this.sid2cti.put(kid, cti);
+            bindSubject(kid, kid);
+        	bindSid(record, kid);
         }  
         
-        this.cti2kid.put(cti, kid);
         this.kid2key.put(kid, key);
+        bindKid(record.cti, kid);
+    }
+
+    /**
+     * Bind a token to the kid of its pop-key.
+     * 
+     * @param cti  the cti of the token Base64 encoded
+     * @param kid  the kid
+     */
+    private void bindKid(String cti, String kid) {
+        String oldKid = this.cti2kid.put(cti, kid);
+        if (oldKid != null && !oldKid.equals(kid)) {
+            unbindKid(cti, oldKid);
+        }
+        Set<String> ctis = this.kid2ctis.get(kid);
+        if (ctis == null) {
+            ctis = ConcurrentHashMap.newKeySet();
+            this.kid2ctis.put(kid, ctis);
+        }
+        ctis.add(cti);
+    }
+    
+    /**
+     * Remove a token from the kid index, and the key if no other token uses it.
+     * 
+     * @param cti  the cti of the token Base64 encoded
+     * @param kid  the kid
+     */
+    private void unbindKid(String cti, String kid) {
+        Set<String> ctis = this.kid2ctis.get(kid);
+        if (ctis != null) {
+            ctis.remove(cti);
+            if (ctis.isEmpty()) {
+                this.kid2ctis.remove(kid);
+                this.kid2key.remove(kid);
+            }
+        }
+    }
+    
+    /**
+     * Bind a subject identity to a token.
+     * 
+     * @param record  the record of the token
+     * @param sid  the subject identity
+     */
+    private void bindSid(TokenRecord record, String sid) {
+        this.sid2cti.put(sid, record.cti);
+        record.sids.add(sid);
+    }
+    
+    /**
+     * Bind a subject identity to the kid it uses.
+     * 
+     * @param sid  the subject identity
+     * @param kid  the kid
+     */
+    private void bindSubject(String sid, String kid) {
+        this.sid2kid.put(sid, kid);
+        this.kid2sid.put(kid, sid);
+    }
+    
+    /**
+     * Bind an OSCORE input material identifier to a token.
+     * 
+     * @param record  the record of the token
+     * @param id  the OSCORE input material identifier
+     */
+    private void bindId(TokenRecord record, String id) {
+        this.id2cti.put(id, record.cti);
+        record.ids.add(id);
     }
 
     /**
@@ -894,124 +1056,103 @@ public class TokenRepository implements AutoCloseable {
 	    if (cti == null) {
             throw new AceException("Cti is null");
         } 
-	    
+	    removeRecord(cti);
+		persist();
+	}
+	
+	/**
+	 * Remove a token and its entries in the indexes, without saving the
+	 * tokens to the token file.
+	 * 
+	 * @param cti  the cti of the token to be removed Base64 encoded.
+	 * @throws AceException 
+	 */
+	private void removeRecord(String cti) throws AceException {
         // Remove the claims
-        this.cti2claims.remove(cti);
+        TokenRecord record = this.tokens.remove(cti);
+        this.verifiedTokens.invalidate(cti);
  
-		// Remove the mapping to the pop key
-		this.cti2kid.remove(cti);
-		
-		// Remove unused keys
-		Set<String> remove = new HashSet<>();
-		for (String kid : this.kid2key.keySet()) {
-		    if (!this.cti2kid.containsValue(kid)) {
-		        remove.add(kid);
-		    }
-		}
-		for (String kid : remove) {
-		    this.kid2key.remove(kid);
+		// Remove the mapping to the pop key, and the key if unused
+		String kid = this.cti2kid.remove(cti);
+		if (kid != null) {
+		    unbindKid(cti, kid);
 		}
 		
-		// Remove the mapping from the subject ID to cti
-		remove = new HashSet<>();
-		for (String sid : this.sid2cti.keySet()) {
-			if (this.sid2cti.get(sid).equals(cti)) {
-				remove.add(sid);
-		    }
+		if (record == null) {
+		    return;
 		}
-		for (String sid : remove) {
-			this.sid2cti.remove(sid);
+		if (record.exp != null) {
+		    this.expiryIndex.remove(record);
 		}
-				
-		// Remove unused kids
-		remove = new HashSet<>();
-		for (String sid : this.sid2kid.keySet()) {
-		    if (!this.sid2cti.containsKey(sid)) {
-		        remove.add(sid);
-		    }
-		}
-		for (String sid : remove) {
-		    this.sid2kid.remove(sid);
+		if (record.exiSeqNum >= 0) {
+		    this.exiIndex.remove(record.exiSeqNum, cti);
 		}
 		
-		// Remove unused rs nonces
-		// Relevant when joining an OSCORE Group, with the RS acting as Group Manager
-		remove = new HashSet<>();
-		for (String sid : this.sid2rsnonce.keySet()) {
-		    if (!this.sid2cti.containsKey(sid)) {
-		        remove.add(sid);
+		// Remove the mapping from the subject ID to cti, unless the subject ID
+		// has been bound to a newer token in the meantime
+		for (String sid : record.sids) {
+		    if (this.sid2cti.remove(sid, cti)) {
+		        // Remove unused kids
+		        String sidKid = this.sid2kid.remove(sid);
+		        if (sidKid != null) {
+		            this.kid2sid.remove(sidKid, sid);
+		        }
+		        // Remove unused rs nonces
+		        // Relevant when joining an OSCORE Group, with the RS acting as Group Manager
+		        this.sid2rsnonce.remove(sid);
 		    }
 		}
-		for (String sid : remove) {
-		    this.sid2rsnonce.remove(sid);
-		}
 		
 		// Remove the mapping from an OSCORE ID to cti,
 		// if the Token was established with the OSCORE profile
-		remove = new HashSet<>();
-		for (String id : this.id2cti.keySet()) {
-			if (this.id2cti.get(id).equals(cti)) {
-				remove.add(id);
+		for (String id : record.ids) {
+		    if (!this.id2cti.remove(id, cti)) {
+		        continue;
 		    }
-		}
-		for (String id : remove) {
-	    	this.id2cti.remove(id);
 	    	
 	    	// Remove the mapping from the subject ID to the OSCORE Input Material ID
-	    	Set<String> sidsToRemove = new HashSet<>();
-	    	for (String sid: sid2id.keySet()) {
-	    	      if (sid2id.get(sid).equals(id)) {
-	    	         sidsToRemove.add(sid);
-	    	      }
-	    	}	    	
-	    	for (String sid: sidsToRemove) {
-				sid2id.remove(sid);
+		    String sid = this.id2sid.remove(id);
+		    if (sid == null || !this.sid2id.remove(sid, id)) {
+		        continue;
+		    }
 
-				// Remove the OSCORE Security Context
-				int index = sid.indexOf(":");
-				byte[] idContext = null;
-				if (index >= 0) {
-					// Extract the OSCORE ID Context
-					String idContextString = sid.substring(0, index);
-					idContext = Base64.getDecoder().decode(idContextString);
-				}
-				String recipientIdString = sid.substring(index+1, sid.length());
-				byte[] recipientId = Base64.getDecoder().decode(recipientIdString);
+		    // Remove the OSCORE Security Context
+		    int index = sid.indexOf(":");
+		    byte[] idContext = null;
+		    if (index >= 0) {
+		        // Extract the OSCORE ID Context
+		        String idContextString = sid.substring(0, index);
+		        idContext = Base64.getDecoder().decode(idContextString);
+		    }
+		    String recipientIdString = sid.substring(index+1, sid.length());
+		    byte[] recipientId = Base64.getDecoder().decode(recipientIdString);
 
-				OSCoreCtxDB db = OscoreCtxDbSingleton.getInstance();
-				try {
-					OSCoreCtx ctx = db.getContext(recipientId, idContext);
-					db.removeContext(ctx);
-				} catch (CoapOSException e) {
-					e.printStackTrace();
-					LOGGER.severe("Unable to retrieve the OSCORE Security Context to delete");
-					throw new AceException("Unable to retrieve the OSCORE Security Context to delete");
-				}
-	    	}
-	    	
+		    OSCoreCtxDB db = OscoreCtxDbSingleton.getInstance();
+		    try {
+		        OSCoreCtx ctx = db.getContext(recipientId, idContext);
+		        db.removeContext(ctx);
+		    } catch (CoapOSException e) {
+		        e.printStackTrace();
+		        LOGGER.severe("Unable to retrieve the OSCORE Security Context to delete");
+		        throw new AceException("Unable to retrieve the OSCORE Security Context to delete");
+		    }
 		}
-		
-		persist();
 	}
 	
 	/**
 	 * Poll the stored tokens and expunge those that have expired.
 	 * 
 	 * Note that non-expired tokens might also be expunged, if including the 'exi' claim
+	 * 
+	 * Only the expired tokens are visited, in order of expiration, and the
+	 * token file is saved once at the end.
      *
 	 * @throws AceException 
 	 */
 	public synchronized void purgeTokens() throws AceException {
 		
-		// Set of Access Tokens to remove, due to the possible following reasons:
-		// - The Access Token is expired
-		// - The Access Token is not expired, but: it includes the 'exi' claim; and
-		//   its associated Sequence Number is smaller than the highest Sequence Number
-		//   among the expired Access Tokens to remove that include the 'exi' claim 
-	    HashSet<String> tokenToRemove = new HashSet<>();
-	    
-	    // Set of non-expired Access Tokens that include the 'exi' claim
-	    HashSet<String> tokenWithExiNotExpired = new HashSet<>();
+	    long now = this.time.getCurrentTime();
+	    boolean removed = false;
 	    
 	    // Highest Sequence Number among the expired
 	    // Access Tokens to remove that include the 'exi' claim 
@@ -1020,96 +1161,54 @@ public class TokenRepository implements AutoCloseable {
 	    
 	    // Phase 1: identify and delete the expired Access Tokens
 	    
-		for (Map.Entry<String, Map<Short, CBORObject>> foo : this.cti2claims.entrySet()) {
-		    if (foo.getValue() != null) {
-		    	
-		    	CBORObject exi = foo.getValue().get(Constants.EXI);
-		        CBORObject exp = foo.getValue().get(Constants.EXP);
-		        
-		        if (exp == null) {
-		            continue; //This token never expires
-		        }
-		        if (!(exp.isNumber() && exp.AsNumber().IsInteger())) {
-		            throw new AceException("Expiration time is in wrong format");
-		        }
-		        
-		        if (this.time.getCurrentTime() > exp.AsNumber().ToInt64Checked()) {
-		        	// This Access Token is expired and has to be removed
-		            tokenToRemove.add(foo.getKey());
-		            
-		            if (exi != null) {
-		            	// This expired Access Token has an 'exi' claim 
-		            	
-		            	CBORObject cticb = foo.getValue().get(Constants.CTI);
-			    		int exiSeqNum = getExiSeqNumFromCti(cticb.GetByteString());
-			    		if (exiSeqNum < 0) {
-			    			// This should never happen, since an accepted and stored Access Token
-			    			// should have been validated as including a 'cti' claim with the intended format
-			                LOGGER.severe("Malformed cti claim in stored token including an exi claim");
-			                throw new AceException("Malformed cti claim in stored token including an exi claim");
-			    		}
-			    		// Track the highest Sequence Number among the expired Access Tokens with the 'exi' claim 
-			    		if (exiSeqNum > highestExiSeqNum) {
-			    			highestExiSeqNum = exiSeqNum;
-			    		}
-		            }
-
-				}
-		        else if (exi != null) {
-	            	// The Access Token is not expired, but it includes the 'exi' claim
-		        	// and thus will require further inspection for possible deletion
-		        	tokenWithExiNotExpired.add(foo.getKey());
-	            }
-		        
-			}
-		}
-		
-		// Delete the expired Access Tokens
-		for (String cti : tokenToRemove) {
-		    removeToken(cti);
-		}
+	    TokenRecord head = firstToExpire();
+	    while (head != null && now > head.exp) {
+	        this.expiryIndex.remove(head);
+	        
+	        // Track the highest Sequence Number among the expired Access Tokens with the 'exi' claim 
+	        if (head.exiSeqNum > highestExiSeqNum) {
+	            highestExiSeqNum = head.exiSeqNum;
+	        }
+	        removeRecord(head.cti);
+	        removed = true;
+	        head = firstToExpire();
+	    }
 		
 		
-	    // Phase 2: identify and delete the non-expired Access Tokens that include the 'exi' claim and that
+	    // Phase 2: delete the non-expired Access Tokens that include the 'exi' claim and that
 		//          have their Sequence Number smaller than the highest Sequence Number previously identified. 
 		
-		// This can be skipped altogether if any of the two following conditions holds:
-		// - There are no non-expired Access Tokens that include the 'exi' claim; OR
-		// - No expired Access Tokens including the 'exi' claim were found and deleted
-		if (!tokenWithExiNotExpired.isEmpty() || highestExiSeqNum != -1) {
-			tokenToRemove = new HashSet<>();	
-			
-			for (Map.Entry<String, Map<Short, CBORObject>> foo : this.cti2claims.entrySet()) {
-			    if (foo.getValue() != null) {
-			    	
-			    	if (tokenWithExiNotExpired.contains(foo.getKey())) {
-				    	int exiSeqNum = -1;
-		            	CBORObject cticb = foo.getValue().get(Constants.CTI);
-			    		exiSeqNum = getExiSeqNumFromCti(cticb.GetByteString());
-			    		
-			    		if (exiSeqNum < 0) {
-			    			// This should never happen, since an accepted and stored Access Token
-			    			// should have been validated as including a 'cti' claim with the intended format
-			                LOGGER.severe("Malformed cti claim in stored token including an exi claim");
-			                throw new AceException("Malformed cti claim in stored token including an exi claim");
-			    		}
-			    		if (exiSeqNum <= highestExiSeqNum) {
-			    			// This non-expired Access Tokens includes the 'exi' claim and
-			    			// its Sequence Number is smaller than the highest Sequence Number
-			    			// previously identified. Hence, it must also be removed.
-			    			tokenToRemove.add(foo.getKey());
-			    		}
-			    	}
-			    }
-			}
-			
-			// Delete the non-expired Access Tokens including the 'exi' claim
-			for (String cti : tokenToRemove) {
-			    removeToken(cti);
-			}
-			
+		if (highestExiSeqNum != -1) {
+		    for (String cti : new ArrayList<>(this.exiIndex.headMap(highestExiSeqNum, true).values())) {
+		        removeRecord(cti);
+		        removed = true;
+		    }
 		}
-				
+		
+		if (removed) {
+		    persist();
+		}
+	}
+	
+	/**
+	 * @return  the token expiring first, or null if no token has an expiration time
+	 */
+	private TokenRecord firstToExpire() {
+	    Iterator<TokenRecord> iter = this.expiryIndex.iterator();
+	    return iter.hasNext() ? iter.next() : null;
+	}
+	
+	/**
+	 * Purge the stored tokens, only if a token has expired. Does not lock
+	 * the repository otherwise.
+	 * 
+	 * @throws AceException 
+	 */
+	private void purgeTokensIfDue() throws AceException {
+	    TokenRecord head = firstToExpire();
+	    if (head != null && this.time.getCurrentTime() > head.exp) {
+	        purgeTokens();
+	    }
 	}
 	
 	/**
@@ -1130,30 +1229,25 @@ public class TokenRepository implements AutoCloseable {
 	        short action, IntrospectionHandler intro) 
 			        throws AceException, IntrospectionException {
 	    //Expunge expired tokens
-	    purgeTokens();
+	    purgeTokensIfDue();
 	    
 	    //Check if we have tokens for this pop-key
-	    if (!this.cti2kid.containsValue(kid)) {
+	    Set<String> ctis = (kid == null) ? null : this.kid2ctis.get(kid);
+	    if (ctis == null || ctis.isEmpty()) {
 	        return UNAUTHZ; //No tokens for this pop-key
 	    }
-	    
-	    //Collect the token id's of matching tokens
-	    Set<String> ctis = new HashSet<>();
-	    for (String cti : this.cti2kid.keySet()) {
-	        if (this.cti2kid.get(cti).equals(kid)) {
-	            ctis.add(cti);   
-	        }
-	    }
 	 
+	    long now = this.time.getCurrentTime();
 	    boolean methodNA = false;   
 	    for (String cti : ctis) { //All tokens linked to that pop key
 	        //Check if we have the claims for that cti
 	        //Get the claims
-            Map<Short, CBORObject> claims = this.cti2claims.get(cti);
-            if (claims == null || claims.isEmpty()) {
+	        TokenRecord record = this.tokens.get(cti);
+            if (record == null || record.claims.isEmpty()) {
                 //No claims found
                 continue;
             }
+            Map<Short, CBORObject> claims = record.claims;
             
           //Check if the subject matches
             CBORObject subO = claims.get(Constants.SUB);
@@ -1169,22 +1263,13 @@ public class TokenRepository implements AutoCloseable {
             }
             
             //Check if the token is expired
-            CBORObject exp = claims.get(Constants.EXP); 
-             if (exp != null && !(exp.isNumber() && exp.AsNumber().IsInteger())) {
-                    throw new AceException(
-                            "Expiration time is in wrong format");
-             }
-             if (exp != null && exp.AsNumber().ToInt64Checked() < this.time.getCurrentTime()) {
+             if (record.exp != null && record.exp < now) {
                  //Token is expired
                  continue;
              }
             
              //Check nbf
-             CBORObject nbf = claims.get(Constants.NBF);
-             if (nbf != null &&  !(nbf.isNumber() && nbf.AsNumber().IsInteger())) {
-                 throw new AceException("NotBefore time is in wrong format");
-             }
-             if (nbf != null && nbf.AsNumber().ToInt64Checked() > this.time.getCurrentTime()) {
+             if (record.nbf != null && record.nbf > now) {
                  //Token not valid yet
                  continue;
              }
@@ -1197,9 +1282,14 @@ public class TokenRepository implements AutoCloseable {
                  
              }
              
-             if (this.scopeValidator.scopeMatchResource(scope, resource)) {
+             CompiledScope compiled = record.scope;
+             boolean resourceMatch = (compiled != null)
+                     ? compiled.matchResource(resource)
+                     : this.scopeValidator.scopeMatchResource(scope, resource);
+             if (resourceMatch) {
             	 
-                 if (this.scopeValidator.scopeMatch(scope, resource, action)) {
+                 if ((compiled != null) ? compiled.match(resource, action)
+                         : this.scopeValidator.scopeMatch(scope, resource, action)) {
                 	 
                      //Check if we should introspect this token
                      if (intro != null) {
@@ -1234,8 +1324,8 @@ public class TokenRepository implements AutoCloseable {
 	 */
 	private void persist() throws AceException {
 	    JSONArray config = new JSONArray();
-	    for (String cti : this.cti2claims.keySet()) {
-	        Map<Short, CBORObject> claims = this.cti2claims.get(cti);
+	    for (TokenRecord record : this.tokens.values()) {
+	        Map<Short, CBORObject> claims = record.claims;
 	        JSONObject token = new JSONObject();
 	        for (Map.Entry<Short,CBORObject> entry : claims.entrySet()) {
 	            token.put(entry.getKey().toString(), 
@@ -1265,9 +1355,9 @@ public class TokenRepository implements AutoCloseable {
 	 */
 	public OneKey getPoP(String cti) throws AceException {
 	    if (cti != null) {
-	        purgeTokens();
+	        purgeTokensIfDue();
 	        String kid = this.cti2kid.get(cti);
-	        OneKey key = this.kid2key.get(kid);
+	        OneKey key = (kid == null) ? null : this.kid2key.get(kid);
 	        if (key == null) {
 	            LOGGER.finest("Token with cti: " + cti 
 	                    + " not found in getPoP()");
@@ -1344,11 +1434,7 @@ public class TokenRepository implements AutoCloseable {
 	 */
 	public String getSid(String kid) {
 	    if (kid != null) {
-	    	for (String foo : this.sid2kid.keySet()) {
-    			if (this.sid2kid.get(foo).equals(kid)) {
-    				return foo;
-    			}
-    		}
+	        return this.kid2sid.get(kid);
 	    }
 	    return null;
 	}
@@ -1400,7 +1486,7 @@ public class TokenRepository implements AutoCloseable {
 	 * @param sid  FIXME
 	 * @return  FIXME
 	 */
-	public synchronized String getRsnonce(String sid) {
+	public String getRsnonce(String sid) {
 		if (sid != null) {
 	        return this.sid2rsnonce.get(sid);
 	    }
@@ -1408,6 +1494,13 @@ public class TokenRepository implements AutoCloseable {
 	    return null;
 	}
 	
+    /**
+     * @return  the cache of the claims of already verified tokens
+     */
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return this.verifiedTokens;
+    }
+    
     @Override
     public synchronized void close() throws AceException {
         if (!this.closed) {
@@ -1421,7 +1514,7 @@ public class TokenRepository implements AutoCloseable {
      * @return  a set of all token ids (cti) stored in this repository
      */
     public Set<String> getCtis() {
-        return new HashSet<>(this.cti2claims.keySet());
+        return new HashSet<>(this.tokens.keySet());
     }
 
     /**
@@ -1431,18 +1524,11 @@ public class TokenRepository implements AutoCloseable {
     public Set<String> getCtis(String kid) {
     	
 	    //Check if we have tokens for this pop-key
-	    if (!this.cti2kid.containsValue(kid)) {
+	    Set<String> ctis = (kid == null) ? null : this.kid2ctis.get(kid);
+	    if (ctis == null || ctis.isEmpty()) {
 	        return null; //No tokens for this pop-key
 	    }
-	    
-	    //Collect the token id's of matching tokens
-	    Set<String> ctis = new HashSet<>();
-	    for (String cti : this.cti2kid.keySet()) {
-	        if (this.cti2kid.get(cti).equals(kid)) {
-	            ctis.add(cti);
-	        }
-	    }
-	    return ctis;
+	    return new HashSet<>(ctis);
     }
 	    
     /**
@@ -1488,7 +1574,11 @@ public class TokenRepository implements AutoCloseable {
 	 * @return  the claims of the token
 	 */
     public Map<Short, CBORObject> getClaims(String cti) {
-    	return this.cti2claims.get(cti);
+        if (cti == null) {
+            return null;
+        }
+        TokenRecord record = this.tokens.get(cti);
+        return (record == null) ? null : record.claims;
     }
     
     /**
@@ -1543,7 +1633,7 @@ public class TokenRepository implements AutoCloseable {
      * to received Access Tokens that include the 'exi' claim
      * 
      */
-    public synchronized int getTopExiSequenceNumber() {
+    public int getTopExiSequenceNumber() {
     	return this.topExiSequenceNumber;
     }
     
@@ -1559,5 +1649,56 @@ public class TokenRepository implements AutoCloseable {
     	}
     }
         
+    /**
+     * A stored token. The claims checked by canAccess() on every request,
+     * including the scope if the validator is a {@link ScopeCompiler}, are
+     * decoded once, when the token is added.
+     */
+    private static final class TokenRecord {
+        
+        /**
+         * The cti of the token Base64 encoded
+         */
+        private final String cti;
+        
+        /**
+         * The subject identities bound to this token
+         */
+        private final Set<String> sids = ConcurrentHashMap.newKeySet();
+        
+        /**
+         * The OSCORE input material identifiers bound to this token
+         */
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+        
+        /**
+         * The claims of the token
+         */
+        private Map<Short, CBORObject> claims;
+        
+        /**
+         * The expiration time, or null if the token never expires
+         */
+        private Long exp;
+        
+        /**
+         * The not before time, or null if there is none
+         */
+        private Long nbf;
+        
+        /**
+         * The compiled scope, or null if the scope validator has to check the scope
+         */
+        private CompiledScope scope;
+        
+        /**
+         * The Sequence Number of a token including the 'exi' claim, or -1
+         */
+        private int exiSeqNum = -1;
+        
+        private TokenRecord(String cti) {
+            this.cti = cti;
+        }
+    }
+        
 }
-
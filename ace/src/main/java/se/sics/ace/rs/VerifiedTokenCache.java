@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.upokecenter.cbor.CBORObject;
+import com.upokecenter.cbor.CBORType;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.TimeProvider;
+import se.sics.ace.cwt.CwtCryptoCtx;
+
+/**
+ * A cache of the claims of CWTs that have already been verified, so that a
+ * token posted again to the authz-info endpoint, e.g. after the loss of the
+ * DTLS session or the OSCORE Security Context, is not verified or decrypted
+ * again.
+ * 
+ * The claims are cached by the SHA-256 digest of the COSE encoded token, 
+ * together with the crypto context used to verify it. A cached token is 
+ * only found again with the same crypto context. The claims are kept until
+ * the token expires ('exp'), or until the token is removed from the
+ * TokenRepository. Only tokens with a 'cti' are cached, since the
+ * TokenRepository otherwise assigns a local identifier to the token. 
+ * The least recently used claims are evicted when the cache is full.
+ * 
+ * Each lookup returns a new copy of the claims, which the caller can modify.
+ * 
+ * @author agent
+ *
+ */
+public class VerifiedTokenCache {
+
+    /**
+     * The logger
+     */
+    private static final Logger LOGGER 
+        = Logger.getLogger(VerifiedTokenCache.class.getName());
+
+    /**
+     * The default maximum number of cached tokens
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * The time provider
+     */
+    private final TimeProvider time;
+
+    /**
+     * The cached tokens by Base64 encoded digest, in access order
+     */
+    private final LinkedHashMap<String, Entry> cache;
+
+    /**
+     * Maps the Base64 encoded cti of a token to the digests it is cached by
+     */
+    private final Map<String, Set<String>> cti2digests = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor using the default maximum number of entries.
+     * 
+     * @param time  the time provider
+     */
+    public VerifiedTokenCache(TimeProvider time) {
+        this(time, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param time  the time provider
+     * @param maxEntries  the maximum number of cached tokens
+     */
+    public VerifiedTokenCache(TimeProvider time, final int maxEntries) {
+        if (time == null || maxEntries <= 0) {
+            throw new IllegalArgumentException(
+                    "VerifiedTokenCache requires a time provider and positive maxEntries");
+        }
+        this.time = time;
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    unindex(eldest.getKey(), eldest.getValue().cti);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the number of tokens found in the cache
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of tokens not found in the cache
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the number of cached tokens, including expired ones
+     */
+    public synchronized int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Get the claims of a token verified before with the same crypto context.
+     * 
+     * @param cose  the COSE encoded token
+     * @param ctx  the crypto context to verify the token
+     * 
+     * @return  a copy of the claims, or null if the token is not cached
+     */
+    public Map<Short, CBORObject> get(byte[] cose, CwtCryptoCtx ctx) {
+        String digest = digest(cose);
+        if (digest == null) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = this.cache.get(digest);
+            if (entry != null && entry.exp <= this.time.getCurrentTime()) {
+                this.cache.remove(digest);
+                unindex(digest, entry.cti);
+                entry = null;
+            }
+        }
+        if (entry == null || entry.ctx != ctx) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        try {
+            Map<Short, CBORObject> claims = Constants.getParams(
+                    CBORObject.DecodeFromBytes(entry.claims));
+            this.hits.incrementAndGet();
+            return claims;
+        } catch (AceException e) {
+            //Should not happen, the claims were encoded from a map
+            LOGGER.severe("Cached claims malformed: " + e.getMessage());
+            this.misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Cache the claims of a verified token, unless it has no 'cti' or is
+     * already expired.
+     * 
+     * @param cose  the COSE encoded token
+     * @param ctx  the crypto context the token was verified with
+     * @param claims  the claims of the token
+     */
+    public void put(byte[] cose, CwtCryptoCtx ctx, 
+            Map<Short, CBORObject> claims) {
+        CBORObject cti = claims.get(Constants.CTI);
+        if (cti == null || !cti.getType().equals(CBORType.ByteString)) {
+            return;
+        }
+        long exp = Long.MAX_VALUE;
+        CBORObject expCbor = claims.get(Constants.EXP);
+        if (expCbor != null) {
+            if (!(expCbor.isNumber() && expCbor.AsNumber().IsInteger())) {
+                return;
+            }
+            exp = expCbor.AsNumber().ToInt64Checked();
+        }
+        String digest = digest(cose);
+        if (digest == null) {
+            return;
+        }
+        //Encode now, the caller goes on modifying the claims
+        Entry entry = new Entry(ctx, 
+                Base64.getEncoder().encodeToString(cti.GetByteString()), exp,
+                Constants.getCBOR(claims).EncodeToBytes());
+        synchronized (this) {
+            if (exp <= this.time.getCurrentTime()) {
+                return;
+            }
+            Entry old = this.cache.put(digest, entry);
+            if (old != null) {
+                unindex(digest, old.cti);
+            }
+            Set<String> digests = this.cti2digests.get(entry.cti);
+            if (digests == null) {
+                digests = new HashSet<>();
+                this.cti2digests.put(entry.cti, digests);
+            }
+            digests.add(digest);
+        }
+    }
+
+    /**
+     * Drop the cached claims of a token, e.g. after it was removed from
+     * the TokenRepository.
+     * 
+     * @param cti  the cti of the token Base64 encoded
+     */
+    public synchronized void invalidate(String cti) {
+        Set<String> digests = this.cti2digests.remove(cti);
+        if (digests != null) {
+            for (String digest : digests) {
+                this.cache.remove(digest);
+            }
+        }
+    }
+
+    /**
+     * Drop all cached claims.
+     */
+    public synchronized void invalidate() {
+        this.cache.clear();
+        this.cti2digests.clear();
+    }
+
+    /**
+     * Remove a cached token from the cti index.
+     * 
+     * @param digest  the Base64 encoded digest of the token
+     * @param cti  the Base64 encoded cti of the token
+     */
+    private void unindex(String digest, String cti) {
+        Set<String> digests = this.cti2digests.get(cti);
+        if (digests != null && digests.remove(digest) && digests.isEmpty()) {
+            this.cti2digests.remove(cti);
+        }
+    }
+
+    /**
+     * @param cose  the COSE encoded token
+     * @return  the Base64 encoded SHA-256 digest of the token, or null if
+     *     SHA-256 is not available
+     */
+    private static String digest(byte[] cose) {
+        try {
+            return Base64.getEncoder().encodeToString(
+                    MessageDigest.getInstance("SHA-256").digest(cose));
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.severe("SHA-256 not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The claims of a verified token.
+     */
+    private static class Entry {
+
+        /**
+         * The crypto context the token was verified with
+         */
+        private final CwtCryptoCtx ctx;
+
+        /**
+         * The Base64 encoded cti of the token
+         */
+        private final String cti;
+
+        /**
+         * The expiration time of the token
+         */
+        private final long exp;
+
+        /**
+         * The encoded claims
+         */
+        private final byte[] claims;
+
+        private Entry(CwtCryptoCtx ctx, String cti, long exp, byte[] claims) {
+            this.ctx = ctx;
+            this.cti = cti;
+            this.exp = exp;
+            this.claims = claims;
+        }
+    }
+}
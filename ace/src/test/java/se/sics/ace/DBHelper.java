@@ -35,6 +35,7 @@ import se.sics.ace.AceException;
 import se.sics.ace.coap.as.CoapDBConnector;
 import se.sics.ace.examples.MySQLDBAdapter;
 //import se.sics.ace.examples.PostgreSQLDBAdapter;
+import se.sics.ace.examples.PooledSQLConnector;
 import se.sics.ace.examples.SQLConnector;
 import se.sics.ace.examples.SQLDBAdapter;
 
@@ -109,6 +110,15 @@ public class DBHelper {
 		return SQLConnector.getInstance(dbAdapter);
 	}
 
+	/**
+	 * @param poolSize the maximum number of pooled connections
+	 * @return a new PooledSQLConnector, to be closed by the caller
+	 * @throws SQLException on SQL failure
+	 */
+	public static PooledSQLConnector getPooledSQLConnector(int poolSize) throws SQLException {
+		return new PooledSQLConnector(dbAdapter, poolSize);
+	}
+
 	/**
 	 * @return the CoapDBConnector instance
 	 * @throws SQLException on SQL failure
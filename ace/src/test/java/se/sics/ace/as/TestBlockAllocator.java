@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.sics.ace.AceException;
+
+/**
+ * Test the block-reserving sequence number allocator.
+ * 
+ * @author agent
+ *
+ */
+public class TestBlockAllocator {
+
+    /**
+     * An allocator recording the persisted high-water marks
+     */
+    private static class RecordingAllocator extends BlockAllocator {
+
+        final List<Long> persisted = new ArrayList<>();
+
+        RecordingAllocator(long start, int blockSize, long max) {
+            super(start, blockSize, max);
+        }
+
+        @Override
+        protected synchronized void persist(long highWater) throws AceException {
+            this.persisted.add(highWater);
+        }
+    }
+
+    /**
+     * Test that values are reserved in blocks before they are handed out.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testReserveBlocks() throws Exception {
+        RecordingAllocator allocator = new RecordingAllocator(5L, 3, Long.MAX_VALUE - 1);
+        Assert.assertEquals(5L, allocator.next());
+        Assert.assertEquals(1, allocator.persisted.size());
+        Assert.assertEquals(Long.valueOf(8L), allocator.persisted.get(0));
+        Assert.assertEquals(6L, allocator.next());
+        Assert.assertEquals(7L, allocator.next());
+        Assert.assertEquals(1, allocator.persisted.size());
+        Assert.assertEquals(8L, allocator.next());
+        Assert.assertEquals(Long.valueOf(11L), allocator.persisted.get(1));
+
+        allocator.flush();
+        Assert.assertEquals(Long.valueOf(9L), allocator.persisted.get(2));
+        Assert.assertEquals(9L, allocator.next());
+        Assert.assertEquals(Long.valueOf(12L), allocator.persisted.get(3));
+    }
+
+    /**
+     * Test that a failing reservation is retried and no value beyond the
+     * maximum is handed out.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testFailures() throws Exception {
+        final boolean[] fail = { true };
+        BlockAllocator allocator = new BlockAllocator(0L, 10, 1L) {
+            @Override
+            protected void persist(long highWater) throws AceException {
+                if (fail[0]) {
+                    throw new AceException("write failed");
+                }
+            }
+        };
+        try {
+            allocator.next();
+            Assert.fail("Persisting failed, but a value was handed out");
+        } catch (AceException e) {
+            // expected
+        }
+        fail[0] = false;
+        Assert.assertEquals(1L, allocator.next());
+        try {
+            allocator.next();
+            Assert.fail("Value beyond the maximum was handed out");
+        } catch (AceException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that an allocator capped for an int column never persists a
+     * high-water mark beyond Integer.MAX_VALUE, as for the Exi Sequence
+     * Numbers.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testIntRange() throws Exception {
+        RecordingAllocator allocator = new RecordingAllocator(Integer.MAX_VALUE - 3L, 10, Integer.MAX_VALUE - 1);
+        Assert.assertEquals(Integer.MAX_VALUE - 3L, allocator.next());
+        Assert.assertEquals(Integer.MAX_VALUE - 2L, allocator.next());
+        Assert.assertEquals(Integer.MAX_VALUE - 1L, allocator.next());
+        try {
+            allocator.next();
+            Assert.fail("Value beyond the maximum was handed out");
+        } catch (AceException e) {
+            // expected
+        }
+        allocator.flush();
+        for (Long highWater : allocator.persisted) {
+            Assert.assertEquals(Integer.MAX_VALUE, Math.toIntExact(highWater));
+        }
+    }
+
+    /**
+     * Test that concurrent threads get unique values.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentAllocation() throws Exception {
+        final RecordingAllocator allocator = new RecordingAllocator(0L, 100, Long.MAX_VALUE - 1);
+        final Set<Long> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < 10000; j++) {
+                        values.add(allocator.next());
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        Assert.assertEquals(80000, values.size());
+        Assert.assertEquals(800, allocator.persisted.size());
+        Assert.assertEquals(Long.valueOf(80000L), allocator.persisted.get(799));
+    }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+import org.eclipse.californium.cose.MessageTag;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.AceException;
+import se.sics.ace.COSEparams;
+import se.sics.ace.DBHelper;
+import se.sics.ace.examples.SQLConnector;
+
+/**
+ * Test the caching database connector.
+ * 
+ * @author agent
+ *
+ */
+public class TestCachingDBConnector {
+
+    static byte[] key128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+    static OneKey skey = null;
+
+    static SQLConnector db = null;
+
+    /**
+     * Set up tests.
+     * 
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        DBHelper.setUpDB();
+        db = DBHelper.getSQLConnector();
+
+        CBORObject keyData = CBORObject.NewMap();
+        keyData.Add(KeyKeys.KeyType.AsCBOR(), KeyKeys.KeyType_Octet);
+        keyData.Add(KeyKeys.Octet_K.AsCBOR(), CBORObject.FromObject(key128));
+        skey = new OneKey(keyData);
+    }
+
+    /**
+     * Deletes the test DB after the tests
+     * 
+     * @throws AceException
+     */
+    @AfterClass
+    public static void tearDown() throws AceException {
+        DBHelper.tearDownDB();
+        db.close();
+    }
+
+    /**
+     * Test hits, misses and invalidation by adding and deleting a RS.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testCacheAndInvalidate() throws Exception {
+        CachingDBConnector cache = new CachingDBConnector(db);
+        addRS(cache, "rs1", "sensors");
+
+        Set<String> aud = Collections.singleton("sensors");
+        Assert.assertEquals(Collections.singleton("rs1"), cache.getRSS("sensors"));
+        Assert.assertEquals(1000000L, cache.getExpTime(aud));
+        Assert.assertEquals(2L, cache.getMisses());
+        Assert.assertEquals(0L, cache.getHits());
+
+        // Modifying returned sets must not change the cache
+        cache.getRSS("sensors").add("rsX");
+        Assert.assertEquals(Collections.singleton("rs1"), cache.getRSS("sensors"));
+        Assert.assertEquals(1000000L, cache.getExpTime(aud));
+        Assert.assertEquals(2L, cache.getMisses());
+        Assert.assertEquals(3L, cache.getHits());
+
+        // Missing keys are cached as well
+        Assert.assertNull(cache.getCPSK("clientX"));
+        Assert.assertNull(cache.getCPSK("clientX"));
+        Assert.assertEquals(3L, cache.getMisses());
+        Assert.assertEquals(4L, cache.getHits());
+
+        addRS(cache, "rs2", "sensors");
+        Assert.assertEquals(0, cache.size());
+        Set<String> rss = new HashSet<>();
+        rss.add("rs1");
+        rss.add("rs2");
+        Assert.assertEquals(rss, cache.getRSS("sensors"));
+
+        cache.deleteRS("rs2");
+        Assert.assertEquals(Collections.singleton("rs1"), cache.getRSS("sensors"));
+        cache.deleteRS("rs1");
+    }
+
+    /**
+     * Test that the least recently used results are evicted.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testEviction() throws Exception {
+        CachingDBConnector cache = new CachingDBConnector(db, 2);
+        cache.getRSS("a");
+        cache.getRSS("b");
+        cache.getRSS("a");
+        cache.getRSS("c");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(3L, cache.getMisses());
+
+        // "b" was evicted, "a" was not
+        cache.getRSS("a");
+        Assert.assertEquals(2L, cache.getHits());
+        cache.getRSS("b");
+        Assert.assertEquals(4L, cache.getMisses());
+    }
+
+    private static void addRS(DBConnector connector, String rsId, String aud) throws AceException {
+        Set<String> profiles = new HashSet<>();
+        profiles.add("coap_dtls");
+        Set<String> scopes = new HashSet<>();
+        scopes.add("temp");
+        Set<String> keyTypes = new HashSet<>();
+        keyTypes.add("PSK");
+        Set<Short> tokenTypes = new HashSet<>();
+        tokenTypes.add(AccessTokenFactory.CWT_TYPE);
+        Set<COSEparams> cose = new HashSet<>();
+        cose.add(new COSEparams(MessageTag.Encrypt0, AlgorithmID.AES_CCM_16_128_128, AlgorithmID.Direct));
+        connector.addRS(rsId, profiles, scopes, Collections.singleton(aud), keyTypes, tokenTypes, cose, 1000000L,
+                skey, skey, null);
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+import org.eclipse.californium.cose.MessageTag;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.COSEparams;
+import se.sics.ace.DBHelper;
+import se.sics.ace.examples.CompiledKissPDP;
+import se.sics.ace.examples.KissPDP;
+import se.sics.ace.examples.SQLConnector;
+
+/**
+ * Test the CompiledKissPDP class against the KissPDP.
+ * 
+ * @author agent
+ *
+ */
+public class TestCompiledKissPDP {
+
+    private static byte[] key128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+    private static SQLConnector db = null;
+    private static CompiledKissPDP pdp = null;
+    private static KissPDP kiss = null;
+
+    /**
+     * Set up tests.
+     * 
+     * @throws Exception 
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        DBHelper.setUpDB();
+        db = DBHelper.getSQLConnector();
+
+        CBORObject keyData = CBORObject.NewMap();
+        keyData.Add(KeyKeys.KeyType.AsCBOR(), KeyKeys.KeyType_Octet);
+        keyData.Add(KeyKeys.Octet_K.AsCBOR(), CBORObject.FromObject(key128));
+        OneKey skey = new OneKey(keyData);
+
+        Set<String> profiles = new HashSet<>();
+        profiles.add("coap_dtls");
+        Set<String> scopes = new HashSet<>();
+        scopes.add("r_temp");
+        Set<String> keyTypes = new HashSet<>();
+        keyTypes.add("PSK");
+        Set<Short> tokenTypes = new HashSet<>();
+        tokenTypes.add(AccessTokenFactory.CWT_TYPE);
+        Set<COSEparams> cose = new HashSet<>();
+        cose.add(new COSEparams(MessageTag.MAC0, 
+                AlgorithmID.HMAC_SHA_256, AlgorithmID.Direct));
+
+        Set<String> auds = new HashSet<>();
+        auds.add("sensors");
+        db.addRS("rs1", profiles, scopes, auds, keyTypes, tokenTypes, cose, 
+                30000L, skey, skey, null);
+        db.addRS("rs2", profiles, scopes, auds, keyTypes, tokenTypes, cose, 
+                30000L, skey, skey, null);
+
+        pdp = new CompiledKissPDP(db);
+        kiss = new KissPDP(db);
+
+        pdp.addTokenAccess("clientA");
+        pdp.addIntrospectAccess("rs1");
+        pdp.addIntrospectAccess("rs2", PDP.IntrospectAccessLevel.ACTIVE_ONLY);
+
+        pdp.addAccess("clientA", "rs1", "r_temp");
+        pdp.addAccess("clientA", "rs1", "rw_config");
+        pdp.addAccess("clientA", "rs2", "r_temp");
+        pdp.addAccess("clientA", "rs2", "r_light");
+        pdp.addAccess("clientB", "rs1", "r_temp");
+    }
+
+    /**
+     * Deletes the test DB after the tests
+     * 
+     * @throws Exception 
+     */
+    @AfterClass
+    public static void tearDown() throws Exception {
+        DBHelper.tearDownDB();
+        pdp.close();
+    }
+
+    /**
+     * Test that the decisions are the same as the ones of the KissPDP.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testSameDecisions() throws Exception {
+        String[] clients = {"clientA", "clientB", "clientC"};
+        String[] auds = {"rs1", "rs2", "sensors", "unknown"};
+        String[] scopes = {"r_temp", "rw_config r_temp r_light", "r_light"};
+        for (String client : clients) {
+            Assert.assertEquals(kiss.canAccessToken(client), 
+                    pdp.canAccessToken(client));
+            Assert.assertEquals(kiss.getAllAccess(client), 
+                    pdp.getAllAccess(client));
+            for (String aud : auds) {
+                for (String scope : scopes) {
+                    Assert.assertEquals(kiss.canAccess(client, 
+                            Collections.singleton(aud), scope), 
+                            pdp.canAccess(client, 
+                                    Collections.singleton(aud), scope));
+                }
+            }
+        }
+        for (String rs : new String[]{"rs1", "rs2", "rs3"}) {
+            Assert.assertEquals(kiss.getIntrospectAccessLevel(rs), 
+                    pdp.getIntrospectAccessLevel(rs));
+        }
+        Assert.assertEquals("r_temp", pdp.canAccess("clientA", 
+                Collections.singleton("sensors"), "rw_config r_temp"));
+    }
+
+    /**
+     * Test that changes are seen after adding and revoking access, and
+     * after reloading.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testSnapshotUpdates() throws Exception {
+        pdp.addAccess("clientC", "rs1", "r_temp");
+        Assert.assertEquals("r_temp", pdp.canAccess("clientC", 
+                Collections.singleton("rs1"), "r_temp"));
+        pdp.revokeAccess("clientC", "rs1", "r_temp");
+        Assert.assertNull(pdp.canAccess("clientC", 
+                Collections.singleton("rs1"), "r_temp"));
+
+        //Changed without the CompiledKissPDP
+        kiss.addTokenAccess("clientC");
+        Assert.assertFalse(pdp.canAccessToken("clientC"));
+        pdp.reload();
+        Assert.assertTrue(pdp.canAccessToken("clientC"));
+        pdp.revokeTokenAccess("clientC");
+        Assert.assertFalse(pdp.canAccessToken("clientC"));
+
+        Map<String, Set<String>> access = pdp.getAllAccess("clientA");
+        access.get("rs1").clear();
+        Assert.assertEquals("rw_config", pdp.canAccess("clientA", 
+                Collections.singleton("rs1"), "rw_config"));
+    }
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+import org.eclipse.californium.cose.MessageTag;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.AceException;
+import se.sics.ace.COSEparams;
+import se.sics.ace.Constants;
+import se.sics.ace.DBHelper;
+import se.sics.ace.examples.PooledSQLConnector;
+import se.sics.ace.examples.SQLConnector;
+
+/**
+ * Test the pooled database connector, including a concurrent load test
+ * comparing it with the single connection SQLConnector.
+ * 
+ * @author agent
+ *
+ */
+public class TestPooledSQLConnector {
+
+    static byte[] key128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+    static SQLConnector db = null;
+
+    static PooledSQLConnector pool = null;
+
+    static final int THREADS = 8;
+
+    static final int OPERATIONS = 500;
+
+    /**
+     * Set up tests.
+     * 
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        DBHelper.setUpDB();
+        db = DBHelper.getSQLConnector();
+        pool = DBHelper.getPooledSQLConnector(THREADS);
+
+        CBORObject keyData = CBORObject.NewMap();
+        keyData.Add(KeyKeys.KeyType.AsCBOR(), KeyKeys.KeyType_Octet);
+        keyData.Add(KeyKeys.Octet_K.AsCBOR(), CBORObject.FromObject(key128));
+        OneKey skey = new OneKey(keyData);
+
+        Set<String> profiles = new HashSet<>();
+        profiles.add("coap_dtls");
+        Set<String> scopes = new HashSet<>();
+        scopes.add("temp");
+        scopes.add("co2");
+        Set<String> auds = new HashSet<>();
+        auds.add("sensors");
+        Set<String> keyTypes = new HashSet<>();
+        keyTypes.add("PSK");
+        Set<Short> tokenTypes = new HashSet<>();
+        tokenTypes.add(AccessTokenFactory.CWT_TYPE);
+        Set<COSEparams> cose = new HashSet<>();
+        cose.add(new COSEparams(MessageTag.Encrypt0, AlgorithmID.AES_CCM_16_128_128, AlgorithmID.Direct));
+        pool.addRS("rs1", profiles, scopes, auds, keyTypes, tokenTypes, cose, 1000000L, skey, skey, null);
+        pool.addClient("clientA", profiles, null, null, keyTypes, skey, null);
+    }
+
+    /**
+     * Deletes the test DB after the tests
+     * 
+     * @throws AceException
+     */
+    @AfterClass
+    public static void tearDown() throws AceException {
+        pool.close();
+        DBHelper.tearDownDB();
+        db.close();
+    }
+
+    /**
+     * Test that data written through one connector is visible through the other.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testReadWrite() throws Exception {
+        Assert.assertEquals(Collections.singleton("rs1"), db.getRSS("sensors"));
+        Assert.assertTrue(pool.isScopeSupported("sensors", "co2"));
+        Assert.assertEquals(1000000L, pool.getExpTime(Collections.singleton("sensors")));
+
+        String ctiStr = addToken(pool, 0x7F00);
+        Assert.assertFalse(db.getClaims(ctiStr).isEmpty());
+        Assert.assertEquals("clientA", pool.getClient4Cti(ctiStr));
+        pool.deleteToken(ctiStr);
+        Assert.assertTrue(db.getClaims(ctiStr).isEmpty());
+
+        pool.saveCtiCounter(42L);
+        Assert.assertEquals(Long.valueOf(42L), db.getCtiCounter());
+        pool.saveExiSequenceNumber(7, "rs1");
+        Assert.assertEquals(7, db.getExiSequenceNumber("rs1"));
+    }
+
+    /**
+     * Runs the same mix of token issuing and reads with concurrent threads on
+     * the single connection SQLConnector and on the pooled connector, and
+     * prints the throughput of both.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        // Warm up both connectors
+        runLoad(db, 0);
+        runLoad(pool, 1);
+
+        long single = runLoad(db, 2);
+        long pooled = runLoad(pool, 3);
+        int total = THREADS * OPERATIONS;
+        System.out.println("SQLConnector: " + (total * 1000000000L / single) + " ops/s");
+        System.out.println("PooledSQLConnector: " + (total * 1000000000L / pooled) + " ops/s, "
+                + pool.getOpenConnections() + " connections");
+        Assert.assertTrue(pool.getOpenConnections() > 1);
+        Assert.assertTrue(pool.getOpenConnections() <= THREADS);
+    }
+
+    /**
+     * Issue and read tokens from concurrent threads.
+     * 
+     * @param connector the connector to use
+     * @param run distinguishes the token identifiers of different runs
+     * @return the elapsed time in nanoseconds
+     * @throws Exception
+     */
+    private static long runLoad(final DBConnector connector, final int run) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Set<String> aud = Collections.singleton("sensors");
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        if (i % 10 == 0) {
+                            int id = (run << 16) | (thread << 12) | i;
+                            String ctiStr = addToken(connector, id);
+                            Assert.assertFalse(connector.getClaims(ctiStr).isEmpty());
+                        } else {
+                            Assert.assertTrue(connector.isScopeSupported("sensors", "temp"));
+                            Assert.assertEquals(1000000L, connector.getExpTime(aud));
+                            Assert.assertNotNull(connector.getRsTokenPSK("rs1"));
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                // Rethrows failures of the threads
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String addToken(DBConnector connector, int id) throws AceException {
+        byte[] cti = new byte[] { (byte) (id >>> 16), (byte) (id >>> 8), (byte) id };
+        String ctiStr = Base64.getEncoder().encodeToString(cti);
+        Map<Short, CBORObject> claims = new HashMap<>();
+        claims.put(Constants.SCOPE, CBORObject.FromObject("co2"));
+        claims.put(Constants.AUD, CBORObject.FromObject("sensors"));
+        claims.put(Constants.CTI, CBORObject.FromObject(cti));
+        connector.addToken(ctiStr, claims);
+        connector.addCti2Client(ctiStr, "clientA");
+        return ctiStr;
+    }
+}
@@ -33,11 +33,17 @@ package se.sics.ace.as;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.eclipse.californium.elements.auth.RawPublicKeyIdentity;
@@ -736,6 +742,41 @@ public class TestToken {
         
     }
     
+    /**
+     * Test the token endpoint by requesting tokens from concurrent threads
+     * and checking that every token got a different cti, i.e. that all of
+     * them are stored for the client.
+     * This uses default audience and scope.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        Map<Short, CBORObject> params = new HashMap<>(); 
+        params.put(Constants.GRANT_TYPE, Token.clientCredentials);
+        final Message msg = new LocalMessage(-1, "clientB", "TestAS", params);
+        int before = db.getCtis4Client("clientB").size();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < 20; j++) {
+                        Message response = t.processMessage(msg);
+                        assert(response.getMessageCode() == Message.CREATED);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        Assert.assertEquals(before + 8 * 20, db.getCtis4Client("clientB").size());
+    }
+
     /**
      * Test the token endpoint by requesting multiple tokens and
      * checking that the cti counter is correctly adjusted.
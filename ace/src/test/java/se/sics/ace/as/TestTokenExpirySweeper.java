@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.DBHelper;
+import se.sics.ace.TimeProvider;
+import se.sics.ace.examples.SQLConnector;
+
+/**
+ * Test the background removal of expired tokens.
+ * 
+ * @author agent
+ *
+ */
+public class TestTokenExpirySweeper {
+
+    static SQLConnector db = null;
+
+    /**
+     * The current time as seen by the sweeper
+     */
+    static volatile long now = 0L;
+
+    static TimeProvider time = new TimeProvider() {
+        @Override
+        public long getCurrentTime() {
+            return now;
+        }
+    };
+
+    /**
+     * Set up tests.
+     * 
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        DBHelper.setUpDB();
+        db = DBHelper.getSQLConnector();
+    }
+
+    /**
+     * Deletes the test DB after the tests
+     * 
+     * @throws AceException
+     */
+    @AfterClass
+    public static void tearDown() throws AceException {
+        DBHelper.tearDownDB();
+        db.close();
+    }
+
+    /**
+     * Test that a sweep removes at most batch size expired tokens, the
+     * earliest expired first, and updates the metrics.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testSweepBatches() throws Exception {
+        TokenExpirySweeper sweeper = new TokenExpirySweeper(db, time, 1000L, 2, 0L);
+        now = 500L;
+        for (int i = 0; i < 5; i++) {
+            addToken(new byte[] { 0x10, (byte) i }, 1000L + i, sweeper);
+        }
+        String notExpired = addToken(new byte[] { 0x10, 0x10 }, 5000L, sweeper);
+
+        // The first sweep does a full purge, nothing is expired yet
+        Assert.assertEquals(0, sweeper.sweep());
+        Assert.assertEquals(6, sweeper.getTrackedCount());
+
+        now = 2000L;
+        Assert.assertEquals(2, sweeper.sweep());
+        Assert.assertEquals(2L, sweeper.getRemovedLastSweep());
+        Assert.assertEquals(1000L, sweeper.getLastPurgeLag());
+        Assert.assertTrue(db.getClaims(token(new byte[] { 0x10, 0x00 })).isEmpty());
+        Assert.assertTrue(db.getClaims(token(new byte[] { 0x10, 0x01 })).isEmpty());
+        Assert.assertFalse(db.getClaims(token(new byte[] { 0x10, 0x02 })).isEmpty());
+
+        Assert.assertEquals(2, sweeper.sweep());
+        Assert.assertEquals(1, sweeper.sweep());
+        Assert.assertEquals(0, sweeper.sweep());
+        Assert.assertEquals(0L, sweeper.getRemovedLastSweep());
+        Assert.assertEquals(5L, sweeper.getRemovedTotal());
+        Assert.assertEquals(1000L, sweeper.getMaxPurgeLag());
+        Assert.assertEquals(5L, sweeper.getSweepCount());
+        Assert.assertEquals(1, sweeper.getTrackedCount());
+        Assert.assertFalse(db.getClaims(notExpired).isEmpty());
+        db.deleteToken(notExpired);
+    }
+
+    /**
+     * Test that tokens removed by other means are skipped.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testUntrack() throws Exception {
+        TokenExpirySweeper sweeper = new TokenExpirySweeper(db, time, 1000L, 10, 0L);
+        now = 500L;
+        sweeper.sweep();
+        String ctiStr = addToken(new byte[] { 0x11, 0x00 }, 1000L, sweeper);
+        db.deleteToken(ctiStr);
+        sweeper.untrack(ctiStr);
+
+        now = 2000L;
+        Assert.assertEquals(0, sweeper.sweep());
+        Assert.assertEquals(0, sweeper.getTrackedCount());
+    }
+
+    /**
+     * Test that the background task removes expired tokens.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testBackgroundSweep() throws Exception {
+        TokenExpirySweeper sweeper = new TokenExpirySweeper(db, time, 10L, 10, 0L);
+        now = 2000L;
+        String ctiStr = addToken(new byte[] { 0x12, 0x00 }, 1000L, sweeper);
+        sweeper.start();
+        try {
+            for (int i = 0; i < 100 && sweeper.getRemovedTotal() == 0L; i++) {
+                Thread.sleep(50);
+            }
+        } finally {
+            sweeper.close();
+        }
+        Assert.assertTrue(db.getClaims(ctiStr).isEmpty());
+    }
+
+    private static String addToken(byte[] cti, long exp, TokenExpirySweeper sweeper) throws AceException {
+        String ctiStr = token(cti);
+        Map<Short, CBORObject> claims = new HashMap<>();
+        claims.put(Constants.SCOPE, CBORObject.FromObject("co2"));
+        claims.put(Constants.AUD, CBORObject.FromObject("sensors"));
+        claims.put(Constants.EXP, CBORObject.FromObject(exp));
+        claims.put(Constants.CTI, CBORObject.FromObject(cti));
+        db.addToken(ctiStr, claims);
+        sweeper.track(ctiStr, exp);
+        return ctiStr;
+    }
+
+    private static String token(byte[] cti) {
+        return Base64.getEncoder().encodeToString(cti);
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2019, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS 
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT 
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR 
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE 
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.as;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.sics.ace.examples.XacmlPDP;
+
+/**
+ * Test the decision cache of the XacmlPDP class.
+ * 
+ * The policy written to a temporary directory permits a single client 
+ * to request tokens.
+ * 
+ * @author agent
+ *
+ */
+public class TestXacmlPDP {
+
+    private static final String POLICY 
+        = "<Policy xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\""
+        + " PolicyId=\"test\" Version=\"1.0\" RuleCombiningAlgId="
+        + "\"urn:oasis:names:tc:xacml:3.0:rule-combining-algorithm:deny-unless-permit\">"
+        + "<Target/><Rule RuleId=\"token\" Effect=\"Permit\"><Target>"
+        + "<AnyOf><AllOf>" 
+        + match("urn:oasis:names:tc:xacml:1.0:subject:subject-id",
+                "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject",
+                "%s")
+        + "</AllOf></AnyOf>"
+        + "<AnyOf><AllOf>"
+        + match("urn:oasis:names:tc:xacml:1.0:resource:resource-id",
+                "urn:oasis:names:tc:xacml:3.0:attribute-category:resource",
+                "token")
+        + "</AllOf></AnyOf>"
+        + "</Target></Rule></Policy>";
+
+    private Path policyDirectory;
+
+    private static String match(String id, String category, String value) {
+        return "<Match MatchId=\"urn:oasis:names:tc:xacml:1.0:function:string-equal\">"
+            + "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">"
+            + value + "</AttributeValue>"
+            + "<AttributeDesignator AttributeId=\"" + id + "\" Category=\"" 
+            + category + "\" DataType=\"http://www.w3.org/2001/XMLSchema#string\""
+            + " MustBePresent=\"false\"/></Match>";
+    }
+
+    /**
+     * Write the policy file, permitting a client to request tokens.
+     * 
+     * @param clientId  the permitted client
+     * @throws IOException 
+     */
+    private void writePolicy(String clientId) throws IOException {
+        Files.write(this.policyDirectory.resolve("test.xml"), 
+                String.format(POLICY, clientId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create the policy directory.
+     * 
+     * @throws IOException 
+     */
+    @Before
+    public void setUp() throws IOException {
+        this.policyDirectory = Files.createTempDirectory("xacml");
+        writePolicy("client1");
+    }
+
+    /**
+     * Delete the policy directory.
+     */
+    @After
+    public void tearDown() {
+        File[] files = this.policyDirectory.toFile().listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        this.policyDirectory.toFile().delete();
+    }
+
+    /**
+     * Test that repeated decisions are served from the cache.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testCacheHits() throws Exception {
+        XacmlPDP pdp = new XacmlPDP(this.policyDirectory.toString(), 
+                null, null);
+        Assert.assertTrue(pdp.canAccessToken("client1"));
+        Assert.assertFalse(pdp.canAccessToken("client2"));
+        Assert.assertEquals(0, pdp.getHits());
+        Assert.assertEquals(2, pdp.getMisses());
+
+        Assert.assertTrue(pdp.canAccessToken("client1"));
+        Assert.assertFalse(pdp.canAccessToken("client2"));
+        Assert.assertEquals(2, pdp.getHits());
+        Assert.assertEquals(2, pdp.getMisses());
+    }
+
+    /**
+     * Test that a null decision is cached as well.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testNullDecision() throws Exception {
+        XacmlPDP pdp = new XacmlPDP(this.policyDirectory.toString(), 
+                null, null);
+        Set<String> aud = Collections.singleton("rs1");
+        //No scope and no default scope
+        Assert.assertNull(pdp.canAccess("client1", aud, ""));
+        Assert.assertEquals(1, pdp.getMisses());
+        Assert.assertNull(pdp.canAccess("client1", aud, ""));
+        Assert.assertEquals(1, pdp.getHits());
+        Assert.assertEquals(1, pdp.getMisses());
+    }
+
+    /**
+     * Test that decisions are not cached with a cache size of 0.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testNoCache() throws Exception {
+        XacmlPDP pdp = new XacmlPDP(this.policyDirectory.toString(), 
+                null, null, 0);
+        Assert.assertTrue(pdp.canAccessToken("client1"));
+        Assert.assertTrue(pdp.canAccessToken("client1"));
+        Assert.assertEquals(0, pdp.getHits());
+        Assert.assertEquals(0, pdp.getMisses());
+    }
+
+    /**
+     * Test that changed policies apply after reloading them.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testReloadPolicies() throws Exception {
+        XacmlPDP pdp = new XacmlPDP(this.policyDirectory.toString(), 
+                null, null);
+        Assert.assertTrue(pdp.canAccessToken("client1"));
+        Assert.assertFalse(pdp.canAccessToken("client2"));
+
+        writePolicy("client2");
+        //The cached decisions apply until the policies are reloaded
+        Assert.assertTrue(pdp.canAccessToken("client1"));
+
+        pdp.reloadPolicies();
+        Assert.assertFalse(pdp.canAccessToken("client1"));
+        Assert.assertTrue(pdp.canAccessToken("client2"));
+        Assert.assertEquals(1, pdp.getHits());
+        Assert.assertEquals(4, pdp.getMisses());
+    }
+}
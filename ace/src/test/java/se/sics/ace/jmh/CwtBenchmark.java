@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.jmh;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.cwt.CWT;
+import se.sics.ace.cwt.CwtCryptoCtx;
+
+/**
+ * Measures encoding and validation of CWTs protected as COSE_Sign1,
+ * COSE_Encrypt0 and COSE_Mac0, with the claims of an access token.
+ *
+ * Run from the ace directory with the jmh profile, add {@code -prof gc}
+ * to include the allocation per token ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>
+ * mvn test -Pjmh -Djmh.args="CwtBenchmark -prof gc"
+ * </pre>
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CwtBenchmark {
+
+    private static final byte[] KEY_128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+    private static final byte[] KEY_256 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+            17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32};
+
+    /**
+     * The COSE message type of the CWT: "sign1" with ECDSA 256,
+     * "encrypt0" with AES-CCM-16-64-128 or "mac0" with HMAC 256/64.
+     */
+    @Param({"sign1", "encrypt0", "mac0"})
+    public String protection;
+
+    private CWT cwt;
+    private CwtCryptoCtx encodeCtx;
+    private CwtCryptoCtx validateCtx;
+    private byte[] rawCwt;
+
+    /**
+     * Create the claims and the crypto contexts, and encode the CWT
+     * to validate.
+     * 
+     * @throws Exception
+     */
+    @Setup
+    public void setUp() throws Exception {
+        OneKey privateKey = OneKey.generateKey(AlgorithmID.ECDSA_256);
+        
+        Map<Short, CBORObject> claims = new HashMap<>();
+        claims.put(Constants.ISS, CBORObject.FromObject("coap://as.example.com"));
+        claims.put(Constants.AUD, CBORObject.FromObject("coap://light.example.com"));
+        claims.put(Constants.EXP, CBORObject.FromObject(Long.MAX_VALUE));
+        claims.put(Constants.NBF, CBORObject.FromObject(1443944944));
+        claims.put(Constants.IAT, CBORObject.FromObject(1443944944));
+        byte[] cti = {0x0B, 0x71};
+        claims.put(Constants.CTI, CBORObject.FromObject(cti));
+        claims.put(Constants.CNF, CBORObject.DecodeFromBytes(
+                privateKey.PublicKey().EncodeToBytes()));
+        claims.put(Constants.SCOPE, CBORObject.FromObject("r+/s/light rwx+/a/led w+/dtls"));
+        this.cwt = new CWT(claims);
+        
+        if (this.protection.equals("sign1")) {
+            CBORObject alg = AlgorithmID.ECDSA_256.AsCBOR();
+            this.encodeCtx = CwtCryptoCtx.sign1Create(privateKey, alg);
+            this.validateCtx = CwtCryptoCtx.sign1Verify(privateKey.PublicKey(), alg);
+        } else if (this.protection.equals("encrypt0")) {
+            this.encodeCtx = CwtCryptoCtx.encrypt0(KEY_128, 
+                    AlgorithmID.AES_CCM_16_64_128.AsCBOR());
+            this.validateCtx = this.encodeCtx;
+        } else if (this.protection.equals("mac0")) {
+            this.encodeCtx = CwtCryptoCtx.mac0(KEY_256, 
+                    AlgorithmID.HMAC_SHA_256_64.AsCBOR());
+            this.validateCtx = this.encodeCtx;
+        } else {
+            throw new IllegalArgumentException("Unknown protection " + this.protection);
+        }
+        this.rawCwt = encode();
+    }
+
+    /**
+     * Protect the claims and serialize the CWT.
+     * 
+     * @return  the serialized CWT
+     * @throws Exception
+     */
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return this.cwt.encode(this.encodeCtx).EncodeToBytes();
+    }
+
+    /**
+     * Parse and unprotect a serialized CWT and check nbf and exp.
+     * 
+     * @return  the validated CWT
+     * @throws Exception
+     */
+    @Benchmark
+    public CWT validate() throws Exception {
+        CWT token = CWT.processCOSE(this.rawCwt, this.validateCtx);
+        if (!token.isValid(System.currentTimeMillis())) {
+            throw new AceException("Token is not valid");
+        }
+        return token;
+    }
+}
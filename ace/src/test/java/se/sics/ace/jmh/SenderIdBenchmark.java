@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+
+import se.sics.ace.Constants;
+import se.sics.ace.oscore.GroupInfo;
+
+/**
+ * Measures joining members into one Group OSCORE group, i.e. allocating a
+ * Sender ID and a node name and adding the member, as done by the Group
+ * Manager for each joining node.
+ * 
+ * Each invocation joins {@link #MEMBERS} members into a new group, so that
+ * the Sender IDs grow from 1 to 3 bytes. The score is the time per join.
+ *
+ * <pre>
+ * mvn test -Pjmh -Djmh.args="SenderIdBenchmark"
+ * </pre>
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SenderIdBenchmark {
+
+    /**
+     * The number of members joined per invocation
+     */
+    public static final int MEMBERS = 100000;
+
+    /**
+     * Join the members into a new group.
+     * 
+     * @return the group
+     */
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS)
+    public GroupInfo join() {
+        GroupInfo group = createGroup();
+        for (int i = 0; i < MEMBERS; i++) {
+            byte[] sid = group.allocateSenderId();
+            String nodeName = group.allocateNodeName(sid);
+            group.addGroupMember(sid, nodeName, 1 << Constants.GROUP_OSCORE_REQUESTER, "subject" + i);
+        }
+        return group;
+    }
+
+    private static GroupInfo createGroup() {
+        CBORObject signParams = CBORObject.NewArray();
+        CBORObject algCapabilities = CBORObject.NewArray();
+        algCapabilities.Add(KeyKeys.KeyType_OKP);
+        CBORObject keyCapabilities = CBORObject.NewArray();
+        keyCapabilities.Add(KeyKeys.KeyType_OKP);
+        keyCapabilities.Add(KeyKeys.OKP_Ed25519);
+        signParams.Add(algCapabilities);
+        signParams.Add(keyCapabilities);
+
+        byte[] masterSecret = new byte[16];
+        byte[] masterSalt = new byte[8];
+        byte[] groupIdPrefix = new byte[] { (byte) 0xfe, (byte) 0xed, (byte) 0xca, (byte) 0x57 };
+        return new GroupInfo("feedca570000", masterSecret, masterSalt, groupIdPrefix.length, groupIdPrefix,
+                2, 0xf05c, "", "-", AlgorithmID.HMAC_SHA_256, Constants.COSE_HEADER_PARAM_CCS,
+                Constants.GROUP_OSCORE_GROUP_MODE_ONLY, AlgorithmID.AES_CCM_16_64_128, AlgorithmID.EDDSA,
+                signParams, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.TestConfig;
+import se.sics.ace.cwt.CwtCryptoCtx;
+import se.sics.ace.examples.KissTime;
+import se.sics.ace.examples.KissValidator;
+import se.sics.ace.rs.IntrospectionException;
+import se.sics.ace.rs.TokenRepository;
+
+/**
+ * Measures the access decision of the {@link TokenRepository} for a
+ * request to a resource, with a number of tokens in the repository,
+ * each bound to its own symmetric PoP key.
+ *
+ * Run from the ace directory with the jmh profile, add {@code -prof gc}
+ * to include the allocation per decision ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>
+ * mvn test -Pjmh -Djmh.args="TokenRepositoryBenchmark -prof gc"
+ * </pre>
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRepositoryBenchmark {
+
+    private static final byte[] KEY_128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+    private static final String TOKEN_FILE = TestConfig.testFilePath + "benchmarkTokens.json";
+
+    /**
+     * The number of tokens in the repository
+     */
+    @Param({"1", "256"})
+    public int tokens;
+
+    private TokenRepository tr;
+    private String kid;
+
+    /**
+     * Create the repository and add the tokens.
+     * 
+     * @throws AceException
+     * @throws IntrospectionException
+     * @throws IOException
+     */
+    @Setup
+    public void setUp() throws AceException, IntrospectionException, IOException {
+        Set<Short> actions = new HashSet<>();
+        actions.add(Constants.GET);
+        Map<String, Set<Short>> myResource = new HashMap<>();
+        myResource.put("temp", actions);
+        Map<String, Map<String, Set<Short>>> myScopes = new HashMap<>();
+        myScopes.put("r_temp", myResource);
+        KissValidator valid = new KissValidator(Collections.singleton("aud1"), myScopes);
+
+        new File(TOKEN_FILE).delete();
+        TokenRepository.create(valid, TOKEN_FILE, null, null, 0, new KissTime(), "rs1");
+        this.tr = TokenRepository.getInstance();
+        CwtCryptoCtx ctx = CwtCryptoCtx.encrypt0(KEY_128, 
+                AlgorithmID.AES_CCM_16_128_128.AsCBOR());
+
+        for (int i = 0; i < this.tokens; i++) {
+            byte[] kidBytes = ("key" + i).getBytes(Constants.charset);
+            CBORObject keyData = CBORObject.NewMap();
+            keyData.Add(KeyKeys.KeyType.AsCBOR(), KeyKeys.KeyType_Octet);
+            keyData.Add(KeyKeys.KeyId.AsCBOR(), kidBytes);
+            keyData.Add(KeyKeys.Octet_K.AsCBOR(), KEY_128);
+            CBORObject cnf = CBORObject.NewMap();
+            cnf.Add(Constants.COSE_KEY_CBOR, keyData);
+
+            Map<Short, CBORObject> params = new HashMap<>();
+            params.put(Constants.SCOPE, CBORObject.FromObject("r_temp"));
+            params.put(Constants.AUD, CBORObject.FromObject("aud1"));
+            params.put(Constants.CTI, CBORObject.FromObject(
+                    ("token" + i).getBytes(Constants.charset)));
+            params.put(Constants.ISS, CBORObject.FromObject("TestAS"));
+            params.put(Constants.CNF, cnf);
+            this.tr.addToken(null, params, ctx, null, -1);
+        }
+
+        // The Token Repository stores as 'kid' the base64 encoding of
+        // the binary content from the 'kid' field of the 'cnf' claim.
+        this.kid = Base64.getEncoder().encodeToString(
+                ("key" + (this.tokens - 1)).getBytes(Constants.charset));
+        if (this.tr.canAccess(this.kid, null, "temp", Constants.GET, null) 
+                != TokenRepository.OK) {
+            throw new AceException("Token setup failed");
+        }
+    }
+
+    /**
+     * Close the repository and delete the token file.
+     * 
+     * @throws AceException
+     */
+    @TearDown
+    public void tearDown() throws AceException {
+        this.tr.close();
+        new File(TOKEN_FILE).delete();
+    }
+
+    /**
+     * Access granted by the token of the key.
+     * 
+     * @return  the access decision
+     * @throws AceException
+     * @throws IntrospectionException
+     */
+    @Benchmark
+    public int canAccessGranted() throws AceException, IntrospectionException {
+        return this.tr.canAccess(this.kid, null, "temp", Constants.GET, null);
+    }
+
+    /**
+     * Action not allowed by the token of the key.
+     * 
+     * @return  the access decision
+     * @throws AceException
+     * @throws IntrospectionException
+     */
+    @Benchmark
+    public int canAccessMethodNotAllowed() throws AceException, IntrospectionException {
+        return this.tr.canAccess(this.kid, null, "temp", Constants.POST, null);
+    }
+
+    /**
+     * No token for the key.
+     * 
+     * @return  the access decision
+     * @throws AceException
+     * @throws IntrospectionException
+     */
+    @Benchmark
+    public int canAccessUnknownKey() throws AceException, IntrospectionException {
+        return this.tr.canAccess("otherKey", null, "temp", Constants.GET, null);
+    }
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.sics.ace.AceException;
+import se.sics.ace.examples.XacmlPDP;
+
+/**
+ * Measures the decisions of the {@link XacmlPDP} with and without the
+ * decision cache, for a number of clients asking in turn.
+ * 
+ * The policy permits each client to request a token and one scope at the
+ * audience "rs1". It is written to a temporary directory during the setup.
+ *
+ * Run from the ace directory with the jmh profile:
+ *
+ * <pre>
+ * mvn test -Pjmh -Djmh.args="XacmlPDPBenchmark"
+ * </pre>
+ * 
+ * @author agent
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XacmlPDPBenchmark {
+
+    private static final String POLICY_HEAD 
+        = "<Policy xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\""
+        + " PolicyId=\"benchmark\" Version=\"1.0\" RuleCombiningAlgId="
+        + "\"urn:oasis:names:tc:xacml:3.0:rule-combining-algorithm:deny-unless-permit\">"
+        + "<Target/>";
+
+    private static final String RULE 
+        = "<Rule RuleId=\"%s\" Effect=\"Permit\"><Target>"
+        + "<AnyOf><AllOf>" 
+        + match("urn:oasis:names:tc:xacml:1.0:subject:subject-id",
+                "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject",
+                "%s")
+        + "</AllOf></AnyOf>"
+        + "<AnyOf><AllOf>"
+        + match("urn:oasis:names:tc:xacml:1.0:resource:resource-id",
+                "urn:oasis:names:tc:xacml:3.0:attribute-category:resource",
+                "token")
+        + "</AllOf><AllOf>"
+        + match("oauth2:scope",
+                "urn:oasis:names:tc:xacml:3.0:attribute-category:action",
+                "%s")
+        + "</AllOf></AnyOf>"
+        + "</Target></Rule>";
+
+    /**
+     * The number of clients asking in turn
+     */
+    @Param({"16"})
+    public int clients;
+
+    /**
+     * The maximum number of cached decisions, 0 for no cache
+     */
+    @Param({"0", "1024"})
+    public int cacheSize;
+
+    private Path policyDirectory;
+    private XacmlPDP pdp;
+    private String[] clientIds;
+    private final Set<String> aud = Collections.singleton("rs1");
+    private int next;
+
+    private static String match(String id, String category, String value) {
+        return "<Match MatchId=\"urn:oasis:names:tc:xacml:1.0:function:string-equal\">"
+            + "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">"
+            + value + "</AttributeValue>"
+            + "<AttributeDesignator AttributeId=\"" + id + "\" Category=\"" 
+            + category + "\" DataType=\"http://www.w3.org/2001/XMLSchema#string\""
+            + " MustBePresent=\"false\"/></Match>";
+    }
+
+    /**
+     * Write the policy and create the PDP.
+     * 
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.policyDirectory = Files.createTempDirectory("xacml");
+        this.clientIds = new String[this.clients];
+        StringBuilder policy = new StringBuilder(POLICY_HEAD);
+        for (int i = 0; i < this.clients; i++) {
+            this.clientIds[i] = "client" + i;
+            policy.append(String.format(RULE, "rule" + i, this.clientIds[i], 
+                    "scope" + i));
+        }
+        policy.append("</Policy>");
+        Files.write(this.policyDirectory.resolve("benchmark.xml"), 
+                policy.toString().getBytes(StandardCharsets.UTF_8));
+        this.pdp = new XacmlPDP(this.policyDirectory.toString(), "rs1", null, 
+                this.cacheSize);
+    }
+
+    /**
+     * Delete the policy.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = this.policyDirectory.toFile().listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        this.policyDirectory.toFile().delete();
+    }
+
+    /**
+     * Decision for the token endpoint.
+     * 
+     * @return  the decision
+     */
+    @Benchmark
+    public boolean canAccessToken() {
+        return this.pdp.canAccessToken(nextClient());
+    }
+
+    /**
+     * Decision for a scope at an audience.
+     * 
+     * @return  the granted scopes
+     * @throws AceException
+     */
+    @Benchmark
+    public String canAccess() throws AceException {
+        int i = nextIndex();
+        return this.pdp.canAccess(this.clientIds[i], this.aud, 
+                "scope" + i + " r_temp");
+    }
+
+    private String nextClient() {
+        return this.clientIds[nextIndex()];
+    }
+
+    private int nextIndex() {
+        int i = this.next;
+        this.next = (i + 1) % this.clients;
+        return i;
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.oscore;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+
+import se.sics.ace.Constants;
+
+/**
+ * Tests for the snapshot of the authentication credentials of OSCORE groups.
+ *
+ * @author agent
+ *
+ */
+public class TestAuthCredsSnapshot {
+
+    private static final int REQUESTER = 1 << Constants.GROUP_OSCORE_REQUESTER;
+    private static final int RESPONDER = 1 << Constants.GROUP_OSCORE_RESPONDER;
+
+    /**
+     * Test that the snapshot is reused until the version or the membership changes
+     */
+    @Test
+    public void testRebuildOnChange() {
+        GroupInfo group = createGroup(10);
+
+        AuthCredsSnapshot snapshot = group.getAuthCredsSnapshot();
+        Assert.assertSame(snapshot, group.getAuthCredsSnapshot());
+        Assert.assertEquals(10, snapshot.size());
+
+        CBORObject response = CBORObject.DecodeFromBytes(snapshot.getEncoded());
+        Assert.assertEquals(0, response.get(Constants.NUM).AsInt32());
+        Assert.assertEquals(10, response.get(Constants.CREDS).size());
+        Assert.assertEquals(10, response.get(Constants.PEER_ROLES).size());
+        Assert.assertEquals(10, response.get(Constants.PEER_IDENTIFIERS).size());
+
+        group.incrementVersion();
+        AuthCredsSnapshot rekeyed = group.getAuthCredsSnapshot();
+        Assert.assertNotSame(snapshot, rekeyed);
+        Assert.assertEquals(1, CBORObject.DecodeFromBytes(rekeyed.getEncoded()).get(Constants.NUM).AsInt32());
+
+        Assert.assertTrue(group.removeGroupMemberBySubject("subject3"));
+        AuthCredsSnapshot left = group.getAuthCredsSnapshot();
+        Assert.assertNotSame(rekeyed, left);
+        Assert.assertEquals(9, left.size());
+        Assert.assertFalse(Arrays.equals(rekeyed.getTag(), left.getTag()));
+    }
+
+    /**
+     * Test the 'get_creds' filters served from the index
+     */
+    @Test
+    public void testFilters() {
+        GroupInfo group = createGroup(20);
+        AuthCredsSnapshot snapshot = group.getAuthCredsSnapshot();
+
+        Set<ByteBuffer> sids = new HashSet<ByteBuffer>();
+        sids.add(ByteBuffer.wrap(new byte[] { 1 }));
+        sids.add(ByteBuffer.wrap(new byte[] { 2 }));
+        sids.add(ByteBuffer.wrap(new byte[] { 0x7f }));
+
+        // Responders (odd Sender IDs), and the members in the Sender ID filter
+        CBORObject response = CBORObject.DecodeFromBytes(
+                snapshot.getEncoded(true, Collections.singleton(RESPONDER), sids));
+        Assert.assertEquals(11, response.get(Constants.CREDS).size());
+        for (int i = 0; i < response.get(Constants.PEER_IDENTIFIERS).size(); i++) {
+            byte[] sid = response.get(Constants.PEER_IDENTIFIERS).get(i).GetByteString();
+            int roles = response.get(Constants.PEER_ROLES).get(i).AsInt32();
+            Assert.assertTrue((roles & RESPONDER) != 0 || sid[0] == 2);
+            Assert.assertEquals(group.getAuthCred(sid), response.get(Constants.CREDS).get(i));
+        }
+
+        // All members, except those in the Sender ID filter
+        response = CBORObject.DecodeFromBytes(
+                snapshot.getEncoded(false, Collections.<Integer>emptySet(), sids));
+        Assert.assertEquals(18, response.get(Constants.CREDS).size());
+
+        // Nothing excluded, the full response is returned
+        Assert.assertArrayEquals(snapshot.getEncoded(),
+                snapshot.getEncoded(false, Collections.<Integer>emptySet(), Collections.<ByteBuffer>emptySet()));
+    }
+
+    private static GroupInfo createGroup(int members) {
+        CBORObject signParams = CBORObject.NewArray();
+        CBORObject algCapabilities = CBORObject.NewArray();
+        algCapabilities.Add(KeyKeys.KeyType_OKP);
+        CBORObject keyCapabilities = CBORObject.NewArray();
+        keyCapabilities.Add(KeyKeys.KeyType_OKP);
+        keyCapabilities.Add(KeyKeys.OKP_Ed25519);
+        signParams.Add(algCapabilities);
+        signParams.Add(keyCapabilities);
+
+        byte[] masterSecret = new byte[16];
+        byte[] masterSalt = new byte[8];
+        byte[] groupIdPrefix = new byte[] { (byte) 0xfe, (byte) 0xed, (byte) 0xca, (byte) 0x57 };
+        GroupInfo group = new GroupInfo("feedca570000", masterSecret, masterSalt, groupIdPrefix.length,
+                groupIdPrefix, 2, 0xf05c, "monitor", "-", AlgorithmID.HMAC_SHA_256, Constants.COSE_HEADER_PARAM_CCS,
+                Constants.GROUP_OSCORE_GROUP_MODE_ONLY, AlgorithmID.AES_CCM_16_64_128, AlgorithmID.EDDSA,
+                signParams, null, null, null, null, null, null);
+
+        for (int i = 0; i < members; i++) {
+            byte[] sid = group.allocateSenderId();
+            String nodeName = group.allocateNodeName(sid);
+            int roles = (sid[0] % 2 == 0) ? REQUESTER : RESPONDER;
+            Assert.assertTrue(group.addGroupMember(sid, nodeName, roles, "subject" + i));
+            Assert.assertTrue(group.storeAuthCred(sid, CBORObject.FromObject(new byte[] { 0x42, sid[0] })));
+        }
+        return group;
+    }
+}
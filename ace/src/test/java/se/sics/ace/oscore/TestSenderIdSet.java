@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.oscore;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+
+import se.sics.ace.Constants;
+import se.sics.ace.Util;
+
+/**
+ * Tests for the allocation of Sender IDs in OSCORE groups.
+ * 
+ * @author agent
+ *
+ */
+public class TestSenderIdSet {
+
+    /**
+     * Test allocation, release and reuse of values
+     */
+    @Test
+    public void testAllocateRelease() {
+        SenderIdSet ids = new SenderIdSet(255);
+        for (int i = 0; i < 256; i++) {
+            Assert.assertEquals(i, ids.nextFree());
+            Assert.assertTrue(ids.allocate(i));
+        }
+        Assert.assertEquals(-1, ids.nextFree());
+        Assert.assertFalse(ids.allocate(256));
+        Assert.assertFalse(ids.allocate(-1));
+        Assert.assertEquals(256, ids.size());
+        
+        Assert.assertTrue(ids.release(200));
+        Assert.assertTrue(ids.release(17));
+        Assert.assertFalse(ids.release(17));
+        Assert.assertFalse(ids.isAllocated(17));
+        Assert.assertTrue(ids.contains(18));
+        Assert.assertEquals(17, ids.nextFree());
+        Assert.assertTrue(ids.allocate(17));
+        Assert.assertEquals(200, ids.nextFree());
+        Assert.assertEquals(255, ids.size());
+    }
+    
+    /**
+     * Test the largest Sender ID size, where chunks are created as needed
+     */
+    @Test
+    public void testLargeRange() {
+        SenderIdSet ids = new SenderIdSet(Integer.MAX_VALUE);
+        Assert.assertTrue(ids.allocate(Integer.MAX_VALUE));
+        Assert.assertTrue(ids.allocate(0));
+        Assert.assertTrue(ids.allocate(1 << 20));
+        Assert.assertEquals(1, ids.nextFree());
+        
+        Iterator<Integer> iter = ids.iterator();
+        Assert.assertEquals(Integer.valueOf(0), iter.next());
+        Assert.assertEquals(Integer.valueOf(1 << 20), iter.next());
+        Assert.assertEquals(Integer.valueOf(Integer.MAX_VALUE), iter.next());
+        Assert.assertFalse(iter.hasNext());
+        
+        for (int i = 1; i < 70000; i++) {
+            ids.allocate(i);
+        }
+        Assert.assertEquals(70000, ids.nextFree());
+        Assert.assertTrue(ids.release(65536));
+        Assert.assertEquals(65536, ids.nextFree());
+    }
+    
+    /**
+     * Test snapshot and restore
+     */
+    @Test
+    public void testSnapshot() {
+        SenderIdSet ids = new SenderIdSet(65535);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int value = (i * 7919) % 65536;
+            ids.allocate(value);
+            expected.add(value);
+        }
+        for (int i = 100; i < 300; i++) {
+            ids.allocate(i);
+            expected.add(i);
+        }
+        
+        SenderIdSet restored = new SenderIdSet(65535);
+        restored.allocate(65535);
+        restored.restore(ids.snapshot());
+        Assert.assertEquals(expected, restored);
+        Assert.assertEquals(ids.nextFree(), restored.nextFree());
+        
+        try {
+            new SenderIdSet(255).restore(ids.snapshot());
+            Assert.fail("Values out of range restored");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+    
+    /**
+     * Join enough members into one group to use Sender IDs of 3 bytes.
+     * 
+     * The first 256 members get 1 byte Sender IDs, the next 65536 members 2
+     * byte Sender IDs, and the others 3 byte Sender IDs.
+     */
+    @Test
+    public void testJoinAcrossSenderIdSizes() {
+        final int members = 70000;
+        GroupInfo group = createGroup();
+        
+        for (int i = 0; i < members; i++) {
+            byte[] sid = group.allocateSenderId();
+            Assert.assertNotNull(sid);
+            String nodeName = group.allocateNodeName(sid);
+            Assert.assertTrue(group.addGroupMember(sid, nodeName, 1 << Constants.GROUP_OSCORE_REQUESTER, "subject" + i));
+        }
+        
+        Assert.assertEquals(3, group.getSenderIdSize());
+        Assert.assertEquals(256, group.getUsedSenderIds().get(0).size());
+        Assert.assertEquals(65536, group.getUsedSenderIds().get(1).size());
+        Assert.assertEquals(members - 256 - 65536, group.getUsedSenderIds().get(2).size());
+        try {
+            group.getUsedSenderIds().get(2).remove(Integer.valueOf(0));
+            Assert.fail("Used Sender IDs modified through the view");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        
+        // A Sender ID released after a failed join is allocated again
+        byte[] sid = Util.intToBytes(4000, 3);
+        Assert.assertTrue(group.deallocateSenderId(sid));
+        Assert.assertArrayEquals(sid, group.allocateSenderId());
+        
+        byte[] snapshot = group.getSenderIdSnapshot();
+        GroupInfo restored = createGroup();
+        Assert.assertTrue(restored.restoreSenderIds(snapshot));
+        Assert.assertEquals(3, restored.getSenderIdSize());
+        Assert.assertEquals(group.getUsedSenderIds(), restored.getUsedSenderIds());
+        Assert.assertArrayEquals(group.allocateSenderId(), restored.allocateSenderId());
+    }
+    
+    private static GroupInfo createGroup() {
+        CBORObject signParams = CBORObject.NewArray();
+        CBORObject algCapabilities = CBORObject.NewArray();
+        algCapabilities.Add(KeyKeys.KeyType_OKP);
+        CBORObject keyCapabilities = CBORObject.NewArray();
+        keyCapabilities.Add(KeyKeys.KeyType_OKP);
+        keyCapabilities.Add(KeyKeys.OKP_Ed25519);
+        signParams.Add(algCapabilities);
+        signParams.Add(keyCapabilities);
+        
+        byte[] masterSecret = new byte[16];
+        byte[] masterSalt = new byte[8];
+        byte[] groupIdPrefix = new byte[] { (byte) 0xfe, (byte) 0xed, (byte) 0xca, (byte) 0x57 };
+        return new GroupInfo("feedca570000", masterSecret, masterSalt, groupIdPrefix.length, groupIdPrefix,
+                2, 0xf05c, "", "-", AlgorithmID.HMAC_SHA_256, Constants.COSE_HEADER_PARAM_CCS,
+                Constants.GROUP_OSCORE_GROUP_MODE_ONLY, AlgorithmID.AES_CCM_16_64_128, AlgorithmID.EDDSA,
+                signParams, null, null, null, null, null, null);
+    }
+}
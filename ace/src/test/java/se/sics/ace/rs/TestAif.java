@@ -114,6 +114,23 @@ public class TestAif {
         
     }
     
+    /**
+     * Test that the compiled scope gives the same results as the scope
+     * 
+     * @throws AceException 
+     */
+    @Test
+    public void testCompileScope() throws AceException {
+        CompiledScope compiled = s.compileScope(scope);
+        String[] resources = {"sensors/temp", "config/security", "sensors/co2", "blah"};
+        for (String resource : resources) {
+            Assert.assertEquals(s.scopeMatchResource(scope, resource), compiled.matchResource(resource));
+            for (short action = Aif.GET; action <= Aif.iPATCH; action++) {
+                Assert.assertEquals(s.scopeMatch(scope, resource, action), compiled.match(resource, action));
+            }
+        }
+    }
+    
     /**
      * Test a scope against with invalid action
      * 
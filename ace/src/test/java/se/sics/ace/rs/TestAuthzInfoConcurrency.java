@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2019, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without 
+ * modification, are permitted provided that the following conditions 
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, 
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS 
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT 
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR 
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT 
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT 
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE 
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.Message;
+import se.sics.ace.TestConfig;
+import se.sics.ace.cwt.CWT;
+import se.sics.ace.cwt.CwtCryptoCtx;
+import se.sics.ace.examples.KissTime;
+import se.sics.ace.examples.KissValidator;
+import se.sics.ace.examples.LocalMessage;
+
+/**
+ * Test that tokens posted to AuthzInfo are stored concurrently for 
+ * different subjects, but one at a time for the same subject and for 
+ * tokens with an 'exi' claim.
+ * 
+ * @author agent
+ *
+ */
+public class TestAuthzInfoConcurrency {
+
+    private static final byte[] KEY128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 
+            9, 10, 11, 12, 13, 14, 15, 16};
+    
+    private static final String RS_ID = "rs1";
+    
+    private static final String TOKEN_FILE = TestConfig.testFilePath + "tokens.json";
+    
+    private static CwtCryptoCtx ctx;
+    
+    private static ConcurrencyAuthzInfo ai;
+    
+    private static ExecutorService executor;
+    
+    private static int counter = 1;
+    
+    /**
+     * An AuthzInfo recording how many tokens are stored at the same time.
+     * 
+     * The first token entering processOther() waits for a second one
+     * for a while, so that a second token, which is not serialized with 
+     * the first one, is processed while the first one is still stored.
+     */
+    private static class ConcurrencyAuthzInfo extends AuthzInfo {
+        
+        private final AtomicInteger inside = new AtomicInteger();
+        
+        private final AtomicInteger maxInside = new AtomicInteger();
+        
+        private final Semaphore entered = new Semaphore(0);
+        
+        private volatile CountDownLatch both;
+        
+        ConcurrencyAuthzInfo(KissValidator valid) 
+                throws AceException, IOException {
+            super(Collections.singletonList("TestAS"), new KissTime(), null, 
+                    RS_ID, valid, ctx, null, 0, TOKEN_FILE, valid, false);
+        }
+        
+        void reset() {
+            this.inside.set(0);
+            this.maxInside.set(0);
+            this.entered.drainPermits();
+            this.both = new CountDownLatch(2);
+        }
+        
+        @Override
+        protected void processOther(Map<Short, CBORObject> claims) {
+            int count = this.inside.incrementAndGet();
+            this.maxInside.accumulateAndGet(count, Math::max);
+            this.entered.release();
+            this.both.countDown();
+            try {
+                this.both.await(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                this.inside.decrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Set up tests.
+     * 
+     * @throws AceException 
+     * @throws IOException 
+     */
+    @BeforeClass
+    public static void setUp() throws AceException, IOException {
+        Set<Short> actions = new HashSet<>();
+        actions.add(Constants.GET);
+        Map<String, Set<Short>> myResource = new HashMap<>();
+        myResource.put("temp", actions);
+        Map<String, Map<String, Set<Short>>> myScopes = new HashMap<>();
+        myScopes.put("r_temp", myResource);
+        KissValidator valid = new KissValidator(Collections.singleton("aud1"), myScopes);
+        
+        ctx = CwtCryptoCtx.encrypt0(KEY128, AlgorithmID.AES_CCM_16_128_128.AsCBOR());
+        
+        TokenRepository tr = TokenRepository.getInstance();
+        if (tr != null) {
+            tr.close();
+        }
+        new File(TOKEN_FILE).delete();
+        ai = new ConcurrencyAuthzInfo(valid);
+        executor = Executors.newFixedThreadPool(2);
+    }
+    
+    /**
+     * Deletes the test file after the tests
+     * 
+     * @throws AceException 
+     */
+    @AfterClass
+    public static void tearDown() throws AceException {
+        executor.shutdownNow();
+        ai.close();
+        new File(TOKEN_FILE).delete();
+    }
+    
+    /**
+     * Reset the recorded concurrency.
+     */
+    @Before
+    public void reset() {
+        ai.reset();
+    }
+    
+    /**
+     * Test that tokens of different subjects are stored concurrently.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testDifferentSubjects() throws Exception {
+        // the hashes differ by one, so the subjects use different locks
+        postBoth("subject1", null, "subject2", null);
+        Assert.assertEquals(2, ai.maxInside.get());
+    }
+    
+    /**
+     * Test that tokens of the same subject are stored one at a time.
+     * 
+     * The second token updates the access rights of the first one.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testSameSubject() throws Exception {
+        postBoth("subject3", null, "subject3", null);
+        Assert.assertEquals(1, ai.maxInside.get());
+    }
+    
+    /**
+     * Test that tokens with an 'exi' claim are stored one at a time,
+     * even for different subjects.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testExi() throws Exception {
+        postBoth("subject4", Integer.valueOf(1), "subject5", Integer.valueOf(2));
+        Assert.assertEquals(1, ai.maxInside.get());
+    }
+    
+    /**
+     * Post two tokens from two threads. The second token is posted
+     * after the first one entered processOther().
+     */
+    private static void postBoth(String sid1, Integer exiSeqNum1, 
+            String sid2, Integer exiSeqNum2) throws Exception {
+        Future<Message> first = executor.submit(post(sid1, exiSeqNum1, false));
+        Assert.assertTrue(ai.entered.tryAcquire(5, TimeUnit.SECONDS));
+        Future<Message> second = executor.submit(post(sid2, exiSeqNum2, 
+                sid2.equals(sid1)));
+        Assert.assertEquals(Message.CREATED, 
+                first.get(5, TimeUnit.SECONDS).getMessageCode());
+        Assert.assertEquals(Message.CREATED, 
+                second.get(5, TimeUnit.SECONDS).getMessageCode());
+    }
+    
+    /**
+     * Create the task posting a token with a new cti. The PoP key is 
+     * identified by the subject, an update only includes its 'kid'.
+     */
+    private static Callable<Message> post(String sid, Integer exiSeqNum, 
+            boolean update) throws Exception {
+        int n = counter++;
+        Map<Short, CBORObject> params = new HashMap<>();
+        if (exiSeqNum != null) {
+            // the cti of a token with an 'exi' claim includes the Sequence Number
+            String rawCti = RS_ID + String.valueOf(exiSeqNum);
+            params.put(Constants.CTI, CBORObject.FromObject(
+                    rawCti.getBytes(Constants.charset)));
+            params.put(Constants.EXI, CBORObject.FromObject(20000L));
+        } else {
+            params.put(Constants.CTI, CBORObject.FromObject(
+                    ("token" + n).getBytes(Constants.charset)));
+        }
+        params.put(Constants.SCOPE, CBORObject.FromObject("r_temp"));
+        params.put(Constants.AUD, CBORObject.FromObject("aud1"));
+        params.put(Constants.ISS, CBORObject.FromObject("TestAS"));
+        OneKey key = new OneKey();
+        key.add(KeyKeys.KeyType, KeyKeys.KeyType_Octet);
+        key.add(KeyKeys.KeyId, CBORObject.FromObject(
+                ("key-" + sid).getBytes(Constants.charset)));
+        if (!update) {
+            key.add(KeyKeys.Octet_K, CBORObject.FromObject(KEY128));
+        }
+        CBORObject cnf = CBORObject.NewMap();
+        cnf.Add(Constants.COSE_KEY_CBOR, key.AsCBOR());
+        params.put(Constants.CNF, cnf);
+        CBORObject token = new CWT(params).encode(ctx);
+        LocalMessage request = new LocalMessage(0, sid, RS_ID, token);
+        return () -> ai.processMessage(request);
+    }
+}
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import se.sics.ace.AceException;
+import se.sics.ace.Constants;
+import se.sics.ace.TimeProvider;
+
+/**
+ * Test the caching introspection handler.
+ * 
+ * @author agent
+ *
+ */
+public class TestCachingIntrospectionHandler {
+
+    private static final byte[] CTI1 = {0x01};
+
+    private static final byte[] CTI2 = {0x02};
+
+    /**
+     * A time provider returning a set time.
+     */
+    private static class ManualTime implements TimeProvider {
+        private volatile long now = 1000L;
+
+        @Override
+        public long getCurrentTime() {
+            return this.now;
+        }
+    }
+
+    /**
+     * An introspection handler counting its calls, returning an active
+     * result with an optional 'exp' for known tokens.
+     */
+    private static class CountingHandler implements IntrospectionHandler {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean active = true;
+        private volatile Long exp = null;
+        private volatile CountDownLatch entered = null;
+        private volatile CountDownLatch release = null;
+
+        @Override
+        public Map<Short, CBORObject> getParams(byte[] tokenReference)
+                throws IntrospectionException, AceException {
+            this.calls.incrementAndGet();
+            if (this.entered != null) {
+                this.entered.countDown();
+                try {
+                    this.release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new AceException("Interrupted");
+                }
+            }
+            Map<Short, CBORObject> params = new HashMap<>();
+            params.put(Constants.ACTIVE, 
+                    this.active ? CBORObject.True : CBORObject.False);
+            if (this.exp != null) {
+                params.put(Constants.EXP, CBORObject.FromObject(this.exp));
+            }
+            return params;
+        }
+    }
+
+    /**
+     * Test that active results are cached until the ttl expires.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testTtl() throws Exception {
+        ManualTime time = new ManualTime();
+        CountingHandler handler = new CountingHandler();
+        CachingIntrospectionHandler cache = new CachingIntrospectionHandler(
+                handler, time, 100L, 10L, 16, null, 0L);
+
+        Assert.assertTrue(cache.getParams(CTI1).get(Constants.ACTIVE).isTrue());
+        time.now += 99L;
+        Assert.assertTrue(cache.getParams(CTI1).get(Constants.ACTIVE).isTrue());
+        Assert.assertEquals(1, handler.calls.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        time.now += 1L;
+        cache.getParams(CTI1);
+        Assert.assertEquals(2, handler.calls.get());
+    }
+
+    /**
+     * Test that active results are not cached beyond the 'exp' of the token.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testExpCap() throws Exception {
+        ManualTime time = new ManualTime();
+        CountingHandler handler = new CountingHandler();
+        handler.exp = time.now + 20L;
+        CachingIntrospectionHandler cache = new CachingIntrospectionHandler(
+                handler, time, 100L, 10L, 16, null, 0L);
+
+        cache.getParams(CTI1);
+        time.now += 19L;
+        cache.getParams(CTI1);
+        Assert.assertEquals(1, handler.calls.get());
+        time.now += 1L;
+        cache.getParams(CTI1);
+        Assert.assertEquals(2, handler.calls.get());
+
+        //Already expired, not cached at all
+        cache.getParams(CTI1);
+        Assert.assertEquals(3, handler.calls.get());
+    }
+
+    /**
+     * Test that inactive results are cached for the negative ttl.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testNegativeTtl() throws Exception {
+        ManualTime time = new ManualTime();
+        CountingHandler handler = new CountingHandler();
+        handler.active = false;
+        CachingIntrospectionHandler cache = new CachingIntrospectionHandler(
+                handler, time, 100L, 10L, 16, null, 0L);
+
+        Assert.assertFalse(cache.getParams(CTI1).get(Constants.ACTIVE).isTrue());
+        time.now += 9L;
+        Assert.assertFalse(cache.getParams(CTI1).get(Constants.ACTIVE).isTrue());
+        Assert.assertEquals(1, handler.calls.get());
+
+        handler.active = true;
+        time.now += 1L;
+        Assert.assertTrue(cache.getParams(CTI1).get(Constants.ACTIVE).isTrue());
+        Assert.assertEquals(2, handler.calls.get());
+    }
+
+    /**
+     * Test that concurrent lookups of the same token do a single 
+     * introspection.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        ManualTime time = new ManualTime();
+        final CountingHandler handler = new CountingHandler();
+        handler.entered = new CountDownLatch(1);
+        handler.release = new CountDownLatch(1);
+        final CachingIntrospectionHandler cache = new CachingIntrospectionHandler(
+                handler, time, 100L, 10L, 16, null, 0L);
+        final AtomicReference<Map<Short, CBORObject>> first 
+            = new AtomicReference<>();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    first.set(cache.getParams(CTI1));
+                } catch (IntrospectionException | AceException e) {
+                    Assert.fail(e.getMessage());
+                }
+            }
+        });
+        thread.start();
+        Assert.assertTrue(handler.entered.await(5, TimeUnit.SECONDS));
+
+        Thread waiting = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    cache.getParams(CTI1);
+                } catch (IntrospectionException | AceException e) {
+                    Assert.fail(e.getMessage());
+                }
+            }
+        });
+        waiting.start();
+        //Give the second lookup time to find the first one in progress
+        Thread.sleep(100);
+        handler.release.countDown();
+        thread.join(5000);
+        waiting.join(5000);
+
+        Assert.assertNotNull(first.get());
+        Assert.assertEquals(1, handler.calls.get());
+    }
+
+    /**
+     * Test that results are refreshed ahead of their expiry.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testRefreshAhead() throws Exception {
+        ManualTime time = new ManualTime();
+        CountingHandler handler = new CountingHandler();
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        CachingIntrospectionHandler cache = new CachingIntrospectionHandler(
+                handler, time, 100L, 10L, 16, direct, 20L);
+
+        cache.getParams(CTI1);
+        time.now += 79L;
+        cache.getParams(CTI1);
+        Assert.assertEquals(1, handler.calls.get());
+
+        //Within the refresh time, served from the cache and refreshed
+        time.now += 1L;
+        cache.getParams(CTI1);
+        Assert.assertEquals(2, handler.calls.get());
+
+        //The refreshed result lasts from the time of the refresh
+        time.now += 70L;
+        cache.getParams(CTI1);
+        Assert.assertEquals(2, handler.calls.get());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Test the maximum number of entries and the invalidation.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testBoundAndInvalidate() throws Exception {
+        ManualTime time = new ManualTime();
+        CountingHandler handler = new CountingHandler();
+        CachingIntrospectionHandler cache = new CachingIntrospectionHandler(
+                handler, time, 100L, 10L, 1, null, 0L);
+
+        cache.getParams(CTI1);
+        cache.getParams(CTI2);
+        Assert.assertEquals(1, cache.size());
+        cache.getParams(CTI1);
+        Assert.assertEquals(3, handler.calls.get());
+
+        cache.invalidate(CTI1);
+        Assert.assertEquals(0, cache.size());
+        cache.getParams(CTI1);
+        Assert.assertEquals(4, handler.calls.get());
+    }
+
+    /**
+     * Test that invalid arguments are rejected.
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void testInvalidArguments() {
+        new CachingIntrospectionHandler(new CountingHandler(), 
+                new ManualTime(), 100L, 10L, 0, null, 0L);
+    }
+}
@@ -554,6 +554,66 @@ public class TestTokenRepository {
         Assert.assertNotNull(key2);
     }
     
+    /**
+     * Test that purging removes only the expired tokens among many, and
+     * keeps the pop-key as long as a token still refers to it
+     *
+     * @throws AceException 
+     * @throws IntrospectionException 
+     */
+    @Test
+    public void testPurgeManyTokens() throws AceException, IntrospectionException {
+        KissTime time = new KissTime();
+        Map<Short, CBORObject> params = new HashMap<>(); 
+        params.put(Constants.SCOPE, CBORObject.FromObject("r_temp"));
+        params.put(Constants.AUD, CBORObject.FromObject("aud1"));
+        params.put(Constants.CTI, CBORObject.FromObject("token1".getBytes(Constants.charset)));
+        params.put(Constants.ISS, CBORObject.FromObject("TestAS"));
+        params.put(Constants.CNF, pskCnf);
+        params.put(Constants.EXP, CBORObject.FromObject(time.getCurrentTime()-1000));
+        tr.addToken(null, params, ctx, null, -1);
+        
+        CBORObject cnf = CBORObject.NewMap();
+        cnf.Add(Constants.COSE_KID_CBOR, CBORObject.FromObject("ourKey".getBytes(Constants.charset)));
+        Set<String> valid = new HashSet<>();
+        Set<String> expired = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            String id = "many" + i;
+            params.clear();
+            params.put(Constants.SCOPE, CBORObject.FromObject("r_co2"));
+            params.put(Constants.AUD, CBORObject.FromObject("aud1"));
+            params.put(Constants.CTI, CBORObject.FromObject(id.getBytes(Constants.charset)));
+            params.put(Constants.ISS, CBORObject.FromObject("TestAS"));
+            params.put(Constants.CNF, cnf);
+            if (i % 2 == 0) {
+                params.put(Constants.EXP, CBORObject.FromObject(time.getCurrentTime()-1000+i));
+                expired.add(Base64.getEncoder().encodeToString(id.getBytes(Constants.charset)));
+            } else {
+                params.put(Constants.EXP, CBORObject.FromObject(time.getCurrentTime()+1000000));
+                valid.add(Base64.getEncoder().encodeToString(id.getBytes(Constants.charset)));
+            }
+            tr.addToken(null, params, ctx, null, -1);
+        }
+        
+        String kidStr = Base64.getEncoder().encodeToString(ourKey.getBytes(Constants.charset));
+        Assert.assertEquals(TokenRepository.OK, tr.canAccess(kidStr, null, "co2", Constants.GET, null));
+        
+        tr.purgeTokens();
+        Assert.assertNull(tr.getClaims("dG9rZW4x"));
+        // Other tests may have left tokens bound to the same key
+        Set<String> ctis = tr.getCtis(kidStr);
+        Assert.assertTrue(ctis.containsAll(valid));
+        ctis.retainAll(expired);
+        Assert.assertTrue(ctis.isEmpty());
+        Assert.assertNotNull(tr.getKey(kidStr));
+        Assert.assertEquals(TokenRepository.OK, tr.canAccess(kidStr, null, "co2", Constants.GET, null));
+        
+        for (String cti : valid) {
+            tr.removeToken(cti);
+        }
+        Assert.assertNull(tr.getClaims(valid.iterator().next()));
+    }
+    
     /**
      * Test loading an existing token file
      * 
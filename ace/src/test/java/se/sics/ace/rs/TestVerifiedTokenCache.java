@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2026, RISE AB
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *******************************************************************************/
+package se.sics.ace.rs;
+
+import java.io.File;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.KeyKeys;
+import org.eclipse.californium.cose.OneKey;
+
+import se.sics.ace.Constants;
+import se.sics.ace.Message;
+import se.sics.ace.TestConfig;
+import se.sics.ace.TimeProvider;
+import se.sics.ace.cwt.CWT;
+import se.sics.ace.cwt.CwtCryptoCtx;
+import se.sics.ace.examples.KissTime;
+import se.sics.ace.examples.KissValidator;
+import se.sics.ace.examples.LocalMessage;
+
+/**
+ * Test the cache of verified tokens.
+ * 
+ * @author agent
+ *
+ */
+public class TestVerifiedTokenCache {
+
+    private static final byte[] KEY128 = {'a', 'b', 'c', 4, 5, 6, 7, 8, 
+            9, 10, 11, 12, 13, 14, 15, 16};
+
+    private static final CwtCryptoCtx CTX = CwtCryptoCtx.mac0(KEY128, 
+            AlgorithmID.HMAC_SHA_256.AsCBOR());
+
+    /**
+     * A time provider returning a set time.
+     */
+    private static class ManualTime implements TimeProvider {
+        private long now = 1000L;
+
+        @Override
+        public long getCurrentTime() {
+            return this.now;
+        }
+    }
+
+    private static Map<Short, CBORObject> claims(byte[] cti, Long exp) {
+        Map<Short, CBORObject> claims = new HashMap<>();
+        if (cti != null) {
+            claims.put(Constants.CTI, CBORObject.FromObject(cti));
+        }
+        if (exp != null) {
+            claims.put(Constants.EXP, CBORObject.FromObject(exp));
+        }
+        claims.put(Constants.SCOPE, CBORObject.FromObject("r_temp"));
+        return claims;
+    }
+
+    /**
+     * Test that cached claims are returned as independent copies.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testHit() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(new ManualTime());
+        byte[] token = {0x01, 0x02};
+        Assert.assertNull(cache.get(token, CTX));
+        cache.put(token, CTX, claims(new byte[]{0x11}, null));
+
+        Map<Short, CBORObject> claims = cache.get(token, CTX);
+        Assert.assertEquals("r_temp", claims.get(Constants.SCOPE).AsString());
+        claims.put(Constants.SCOPE, CBORObject.FromObject("co2"));
+        Assert.assertEquals("r_temp", 
+                cache.get(token, CTX).get(Constants.SCOPE).AsString());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        //Not found with another crypto context or other bytes
+        Assert.assertNull(cache.get(token, CwtCryptoCtx.mac0(KEY128, 
+                AlgorithmID.HMAC_SHA_256.AsCBOR())));
+        Assert.assertNull(cache.get(new byte[]{0x01, 0x03}, CTX));
+    }
+
+    /**
+     * Test that claims are cached until 'exp', and only with a 'cti'.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testExpAndCti() throws Exception {
+        ManualTime time = new ManualTime();
+        VerifiedTokenCache cache = new VerifiedTokenCache(time);
+        byte[] token = {0x01};
+        cache.put(token, CTX, claims(new byte[]{0x11}, time.now + 10L));
+        time.now += 9L;
+        Assert.assertNotNull(cache.get(token, CTX));
+        time.now += 1L;
+        Assert.assertNull(cache.get(token, CTX));
+        Assert.assertEquals(0, cache.size());
+
+        cache.put(token, CTX, claims(new byte[]{0x11}, time.now));
+        cache.put(new byte[]{0x02}, CTX, claims(null, null));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test the invalidation by cti and the maximum number of entries.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testInvalidateAndBound() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(new ManualTime(), 2);
+        cache.put(new byte[]{0x01}, CTX, claims(new byte[]{0x11}, null));
+        cache.put(new byte[]{0x02}, CTX, claims(new byte[]{0x11}, null));
+        cache.put(new byte[]{0x03}, CTX, claims(new byte[]{0x13}, null));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get(new byte[]{0x01}, CTX));
+
+        String cti = Base64.getEncoder().encodeToString(
+                new byte[]{0x11});
+        cache.invalidate(cti);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.get(new byte[]{0x02}, CTX));
+        Assert.assertNotNull(cache.get(new byte[]{0x03}, CTX));
+    }
+
+    /**
+     * Test that a token posted again after it was removed from the
+     * TokenRepository is verified again.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void testRepostAfterRemove() throws Exception {
+        Set<Short> actions = new HashSet<>();
+        actions.add(Constants.GET);
+        Map<String, Set<Short>> myResource = new HashMap<>();
+        myResource.put("temp", actions);
+        Map<String, Map<String, Set<Short>>> myScopes = new HashMap<>();
+        myScopes.put("r_temp", myResource);
+        KissValidator valid = new KissValidator(
+                Collections.singleton("aud1"), myScopes);
+        CwtCryptoCtx ctx = CwtCryptoCtx.encrypt0(KEY128, 
+                AlgorithmID.AES_CCM_16_128_128.AsCBOR());
+        String tokenFile = TestConfig.testFilePath + "tokens.json";
+        
+        TokenRepository tr = TokenRepository.getInstance();
+        if (tr != null) {
+            tr.close();
+        }
+        new File(tokenFile).delete();
+        AuthzInfo ai = new AuthzInfo(Collections.singletonList("TestAS"), 
+                new KissTime(), null, "rs1", valid, ctx, null, 0, tokenFile, 
+                valid, false);
+        try {
+            byte[] ctiB = {0x21};
+            Map<Short, CBORObject> params = claims(ctiB, null);
+            params.put(Constants.AUD, CBORObject.FromObject("aud1"));
+            params.put(Constants.ISS, CBORObject.FromObject("TestAS"));
+            OneKey key = new OneKey();
+            key.add(KeyKeys.KeyType, KeyKeys.KeyType_Octet);
+            key.add(KeyKeys.KeyId, CBORObject.FromObject(
+                    "repostKey".getBytes(Constants.charset)));
+            key.add(KeyKeys.Octet_K, CBORObject.FromObject(KEY128));
+            CBORObject cnf = CBORObject.NewMap();
+            cnf.Add(Constants.COSE_KEY_CBOR, key.AsCBOR());
+            params.put(Constants.CNF, cnf);
+            CBORObject token = new CWT(params).encode(ctx);
+            
+            VerifiedTokenCache cache 
+                = TokenRepository.getInstance().getVerifiedTokenCache();
+            Message response = ai.processMessage(
+                    new LocalMessage(0, null, "rs1", token));
+            Assert.assertEquals(Message.CREATED, response.getMessageCode());
+            Assert.assertEquals(1, cache.getMisses());
+            Assert.assertEquals(1, cache.size());
+            
+            TokenRepository.getInstance().removeToken(
+                    Base64.getEncoder().encodeToString(ctiB));
+            Assert.assertEquals(0, cache.size());
+            
+            //The token is not taken from the cache, but verified again
+            response = ai.processMessage(
+                    new LocalMessage(0, null, "rs1", token));
+            Assert.assertEquals(Message.CREATED, response.getMessageCode());
+            Assert.assertEquals(2, cache.getMisses());
+            Assert.assertEquals(0, cache.getHits());
+        } finally {
+            ai.close();
+            new File(tokenFile).delete();
+        }
+    }
+}
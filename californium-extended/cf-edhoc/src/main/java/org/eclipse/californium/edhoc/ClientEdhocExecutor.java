@@ -25,6 +25,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.List;
 import java.util.Set;
 
@@ -107,7 +108,7 @@ public class ClientEdhocExecutor {
 												 Code combinedRequestAppCode, Type combinedRequestAppType,
 												 byte[] combinedRequestAppPayload) {
 
-		HashMap<CBORObject, EdhocSession> edhocSessions = edhocEndpointInfo.getEdhocSessions();
+		Map<CBORObject, EdhocSession> edhocSessions = edhocEndpointInfo.getEdhocSessions();
 		Set<CBORObject> usedConnectionIds = edhocEndpointInfo.getUsedConnectionIds();
 		HashMap<CBORObject, OneKey> peerPublicKeys = edhocEndpointInfo.getPeerPublicKeys();
 		HashMap<CBORObject, CBORObject> peerCredentials = edhocEndpointInfo.getPeerCredentials();
@@ -18,6 +18,7 @@
 package org.eclipse.californium.edhoc;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -42,7 +43,7 @@ public class EdhocCoapStackFactory implements CoapStackFactory {
 
 	private static AtomicBoolean init = new AtomicBoolean();
 	private static volatile OSCoreCtxDB defaultCtxDb;
-	private static volatile HashMap<CBORObject, EdhocSession> edhocSessions;
+	private static volatile Map<CBORObject, EdhocSession> edhocSessions;
 	private static volatile HashMap<CBORObject, OneKey> peerPublicKeys;
 	private static volatile HashMap<CBORObject, CBORObject> peerCredentials;
 	private static volatile Set<CBORObject> usedConnectionIds;
@@ -90,7 +91,7 @@ public class EdhocCoapStackFactory implements CoapStackFactory {
 	 * @see CoapEndpoint#setDefaultCoapStackFactory(CoapStackFactory)
 	 */
 	public static void useAsDefault(OSCoreCtxDB defaultCtxDb,
-									HashMap<CBORObject, EdhocSession> edhocSessions,
+									Map<CBORObject, EdhocSession> edhocSessions,
 									HashMap<CBORObject, OneKey> peerPublicKeys,
 									HashMap<CBORObject, CBORObject> peerCredentials,
 									Set<CBORObject> usedConnectionIds,
@@ -1,6 +1,7 @@
 package org.eclipse.californium.edhoc;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.List;
 import java.util.Set;
 
@@ -45,7 +46,7 @@ public class EdhocEndpointInfo {
 
 	// Existing EDHOC Sessions, including completed ones
 	// The map label is C_X, i.e. the connection identifier offered to the other peer, as a CBOR byte string
-	private HashMap<CBORObject, EdhocSession> edhocSessions;
+	private Map<CBORObject, EdhocSession> edhocSessions;
 	
 	// Each element is a used Connection Identifier offered to the other peers.
 	// Connection Identifiers are stored as CBOR integers (if numeric) or as CBOR byte strings (if binary)
@@ -95,7 +96,7 @@ public class EdhocEndpointInfo {
 							 HashMap<Integer, HashMap<Integer, OneKey>> keyPairs,
 							 HashMap<CBORObject, OneKey> peerPublicKeys,
 							 HashMap<CBORObject, CBORObject> peerCredentials,
-							 HashMap<CBORObject, EdhocSession> edhocSessions,
+							 Map<CBORObject, EdhocSession> edhocSessions,
 							 Set<CBORObject> usedConnectionIds, List<Integer> supportedCipherSuites,
 							 Set<Integer> supportedEADs, HashMap<Integer, List<CBORObject>> eadProductionInput,
 							 int trustModel, HashMapCtxDB db, String uri, int OSCORE_REPLAY_WINDOW,
@@ -123,7 +124,7 @@ public class EdhocEndpointInfo {
 	}
 	
 	//Return a reference to the set of EDHOC sessions
-	public HashMap<CBORObject, EdhocSession> getEdhocSessions() {
+	public Map<CBORObject, EdhocSession> getEdhocSessions() {
 		return edhocSessions;
 	}
 
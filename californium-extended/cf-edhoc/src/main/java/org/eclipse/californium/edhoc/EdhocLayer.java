@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.californium.core.coap.EmptyMessage;
@@ -65,7 +66,7 @@ public class EdhocLayer extends AbstractLayer {
 	/**
 	 * Map of existing EDHOC sessions
 	 */
-	HashMap<CBORObject, EdhocSession> edhocSessions;
+	Map<CBORObject, EdhocSession> edhocSessions;
 
 	/**
 	 * Map of the EDHOC peer public keys
@@ -103,7 +104,7 @@ public class EdhocLayer extends AbstractLayer {
 	 * @param MAX_UNFRAGMENTED_SIZE size of MAX_UNFRAGMENTED_SIZE to use in an OSCORE Security Context
 	 */
 	public EdhocLayer(OSCoreCtxDB ctxDb,
-					  HashMap<CBORObject, EdhocSession> edhocSessions,
+					  Map<CBORObject, EdhocSession> edhocSessions,
 					  HashMap<CBORObject, OneKey> peerPublicKeys,
 					  HashMap<CBORObject, CBORObject> peerCredentials,
 			          Set<CBORObject> usedConnectionIds,
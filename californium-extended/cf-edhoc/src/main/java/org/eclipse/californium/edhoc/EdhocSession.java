@@ -283,7 +283,10 @@ public class EdhocSession {
 	public void setEphemeralKey() {
 		
 		OneKey ek = null;
-		if (this.selectedCipherSuite == Constants.EDHOC_CIPHER_SUITE_0 || this.selectedCipherSuite == Constants.EDHOC_CIPHER_SUITE_1)
+		EphemeralKeyPool pool = EphemeralKeyPool.getDefault();
+		if (pool != null)
+			ek = pool.take(this.selectedCipherSuite);
+		else if (this.selectedCipherSuite == Constants.EDHOC_CIPHER_SUITE_0 || this.selectedCipherSuite == Constants.EDHOC_CIPHER_SUITE_1)
 			ek = Util.generateKeyPair(KeyKeys.OKP_X25519.AsInt32());
 		else if (this.selectedCipherSuite == Constants.EDHOC_CIPHER_SUITE_2 || this.selectedCipherSuite == Constants.EDHOC_CIPHER_SUITE_3)
 			ek = Util.generateKeyPair(KeyKeys.EC2_P256.AsInt32());
@@ -0,0 +1,511 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+
+package org.eclipse.californium.edhoc;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.upokecenter.cbor.CBORObject;
+
+/**
+ * Concurrent store of EDHOC sessions, indexed by the connection identifier
+ * offered to the other peer (C_X, as CBOR byte string).
+ *
+ * The store is a {@link Map}, so that it can be passed wherever the EDHOC
+ * classes expect the map of EDHOC sessions. The sessions are kept in a
+ * {@link ConcurrentHashMap}, so the single key operations and the iteration
+ * are thread-safe. Compound operations, e.g. put if absent, are not atomic.
+ *
+ * The store holds at most a fixed number of sessions. When full, the oldest
+ * session still in the handshake is evicted. Each session expires, if it
+ * stays in the same protocol step longer than the timeout of that step, see
+ * {@link #setTimeout(int, long, TimeUnit)}. Expired sessions are removed by a
+ * background reaper, see {@link #start()}. Removing a session releases its
+ * connection identifier, as {@link Util#purgeSession} does.
+ */
+public class EdhocSessionStore extends AbstractMap<CBORObject, EdhocSession> {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(EdhocSessionStore.class);
+
+	/**
+	 * Default capacity.
+	 */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/**
+	 * Default timeout in seconds of the handshake steps.
+	 */
+	public static final int DEFAULT_HANDSHAKE_TIMEOUT = 60;
+
+	/**
+	 * Default interval in seconds of the reaper.
+	 */
+	public static final int DEFAULT_REAPER_INTERVAL = 5;
+
+	/**
+	 * Timeout in nanoseconds per protocol step. {@code 0} for no timeout.
+	 */
+	private final long[] timeouts = new long[Constants.EDHOC_SENT_M4 + 1];
+
+	private final ConcurrentMap<CBORObject, Entry> sessions = new ConcurrentHashMap<CBORObject, Entry>();
+
+	/**
+	 * Entries in order of insertion. Contains removed and replaced entries
+	 * until the next {@link #reap()}.
+	 */
+	private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<Entry>();
+
+	private final Set<CBORObject> usedConnectionIds;
+
+	private final int capacity;
+
+	private ScheduledExecutorService ownExecutor;
+
+	private ScheduledFuture<?> reaper;
+
+	/**
+	 * Create a store with the {@link #DEFAULT_CAPACITY}.
+	 *
+	 * @param usedConnectionIds the set of used connection identifiers, to
+	 *            release the identifiers of removed sessions
+	 */
+	public EdhocSessionStore(Set<CBORObject> usedConnectionIds) {
+		this(usedConnectionIds, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a store.
+	 *
+	 * Sessions in the handshake time out after
+	 * {@link #DEFAULT_HANDSHAKE_TIMEOUT}, completed sessions don't time out.
+	 *
+	 * @param usedConnectionIds the set of used connection identifiers, to
+	 *            release the identifiers of removed sessions
+	 * @param capacity the maximum number of sessions
+	 * @throws NullPointerException if usedConnectionIds is {@code null}
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 */
+	public EdhocSessionStore(Set<CBORObject> usedConnectionIds, int capacity) {
+		if (usedConnectionIds == null) {
+			throw new NullPointerException("Used connection identifiers must not be null!");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity " + capacity + " must be at least 1!");
+		}
+		this.usedConnectionIds = usedConnectionIds;
+		this.capacity = capacity;
+		Arrays.fill(timeouts, TimeUnit.SECONDS.toNanos(DEFAULT_HANDSHAKE_TIMEOUT));
+		for (int step = 0; step < timeouts.length; step++) {
+			if (isCompleted(step)) {
+				timeouts[step] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Set the timeout of a protocol step. A session expires, if it stays in
+	 * that step longer than the timeout.
+	 *
+	 * Expiring completed sessions also removes the OSCORE Security Context
+	 * using the connection identifier as Recipient ID.
+	 *
+	 * @param step the protocol step, see {@link Constants#EDHOC_BEFORE_M1}
+	 *            ff.
+	 * @param timeout the timeout. {@code 0} for no timeout.
+	 * @param unit the unit of the timeout
+	 * @throws IllegalArgumentException if the step is unknown or the timeout
+	 *             is negative
+	 */
+	public void setTimeout(int step, long timeout, TimeUnit unit) {
+		if (step < 0 || step >= timeouts.length) {
+			throw new IllegalArgumentException("Unknown EDHOC step " + step);
+		}
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Timeout " + timeout + " must not be negative!");
+		}
+		timeouts[step] = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Set the timeout of all handshake steps.
+	 *
+	 * @param timeout the timeout. {@code 0} for no timeout.
+	 * @param unit the unit of the timeout
+	 * @throws IllegalArgumentException if the timeout is negative
+	 */
+	public void setHandshakeTimeout(long timeout, TimeUnit unit) {
+		for (int step = 0; step < timeouts.length; step++) {
+			if (!isCompleted(step)) {
+				setTimeout(step, timeout, unit);
+			}
+		}
+	}
+
+	/**
+	 * @return the maximum number of sessions
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Start the reaper on an own daemon thread with the
+	 * {@link #DEFAULT_REAPER_INTERVAL}.
+	 */
+	public synchronized void start() {
+		if (ownExecutor == null) {
+			ownExecutor = ExecutorsUtil
+					.newSingleThreadScheduledExecutor(new DaemonThreadFactory("EDHOC-Session-Reaper#"));
+		}
+		start(ownExecutor, DEFAULT_REAPER_INTERVAL, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Start the reaper.
+	 *
+	 * @param executor the executor to run the reaper
+	 * @param interval the interval of the reaper
+	 * @param unit the unit of the interval
+	 */
+	public synchronized void start(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+		if (reaper != null) {
+			reaper.cancel(false);
+		}
+		reaper = executor.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					int expired = reap();
+					if (expired > 0) {
+						LOGGER.debug("{} EDHOC sessions expired, {} left", expired, sessions.size());
+					}
+				} catch (RuntimeException e) {
+					LOGGER.warn("EDHOC session reaper failed", e);
+				}
+			}
+		}, interval, interval, unit);
+	}
+
+	/**
+	 * Stop the reaper.
+	 */
+	public synchronized void stop() {
+		if (reaper != null) {
+			reaper.cancel(false);
+			reaper = null;
+		}
+		if (ownExecutor != null) {
+			ownExecutor.shutdown();
+			ownExecutor = null;
+		}
+	}
+
+	/**
+	 * Remove the sessions, which stayed in their current protocol step longer
+	 * than the timeout of that step.
+	 *
+	 * @return the number of removed sessions
+	 */
+	public int reap() {
+		long now = ClockUtil.nanoRealtime();
+		int expired = 0;
+		for (Map.Entry<CBORObject, Entry> mapEntry : sessions.entrySet()) {
+			Entry entry = mapEntry.getValue();
+			int step = entry.session.getCurrentStep();
+			if (step != entry.step) {
+				entry.step = step;
+				entry.since = now;
+			} else {
+				long timeout = step >= 0 && step < timeouts.length ? timeouts[step] : 0;
+				if (timeout > 0 && now - entry.since > timeout && evict(mapEntry.getKey(), entry)) {
+					expired++;
+				}
+			}
+		}
+		// drop removed and replaced entries from the order
+		Iterator<Entry> iterator = order.iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (sessions.get(entry.key) != entry) {
+				iterator.remove();
+			}
+		}
+		return expired;
+	}
+
+	@Override
+	public int size() {
+		return sessions.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return sessions.isEmpty();
+	}
+
+	@Override
+	public EdhocSession get(Object key) {
+		Entry entry = sessions.get(key);
+		return entry == null ? null : entry.session;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return sessions.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (Entry entry : sessions.values()) {
+			if (entry.session.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Add a session. Evicts the oldest session in the handshake, if the store
+	 * is full.
+	 */
+	@Override
+	public EdhocSession put(CBORObject key, EdhocSession session) {
+		Entry entry = new Entry(key, session);
+		Entry previous = sessions.put(key, entry);
+		order.add(entry);
+		if (previous == null) {
+			ensureCapacity(entry);
+			return null;
+		}
+		return previous.session;
+	}
+
+	/**
+	 * Remove a session. The connection identifier is not released, that is
+	 * left to the caller, see {@link Util#purgeSession}.
+	 */
+	@Override
+	public EdhocSession remove(Object key) {
+		Entry entry = sessions.remove(key);
+		return entry == null ? null : entry.session;
+	}
+
+	/**
+	 * Remove all sessions. The connection identifiers are not released.
+	 */
+	@Override
+	public void clear() {
+		sessions.clear();
+		order.clear();
+	}
+
+	@Override
+	public Set<CBORObject> keySet() {
+		return sessions.keySet();
+	}
+
+	@Override
+	public Collection<EdhocSession> values() {
+		return new AbstractCollection<EdhocSession>() {
+
+			@Override
+			public Iterator<EdhocSession> iterator() {
+				final Iterator<Entry> iterator = sessions.values().iterator();
+				return new Iterator<EdhocSession>() {
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public EdhocSession next() {
+						return iterator.next().session;
+					}
+
+					@Override
+					public void remove() {
+						iterator.remove();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return sessions.size();
+			}
+		};
+	}
+
+	@Override
+	public Set<Map.Entry<CBORObject, EdhocSession>> entrySet() {
+		return new AbstractSet<Map.Entry<CBORObject, EdhocSession>>() {
+
+			@Override
+			public Iterator<Map.Entry<CBORObject, EdhocSession>> iterator() {
+				final Iterator<Map.Entry<CBORObject, Entry>> iterator = sessions.entrySet().iterator();
+				return new Iterator<Map.Entry<CBORObject, EdhocSession>>() {
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Map.Entry<CBORObject, EdhocSession> next() {
+						Map.Entry<CBORObject, Entry> entry = iterator.next();
+						return new AbstractMap.SimpleImmutableEntry<CBORObject, EdhocSession>(entry.getKey(),
+								entry.getValue().session);
+					}
+
+					@Override
+					public void remove() {
+						iterator.remove();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return sessions.size();
+			}
+		};
+	}
+
+	/**
+	 * Evict sessions, until the store is within its capacity. Sessions in the
+	 * handshake are evicted first, oldest first.
+	 *
+	 * @param added the just added entry, evicted only as last resort
+	 */
+	private void ensureCapacity(Entry added) {
+		int loops = order.size();
+		while (sessions.size() > capacity && loops-- > 0) {
+			Entry oldest = order.poll();
+			if (oldest == null) {
+				break;
+			}
+			if (sessions.get(oldest.key) != oldest) {
+				// already removed or replaced
+				continue;
+			}
+			if (oldest == added || isCompleted(oldest.session.getCurrentStep())) {
+				order.add(oldest);
+				continue;
+			}
+			if (evict(oldest.key, oldest)) {
+				LOGGER.debug("EDHOC session store full, evicted session in step {}", oldest.session.getCurrentStep());
+			}
+		}
+		// evict completed sessions only, if there is no other choice
+		loops = order.size();
+		while (sessions.size() > capacity && loops-- > 0) {
+			Entry oldest = order.poll();
+			if (oldest == null) {
+				break;
+			}
+			if (sessions.get(oldest.key) != oldest) {
+				continue;
+			}
+			if (oldest == added) {
+				order.add(oldest);
+				continue;
+			}
+			if (evict(oldest.key, oldest)) {
+				LOGGER.warn("EDHOC session store full, evicted completed session");
+			}
+		}
+	}
+
+	/**
+	 * Remove a session, release its connection identifier and delete its
+	 * temporary material.
+	 *
+	 * @param key the key of the session
+	 * @param entry the entry of the session
+	 * @return {@code true}, if the session was removed, {@code false}, if it
+	 *         was already removed or replaced
+	 */
+	private boolean evict(CBORObject key, Entry entry) {
+		if (!sessions.remove(key, entry)) {
+			return false;
+		}
+		EdhocSession session = entry.session;
+		byte[] connectionId = session.getConnectionId();
+		if (connectionId == null) {
+			connectionId = key.GetByteString();
+		}
+		Util.releaseConnectionId(connectionId, usedConnectionIds, session.getOscoreDb());
+		session.deleteTemporaryMaterial();
+		if (session.getSideProcessor() != null) {
+			session.getSideProcessor().setEdhocSession(null);
+		}
+		return true;
+	}
+
+	/**
+	 * Check, if a protocol step is after the handshake.
+	 *
+	 * @param step the protocol step
+	 * @return {@code true}, if the handshake is completed
+	 */
+	private static boolean isCompleted(int step) {
+		return step == Constants.EDHOC_AFTER_M3 || step == Constants.EDHOC_SENT_M3
+				|| step == Constants.EDHOC_AFTER_M4 || step == Constants.EDHOC_SENT_M4;
+	}
+
+	/**
+	 * Session with the time of entering the current protocol step.
+	 */
+	private static class Entry {
+
+		private final CBORObject key;
+		private final EdhocSession session;
+		private volatile int step;
+		private volatile long since;
+
+		private Entry(CBORObject key, EdhocSession session) {
+			this.key = key;
+			this.session = session;
+			this.step = session.getCurrentStep();
+			this.since = ClockUtil.nanoRealtime();
+		}
+	}
+}
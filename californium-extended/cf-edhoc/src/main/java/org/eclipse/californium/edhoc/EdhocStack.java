@@ -20,6 +20,7 @@ package org.eclipse.californium.edhoc;
 import com.upokecenter.cbor.CBORObject;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.californium.core.network.Outbox;
@@ -59,7 +60,7 @@ public class EdhocStack extends BaseCoapStack {
 	 * 
 	 */
 	public EdhocStack(String tag, final Configuration config, final Outbox outbox, final OSCoreCtxDB ctxDb,
-			HashMap<CBORObject, EdhocSession> edhocSessions, HashMap<CBORObject, OneKey> peerPublicKeys,
+			Map<CBORObject, EdhocSession> edhocSessions, HashMap<CBORObject, OneKey> peerPublicKeys,
 			HashMap<CBORObject, CBORObject> peerCredentials, Set<CBORObject> usedConnectionIds,
 			int OSCORE_REPLAY_WINDOW, int MAX_UNFRAGMENTED_SIZE) {
 		super(outbox);
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *    Rikard Höglund (RISE)
+ *
+ ******************************************************************************/
+
+package org.eclipse.californium.edhoc;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.cose.OneKey;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of pre-generated ephemeral key pairs for EDHOC.
+ *
+ * The pool keeps key pairs for the curves of the configured cipher suites
+ * (X25519 for the cipher suites 0 and 1, P-256 for the cipher suites 2 and
+ * 3). When the number of key pairs of a curve drops below the low watermark,
+ * the pool is refilled up to its capacity in the background. If the pool of a
+ * curve is empty, the key pair is generated inline and counted as miss.
+ *
+ * Key pairs are handed out only once. Key pairs discarded by the pool, e.g.
+ * on {@link #close()}, are zeroized.
+ *
+ * {@link EdhocSession#setEphemeralKey()} uses the pool set by
+ * {@link #setDefault(EphemeralKeyPool)}.
+ */
+public class EphemeralKeyPool implements Closeable {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(EphemeralKeyPool.class);
+
+	private static volatile EphemeralKeyPool defaultPool;
+
+	/**
+	 * Pools by curve.
+	 */
+	private final Map<Integer, CurvePool> pools = new HashMap<Integer, CurvePool>();
+
+	private final int capacity;
+
+	private final int lowWatermark;
+
+	private final ExecutorService executor;
+
+	private volatile boolean running = true;
+
+	/**
+	 * Create a pool and start filling it.
+	 *
+	 * @param cipherSuites the cipher suites to keep key pairs for
+	 * @param capacity the maximum number of key pairs per curve
+	 * @param lowWatermark the number of key pairs per curve, below which the
+	 *            pool is refilled
+	 * @param threads the number of threads generating key pairs
+	 * @throws IllegalArgumentException if a parameter is out of range or no
+	 *             cipher suite uses an ephemeral curve supported by the pool
+	 */
+	public EphemeralKeyPool(Collection<Integer> cipherSuites, int capacity, int lowWatermark, int threads) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity " + capacity + " must be at least 1!");
+		}
+		if (lowWatermark < 0 || lowWatermark > capacity) {
+			throw new IllegalArgumentException(
+					"Low watermark " + lowWatermark + " out of range [0, " + capacity + "]!");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads " + threads + " must be at least 1!");
+		}
+		for (Integer cipherSuite : cipherSuites) {
+			int curve = getCurve(cipherSuite);
+			if (curve != -1 && !pools.containsKey(curve)) {
+				pools.put(curve, new CurvePool(curve, capacity));
+			}
+		}
+		if (pools.isEmpty()) {
+			throw new IllegalArgumentException("No supported cipher suite in " + cipherSuites);
+		}
+		this.capacity = capacity;
+		this.lowWatermark = lowWatermark;
+		this.executor = ExecutorsUtil.newFixedThreadPool(threads, new DaemonThreadFactory("EDHOC-KeyPool#"));
+		for (CurvePool pool : pools.values()) {
+			refill(pool);
+		}
+	}
+
+	/**
+	 * Get the pool used by {@link EdhocSession#setEphemeralKey()}.
+	 *
+	 * @return the pool, or {@code null}, if key pairs are generated inline
+	 */
+	public static EphemeralKeyPool getDefault() {
+		return defaultPool;
+	}
+
+	/**
+	 * Set the pool used by {@link EdhocSession#setEphemeralKey()}.
+	 *
+	 * The previous pool is not closed.
+	 *
+	 * @param pool the pool, or {@code null}, to generate key pairs inline
+	 */
+	public static void setDefault(EphemeralKeyPool pool) {
+		defaultPool = pool;
+	}
+
+	/**
+	 * Get the curve of the ephemeral keys of a cipher suite.
+	 *
+	 * @param cipherSuite the cipher suite
+	 * @return the curve, or {@code -1}, if the cipher suite is not supported
+	 */
+	public static int getCurve(int cipherSuite) {
+		if (cipherSuite == Constants.EDHOC_CIPHER_SUITE_0 || cipherSuite == Constants.EDHOC_CIPHER_SUITE_1) {
+			return Constants.CURVE_X25519;
+		} else if (cipherSuite == Constants.EDHOC_CIPHER_SUITE_2 || cipherSuite == Constants.EDHOC_CIPHER_SUITE_3) {
+			return Constants.CURVE_P256;
+		}
+		return -1;
+	}
+
+	/**
+	 * Take an ephemeral key pair for a cipher suite.
+	 *
+	 * If the pool has no key pair for the curve of the cipher suite, the key
+	 * pair is generated inline.
+	 *
+	 * @param cipherSuite the cipher suite
+	 * @return the key pair, or {@code null}, if the cipher suite is not
+	 *         supported or the generation failed
+	 */
+	public OneKey take(int cipherSuite) {
+		int curve = getCurve(cipherSuite);
+		if (curve == -1) {
+			return null;
+		}
+		CurvePool pool = pools.get(curve);
+		if (pool == null) {
+			return Util.generateKeyPair(curve);
+		}
+		OneKey key = pool.keys.poll();
+		if (key == null) {
+			pool.misses.incrementAndGet();
+			key = Util.generateKeyPair(curve);
+		} else {
+			pool.hits.incrementAndGet();
+		}
+		if (pool.keys.size() < lowWatermark) {
+			refill(pool);
+		}
+		return key;
+	}
+
+	/**
+	 * Get the number of key pairs taken from the pool.
+	 *
+	 * @param cipherSuite the cipher suite
+	 * @return the number of hits of the curve of the cipher suite
+	 */
+	public long getHits(int cipherSuite) {
+		CurvePool pool = pools.get(getCurve(cipherSuite));
+		return pool == null ? 0 : pool.hits.get();
+	}
+
+	/**
+	 * Get the number of key pairs generated inline, because the pool was
+	 * empty.
+	 *
+	 * @param cipherSuite the cipher suite
+	 * @return the number of misses of the curve of the cipher suite
+	 */
+	public long getMisses(int cipherSuite) {
+		CurvePool pool = pools.get(getCurve(cipherSuite));
+		return pool == null ? 0 : pool.misses.get();
+	}
+
+	/**
+	 * Get the number of available key pairs.
+	 *
+	 * @param cipherSuite the cipher suite
+	 * @return the number of available key pairs of the curve of the cipher
+	 *         suite
+	 */
+	public int getSize(int cipherSuite) {
+		CurvePool pool = pools.get(getCurve(cipherSuite));
+		return pool == null ? 0 : pool.keys.size();
+	}
+
+	/**
+	 * @return the maximum number of key pairs per curve
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Stop refilling and zeroize all pooled key pairs.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		executor.shutdownNow();
+		for (CurvePool pool : pools.values()) {
+			OneKey key;
+			while ((key = pool.keys.poll()) != null) {
+				zeroize(key);
+			}
+		}
+		LOGGER.debug("EDHOC ephemeral key pool closed");
+	}
+
+	/**
+	 * Overwrite and remove the private key of a key pair, see
+	 * {@link OneKey#destroyPrivateKey()}.
+	 *
+	 * @param key the key pair. May be {@code null}.
+	 */
+	public static void zeroize(OneKey key) {
+		if (key != null) {
+			key.destroyPrivateKey();
+		}
+	}
+
+	/**
+	 * Schedule the refill of a curve pool, if not already scheduled.
+	 *
+	 * @param pool the curve pool
+	 */
+	private void refill(final CurvePool pool) {
+		if (!running || !pool.refilling.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						while (running && pool.keys.size() < capacity) {
+							OneKey key = Util.generateKeyPair(pool.curve);
+							if (key == null) {
+								LOGGER.warn("Failed to generate ephemeral key pair for curve {}", pool.curve);
+								break;
+							}
+							if (!running || !pool.keys.offer(key)) {
+								zeroize(key);
+								break;
+							}
+						}
+					} finally {
+						pool.refilling.set(false);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pool.refilling.set(false);
+		}
+	}
+
+	/**
+	 * Key pairs of one curve.
+	 */
+	private static class CurvePool {
+
+		private final int curve;
+		private final ArrayBlockingQueue<OneKey> keys;
+		private final AtomicBoolean refilling = new AtomicBoolean();
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+
+		private CurvePool(int curve, int capacity) {
+			this.curve = curve;
+			this.keys = new ArrayBlockingQueue<OneKey>(capacity);
+		}
+	}
+}
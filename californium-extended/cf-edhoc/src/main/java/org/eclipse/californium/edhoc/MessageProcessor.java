@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
@@ -33,6 +34,8 @@ import org.eclipse.californium.cose.HeaderKeys;
 import org.eclipse.californium.cose.KeyKeys;
 import org.eclipse.californium.cose.OneKey;
 import org.eclipse.californium.oscore.HashMapCtxDB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.upokecenter.cbor.CBORException;
 import com.upokecenter.cbor.CBORObject;
@@ -40,7 +43,12 @@ import com.upokecenter.cbor.CBORType;
 
 public class MessageProcessor {
 	
-	private static final boolean debugPrint = true;
+	private static final Logger LOGGER = LoggerFactory.getLogger(MessageProcessor.class);
+
+	/**
+	 * Print the content of the messages, if debug logging is enabled.
+	 */
+	private static final boolean debugPrint = LOGGER.isDebugEnabled();
 	
     /**
      *  Determine the type of a received EDHOC message
@@ -57,7 +65,7 @@ public class MessageProcessor {
      * @return  The type of the EDHOC message, or -1 if it not a recognized type
      */
 	public static int messageType(byte[] msg, boolean isReq,
-								  HashMap<CBORObject, EdhocSession> edhocSessions,
+								  Map<CBORObject, EdhocSession> edhocSessions,
 								  byte[] connectionIdentifier) {
 				
 		CBORObject[] myObjects = null;
@@ -570,7 +578,7 @@ public class MessageProcessor {
 		// A CBOR byte string with zero length, indicating that the EDHOC Message 2 can be prepared
 		processingResult.add(CBORObject.FromObject(replyPayload));
 		
-		System.out.println("\nCompleted processing of EDHOC Message 1");
+		LOGGER.debug("Completed processing of EDHOC Message 1");
 		return processingResult;
 		
 	}
@@ -596,7 +604,7 @@ public class MessageProcessor {
      *           to use for the EDHOC Error Message, if this is a CoAP response.
      */
 	public static List<CBORObject> readMessage2(byte[] sequence, boolean isReq, byte[] connectionIdInitiator,
-												HashMap<CBORObject, EdhocSession> edhocSessions,
+												Map<CBORObject, EdhocSession> edhocSessions,
 												HashMap<CBORObject, OneKey> peerPublicKeys,
 												HashMap<CBORObject, CBORObject> peerCredentials,
 												Set<CBORObject> usedConnectionIds,
@@ -1124,7 +1132,7 @@ public class MessageProcessor {
 		byte[] reply = new byte[] {};
 		processingResult.add(CBORObject.FromObject(reply));
 		
-		System.out.println("\nCompleted processing of EDHOC Message 2");
+		LOGGER.debug("Completed processing of EDHOC Message 2");
 		return processingResult;
 		
 	}
@@ -1152,7 +1160,7 @@ public class MessageProcessor {
      *           to use for the EDHOC Error Message, if this is a CoAP response.
      */
 	public static List<CBORObject> readMessage3(byte[] sequence, boolean isReq, byte[] connectionIdResponder,
-												HashMap<CBORObject, EdhocSession> edhocSessions,
+												Map<CBORObject, EdhocSession> edhocSessions,
 												HashMap<CBORObject, OneKey> peerPublicKeys,
 												HashMap<CBORObject, CBORObject> peerCredentials,
 												Set<CBORObject> usedConnectionIds) {
@@ -1632,7 +1640,7 @@ public class MessageProcessor {
 		
 		session.setCurrentStep(Constants.EDHOC_AFTER_M3);
 		
-		System.out.println("\nCompleted processing of EDHOC Message 3\n");
+		LOGGER.debug("Completed processing of EDHOC Message 3");
 		return processingResult;
 		
 	}
@@ -1656,7 +1664,7 @@ public class MessageProcessor {
      *           to use for the EDHOC Error Message, if this is a CoAP response.
      */
 	public static List<CBORObject> readMessage4(byte[] sequence, boolean isReq, byte[] connectionIdInitiator,
-												HashMap<CBORObject,EdhocSession> edhocSessions,
+												Map<CBORObject, EdhocSession> edhocSessions,
 			                                    Set<CBORObject> usedConnectionIds) {
 		
 		if (sequence == null || edhocSessions == null || usedConnectionIds == null)
@@ -1921,7 +1929,7 @@ public class MessageProcessor {
 				
     	session.setCurrentStep(Constants.EDHOC_AFTER_M4);
 		
-		System.out.println("\nCompleted processing of EDHOC Message 4");
+		LOGGER.debug("Completed processing of EDHOC Message 4");
 		return processingResult;
 		
 	}
@@ -1935,7 +1943,7 @@ public class MessageProcessor {
      * @return  The elements of the EDHOC Error Message as CBOR objects, or null in case of errors
      */
 	public static CBORObject[] readErrorMessage(byte[] sequence, byte[] connectionIdentifier,
-												HashMap<CBORObject, EdhocSession> edhocSessions) {
+												Map<CBORObject, EdhocSession> edhocSessions) {
 		
 		if (edhocSessions == null || sequence == null) {
 			System.err.println("Error when processing EDHOC Error Message");
@@ -3116,7 +3124,7 @@ public class MessageProcessor {
 		// Encode the EDHOC Error Message, as a CBOR sequence
 		payload = Util.buildCBORSequence(objectList);
 		
-		System.out.println("Completed preparation of EDHOC Error Message");
+		LOGGER.debug("Completed preparation of EDHOC Error Message");
 		
 		return payload;
 		
@@ -4320,7 +4328,9 @@ public class MessageProcessor {
         byte[] hashInput = new byte[gY.length + hashMessage1.length];
         System.arraycopy(gY, 0, hashInput, 0, gY.length);
         System.arraycopy(hashMessage1, 0, hashInput, gY.length, hashMessage1.length);
-		Util.nicePrint("Input to calculate TH_2", hashInput);
+		if (debugPrint) {
+			Util.nicePrint("Input to calculate TH_2", hashInput);
+		}
         try {
 			th2 = Util.computeHash(hashInput, hashAlgorithm);
 		} catch (NoSuchAlgorithmException e) {
@@ -4358,7 +4368,9 @@ public class MessageProcessor {
         offset += plaintext2.length;
         System.arraycopy(credR, 0, hashInput, offset, credR.length);
         
-		Util.nicePrint("Input to calculate TH_3", hashInput);
+		if (debugPrint) {
+			Util.nicePrint("Input to calculate TH_3", hashInput);
+		}
         try {
 			th3 = Util.computeHash(hashInput, hashAlgorithm);
 		} catch (NoSuchAlgorithmException e) {
@@ -4396,7 +4408,9 @@ public class MessageProcessor {
         offset += plaintext3.length;
         System.arraycopy(credI, 0, hashInput, offset, credI.length);
         
-		Util.nicePrint("Input to calculate TH_4", hashInput);
+		if (debugPrint) {
+			Util.nicePrint("Input to calculate TH_4", hashInput);
+		}
         try {
         	th4 = Util.computeHash(hashInput, hashAlgorithm);
 		} catch (NoSuchAlgorithmException e) {
@@ -21,7 +21,7 @@ package org.eclipse.californium.edhoc;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.californium.cose.AlgorithmID;
@@ -817,7 +817,7 @@ public class Util {
      * @param usedConnectionIds   The collection of already allocated Connection Identifiers
 	 */
 	public static void purgeSession(EdhocSession session, byte[] connectionIdentifier,
-									HashMap<CBORObject, EdhocSession> edhocSessions, Set<CBORObject> usedConnectionIds) {
+									Map<CBORObject, EdhocSession> edhocSessions, Set<CBORObject> usedConnectionIds) {
 		if (session != null) {
 			CBORObject connectionIdentifierCbor = CBORObject.FromObject(connectionIdentifier);
 		    edhocSessions.remove(connectionIdentifierCbor);
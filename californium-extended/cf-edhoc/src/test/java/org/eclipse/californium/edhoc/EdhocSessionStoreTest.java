@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+
+package org.eclipse.californium.edhoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.upokecenter.cbor.CBORObject;
+
+public class EdhocSessionStoreTest {
+
+	private Set<CBORObject> usedConnectionIds;
+	private AppProfile appProfile;
+
+	@Before
+	public void setUp() {
+		usedConnectionIds = new HashSet<>();
+		Set<Integer> authMethods = new HashSet<Integer>();
+		authMethods.add(Constants.EDHOC_AUTH_METHOD_0);
+		appProfile = new AppProfile(authMethods, false, false, false);
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		EdhocSessionStore store = new EdhocSessionStore(usedConnectionIds, 10);
+		EdhocSession session = newSession(1);
+		CBORObject key = CBORObject.FromObject(session.getConnectionId());
+
+		assertNull(store.put(key, session));
+		assertSame(session, store.get(key));
+		assertEquals(1, store.size());
+		assertTrue(store.containsValue(session));
+		assertEquals(1, store.entrySet().size());
+
+		assertSame(session, store.remove(key));
+		assertNull(store.get(key));
+		assertTrue(store.isEmpty());
+	}
+
+	@Test
+	public void testPurgeSessionReleasesConnectionId() {
+		EdhocSessionStore store = new EdhocSessionStore(usedConnectionIds, 10);
+		EdhocSession session = newSession(1);
+		store.put(CBORObject.FromObject(session.getConnectionId()), session);
+
+		Util.purgeSession(session, session.getConnectionId(), store, usedConnectionIds);
+		assertTrue(store.isEmpty());
+		assertTrue(usedConnectionIds.isEmpty());
+	}
+
+	@Test
+	public void testCapacityEvictsOldestHandshake() {
+		EdhocSessionStore store = new EdhocSessionStore(usedConnectionIds, 3);
+		EdhocSession completed = newSession(0);
+		completed.setCurrentStep(Constants.EDHOC_AFTER_M3);
+		store.put(CBORObject.FromObject(completed.getConnectionId()), completed);
+		for (int i = 1; i <= 5; i++) {
+			EdhocSession session = newSession(i);
+			session.setCurrentStep(Constants.EDHOC_SENT_M2);
+			store.put(CBORObject.FromObject(session.getConnectionId()), session);
+		}
+
+		assertEquals(3, store.size());
+		assertEquals(3, usedConnectionIds.size());
+		assertTrue(store.containsKey(CBORObject.FromObject(completed.getConnectionId())));
+		assertTrue(store.containsKey(CBORObject.FromObject(new byte[] { 4 })));
+		assertTrue(store.containsKey(CBORObject.FromObject(new byte[] { 5 })));
+		assertFalse(usedConnectionIds.contains(CBORObject.FromObject(new byte[] { 1 })));
+	}
+
+	@Test
+	public void testReapExpiredHandshakes() throws InterruptedException {
+		EdhocSessionStore store = new EdhocSessionStore(usedConnectionIds, 10);
+		store.setHandshakeTimeout(50, TimeUnit.MILLISECONDS);
+		EdhocSession waiting = newSession(1);
+		waiting.setCurrentStep(Constants.EDHOC_SENT_M2);
+		store.put(CBORObject.FromObject(waiting.getConnectionId()), waiting);
+		EdhocSession completed = newSession(2);
+		completed.setCurrentStep(Constants.EDHOC_AFTER_M3);
+		store.put(CBORObject.FromObject(completed.getConnectionId()), completed);
+
+		assertEquals(0, store.reap());
+		Thread.sleep(100);
+		assertEquals(1, store.reap());
+
+		assertNull(store.get(CBORObject.FromObject(waiting.getConnectionId())));
+		assertSame(completed, store.get(CBORObject.FromObject(completed.getConnectionId())));
+		assertEquals(1, usedConnectionIds.size());
+	}
+
+	@Test
+	public void testStepChangeRestartsTimeout() throws InterruptedException {
+		EdhocSessionStore store = new EdhocSessionStore(usedConnectionIds, 10);
+		store.setHandshakeTimeout(100, TimeUnit.MILLISECONDS);
+		EdhocSession session = newSession(1);
+		store.put(CBORObject.FromObject(session.getConnectionId()), session);
+
+		Thread.sleep(150);
+		session.setCurrentStep(Constants.EDHOC_SENT_M2);
+		assertEquals(0, store.reap());
+		assertEquals(1, store.size());
+	}
+
+	private EdhocSession newSession(int id) {
+		byte[] connectionId = new byte[] { (byte) id };
+		usedConnectionIds.add(CBORObject.FromObject(connectionId));
+		return new EdhocSession(false, true, Constants.EDHOC_AUTH_METHOD_0, connectionId, null, null, null, null,
+				null, null, appProfile, Constants.TRUST_MODEL_STRICT, null);
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *    Rikard Höglund (RISE)
+ *
+ ******************************************************************************/
+
+package org.eclipse.californium.edhoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.californium.cose.CoseException;
+import org.eclipse.californium.cose.KeyKeys;
+import org.eclipse.californium.cose.OneKey;
+import org.junit.After;
+import org.junit.Test;
+
+public class EphemeralKeyPoolTest {
+
+	private static final int CAPACITY = 4;
+
+	private EphemeralKeyPool pool;
+
+	@After
+	public void tearDown() {
+		EphemeralKeyPool.setDefault(null);
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testTakeFromFilledPool() throws InterruptedException {
+		pool = new EphemeralKeyPool(Arrays.asList(Constants.EDHOC_CIPHER_SUITE_0, Constants.EDHOC_CIPHER_SUITE_2),
+				CAPACITY, 2, 2);
+		waitForSize(Constants.EDHOC_CIPHER_SUITE_0, CAPACITY);
+		waitForSize(Constants.EDHOC_CIPHER_SUITE_2, CAPACITY);
+
+		OneKey x25519 = pool.take(Constants.EDHOC_CIPHER_SUITE_1);
+		assertNotNull(x25519);
+		assertTrue(x25519.get(KeyKeys.OKP_Curve).equals(KeyKeys.OKP_X25519));
+		OneKey p256 = pool.take(Constants.EDHOC_CIPHER_SUITE_3);
+		assertNotNull(p256);
+		assertTrue(p256.get(KeyKeys.EC2_Curve).equals(KeyKeys.EC2_P256));
+
+		assertEquals(1, pool.getHits(Constants.EDHOC_CIPHER_SUITE_0));
+		assertEquals(1, pool.getHits(Constants.EDHOC_CIPHER_SUITE_2));
+		assertEquals(0, pool.getMisses(Constants.EDHOC_CIPHER_SUITE_0));
+		assertNull(pool.take(-1));
+	}
+
+	@Test
+	public void testKeysAreHandedOutOnce() throws InterruptedException {
+		pool = new EphemeralKeyPool(Arrays.asList(Constants.EDHOC_CIPHER_SUITE_0), CAPACITY, 2, 1);
+		waitForSize(Constants.EDHOC_CIPHER_SUITE_0, CAPACITY);
+
+		Set<OneKey> keys = new HashSet<OneKey>();
+		for (int i = 0; i < 3 * CAPACITY; i++) {
+			OneKey key = pool.take(Constants.EDHOC_CIPHER_SUITE_0);
+			assertNotNull(key);
+			assertTrue(keys.add(key));
+		}
+		assertEquals(3 * CAPACITY,
+				pool.getHits(Constants.EDHOC_CIPHER_SUITE_0) + pool.getMisses(Constants.EDHOC_CIPHER_SUITE_0));
+		// refilled after dropping below the low watermark
+		waitForSize(Constants.EDHOC_CIPHER_SUITE_0, CAPACITY);
+	}
+
+	@Test
+	public void testSessionUsesDefaultPool() throws InterruptedException {
+		pool = new EphemeralKeyPool(Arrays.asList(Constants.EDHOC_CIPHER_SUITE_0), CAPACITY, 2, 1);
+		waitForSize(Constants.EDHOC_CIPHER_SUITE_0, CAPACITY);
+		EphemeralKeyPool.setDefault(pool);
+
+		Set<Integer> authMethods = new HashSet<Integer>();
+		authMethods.add(Constants.EDHOC_AUTH_METHOD_0);
+		AppProfile appProfile = new AppProfile(authMethods, false, false, false);
+		EdhocSession session = new EdhocSession(true, true, Constants.EDHOC_AUTH_METHOD_0, new byte[] { 0x01 }, null,
+				null, null, Arrays.asList(Constants.EDHOC_CIPHER_SUITE_0), null, null, appProfile,
+				Constants.TRUST_MODEL_STRICT, null);
+		session.setSelectedCipherSuite(Constants.EDHOC_CIPHER_SUITE_0);
+		session.setEphemeralKey();
+		assertNotNull(session.getEphemeralKey());
+		assertEquals(1, pool.getHits(Constants.EDHOC_CIPHER_SUITE_0));
+	}
+
+	@Test
+	public void testZeroize() {
+		OneKey key = Util.generateKeyPair(Constants.CURVE_X25519);
+		byte[] d = key.get(KeyKeys.OKP_D).GetByteString();
+		EphemeralKeyPool.zeroize(key);
+		assertNull(key.get(KeyKeys.OKP_D));
+		assertTrue(Arrays.equals(new byte[d.length], d));
+		assertNotNull(key.get(KeyKeys.OKP_X));
+		assertFalse(key.AsCBOR().ContainsKey(KeyKeys.OKP_D.AsCBOR()));
+	}
+
+	@Test
+	public void testZeroizeP256() throws CoseException {
+		OneKey key = Util.generateKeyPair(Constants.CURVE_P256);
+		assertNotNull(key.AsPrivateKey());
+		byte[] d = key.get(KeyKeys.EC2_D).GetByteString();
+		EphemeralKeyPool.zeroize(key);
+		assertNull(key.get(KeyKeys.EC2_D));
+		assertTrue(Arrays.equals(new byte[d.length], d));
+		assertNull(key.AsPrivateKey());
+		assertNotNull(key.AsPublicKey());
+	}
+
+	private void waitForSize(int cipherSuite, int size) throws InterruptedException {
+		for (int i = 0; i < 100 && pool.getSize(cipherSuite) < size; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(size, pool.getSize(cipherSuite));
+	}
+}
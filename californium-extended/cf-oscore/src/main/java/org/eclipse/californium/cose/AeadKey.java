@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.cose;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Symmetric AEAD key with cached cipher state.
+ *
+ * Holds the {@link SecretKey} built from the raw key bytes and a bounded pool
+ * of AES block ciphers already initialized with this key, as used by the
+ * AES-CCM implementation. Instances are intended to live as long as the key
+ * itself (e.g. in an OSCORE context) so that the key setup and the provider
+ * lookup are not repeated for every message.
+ *
+ * The pool is thread-safe. A cipher is borrowed with
+ * {@link #borrowBlockCipher()} and must be handed back with
+ * {@link #releaseBlockCipher(Cipher)} after use.
+ *
+ */
+public class AeadKey {
+
+	/**
+	 * Transformation of the block cipher used for AES-CCM.
+	 */
+	private static final String BLOCK_CIPHER_NAME = "AES/ECB/NoPadding";
+
+	/**
+	 * Maximum number of idle initialized block ciphers kept per key.
+	 */
+	private static final int MAX_POOLED_CIPHERS = 8;
+
+	private final byte[] key;
+	private final SecretKey secretKey;
+	private final ConcurrentLinkedQueue<Cipher> blockCiphers;
+	private final AtomicInteger pooled;
+
+	/**
+	 * Create key from its raw bytes.
+	 *
+	 * The byte array is not copied, callers must not modify it afterwards.
+	 *
+	 * @param key the raw key bytes
+	 */
+	public AeadKey(byte[] key) {
+		if (key == null) {
+			throw new NullPointerException("Key must not be null");
+		}
+		this.key = key;
+		this.secretKey = new SecretKeySpec(key, "AES");
+		this.blockCiphers = new ConcurrentLinkedQueue<Cipher>();
+		this.pooled = new AtomicInteger();
+	}
+
+	/**
+	 * Check, if this instance was created for the provided key array.
+	 *
+	 * Used by holders of the key bytes to detect, that the key has been
+	 * replaced and the cached state must be rebuilt.
+	 *
+	 * @param key the raw key bytes currently in use
+	 * @return {@code true}, if this instance wraps exactly that array
+	 */
+	public boolean isFor(byte[] key) {
+		return this.key == key;
+	}
+
+	/**
+	 * @return the length of the key in bytes
+	 */
+	public int length() {
+		return key.length;
+	}
+
+	/**
+	 * @return the secret key for use with JCE ciphers
+	 */
+	public SecretKey getSecretKey() {
+		return secretKey;
+	}
+
+	/**
+	 * Borrow a block cipher initialized with this key in
+	 * {@link Cipher#ENCRYPT_MODE}. A new cipher is created if no idle one is
+	 * available.
+	 *
+	 * @return the initialized block cipher
+	 * @throws GeneralSecurityException if the cipher cannot be created
+	 */
+	public Cipher borrowBlockCipher() throws GeneralSecurityException {
+		Cipher cipher = blockCiphers.poll();
+		if (cipher != null) {
+			pooled.decrementAndGet();
+			return cipher;
+		}
+		cipher = Cipher.getInstance(BLOCK_CIPHER_NAME);
+		cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+		return cipher;
+	}
+
+	/**
+	 * Return a block cipher borrowed by {@link #borrowBlockCipher()}. If the
+	 * pool is already full, the cipher is dropped.
+	 *
+	 * @param cipher the block cipher
+	 */
+	public void releaseBlockCipher(Cipher cipher) {
+		if (cipher != null && pooled.incrementAndGet() <= MAX_POOLED_CIPHERS) {
+			blockCiphers.offer(cipher);
+		} else if (cipher != null) {
+			pooled.decrementAndGet();
+		}
+	}
+}
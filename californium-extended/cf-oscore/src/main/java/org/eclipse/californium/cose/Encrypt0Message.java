@@ -148,4 +148,26 @@ public class Encrypt0Message extends EncryptCommon {
 	public void encrypt(byte[] rgbKey) throws CoseException, IllegalStateException {
 		super.encryptWithKey(rgbKey);
 	}
+
+	/**
+	 * Decrypt the message using the passed in key and its cached cipher state.
+	 * 
+	 * @param rgbKey key for decryption
+	 * @return the decrypted content
+	 * @throws CoseException - Error during decryption
+	 */
+	public byte[] decrypt(AeadKey rgbKey) throws CoseException {
+		return super.decryptWithKey(rgbKey);
+	}
+
+	/**
+	 * Encrypt the message using the passed in key and its cached cipher state.
+	 * 
+	 * @param rgbKey key used for encryption
+	 * @throws CoseException - Error during encryption
+	 * @throws IllegalStateException - Error during encryption
+	 */
+	public void encrypt(AeadKey rgbKey) throws CoseException, IllegalStateException {
+		super.encryptWithKey(rgbKey);
+	}
 }
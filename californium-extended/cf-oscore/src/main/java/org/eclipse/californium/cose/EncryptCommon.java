@@ -44,10 +44,9 @@ import java.security.SecureRandom;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 
-import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.scandium.dtls.cipher.CCMBlockCipher;
+import org.eclipse.californium.scandium.dtls.cipher.ThreadLocalCipher;
 
 /**
  * 
@@ -61,15 +60,38 @@ public abstract class EncryptCommon extends Message {
 	private final static int AES_CCM_16_IV_LENGTH = 13;
 	private final static int AES_CCM_64_IV_LENGTH = 7;
 
-	private final String AES_SPEC = "AES";
-	private final String AES_GCM_SPEC = AES_SPEC + "/GCM/NoPadding";
+	private final static String AES_GCM_SPEC = "AES/GCM/NoPadding";
 	private final static int AES_GCM_IV_LENGTH = 12;
 
+	/**
+	 * Per thread AES-GCM cipher, avoids the provider lookup for every message.
+	 */
+	private final static ThreadLocalCipher AES_GCM_CIPHER = new ThreadLocalCipher(AES_GCM_SPEC);
+
+	/**
+	 * Shared source of random IVs. SecureRandom is thread-safe and expensive
+	 * to seed, so it is not created per message.
+	 */
+	private final static SecureRandom random = new SecureRandom();
+
 	protected String context;
 	protected byte[] rgbEncrypt;
-	SecureRandom random = new SecureRandom();
 
 	protected byte[] decryptWithKey(byte[] rgbKey) throws CoseException {
+		return decryptWithKey(new AeadKey(rgbKey));
+	}
+
+	/**
+	 * Decrypt using a key with cached cipher state.
+	 * 
+	 * @param rgbKey key for decryption
+	 * @return the decrypted content
+	 * @throws CoseException - Error during decryption
+	 */
+	protected byte[] decryptWithKey(AeadKey rgbKey) throws CoseException {
+		if (rgbKey == null)
+			throw new CoseException("No Key Specified");
+
 		CBORObject algX = findAttribute(HeaderKeys.Algorithm);
 		AlgorithmID alg = AlgorithmID.FromCBOR(algX);
 
@@ -99,6 +121,20 @@ public abstract class EncryptCommon extends Message {
 	}
 
 	void encryptWithKey(byte[] rgbKey) throws CoseException, IllegalStateException {
+		encryptWithKey(new AeadKey(rgbKey));
+	}
+
+	/**
+	 * Encrypt using a key with cached cipher state.
+	 * 
+	 * @param rgbKey key used for encryption
+	 * @throws CoseException - Error during encryption
+	 * @throws IllegalStateException - Error during encryption
+	 */
+	void encryptWithKey(AeadKey rgbKey) throws CoseException, IllegalStateException {
+		if (rgbKey == null)
+			throw new CoseException("No Key Specified");
+
 		CBORObject algX = findAttribute(HeaderKeys.Algorithm);
 		AlgorithmID alg = AlgorithmID.FromCBOR(algX);
 
@@ -144,9 +180,9 @@ public abstract class EncryptCommon extends Message {
 		return obj.EncodeToBytes();
 	}
 
-	private void AES_CCM_Decrypt(AlgorithmID alg, byte[] rgbKey) throws CoseException, IllegalStateException {
+	private void AES_CCM_Decrypt(AlgorithmID alg, AeadKey rgbKey) throws CoseException, IllegalStateException {
 		// validate key
-		if (rgbKey.length != alg.getKeySize() / Byte.SIZE) {
+		if (rgbKey.length() != alg.getKeySize() / Byte.SIZE) {
 			throw new CoseException("Key Size is incorrect");
 		}
 
@@ -167,9 +203,12 @@ public abstract class EncryptCommon extends Message {
 		// Tag length (last parameter) was also included
 		byte[] aad = getAADBytes();
 		
+		Cipher cipher = null;
 		try {
-			rgbContent = CCMBlockCipher.decrypt(new SecretKeySpec(rgbKey, "AES"), iv.GetByteString(), aad,
-					getEncryptedContent(), alg.getTagSize() / Byte.SIZE);
+			cipher = rgbKey.borrowBlockCipher();
+			byte[] encrypted = getEncryptedContent();
+			rgbContent = CCMBlockCipher.decrypt(cipher, iv.GetByteString(), aad, encrypted, 0, encrypted.length,
+					alg.getTagSize() / Byte.SIZE);
 		} catch (NoSuchAlgorithmException ex) {
 			throw new CoseException("Algorithm not supported", ex);
 		} catch (InvalidKeyException ex) {
@@ -180,14 +219,14 @@ public abstract class EncryptCommon extends Message {
 		} catch (Exception ex) {
 			ex.printStackTrace();
 			throw new CoseException("Decryption failure", ex);
+		} finally {
+			rgbKey.releaseBlockCipher(cipher);
 		}
 	}
 
-	private void AES_CCM_Encrypt(AlgorithmID alg, byte[] rgbKey) throws CoseException, IllegalStateException {
-		SecureRandom random = new SecureRandom();
-
+	private void AES_CCM_Encrypt(AlgorithmID alg, AeadKey rgbKey) throws CoseException, IllegalStateException {
 		// validate key
-		if (rgbKey.length != alg.getKeySize() / Byte.SIZE) {
+		if (rgbKey.length() != alg.getKeySize() / Byte.SIZE) {
 			throw new CoseException("Key Size is incorrect");
 		}
 
@@ -212,21 +251,25 @@ public abstract class EncryptCommon extends Message {
 		// Tag length (last parameter) was also included
 		byte[] aad = getAADBytes();
 		
+		Cipher cipher = null;
 		try {
-			rgbEncrypt = CCMBlockCipher.encrypt(new SecretKeySpec(rgbKey, "AES"), iv.GetByteString(), aad, GetContent(),
+			cipher = rgbKey.borrowBlockCipher();
+			rgbEncrypt = CCMBlockCipher.encrypt(0, cipher, iv.GetByteString(), aad, GetContent(),
 					alg.getTagSize() / Byte.SIZE);
 		} catch (NoSuchAlgorithmException ex) {
 			throw new CoseException("Algorithm not supported", ex);
 		} catch (Exception ex) {
 			throw new CoseException("Encryption failure", ex);
+		} finally {
+			rgbKey.releaseBlockCipher(cipher);
 		}
 	}
 
-	private void AES_GCM_Decrypt(AlgorithmID alg, byte[] rgbKey) throws CoseException {
+	private void AES_GCM_Decrypt(AlgorithmID alg, AeadKey rgbKey) throws CoseException {
 		CBORObject iv = findAttribute(HeaderKeys.IV);
 
 		// validate key
-		if (rgbKey.length != alg.getKeySize() / 8) {
+		if (rgbKey.length() != alg.getKeySize() / 8) {
 			throw new CoseException("Key Size is incorrect");
 		}
 
@@ -244,9 +287,8 @@ public abstract class EncryptCommon extends Message {
 
 		try {
 			// create and prepare cipher
-			Cipher cipher;
-			cipher = Cipher.getInstance(AES_GCM_SPEC);
-			cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(rgbKey, "AES"),
+			Cipher cipher = AES_GCM_CIPHER.currentWithCause();
+			cipher.init(Cipher.DECRYPT_MODE, rgbKey.getSecretKey(),
 					new GCMParameterSpec(alg.getTagSize(), iv.GetByteString()));
 			cipher.updateAAD(getAADBytes());
 
@@ -269,9 +311,9 @@ public abstract class EncryptCommon extends Message {
 		}
 	}
 
-	private void AES_GCM_Encrypt(AlgorithmID alg, byte[] rgbKey) throws CoseException, IllegalStateException {
+	private void AES_GCM_Encrypt(AlgorithmID alg, AeadKey rgbKey) throws CoseException, IllegalStateException {
 		// validate key
-		if (rgbKey.length != alg.getKeySize() / 8) {
+		if (rgbKey.length() != alg.getKeySize() / 8) {
 			throw new CoseException("Key Size is incorrect");
 		}
 
@@ -294,8 +336,8 @@ public abstract class EncryptCommon extends Message {
 		}
 
 		try {
-			Cipher cipher = Cipher.getInstance(AES_GCM_SPEC);
-			cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(rgbKey, AES_SPEC),
+			Cipher cipher = AES_GCM_CIPHER.currentWithCause();
+			cipher.init(Cipher.ENCRYPT_MODE, rgbKey.getSecretKey(),
 					new GCMParameterSpec(alg.getTagSize(), iv.GetByteString()));
 			cipher.updateAAD(getAADBytes());
 
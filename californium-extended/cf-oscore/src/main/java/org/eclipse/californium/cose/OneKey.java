@@ -30,6 +30,8 @@ import net.i2p.crypto.eddsa.EdDSAPublicKey;
 import net.i2p.crypto.eddsa.spec.EdDSAGenParameterSpec;
 import java.util.ArrayList;
 import java.util.Arrays;
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
 
 /**
  *
@@ -701,6 +703,34 @@ public class OneKey {
         return privateKey;
     }
     
+    /**
+     * Remove the private key, e.g. when disposing of an ephemeral key.
+     * 
+     * Overwrites the private key of the COSE representation and destroys the
+     * java.security.PrivateKey, if its provider supports that. Otherwise the
+     * PrivateKey is only dropped.
+     */
+    public void destroyPrivateKey()
+    {
+        // EC2_D and OKP_D share the label
+        CBORObject label = KeyKeys.OKP_D.AsCBOR();
+        if (keyMap.ContainsKey(label)) {
+            CBORObject d = keyMap.get(label);
+            if (d.getType() == CBORType.ByteString) {
+                Arrays.fill(d.GetByteString(), (byte) 0);
+            }
+            keyMap.Remove(label);
+        }
+        if (privateKey instanceof Destroyable) {
+            try {
+                ((Destroyable) privateKey).destroy();
+            } catch (DestroyFailedException e) {
+                // not supported by the provider
+            }
+        }
+        privateKey = null;
+    }
+    
     private Object UserData;
     
     /**
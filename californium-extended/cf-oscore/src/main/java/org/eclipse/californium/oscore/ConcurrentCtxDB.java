@@ -0,0 +1,418 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.elements.util.Bytes;
+import org.eclipse.californium.oscore.group.GroupCtx;
+import org.eclipse.californium.oscore.group.GroupSenderCtx;
+
+/**
+ *
+ * Implements the OSCoreCtxDB interface with concurrent maps.
+ *
+ * In contrast to {@link HashMapCtxDB} no method holds a database wide lock.
+ * Contexts are stored in a single map keyed by a composite of RID and ID
+ * Context, so that a lookup with both identifiers is one hash lookup. A
+ * secondary index from RID to the contexts sharing that RID serves the
+ * lookups using only the RID. Readers never lock. Updates of the two maps for
+ * one RID are serialized by a lock stripe selected by the RID, so that writers
+ * for different RIDs do not contend. The token and sequence number bookkeeping
+ * is lock-free.
+ *
+ */
+public class ConcurrentCtxDB implements OSCoreCtxDB {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCtxDB.class);
+
+	private static final OSCoreCtx[] NO_CONTEXTS = new OSCoreCtx[0];
+
+	/**
+	 * Key for URIs without a host, as the concurrent maps allow no null keys
+	 */
+	private static final String NO_HOST = "";
+
+	/**
+	 * Number of write lock stripes (power of 2)
+	 */
+	private static final int STRIPES = 16;
+
+	// Composite of RID and ID Context as key
+	private final ConcurrentHashMap<ByteId, OSCoreCtx> contextMap;
+
+	// RID as key and all contexts with that RID as value (copy-on-write)
+	private final ConcurrentHashMap<ByteId, OSCoreCtx[]> ridMap;
+
+	private final ConcurrentHashMap<Token, OSCoreCtx> tokenMap;
+	private final ConcurrentHashMap<String, OSCoreCtx> uriMap;
+	private final ConcurrentHashMap<Token, Integer> seqMap;
+
+	private final Set<Token> allTokens;
+
+	// Locks serializing the writers of the contexts of one RID
+	private final Object[] stripes;
+
+	/**
+	 * Create the database
+	 */
+	public ConcurrentCtxDB() {
+
+		this.contextMap = new ConcurrentHashMap<>();
+		this.ridMap = new ConcurrentHashMap<>();
+		this.tokenMap = new ConcurrentHashMap<>();
+		this.uriMap = new ConcurrentHashMap<>();
+		this.seqMap = new ConcurrentHashMap<>();
+		this.allTokens = Collections.newSetFromMap(new ConcurrentHashMap<Token, Boolean>());
+		this.stripes = new Object[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Object();
+		}
+	}
+
+	/**
+	 * Retrieve context using RID and ID Context. If the provided ID Context is
+	 * null a result will be returned if there is only one unique context for
+	 * that RID.
+	 */
+	@Override
+	public OSCoreCtx getContext(byte[] rid, byte[] IDContext) throws CoapOSException {
+		// Do not allow a null RID
+		if (rid == null) {
+			LOGGER.error(ErrorDescriptions.BYTE_ARRAY_NULL);
+			throw new NullPointerException(ErrorDescriptions.BYTE_ARRAY_NULL);
+		}
+
+		// If retrieving using both RID and ID Context
+		if (IDContext != null) {
+			return contextMap.get(compositeKey(rid, IDContext));
+		}
+
+		OSCoreCtx[] matching = ridMap.get(new ByteId(rid));
+
+		// No matching RID found at all
+		if (matching == null) {
+			return null;
+		}
+
+		// If retrieving using only RID, there must be only 1 match maximum
+		if (matching.length > 1) {
+			throw new CoapOSException(ErrorDescriptions.CONTEXT_NOT_FOUND_IDCONTEXT, ResponseCode.UNAUTHORIZED);
+		}
+		return matching[0];
+	}
+
+	/**
+	 * Retrieve context using only RID when it is certain it is unique.
+	 */
+	@Override
+	public OSCoreCtx getContext(byte[] rid) {
+		OSCoreCtx[] matching = ridMap.get(new ByteId(rid));
+
+		if (matching == null) {
+			return null;
+		}
+
+		if (matching.length > 1) {
+			throw new RuntimeException("Attempting to retrieve context with only non-unique RID.");
+		}
+
+		return matching[0];
+	}
+
+	@Override
+	public OSCoreCtx getContextByToken(Token token) {
+		if (token != null) {
+			return tokenMap.get(token);
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public OSCoreCtx getContextByIDContext(byte[] IDContext) {
+		for (OSCoreCtx ctx : uriMap.values()) {
+			if (Arrays.equals(IDContext, ctx.getIdContext())) {
+				return ctx;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public OSCoreCtx getContext(String uri) throws OSException {
+		if (uri != null) {
+			return uriMap.get(uriKey(uri));
+		} else {
+			LOGGER.error(ErrorDescriptions.STRING_NULL);
+			throw new NullPointerException(ErrorDescriptions.STRING_NULL);
+		}
+	}
+
+	@Override
+	public void addContext(Token token, OSCoreCtx ctx) {
+		if (token != null) {
+			allTokens.add(token);
+			tokenMap.put(token, ctx);
+		}
+		addContext(ctx);
+	}
+
+	@Override
+	public void addContext(String uri, OSCoreCtx ctx) throws OSException {
+		if (uri != null) {
+			String normalizedUri = HashMapCtxDB.normalizeServerUri(uri);
+			uriMap.put(normalizedUri == null ? NO_HOST : normalizedUri, ctx);
+			ctx.setUri(normalizedUri);
+		}
+		addContext(ctx);
+	}
+
+	@Override
+	public void addContext(String uri, GroupCtx ctx) throws OSException {
+		ctx.addToDb(uri, this);
+	}
+
+	@Override
+	public void addContext(OSCoreCtx ctx) {
+		if (ctx != null) {
+
+			// Don't add Group OSCORE sender contexts as they have no RID
+			if (ctx instanceof GroupSenderCtx) {
+				return;
+			}
+
+			byte[] rid = ctx.getRecipientId();
+			byte[] IDContext = ctx.getIdContext() == null ? Bytes.EMPTY : ctx.getIdContext();
+			ByteId ridKey = new ByteId(rid);
+
+			synchronized (stripeFor(ridKey)) {
+				// Replace a context with the same ID Context, else append it
+				OSCoreCtx[] existing = ridMap.get(ridKey);
+				OSCoreCtx[] updated = existing == null ? NO_CONTEXTS : existing;
+				int index = indexOf(updated, IDContext);
+				if (index < 0) {
+					updated = Arrays.copyOf(updated, updated.length + 1);
+					index = updated.length - 1;
+				} else {
+					updated = updated.clone();
+				}
+				updated[index] = ctx;
+				contextMap.put(compositeKey(rid, IDContext), ctx);
+				ridMap.put(ridKey, updated);
+			}
+
+		} else {
+			LOGGER.error(ErrorDescriptions.CONTEXT_NULL);
+			throw new NullPointerException(ErrorDescriptions.CONTEXT_NULL);
+		}
+	}
+
+	@Override
+	public void removeContext(OSCoreCtx ctx) {
+		if (ctx != null) {
+
+			byte[] rid = ctx.getRecipientId();
+			byte[] IDContext = ctx.getIdContext() == null ? Bytes.EMPTY : ctx.getIdContext();
+			ByteId ridKey = new ByteId(rid);
+
+			synchronized (stripeFor(ridKey)) {
+				OSCoreCtx[] existing = ridMap.get(ridKey);
+
+				// If there is no existing entry for this RID return
+				if (existing == null) {
+					return;
+				}
+				int index = indexOf(existing, IDContext);
+				if (index < 0) {
+					return;
+				}
+				contextMap.remove(compositeKey(rid, IDContext));
+
+				if (existing.length == 1) {
+					// If the RID entry is now empty, remove it
+					ridMap.remove(ridKey);
+				} else {
+					OSCoreCtx[] updated = new OSCoreCtx[existing.length - 1];
+					System.arraycopy(existing, 0, updated, 0, index);
+					System.arraycopy(existing, index + 1, updated, index, updated.length - index);
+					ridMap.put(ridKey, updated);
+				}
+			}
+			ctx.releaseSsnSlot();
+
+		} else {
+			LOGGER.error(ErrorDescriptions.CONTEXT_NULL);
+			throw new NullPointerException(ErrorDescriptions.CONTEXT_NULL);
+		}
+	}
+
+	@Override
+	public Integer getSeqByToken(Token token) {
+		if (token != null) {
+			return seqMap.get(token);
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public void addSeqByToken(Token token, Integer seq) {
+		if (seq == null || seq < 0) {
+			throw new NullPointerException(ErrorDescriptions.SEQ_NBR_INVALID);
+		}
+		if (token == null) {
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+		if (!allTokens.add(token)) {
+			LOGGER.info("Token exists, but this could be a refresh if not there is a problem");
+		}
+		seqMap.put(token, seq);
+	}
+
+	@Override
+	public boolean tokenExist(Token token) {
+		if (token != null) {
+			return allTokens.contains(token);
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public void removeSeqByToken(Token token) {
+		if (token != null) {
+			seqMap.remove(token);
+			if (!tokenMap.containsKey(token)) {
+				allTokens.remove(token);
+			}
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public void updateSeqByToken(Token token, Integer seq) {
+		if (tokenExist(token)) {
+			addSeqByToken(token, seq);
+		}
+	}
+
+	/**
+	 * Removes associations for this token, except for the generator
+	 *
+	 * @param token the token to remove
+	 */
+	@Override
+	public void removeToken(Token token) {
+		tokenMap.remove(token);
+		seqMap.remove(token);
+	}
+
+	/**
+	 * Used mainly for test purpose, to purge the db of all contexts
+	 */
+	@Override
+	public void purge() {
+		ridMap.clear();
+		contextMap.clear();
+		tokenMap.clear();
+		uriMap.clear();
+		seqMap.clear();
+		allTokens.clear();
+	}
+
+	@Override
+	public void printAllContexts() {
+		for (Entry<ByteId, OSCoreCtx[]> entry : ridMap.entrySet()) {
+			String key = entry.getKey().toString();
+			String value = Arrays.toString(entry.getValue());
+			System.out.println(key + " " + value);
+		}
+	}
+
+	/**
+	 * Build the composite key of a RID and an ID Context. The RID length is
+	 * prepended so that different splits of the same bytes do not collide.
+	 *
+	 * @param rid the recipient ID
+	 * @param IDContext the ID Context (empty if absent)
+	 * @return the composite key
+	 */
+	private static ByteId compositeKey(byte[] rid, byte[] IDContext) {
+		byte[] key = new byte[2 + rid.length + IDContext.length];
+		key[0] = (byte) (rid.length >>> 8);
+		key[1] = (byte) rid.length;
+		System.arraycopy(rid, 0, key, 2, rid.length);
+		System.arraycopy(IDContext, 0, key, 2 + rid.length, IDContext.length);
+		return new ByteId(key);
+	}
+
+	/**
+	 * Normalize an URI into the key of the URI map.
+	 *
+	 * @param uri the uri
+	 * @return the key
+	 * @throws OSException on failure to parse the URI
+	 */
+	private static String uriKey(String uri) throws OSException {
+		String normalizedUri = HashMapCtxDB.normalizeServerUri(uri);
+		return normalizedUri == null ? NO_HOST : normalizedUri;
+	}
+
+	/**
+	 * Select the lock stripe guarding the contexts of a RID.
+	 *
+	 * @param rid the recipient ID
+	 * @return the lock object
+	 */
+	private Object stripeFor(ByteId rid) {
+		return stripes[rid.hashCode() & (STRIPES - 1)];
+	}
+
+	/**
+	 * Find the position of the context with a certain ID Context.
+	 *
+	 * @param contexts the contexts sharing one RID
+	 * @param IDContext the ID Context (empty if absent)
+	 * @return the index of the context or -1 if not found
+	 */
+	private static int indexOf(OSCoreCtx[] contexts, byte[] IDContext) {
+		for (int i = 0; i < contexts.length; i++) {
+			byte[] other = contexts[i].getIdContext() == null ? Bytes.EMPTY : contexts[i].getIdContext();
+			if (Arrays.equals(other, IDContext)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
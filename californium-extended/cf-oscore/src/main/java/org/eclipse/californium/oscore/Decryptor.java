@@ -33,6 +33,7 @@ import org.eclipse.californium.cose.Encrypt0Message;
 
 import com.upokecenter.cbor.CBORObject;
 
+import org.eclipse.californium.cose.AeadKey;
 import org.eclipse.californium.cose.AlgorithmID;
 import org.eclipse.californium.cose.Attribute;
 import org.eclipse.californium.cose.CoseException;
@@ -104,6 +105,11 @@ public abstract class Decryptor {
 					assert ctx instanceof GroupRecipientCtx;
 				}
 
+				if (seq >= 0 && OSCoreFastPath.isApplicable(ctx)) {
+					return OSCoreFastPath.decrypt(ctx, seq, ctx.getRecipientId(), seq, ctx.getRecipientId(),
+							getEncryptedContent(enc));
+				}
+
 				nonce = OSSerializer.nonceGeneration(partialIV, ctx.getRecipientId(), ctx.getCommonIV(),
 						ctx.getIVLength());
 				aad = OSSerializer.serializeAAD(CoAP.VERSION, ctx.getAlg(), seq, ctx.getRecipientId(), message.getOptions());
@@ -117,6 +123,17 @@ public abstract class Decryptor {
 			//Sequence number taken from original request
 			seq = seqByToken;
 
+			if (seq >= 0 && OSCoreFastPath.isApplicable(ctx)) {
+				byte[] cipherText = getEncryptedContent(enc);
+				if (piv == null) {
+					return OSCoreFastPath.decrypt(ctx, seq, ctx.getSenderId(), seq, ctx.getSenderId(), cipherText);
+				} else {
+					int responseSeq = ByteBuffer.wrap(expandToIntSize(piv.GetByteString())).getInt();
+					return OSCoreFastPath.decrypt(ctx, responseSeq, ctx.getRecipientId(), seq, ctx.getSenderId(),
+							cipherText);
+				}
+			}
+
 			if (piv == null) {
 				//Use the partialIV that arrived in the original request (response has no partial IV)
 
@@ -137,14 +154,14 @@ public abstract class Decryptor {
 			aad = OSSerializer.serializeAAD(CoAP.VERSION, ctx.getAlg(), seq, ctx.getSenderId(), message.getOptions());
 		}
 
-		System.out.println("Decrypting incoming " + message.getClass().getSimpleName());
+		LOGGER.trace("Decrypting incoming {}", message.getClass().getSimpleName());
 		// System.out.println("Key " + Utils.toHexString(ctx.getRecipientKey()));
 		// System.out.println("PartialIV " + Utils.toHexString(partialIV));
 		// System.out.println("Nonce " + Utils.toHexString(nonce));
 		// System.out.println("AAD " + Utils.toHexString(aad));
 
 		byte[] plaintext = null;
-		byte[] key = ctx.getRecipientKey();
+		AeadKey key = ctx.getRecipientAeadKey();
 
 		// Handle Group OSCORE messages
 		CounterSign1 sign = null;
@@ -156,8 +173,6 @@ public abstract class Decryptor {
 			// Update external AAD value for Group OSCORE
 			aad = OSSerializer.updateAADForGroup(ctx, aad, message);
 
-			System.out.println("Decrypting incoming " + message.getClass().getSimpleName() + ", using pairwise mode: "
-					+ !groupModeMessage);
 			// System.out.println("Decrypting incoming " + message.getClass().getSimpleName() + " with AAD "
 			// 		+ Utils.toHexString(aad));
 
@@ -180,7 +195,7 @@ public abstract class Decryptor {
 				sign = prepareCheckSignature(enc, ctx, aad, message);
 			} else {
 				// If this is a pairwise response use the pairwise key
-				key = ((GroupRecipientCtx) ctx).getPairwiseRecipientKey();
+				key = ((GroupRecipientCtx) ctx).getPairwiseRecipientAeadKey();
 			}
 		}
 
@@ -207,6 +222,20 @@ public abstract class Decryptor {
 		return plaintext;
 	}
 
+	/**
+	 * @param enc the COSE structure
+	 * @return the encrypted content
+	 * @throws OSException if no encrypted content is available
+	 */
+	private static byte[] getEncryptedContent(Encrypt0Message enc) throws OSException {
+		try {
+			return enc.getEncryptedContent();
+		} catch (CoseException e) {
+			LOGGER.error(ErrorDescriptions.DECRYPTION_FAILED + " " + e.getMessage());
+			throw new OSException(ErrorDescriptions.DECRYPTION_FAILED + " " + e.getMessage());
+		}
+	}
+
 	/**
 	 * @param partialIV partial IV to expand
 	 * @return partial IV as byte array length of int
@@ -383,7 +412,7 @@ public abstract class Decryptor {
 			throw new OSException(ErrorDescriptions.COUNTERSIGNATURE_CHECK_FAILED);
 		}
 
-		System.out.println("Countersignature verified as valid");
+		LOGGER.trace("Countersignature verified as valid");
 
 		return countersignatureValid;
 	}
@@ -419,8 +448,10 @@ public abstract class Decryptor {
 
 			sign.setExternal(signAad);
 
-			System.out.println("Checking signature for incoming " + message.getClass().getSimpleName()
-					+ " with sign AAD " + Utils.toHexString(signAad));
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("Checking signature for incoming {} with sign AAD {}",
+						message.getClass().getSimpleName(), Utils.toHexString(signAad));
+			}
 		} catch (Exception e) {
 			LOGGER.error("Countersignature verification procedure failed.");
 			e.printStackTrace();
@@ -456,7 +487,7 @@ public abstract class Decryptor {
 			keystream = OSCoreCtx.deriveKey(groupEncryptionKey, partialIV, keyLength, digest, info.EncodeToBytes());
 
 		} catch (CoseException e) {
-			System.err.println(e.getMessage());
+			LOGGER.error("Failed to derive the signature keystream: {}", e.getMessage());
 		}
 
 		// System.out.println("===");
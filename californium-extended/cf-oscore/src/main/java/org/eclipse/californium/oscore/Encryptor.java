@@ -27,6 +27,7 @@ import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.Message;
 import org.eclipse.californium.core.coap.OptionSet;
 import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.cose.AeadKey;
 import org.eclipse.californium.cose.AlgorithmID;
 import org.eclipse.californium.cose.Attribute;
 import org.eclipse.californium.cose.CoseException;
@@ -80,7 +81,7 @@ public abstract class Encryptor {
 		AlgorithmID encryptionAlg = ctx.getAlg();
 
 		try {
-			byte[] key = ctx.getSenderKey();
+			AeadKey key = ctx.getSenderAeadKey();
 			byte[] partialIV = null;
 			byte[] nonce = null;
 			byte[] aad = null;
@@ -128,7 +129,7 @@ public abstract class Encryptor {
 
 			}
 
-			System.out.println("Encrypting outgoing " + message.getClass().getSimpleName());
+			LOGGER.trace("Encrypting outgoing {}", message.getClass().getSimpleName());
 			// System.out.println("Key " + Utils.toHexString(ctx.getSenderKey()));
 			// System.out.println("PartialIV " + Utils.toHexString(partialIV));
 			// System.out.println("Nonce " + Utils.toHexString(nonce));
@@ -144,8 +145,6 @@ public abstract class Encryptor {
 
 				LOGGER.debug("Encrypting outgoing " + message.getClass().getSimpleName()
 						+ " using Group OSCORE. Pairwise mode: " + !groupModeMessage);
-				System.out.println("Encrypting outgoing " + message.getClass().getSimpleName()
-						+ " using Group OSCORE. Pairwise mode: " + !groupModeMessage);
 
 				// Update external AAD value for Group OSCORE
 				aad = OSSerializer.updateAADForGroup(ctx, aad, message);
@@ -158,11 +157,12 @@ public abstract class Encryptor {
 
 				// If this is a pairwise response/request use the pairwise key
 				if (pairwiseResponse) {
-					key = ((GroupSenderCtx) ctx).getPairwiseSenderKey(OptionJuggle.getRid(correspondingReqOption));
+					key = ((GroupSenderCtx) ctx)
+							.getPairwiseSenderAeadKey(OptionJuggle.getRid(correspondingReqOption));
 				} else if (pairwiseRequest) {
 					// Get RID of intended recipient encoded in option
 					byte[] recipientRID = OptionEncoder.getRID(message.getOptions().getOscore());
-					key = ((GroupSenderCtx) ctx).getPairwiseSenderKey(recipientRID);
+					key = ((GroupSenderCtx) ctx).getPairwiseSenderAeadKey(recipientRID);
 				} else {
 					// If group mode is used prepare adding the signature
 					encryptionAlg = ((GroupSenderCtx) ctx).getAlgSignEnc();
@@ -378,8 +378,10 @@ public abstract class Encryptor {
 		byte[] signAad = aad;
 		sign.setExternal(signAad); // Set external AAD for signing
 
-		System.out.println("Signing outgoing " + message.getClass().getSimpleName() + " with sign AAD "
-				+ Utils.toHexString(signAad));
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Signing outgoing {} with sign AAD {}", message.getClass().getSimpleName(),
+					Utils.toHexString(signAad));
+		}
 
 	}
 
@@ -437,7 +439,7 @@ public abstract class Encryptor {
 			keystream = OSCoreCtx.deriveKey(groupEncryptionKey, partialIV, keyLength, digest, info.EncodeToBytes());
 
 		} catch (CoseException e) {
-			System.err.println(e.getMessage());
+			LOGGER.error("Failed to derive the signature keystream: {}", e.getMessage());
 		}
 
 		// System.out.println("===");
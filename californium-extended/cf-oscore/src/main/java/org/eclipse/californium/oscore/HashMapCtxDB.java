@@ -250,6 +250,7 @@ public class HashMapCtxDB implements OSCoreCtxDB {
 				// Put the updated map for this RID in the context map
 				contextMap.put(rid, ridMap);
 			}
+			ctx.releaseSsnSlot();
 
 		} else {
 			LOGGER.error(ErrorDescriptions.CONTEXT_NULL);
@@ -319,7 +320,7 @@ public class HashMapCtxDB implements OSCoreCtxDB {
 	 *
 	 * @throws OSException on failure to parse the URI
 	 */
-	private static String normalizeServerUri(String uri) throws OSException {
+	static String normalizeServerUri(String uri) throws OSException {
 		String normalized = null;
 
 		try {
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.config.Configuration.ModuleDefinitionsProvider;
+import org.eclipse.californium.elements.config.IntegerDefinition;
+import org.eclipse.californium.elements.config.StringDefinition;
+import org.eclipse.californium.elements.config.SystemConfig;
+import org.eclipse.californium.elements.config.TimeDefinition;
+import org.eclipse.californium.elements.config.ValueException;
+
+/**
+ * Configuration definitions for OSCORE.
+ */
+public final class OSCoreConfig {
+
+	public static final String MODULE = "OSCORE.";
+
+	/**
+	 * The default size of the recipient replay window.
+	 * <p>
+	 * The default value is 32, as recommended by RFC 8613, Section 7.4.
+	 */
+	public static final int DEFAULT_REPLAY_WINDOW_SIZE = 32;
+
+	/**
+	 * The largest supported size of the recipient replay window.
+	 */
+	public static final int MAX_REPLAY_WINDOW_SIZE = 4096;
+
+	/**
+	 * Size of the recipient replay window, used for contexts created without
+	 * an explicit replay window size. Larger windows accept more reordered
+	 * messages, e.g. Group OSCORE multicast bursts or pipelined requests.
+	 * Values above {@link #MAX_REPLAY_WINDOW_SIZE} are rejected, when the
+	 * configuration is loaded or set.
+	 */
+	public static final IntegerDefinition REPLAY_WINDOW_SIZE = new IntegerDefinition(MODULE + "REPLAY_WINDOW_SIZE",
+			"Size of the OSCORE recipient replay window. Maximum " + MAX_REPLAY_WINDOW_SIZE + ".",
+			DEFAULT_REPLAY_WINDOW_SIZE, 1) {
+
+		@Override
+		public Integer checkValue(Integer value) throws ValueException {
+			if (value != null && value > MAX_REPLAY_WINDOW_SIZE) {
+				throw new ValueException("Value " + value + " must be not more than " + MAX_REPLAY_WINDOW_SIZE + "!");
+			}
+			return super.checkValue(value);
+		}
+	};
+
+	/**
+	 * Parameter K of Appendix B.1. The Sender Sequence Number is saved to the
+	 * {@link SsnJournal} every K messages.
+	 */
+	public static final IntegerDefinition SSN_SAVE_INTERVAL = new IntegerDefinition(MODULE + "SSN_SAVE_INTERVAL",
+			"Number of sent messages between saving the Sender Sequence Number (Appendix B.1, K).", 12, 1);
+
+	/**
+	 * Parameter F of Appendix B.1. Margin added on resumption for messages
+	 * sent before the last save reached the storage.
+	 */
+	public static final IntegerDefinition SSN_RESUME_MARGIN = new IntegerDefinition(MODULE + "SSN_RESUME_MARGIN",
+			"Margin added to the saved Sender Sequence Number on resumption (Appendix B.1, F).", 3, 0);
+
+	/**
+	 * File of the Sender Sequence Number journal. If not set, the file name is
+	 * derived from the class path, see {@link SsnJournal#getDefaultFile()}.
+	 */
+	public static final StringDefinition SSN_JOURNAL_FILE = new StringDefinition(MODULE + "SSN_JOURNAL_FILE",
+			"File of the Sender Sequence Number journal (Appendix B.1). Derived from the class path, if not set.");
+
+	/**
+	 * Number of contexts the Sender Sequence Number journal holds.
+	 */
+	public static final IntegerDefinition SSN_JOURNAL_SLOTS = new IntegerDefinition(MODULE + "SSN_JOURNAL_SLOTS",
+			"Number of contexts in the Sender Sequence Number journal.", 4096, 1);
+
+	/**
+	 * Interval to force changes of the Sender Sequence Number journal to the
+	 * storage.
+	 */
+	public static final TimeDefinition SSN_JOURNAL_FLUSH_INTERVAL = new TimeDefinition(
+			MODULE + "SSN_JOURNAL_FLUSH_INTERVAL", "Interval to flush the Sender Sequence Number journal.", 100,
+			TimeUnit.MILLISECONDS);
+
+	/**
+	 * Number of threads unprotecting Group OSCORE responses to multicast
+	 * requests, see
+	 * {@link org.eclipse.californium.oscore.group.SignatureVerifier}.
+	 */
+	public static final IntegerDefinition SIGNATURE_VERIFIER_THREADS = new IntegerDefinition(
+			MODULE + "SIGNATURE_VERIFIER_THREADS",
+			"Number of threads unprotecting Group OSCORE responses to multicast requests.", 2, 1);
+
+	/**
+	 * Number of pending Group OSCORE responses per verifying thread. If
+	 * exceeded, the thread processing the response waits.
+	 */
+	public static final IntegerDefinition SIGNATURE_VERIFIER_QUEUE_SIZE = new IntegerDefinition(
+			MODULE + "SIGNATURE_VERIFIER_QUEUE_SIZE", "Number of pending Group OSCORE responses per verifying thread.",
+			256, 1);
+
+	public static final ModuleDefinitionsProvider DEFINITIONS = new ModuleDefinitionsProvider() {
+
+		@Override
+		public String getModule() {
+			return MODULE;
+		}
+
+		@Override
+		public void applyDefinitions(Configuration config) {
+			config.set(REPLAY_WINDOW_SIZE, DEFAULT_REPLAY_WINDOW_SIZE);
+			config.set(SSN_SAVE_INTERVAL, 12);
+			config.set(SSN_RESUME_MARGIN, 3);
+			config.set(SSN_JOURNAL_SLOTS, 4096);
+			config.set(SSN_JOURNAL_FLUSH_INTERVAL, 100, TimeUnit.MILLISECONDS);
+			config.set(SIGNATURE_VERIFIER_THREADS, Runtime.getRuntime().availableProcessors());
+			config.set(SIGNATURE_VERIFIER_QUEUE_SIZE, 256);
+		}
+	};
+
+	static {
+		Configuration.addDefaultModule(DEFINITIONS);
+	}
+
+	private OSCoreConfig() {
+	}
+
+	/**
+	 * Register definitions of this module to the default definitions. Register
+	 * the required definitions of {@link CoapConfig} and {@link SystemConfig}
+	 * as well.
+	 */
+	public static void register() {
+		CoapConfig.register();
+	}
+}
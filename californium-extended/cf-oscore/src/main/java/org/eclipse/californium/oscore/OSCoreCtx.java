@@ -19,13 +19,7 @@
  ******************************************************************************/
 package org.eclipse.californium.oscore;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -36,6 +30,7 @@ import javax.crypto.spec.SecretKeySpec;
 
 import org.eclipse.californium.core.coap.CoAP.Code;
 import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.cose.AeadKey;
 import org.eclipse.californium.cose.AlgorithmID;
 import org.eclipse.californium.cose.CoseException;
 import org.eclipse.californium.cose.EncryptCommon;
@@ -78,10 +73,20 @@ public class OSCoreCtx {
 
 	protected byte[] recipient_id;
 	protected byte[] recipient_key;
+
+	// Cached cipher state of the sender and recipient keys
+	private volatile AeadKey senderAeadKey;
+	private volatile AeadKey recipientAeadKey;
 	protected int recipient_seq;
 	protected int internal_recipient_seq;
 	protected int recipient_replay_window_size;
-	protected int recipient_replay_window;
+	/**
+	 * Ring bitmap of the received sequence numbers within the replay window.
+	 * The bit of a sequence number is at position {@code seq & replay_mask}.
+	 * Only bits of sequence numbers within the window are set.
+	 */
+	protected long[] recipient_replay_window;
+	private int replay_mask;
 
 	private AlgorithmID kdf;
 
@@ -198,8 +203,8 @@ public class OSCoreCtx {
 	 * @since 3.0
 	 */
 	public OSCoreCtx(byte[] master_secret, boolean client, Configuration configuration) throws OSException {
-		this(master_secret, client, null, null, null, null, null, null, null,
-				configuration.get(CoapConfig.MAX_RESOURCE_BODY_SIZE));
+		this(master_secret, client, null, null, null, null, configuration.get(OSCoreConfig.REPLAY_WINDOW_SIZE), null,
+				null, configuration.get(CoapConfig.MAX_RESOURCE_BODY_SIZE));
 	}
 
 	/**
@@ -236,13 +241,19 @@ public class OSCoreCtx {
 	 * @param recipient_id the recipient id or null for default
 	 * @param kdf the COSE algorithm abbreviation of the kdf or null for the
 	 *            default
-	 * @param replay_size the replay window size or null for the default
+	 * @param replay_size the replay window size or null for the default. At
+	 *            most {@link OSCoreConfig#MAX_REPLAY_WINDOW_SIZE}.
 	 * @param master_salt the optional master salt, can be null
 	 * @param contextId the context id, can be null
 	 * @param maxUnfragmentedSize maximum unfragmented size
-	 * @param appB1Enabled usage of Appendix B.1
+	 * @param appB1Enabled usage of Appendix B.1. Uses the journal of
+	 *            {@link SsnJournal#getDefault()}, which is opened with the
+	 *            {@link Configuration#getStandard()}, if not already done.
 	 *
-	 * @throws OSException if the KDF is not supported
+	 * @throws OSException if the KDF is not supported, or if Appendix B.1 is
+	 *             used and the journal has no slot for this context
+	 * @throws IllegalArgumentException if the replay window size is out of
+	 *             range
 	 * @since 3.0 (added parameter maxUnfragmentedSize)
 	 */
 	public OSCoreCtx(byte[] master_secret, boolean client, AlgorithmID alg, byte[] sender_id, byte[] recipient_id,
@@ -286,11 +297,19 @@ public class OSCoreCtx {
 		}
 
 		if (replay_size == null) {
-			this.recipient_replay_window_size = 32;
+			this.recipient_replay_window_size = OSCoreConfig.DEFAULT_REPLAY_WINDOW_SIZE;
+		} else if (replay_size < 0 || replay_size > OSCoreConfig.MAX_REPLAY_WINDOW_SIZE) {
+			LOGGER.error("Replay window size {} out of range", replay_size);
+			throw new IllegalArgumentException("Replay window size " + replay_size + " out of range [0, "
+					+ OSCoreConfig.MAX_REPLAY_WINDOW_SIZE + "]");
 		} else {
 			this.recipient_replay_window_size = replay_size.intValue();
 		}
-		this.recipient_replay_window = 0;
+		// Power of two number of words, so that the ring index is a mask
+		int words = Math.max(1, (recipient_replay_window_size + Long.SIZE - 1) / Long.SIZE);
+		words = Integer.highestOneBit(words * 2 - 1);
+		this.recipient_replay_window = new long[words];
+		this.replay_mask = words * Long.SIZE - 1;
 
 		if (master_salt == null) {
 			// Default value. Automatically initialized with 0-es.
@@ -394,12 +413,36 @@ public class OSCoreCtx {
 		initializeCipher(common_alg);
 
 		// Attempt to restore SSN from previous execution (Appendix B.1)
-		this.useAppB1 = appB1Enabled;
+		SsnJournal journal = null;
+		int slot = -1;
+		if (appB1Enabled) {
+			journal = SsnJournal.getDefault();
+			if (journal == null) {
+				try {
+					journal = SsnJournal.openDefault(Configuration.getStandard());
+				} catch (IOException e) {
+					LOGGER.error("Failed to open SSN journal: {}", e.getMessage());
+				}
+			}
+			if (journal != null) {
+				slot = journal.register(this.sender_id, this.recipient_id, this.context_id);
+			}
+			if (slot < 0) {
+				// without a journal, a restart would reuse sequence numbers
+				LOGGER.error("No SSN journal slot available for Appendix B.1, SID {} RID {}", senderIdString,
+						recipientIdString);
+				throw new OSException("No SSN journal slot available for Appendix B.1");
+			}
+		}
+		this.ssnJournal = journal;
+		this.ssnSlot = slot;
+		this.useAppB1 = journal != null;
 		if (useAppB1) {
-			int resumeSsn = readSsn();
+			int resumeSsn = journal.resume(slot);
 			if (resumeSsn != -1) {
 				this.sender_seq = resumeSsn;
-				writeSsn();
+				journal.save(slot, sender_seq);
+				journal.flush();
 				System.out.println("Resuming from SSN: " + resumeSsn);
 			}
 		}
@@ -440,6 +483,36 @@ public class OSCoreCtx {
 		return recipient_key;
 	}
 
+	/**
+	 * Get the sender key together with its cached cipher state. The cached
+	 * state is rebuilt if the sender key has been replaced.
+	 * 
+	 * @return the sender key with cipher state
+	 */
+	public AeadKey getSenderAeadKey() {
+		AeadKey key = senderAeadKey;
+		if (key == null || !key.isFor(sender_key)) {
+			key = new AeadKey(sender_key);
+			senderAeadKey = key;
+		}
+		return key;
+	}
+
+	/**
+	 * Get the recipient key together with its cached cipher state. The cached
+	 * state is rebuilt if the recipient key has been replaced.
+	 * 
+	 * @return the recipient key with cipher state
+	 */
+	public AeadKey getRecipientAeadKey() {
+		AeadKey key = recipientAeadKey;
+		if (key == null || !key.isFor(recipient_key)) {
+			key = new AeadKey(recipient_key);
+			recipientAeadKey = key;
+		}
+		return key;
+	}
+
 	/**
 	 * @return the encryption algorithm
 	 */
@@ -511,10 +584,21 @@ public class OSCoreCtx {
 	}
 
 	/**
+	 * Get the state of the first 32 sequence numbers of the replay window.
+	 * Bit {@code n} is set, if the sequence number
+	 * {@link #getInternalReceiverSeq()} {@code + n} has been received.
+	 * 
 	 * @return recipient replay window
 	 */
-	public int getRecipientReplayWindow() {
-		return recipient_replay_window;
+	public synchronized int getRecipientReplayWindow() {
+		int window = 0;
+		int length = Math.min(Integer.SIZE, recipient_replay_window_size);
+		for (int i = 0; i < length; i++) {
+			if (isReceived(internal_recipient_seq + i)) {
+				window |= 1 << i;
+			}
+		}
+		return window;
 	}
 
 	public byte[] getMasterSecret() {
@@ -729,6 +813,7 @@ public class OSCoreCtx {
 	 */
 	public void setSenderKey(byte[] senderKey) {
 		this.sender_key = senderKey.clone();
+		this.senderAeadKey = null;
 	}
 	
 	/**
@@ -738,6 +823,7 @@ public class OSCoreCtx {
 	 */
 	public void setRecipientKey(byte[] recipientKey) {
 		this.recipient_key = recipientKey.clone();
+		this.recipientAeadKey = null;
 	}
 	
 	/**
@@ -840,8 +926,12 @@ public class OSCoreCtx {
 			throw new OSException("Sequence number wrapped");
 		}
 
-		if (useAppB1 && sender_seq % K == 0) {
-			writeSsn();
+		if (useAppB1 && sender_seq % ssnJournal.getSaveInterval() == 0) {
+			if (ssnReleased) {
+				LOGGER.error("SSN journal slot released, the context has been removed");
+				throw new OSException("SSN journal slot released");
+			}
+			ssnJournal.save(ssnSlot, sender_seq);
 		}
 
 		sender_seq++;
@@ -868,28 +958,59 @@ public class OSCoreCtx {
 			throw new OSException(ErrorDescriptions.REPLAY_DETECT);
 		}
 
-		if (seq < internal_recipient_seq) {
+		int offset = seq - internal_recipient_seq;
+		if (offset < 0) {
 			LOGGER.error("Message too old");
 			throw new OSException(ErrorDescriptions.REPLAY_DETECT);
 		}
 
-		boolean valid = ((recipient_replay_window >> (seq - internal_recipient_seq)) & 1) == 0;
-		if (seq >= internal_recipient_seq + recipient_replay_window_size) {
-			valid = true;
-		}
-		if (!valid) {
+		if (offset < recipient_replay_window_size && isReceived(seq)) {
 			LOGGER.error("Replayed message detected");
 			throw new OSException(ErrorDescriptions.REPLAY_DETECT);
 		}
 
 		recipient_seq = seq;
 		// Update window
-		int shift = seq - (internal_recipient_seq + recipient_replay_window_size - 1);
+		int shift = offset - (recipient_replay_window_size - 1);
 		if (shift > 0) {
-			recipient_replay_window >>= shift;
+			clearReceived(internal_recipient_seq, shift);
 			internal_recipient_seq += shift;
 		}
-		recipient_replay_window |= 1 << (seq - internal_recipient_seq);
+		int index = seq & replay_mask;
+		recipient_replay_window[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Check, if a sequence number within the replay window has been received.
+	 * 
+	 * @param seq the sequence number
+	 * @return {@code true}, if the sequence number has been received
+	 */
+	private boolean isReceived(int seq) {
+		int index = seq & replay_mask;
+		return (recipient_replay_window[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Clear the bits of sequence numbers leaving the replay window.
+	 * 
+	 * @param seq the first sequence number leaving the window
+	 * @param count the number of sequence numbers leaving the window
+	 */
+	private void clearReceived(int seq, int count) {
+		if (count >= recipient_replay_window_size) {
+			Arrays.fill(recipient_replay_window, 0L);
+			return;
+		}
+		while (count > 0) {
+			int index = seq & replay_mask;
+			int bit = index & (Long.SIZE - 1);
+			int bits = Math.min(count, Long.SIZE - bit);
+			long mask = bits == Long.SIZE ? -1L : ((1L << bits) - 1) << bit;
+			recipient_replay_window[index >>> 6] &= ~mask;
+			seq += bits;
+			count -= bits;
+		}
 	}
 
 	public static byte[] deriveKey(byte[] secret, byte[] salt, int cbitKey, String digest, byte[] rgbContext)
@@ -1021,30 +1142,6 @@ public class OSCoreCtx {
 		return null;
 	}
 
-	/**
-	 * Save SSN for resumption (Appendix B.1)
-	 */
-	private void writeSsn() {
-
-		String fileName = getSsnFilePath();
-
-		// Create file and folder if it does not exist
-		File targetFile = new File(fileName);
-		File parent = targetFile.getParentFile();
-		parent.mkdirs();
-
-		// Write file content
-		if (fileName != null) {
-			try (PrintWriter writer = new PrintWriter(fileName, "UTF-8")) {
-				writer.println(String.valueOf(sender_seq));
-				writer.close();
-			} catch (FileNotFoundException | UnsupportedEncodingException e) {
-				// Failed to write SSN for resumption
-			}
-		}
-
-	}
-
 	/**
 	 * Control the usage of Appendix B.1
 	 * 
@@ -1052,67 +1149,29 @@ public class OSCoreCtx {
 	private final boolean useAppB1;
 
 	/**
-	 * Get filename to use for writing/reading SSN for resumption (Appendix B.1)
-	 * 
-	 * @return the path to the SSN file
+	 * Journal to save the SSN for resumption (Appendix B.1)
 	 */
-	private String getSsnFilePath() {
-
-		// Build unique filename to use
-		String jarFile = System.getProperty("java.class.path");
-		if (jarFile.length() > 4) {
-			jarFile = jarFile.substring(0, jarFile.length() - 4);
-		}
-
-		String recipientId = toHex(recipient_id);
-		String senderId = toHex(sender_id);
-		String contextId = toHex(context_id);
-
-		String fileName;
-		if (jarFile.contains(":")) {
-			fileName = "." + senderId + "-" + recipientId + "-" + contextId;
-		} else {
-			fileName = "." + jarFile + "-" + senderId + "-" + recipientId + "-" + contextId;
-		}
-
-		return ".resume/" + fileName;
-	}
+	private final SsnJournal ssnJournal;
 
 	/**
-	 * Parameter K for Appendix B.1
+	 * Slot of this context in the {@link #ssnJournal}
 	 */
-	private static int K = 12;
+	private final int ssnSlot;
 
 	/**
-	 * Parameter F for Appendix B.1
+	 * Whether the {@link #ssnSlot} has been released
 	 */
-	private static int F = 3;
+	private boolean ssnReleased;
 
 	/**
-	 * Read SSN for resumption (Appendix B.1)
-	 * 
-	 * @return the SSN to resume from
+	 * Release the slot of this context in the SSN journal (Appendix B.1),
+	 * when the context is removed. The context can't send messages
+	 * afterwards.
 	 */
-	private int readSsn() {
-
-		String filePath = getSsnFilePath();
-
-		// Attempt to read SSN from file
-		int resumeSsn = -1;
-
-		if (filePath == null) {
-			return resumeSsn;
-		}
-
-		try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-			String line = reader.readLine();
-			reader.close();
-			resumeSsn = Integer.parseInt(line);
-		} catch (IOException e) {
-			// Failed to read or parse from file
-			return resumeSsn;
+	synchronized void releaseSsnSlot() {
+		if (useAppB1 && !ssnReleased) {
+			ssnReleased = true;
+			ssnJournal.release(ssnSlot);
 		}
-
-		return resumeSsn + K + F;
 	}
 }
@@ -0,0 +1,561 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.eclipse.californium.core.coap.Message;
+import org.eclipse.californium.core.coap.OptionSet;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.cose.AeadKey;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.elements.util.Bytes;
+import org.eclipse.californium.scandium.dtls.cipher.CCMBlockCipher;
+import org.eclipse.californium.scandium.dtls.cipher.ThreadLocalCipher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Specialized OSCORE protect/unprotect path for non-group contexts using
+ * AES-CCM or AES-GCM.
+ *
+ * Instead of populating an {@link org.eclipse.californium.cose.Encrypt0Message}
+ * with CBOR attributes and serializing the Enc_structure via CBOR objects and
+ * byte streams, the nonce, the complete AAD (Enc_structure with the OSCORE
+ * external_aad) and the compressed OSCORE option are written directly into
+ * per-thread buffers. The produced ciphertext and option are byte-identical
+ * to the generic path in {@link Encryptor} and {@link Decryptor}.
+ *
+ * Group OSCORE contexts are always processed by the generic path.
+ *
+ */
+public final class OSCoreFastPath {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(OSCoreFastPath.class);
+
+	/**
+	 * CBOR encoding of the text string "Encrypt0", the context of the
+	 * Enc_structure.
+	 */
+	private static final byte[] ENCRYPT0_CONTEXT = { 0x68, 'E', 'n', 'c', 'r', 'y', 'p', 't', '0' };
+
+	/**
+	 * Largest AAD kept in the per-thread buffers. Larger AADs (very long IDs)
+	 * use a fresh array.
+	 */
+	private static final int MAX_CACHED_AAD_LENGTH = 64;
+
+	/**
+	 * Largest nonce length of the supported algorithms.
+	 */
+	private static final int MAX_NONCE_LENGTH = 16;
+
+	/**
+	 * Largest OSCORE option value assembled in the per-thread buffer.
+	 */
+	private static final int MAX_OPTION_LENGTH = 256;
+
+	/**
+	 * Per thread AES-GCM cipher.
+	 */
+	private static final ThreadLocalCipher AES_GCM_CIPHER = new ThreadLocalCipher("AES/GCM/NoPadding");
+
+	/**
+	 * Per thread scratch buffers.
+	 */
+	private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<Buffers>() {
+
+		@Override
+		protected Buffers initialValue() {
+			return new Buffers();
+		}
+	};
+
+	/**
+	 * Enables the fast path. May be disabled to compare with the generic path.
+	 */
+	private static volatile boolean enabled = true;
+
+	private OSCoreFastPath() {
+	}
+
+	/**
+	 * Enable or disable the fast path.
+	 *
+	 * @param enable {@code true} to use the fast path for supported contexts,
+	 *            {@code false} to always use the generic path
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * @return {@code true}, if the fast path is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Check, if a context is processed by the fast path.
+	 *
+	 * @param ctx the OSCORE context
+	 * @return {@code true}, if the fast path is enabled and supports the
+	 *         algorithm and parameters of the context
+	 */
+	public static boolean isApplicable(OSCoreCtx ctx) {
+		if (!enabled || ctx.isGroupContext()) {
+			return false;
+		}
+		if (!isCcm(ctx.getAlg()) && !isGcm(ctx.getAlg())) {
+			return false;
+		}
+		int nonceLength = ctx.getIVLength();
+		// the generic nonce generation doesn't support these cases either
+		return nonceLength <= MAX_NONCE_LENGTH && ctx.getCommonIV().length == nonceLength
+				&& ctx.getSenderId().length <= nonceLength - 6 && ctx.getRecipientId().length <= nonceLength - 6;
+	}
+
+	/**
+	 * Encrypt a request and set the OSCORE option and the ciphertext as
+	 * payload.
+	 *
+	 * @param ctx the OSCORE context
+	 * @param request the request
+	 * @param confidential the serialized plaintext
+	 * @throws OSException if encryption fails
+	 */
+	static void protectRequest(OSCoreCtx ctx, Request request, byte[] confidential) throws OSException {
+		int seq = ctx.getSenderSeq();
+		byte[] cipherText = encrypt(ctx, seq, ctx.getSenderId(), seq, ctx.getSenderId(), confidential);
+		setOption(request, encodeRequestOption(ctx));
+		request.setPayload(cipherText);
+	}
+
+	/**
+	 * Encrypt a response and set the OSCORE option and the ciphertext as
+	 * payload.
+	 *
+	 * @param ctx the OSCORE context
+	 * @param response the response
+	 * @param confidential the serialized plaintext
+	 * @param newPartialIV if the response contains its own partial IV
+	 * @throws OSException if encryption fails
+	 */
+	static void protectResponse(OSCoreCtx ctx, Message response, byte[] confidential, boolean newPartialIV)
+			throws OSException {
+		int requestSeq = ctx.getReceiverSeq();
+		byte[] recipientId = ctx.getRecipientId();
+		byte[] cipherText;
+		if (newPartialIV) {
+			cipherText = encrypt(ctx, ctx.getSenderSeq(), ctx.getSenderId(), requestSeq, recipientId, confidential);
+		} else {
+			cipherText = encrypt(ctx, requestSeq, recipientId, requestSeq, recipientId, confidential);
+		}
+		setOption(response, encodeResponseOption(ctx, newPartialIV));
+		response.setPayload(cipherText);
+	}
+
+	/**
+	 * Encrypt a plaintext.
+	 *
+	 * @param ctx the OSCORE context
+	 * @param nonceSeq the partial IV used for the nonce
+	 * @param nonceId the sender ID used for the nonce
+	 * @param aadSeq the partial IV of the request used for the AAD
+	 * @param aadId the sender ID of the request used for the AAD
+	 * @param plaintext the plaintext
+	 * @return the ciphertext including the tag
+	 * @throws OSException if encryption fails
+	 */
+	static byte[] encrypt(OSCoreCtx ctx, int nonceSeq, byte[] nonceId, int aadSeq, byte[] aadId, byte[] plaintext)
+			throws OSException {
+		AlgorithmID alg = ctx.getAlg();
+		AeadKey key = ctx.getSenderAeadKey();
+		checkKey(alg, key);
+		Buffers buffers = BUFFERS.get();
+		byte[] nonce = buffers.nonce(ctx, nonceSeq, nonceId);
+		byte[] aad = buffers.aad(alg, aadSeq, aadId);
+		int tagLength = alg.getTagSize() / Byte.SIZE;
+		try {
+			if (isCcm(alg)) {
+				Cipher cipher = key.borrowBlockCipher();
+				try {
+					return CCMBlockCipher.encrypt(0, cipher, nonce, aad, plaintext, tagLength);
+				} finally {
+					key.releaseBlockCipher(cipher);
+				}
+			} else {
+				Cipher cipher = AES_GCM_CIPHER.currentWithCause();
+				cipher.init(Cipher.ENCRYPT_MODE, key.getSecretKey(), new GCMParameterSpec(alg.getTagSize(), nonce));
+				cipher.updateAAD(aad);
+				byte[] cipherText = new byte[plaintext.length + tagLength];
+				cipher.doFinal(plaintext, 0, plaintext.length, cipherText, 0);
+				return cipherText;
+			}
+		} catch (GeneralSecurityException e) {
+			LOGGER.error("COSE/Crypto exception: Encryption failure");
+			throw new OSException("Encryption failure");
+		}
+	}
+
+	/**
+	 * Decrypt a ciphertext.
+	 *
+	 * @param ctx the OSCORE context
+	 * @param nonceSeq the partial IV used for the nonce
+	 * @param nonceId the sender ID used for the nonce
+	 * @param aadSeq the partial IV of the request used for the AAD
+	 * @param aadId the sender ID of the request used for the AAD
+	 * @param cipherText the ciphertext including the tag
+	 * @return the plaintext
+	 * @throws OSException if decryption fails
+	 */
+	static byte[] decrypt(OSCoreCtx ctx, int nonceSeq, byte[] nonceId, int aadSeq, byte[] aadId, byte[] cipherText)
+			throws OSException {
+		AlgorithmID alg = ctx.getAlg();
+		AeadKey key = ctx.getRecipientAeadKey();
+		checkKey(alg, key);
+		int tagLength = alg.getTagSize() / Byte.SIZE;
+		if (cipherText == null || cipherText.length < tagLength) {
+			LOGGER.error(ErrorDescriptions.DECRYPTION_FAILED + " No Encrypted Content Specified");
+			throw new OSException(ErrorDescriptions.DECRYPTION_FAILED + " No Encrypted Content Specified");
+		}
+		Buffers buffers = BUFFERS.get();
+		byte[] nonce = buffers.nonce(ctx, nonceSeq, nonceId);
+		byte[] aad = buffers.aad(alg, aadSeq, aadId);
+		try {
+			if (isCcm(alg)) {
+				Cipher cipher = key.borrowBlockCipher();
+				try {
+					return CCMBlockCipher.decrypt(cipher, nonce, aad, cipherText, 0, cipherText.length, tagLength);
+				} finally {
+					key.releaseBlockCipher(cipher);
+				}
+			} else {
+				Cipher cipher = AES_GCM_CIPHER.currentWithCause();
+				cipher.init(Cipher.DECRYPT_MODE, key.getSecretKey(), new GCMParameterSpec(alg.getTagSize(), nonce));
+				cipher.updateAAD(aad);
+				byte[] plaintext = new byte[cipherText.length - tagLength];
+				cipher.doFinal(cipherText, 0, cipherText.length, plaintext, 0);
+				return plaintext;
+			}
+		} catch (GeneralSecurityException e) {
+			LOGGER.error(ErrorDescriptions.DECRYPTION_FAILED + " Decryption failure");
+			throw new OSException(ErrorDescriptions.DECRYPTION_FAILED + " Decryption failure");
+		}
+	}
+
+	/**
+	 * Encodes the OSCORE option value of a request. Same result as
+	 * {@link Encryptor#encodeOSCoreRequest(OSCoreCtx, boolean)} for non-group
+	 * contexts.
+	 *
+	 * @param ctx the context
+	 * @return the OSCORE option value
+	 */
+	static byte[] encodeRequestOption(OSCoreCtx ctx) {
+		if (optionLength(ctx) + ctx.getSenderId().length > MAX_OPTION_LENGTH) {
+			return Encryptor.encodeOSCoreRequest(ctx, false);
+		}
+		byte[] buffer = BUFFERS.get().option;
+		int seq = ctx.getSenderSeq();
+		int pivLength = partialIVLength(seq);
+		int index = 0;
+		int firstByte = pivLength | 0x08;
+		if (ctx.getIncludeContextId()) {
+			firstByte |= 0x10;
+		}
+		buffer[index++] = (byte) firstByte;
+		index = writePartialIV(buffer, index, seq, pivLength);
+		if (ctx.getIncludeContextId()) {
+			index = writeIdContext(buffer, index, ctx.getMessageIdContext());
+		}
+		byte[] senderId = ctx.getSenderId();
+		System.arraycopy(senderId, 0, buffer, index, senderId.length);
+		index += senderId.length;
+		return copy(buffer, index);
+	}
+
+	/**
+	 * Encodes the OSCORE option value of a response. Same result as
+	 * {@link Encryptor#encodeOSCoreResponse(OSCoreCtx, boolean)} for non-group
+	 * contexts.
+	 *
+	 * @param ctx the context
+	 * @param newPartialIV if true encodes the partial IV
+	 * @return the OSCORE option value
+	 */
+	static byte[] encodeResponseOption(OSCoreCtx ctx, boolean newPartialIV) {
+		if (optionLength(ctx) > MAX_OPTION_LENGTH) {
+			return Encryptor.encodeOSCoreResponse(ctx, newPartialIV);
+		}
+		byte[] buffer = BUFFERS.get().option;
+		int index = 0;
+		int firstByte = ctx.getIncludeContextId() ? 0x10 : 0x00;
+		if (newPartialIV) {
+			int seq = ctx.getSenderSeq();
+			int pivLength = partialIVLength(seq);
+			buffer[index++] = (byte) (firstByte | pivLength);
+			index = writePartialIV(buffer, index, seq, pivLength);
+		} else {
+			buffer[index++] = (byte) firstByte;
+		}
+		if (ctx.getIncludeContextId()) {
+			index = writeIdContext(buffer, index, ctx.getMessageIdContext());
+		}
+		if (index == 1 && buffer[0] == 0x00) {
+			return Bytes.EMPTY;
+		}
+		return copy(buffer, index);
+	}
+
+	private static void setOption(Message message, byte[] option) {
+		OptionSet options = message.getOptions();
+		options.removeOscore();
+		options.setOscore(option);
+	}
+
+	private static void checkKey(AlgorithmID alg, AeadKey key) throws OSException {
+		if (key.length() != alg.getKeySize() / Byte.SIZE) {
+			LOGGER.error("COSE/Crypto exception: Key Size is incorrect");
+			throw new OSException("Key Size is incorrect");
+		}
+	}
+
+	private static boolean isCcm(AlgorithmID alg) {
+		switch (alg) {
+		case AES_CCM_16_64_128:
+		case AES_CCM_16_128_128:
+		case AES_CCM_16_128_256:
+		case AES_CCM_64_64_128:
+		case AES_CCM_64_128_128:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static boolean isGcm(AlgorithmID alg) {
+		switch (alg) {
+		case AES_GCM_128:
+		case AES_GCM_192:
+		case AES_GCM_256:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Length of the partial IV as encoded by
+	 * {@link OSSerializer#processPartialIV(int)}.
+	 *
+	 * @param seq the sequence number
+	 * @return the length in bytes
+	 */
+	private static int partialIVLength(int seq) {
+		if (seq == 0) {
+			return 1;
+		}
+		return Decryptor.INTEGER_BYTES - Integer.numberOfLeadingZeros(seq) / Byte.SIZE;
+	}
+
+	private static int writePartialIV(byte[] buffer, int index, int seq, int pivLength) {
+		for (int shift = (pivLength - 1) * Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+			buffer[index++] = (byte) (seq >>> shift);
+		}
+		return index;
+	}
+
+	/**
+	 * Upper bound of the option length without the KID.
+	 *
+	 * @param ctx the context
+	 * @return flag byte, partial IV and ID Context length
+	 */
+	private static int optionLength(OSCoreCtx ctx) {
+		int length = 1 + Decryptor.INTEGER_BYTES;
+		if (ctx.getIncludeContextId()) {
+			length += 1 + ctx.getMessageIdContext().length;
+		}
+		return length;
+	}
+
+	private static int writeIdContext(byte[] buffer, int index, byte[] idContext) {
+		buffer[index++] = (byte) idContext.length;
+		System.arraycopy(idContext, 0, buffer, index, idContext.length);
+		return index + idContext.length;
+	}
+
+	/**
+	 * Length of the CBOR head for a value.
+	 *
+	 * @param value the value (or length)
+	 * @return the number of bytes of the head
+	 */
+	private static int cborHeadLength(long value) {
+		if (value < 24) {
+			return 1;
+		} else if (value < 0x100) {
+			return 2;
+		} else if (value < 0x10000) {
+			return 3;
+		} else {
+			return 5;
+		}
+	}
+
+	private static int writeCborHead(byte[] buffer, int index, int majorType, long value) {
+		int type = majorType << 5;
+		if (value < 24) {
+			buffer[index++] = (byte) (type | value);
+		} else if (value < 0x100) {
+			buffer[index++] = (byte) (type | 24);
+			buffer[index++] = (byte) value;
+		} else if (value < 0x10000) {
+			buffer[index++] = (byte) (type | 25);
+			buffer[index++] = (byte) (value >> 8);
+			buffer[index++] = (byte) value;
+		} else {
+			buffer[index++] = (byte) (type | 26);
+			buffer[index++] = (byte) (value >> 24);
+			buffer[index++] = (byte) (value >> 16);
+			buffer[index++] = (byte) (value >> 8);
+			buffer[index++] = (byte) value;
+		}
+		return index;
+	}
+
+	private static byte[] copy(byte[] buffer, int length) {
+		byte[] result = new byte[length];
+		System.arraycopy(buffer, 0, result, 0, length);
+		return result;
+	}
+
+	/**
+	 * Reusable buffers of a thread. CCM requires nonce and AAD as arrays of
+	 * exact length, therefore one array is kept per length.
+	 */
+	private static final class Buffers {
+
+		private final byte[][] nonces = new byte[MAX_NONCE_LENGTH + 1][];
+		private final byte[][] aads = new byte[MAX_CACHED_AAD_LENGTH + 1][];
+		private final byte[] option = new byte[MAX_OPTION_LENGTH];
+
+		/**
+		 * Generate the nonce. Same result as
+		 * {@link OSSerializer#nonceGeneration(byte[], byte[], byte[], int)}
+		 * with the partial IV encoded from the sequence number.
+		 *
+		 * @param ctx the context providing common IV and nonce length
+		 * @param seq the partial IV
+		 * @param id the sender ID
+		 * @return the nonce. Only valid until the next call on this thread.
+		 */
+		private byte[] nonce(OSCoreCtx ctx, int seq, byte[] id) {
+			int length = ctx.getIVLength();
+			byte[] nonce = nonces[length];
+			if (nonce == null) {
+				nonce = new byte[length];
+				nonces[length] = nonce;
+			}
+			byte[] commonIV = ctx.getCommonIV();
+			// ID length, left padded ID, left padded 5 bytes partial IV
+			nonce[0] = (byte) id.length;
+			int idEnd = length - 5;
+			int idStart = idEnd - id.length;
+			for (int i = 1; i < idStart; i++) {
+				nonce[i] = 0;
+			}
+			System.arraycopy(id, 0, nonce, idStart, id.length);
+			nonce[idEnd] = 0;
+			nonce[idEnd + 1] = (byte) (seq >>> 24);
+			nonce[idEnd + 2] = (byte) (seq >>> 16);
+			nonce[idEnd + 3] = (byte) (seq >>> 8);
+			nonce[idEnd + 4] = (byte) seq;
+			for (int i = 0; i < length; i++) {
+				nonce[i] ^= commonIV[i];
+			}
+			return nonce;
+		}
+
+		/**
+		 * Build the complete AAD, the CBOR encoded Enc_structure
+		 *
+		 * <pre>
+		 * [ "Encrypt0", h'', bstr .cbor [ 1, [ alg ], kid, piv, h'' ] ]
+		 * </pre>
+		 *
+		 * Same result as the generic path combining
+		 * {@link OSSerializer#serializeAAD(int, AlgorithmID, int, byte[], OptionSet)}
+		 * and the Enc_structure encoding of the COSE message.
+		 *
+		 * @param alg the AEAD algorithm
+		 * @param seq the partial IV of the request
+		 * @param id the sender ID of the request
+		 * @return the AAD. Only valid until the next call on this thread.
+		 */
+		private byte[] aad(AlgorithmID alg, int seq, byte[] id) {
+			int algValue = alg.AsCBOR().AsInt32();
+			long algEncoded = algValue < 0 ? -1L - algValue : algValue;
+			int pivLength = partialIVLength(seq);
+			int externalLength = 3 + cborHeadLength(algEncoded) + cborHeadLength(id.length) + id.length
+					+ cborHeadLength(pivLength) + pivLength + 1;
+			int length = 1 + ENCRYPT0_CONTEXT.length + 1 + cborHeadLength(externalLength) + externalLength;
+
+			byte[] aad;
+			if (length <= MAX_CACHED_AAD_LENGTH) {
+				aad = aads[length];
+				if (aad == null) {
+					aad = new byte[length];
+					aads[length] = aad;
+				}
+			} else {
+				aad = new byte[length];
+			}
+
+			int index = 0;
+			// Enc_structure
+			aad[index++] = (byte) 0x83;
+			System.arraycopy(ENCRYPT0_CONTEXT, 0, aad, index, ENCRYPT0_CONTEXT.length);
+			index += ENCRYPT0_CONTEXT.length;
+			// empty protected header
+			aad[index++] = 0x40;
+			index = writeCborHead(aad, index, 2, externalLength);
+			// external_aad
+			aad[index++] = (byte) 0x85;
+			aad[index++] = 0x01;
+			aad[index++] = (byte) 0x81;
+			index = writeCborHead(aad, index, algValue < 0 ? 1 : 0, algEncoded);
+			index = writeCborHead(aad, index, 2, id.length);
+			System.arraycopy(id, 0, aad, index, id.length);
+			index += id.length;
+			index = writeCborHead(aad, index, 2, pivLength);
+			index = writePartialIV(aad, index, seq, pivLength);
+			// I-class options (currently none)
+			aad[index] = 0x40;
+			return aad;
+		}
+	}
+}
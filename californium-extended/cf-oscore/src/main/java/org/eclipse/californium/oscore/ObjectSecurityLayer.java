@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.eclipse.californium.oscore;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +38,7 @@ import org.eclipse.californium.core.network.stack.AbstractLayer;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.oscore.ContextRederivation.PHASE;
 import org.eclipse.californium.oscore.group.OptionEncoder;
+import org.eclipse.californium.oscore.group.SignatureVerifier;
 
 /**
  * 
@@ -365,12 +368,18 @@ public class ObjectSecurityLayer extends AbstractLayer {
 				
 				boolean groupModeResp = OptionJuggle.getGroupModeBit(response.getOptions().getOscore());
 
-				if(groupModeResp) {
-					System.out.println("Incoming Group Mode Response payload size: " + response.getPayloadSize());
-				} else {
-					System.out.println("Incoming Pairwise Mode Response payload size: " + response.getPayloadSize());
-				}
+				LOGGER.trace("Incoming {} mode response payload size: {}", groupModeResp ? "group" : "pairwise",
+						response.getPayloadSize());
 				
+				// Unprotect the responses to a multicast request in parallel
+				SignatureVerifier verifier = SignatureVerifier.getDefault();
+				if (verifier != null && groupModeResp && request.isMulticast()) {
+					byte[] rid = getKnownGroupRecipientId(response);
+					if (rid != null) {
+						receiveResponseAsync(verifier, rid, exchange, response);
+						return;
+					}
+				}
 				
 				response = prepareReceive(ctxDb, response);
 			}
@@ -383,6 +392,88 @@ public class ObjectSecurityLayer extends AbstractLayer {
 			return;
 		}
 		
+		deliverResponse(exchange, response);
+	}
+
+	/**
+	 * Unprotect a Group OSCORE response using the {@link SignatureVerifier}
+	 * and deliver it on the exchange's executor.
+	 * 
+	 * @param verifier the verifier
+	 * @param rid the Recipient ID of the responder
+	 * @param exchange the exchange of the multicast request
+	 * @param response the protected response
+	 */
+	private void receiveResponseAsync(SignatureVerifier verifier, byte[] rid, final Exchange exchange,
+			final Response response) {
+		try {
+			verifier.execute(rid, new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						final Response unprotected = prepareReceive(ctxDb, response);
+						exchange.execute(new Runnable() {
+
+							@Override
+							public void run() {
+								deliverResponse(exchange, unprotected);
+							}
+						});
+					} catch (final OSException e) {
+						LOGGER.error("Error while receiving OSCore response: " + e.getMessage());
+						exchange.execute(new Runnable() {
+
+							@Override
+							public void run() {
+								EmptyMessage error = CoapOSExceptionHandler.manageError(e, response);
+								if (error != null) {
+									sendEmptyMessage(exchange, error);
+								}
+							}
+						});
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("Dropped OSCore response: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Get the Recipient ID of a Group OSCORE response, if the Recipient
+	 * Context is already known. A new Recipient Context is derived by the
+	 * exchange's executor.
+	 * 
+	 * @param response the protected response
+	 * @return the Recipient ID, or {@code null}, if the response is not
+	 *         related to a Group OSCORE context or the Recipient Context is
+	 *         not known
+	 */
+	private byte[] getKnownGroupRecipientId(Response response) {
+		Token token = response.getToken();
+		OSCoreCtx ctx = token == null ? null : ctxDb.getContextByToken(token);
+		if (ctx == null || !ctx.isGroupContext()) {
+			return null;
+		}
+		byte[] rid = OptionJuggle.getRid(response.getOptions().getOscore());
+		if (rid == null) {
+			return null;
+		}
+		try {
+			return ctxDb.getContext(rid, ctx.getIdContext()) != null ? rid : null;
+		} catch (CoapOSException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Deliver an unprotected response to the upper layers.
+	 * 
+	 * @param exchange the exchange
+	 * @param response the unprotected response
+	 */
+	private void deliverResponse(Exchange exchange, Response response) {
 		// Remove token if this is an incoming response to an Observe
 		// cancellation request
 		if (exchange.getRequest().isObserveCancel()) {
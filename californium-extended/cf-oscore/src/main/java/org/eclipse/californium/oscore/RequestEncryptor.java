@@ -78,9 +78,13 @@ public class RequestEncryptor extends Encryptor {
 
 		OptionSet options = request.getOptions();
 		byte[] confidential = OSSerializer.serializeConfidentialData(options, request.getPayload(), realCode);
-		Encrypt0Message enc = prepareCOSEStructure(confidential);
-		byte[] cipherText = encryptAndEncode(enc, ctx, request, false);
-		compression(ctx, cipherText, request, false);
+		if (OSCoreFastPath.isApplicable(ctx)) {
+			OSCoreFastPath.protectRequest(ctx, request, confidential);
+		} else {
+			Encrypt0Message enc = prepareCOSEStructure(confidential);
+			byte[] cipherText = encryptAndEncode(enc, ctx, request, false);
+			compression(ctx, cipherText, request, false);
+		}
 
 		request.setOptions(OptionJuggle.prepareUoptions(request.getOptions()));
 
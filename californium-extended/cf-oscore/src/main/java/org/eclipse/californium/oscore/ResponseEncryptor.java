@@ -92,9 +92,13 @@ public class ResponseEncryptor extends Encryptor {
 		}
 
 		byte[] confidential = OSSerializer.serializeConfidentialData(options, response.getPayload(), realCode);
-		Encrypt0Message enc = prepareCOSEStructure(confidential);
-		byte[] cipherText = encryptAndEncode(enc, ctx, response, newPartialIV, requestOption);
-		compression(ctx, cipherText, response, newPartialIV);
+		if (OSCoreFastPath.isApplicable(ctx)) {
+			OSCoreFastPath.protectResponse(ctx, response, confidential, newPartialIV);
+		} else {
+			Encrypt0Message enc = prepareCOSEStructure(confidential);
+			byte[] cipherText = encryptAndEncode(enc, ctx, response, newPartialIV, requestOption);
+			compression(ctx, cipherText, response, newPartialIV);
+		}
 
 		options = response.getOptions();
 		response.setOptions(OptionJuggle.prepareUoptions(options));
@@ -0,0 +1,507 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.eclipse.californium.elements.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory-mapped journal of the Sender Sequence Numbers of all OSCORE contexts
+ * using Appendix B.1 in a process.
+ * <p>
+ * The journal is a single file with a fixed slot per context. A slot is
+ * identified by a digest of the sender ID, recipient ID and ID context.
+ * Saving a Sender Sequence Number only writes to the mapped memory, the
+ * changes are forced to the storage asynchronously every flush interval. The
+ * resume margin F of Appendix B.1 must therefore cover the messages sent
+ * within one flush interval.
+ * <p>
+ * A slot is referenced by all contexts with the same identifiers. When the
+ * last of them is removed, the slot is kept with the last saved Sender
+ * Sequence Number, so a context created again with the same identifiers
+ * resumes from there and doesn't reuse nonces. Slots are therefore not
+ * reused, the number of slots limits the number of different contexts.
+ * <p>
+ * The file is locked while open, so only one process can use it at a time.
+ * <p>
+ * When a context gets a slot for the first time, the Sender Sequence Number
+ * saved in the file of the previous implementation in the directory of the
+ * journal, e.g. {@code .resume/.<jar>-<sid>-<rid>-<ctx>}, is migrated into
+ * the slot and the file is deleted.
+ */
+public class SsnJournal implements Closeable {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SsnJournal.class);
+
+	private static final int MAGIC = 0x4F53534E; // "OSSN"
+	private static final int VERSION = 1;
+
+	/**
+	 * Size of a slot. The first slot is the header.
+	 */
+	private static final int SLOT_SIZE = 32;
+	private static final int DIGEST_LENGTH = 16;
+	private static final int OFFSET_SSN = DIGEST_LENGTH;
+	private static final int OFFSET_STATE = DIGEST_LENGTH + 4;
+	private static final int STATE_FREE = 0;
+	private static final int STATE_USED = 1;
+	private static final int STATE_RELEASED = 2;
+	private static final int NO_SSN = -1;
+
+	private static SsnJournal defaultJournal;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileLock lock;
+	private final MappedByteBuffer buffer;
+	private final int slots;
+	private final int saveInterval;
+	private final int resumeMargin;
+	/**
+	 * Slot by digest of the context identifiers, guarded by this.
+	 */
+	private final Map<ByteId, Integer> index = new HashMap<>();
+	/**
+	 * Number of contexts using a slot, guarded by this.
+	 */
+	private final int[] references;
+	private final AtomicBoolean dirty = new AtomicBoolean();
+	private final ScheduledExecutorService flusher;
+	private int nextSlot = 1;
+
+	/**
+	 * Open or create a journal.
+	 *
+	 * @param file the journal file
+	 * @param slots number of contexts the journal holds. A larger existing
+	 *            journal keeps its size.
+	 * @param saveInterval parameter K of Appendix B.1
+	 * @param resumeMargin parameter F of Appendix B.1
+	 * @param flushInterval interval in milliseconds to force changes to the
+	 *            storage
+	 * @throws IOException if the file could not be opened, is used by an other
+	 *             process or is not a journal
+	 * @throws IllegalArgumentException if a parameter is out of range
+	 */
+	public SsnJournal(File file, int slots, int saveInterval, int resumeMargin, long flushInterval)
+			throws IOException {
+		if (slots < 1) {
+			throw new IllegalArgumentException("Slots " + slots + " must be at least 1");
+		}
+		if (saveInterval < 1) {
+			throw new IllegalArgumentException("Save interval " + saveInterval + " must be at least 1");
+		}
+		if (resumeMargin < 0) {
+			throw new IllegalArgumentException("Resume margin " + resumeMargin + " must not be negative");
+		}
+		if (flushInterval < 1) {
+			throw new IllegalArgumentException("Flush interval " + flushInterval + " must be at least 1");
+		}
+		this.file = file;
+		this.saveInterval = saveInterval;
+		this.resumeMargin = resumeMargin;
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		raf = new RandomAccessFile(file, "rw");
+		try {
+			FileLock fileLock;
+			try {
+				fileLock = raf.getChannel().tryLock();
+			} catch (OverlappingFileLockException e) {
+				fileLock = null;
+			}
+			if (fileLock == null) {
+				throw new IOException(file + " is used by an other journal");
+			}
+			lock = fileLock;
+			int existingSlots = 0;
+			if (raf.length() >= SLOT_SIZE) {
+				if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+					throw new IOException(file + " is no SSN journal");
+				}
+				existingSlots = raf.readInt();
+			}
+			this.slots = Math.max(slots, existingSlots);
+			this.references = new int[this.slots + 1];
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) (this.slots + 1) * SLOT_SIZE);
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, this.slots);
+
+		byte[] digest = new byte[DIGEST_LENGTH];
+		for (int slot = 1; slot <= this.slots; slot++) {
+			int offset = slot * SLOT_SIZE;
+			if (buffer.getInt(offset + OFFSET_STATE) != STATE_FREE) {
+				for (int i = 0; i < DIGEST_LENGTH; i++) {
+					digest[i] = buffer.get(offset + i);
+				}
+				index.put(new ByteId(digest.clone()), slot);
+				nextSlot = slot + 1;
+			}
+		}
+		buffer.force();
+
+		flusher = ExecutorsUtil.newSingleThreadScheduledExecutor(new DaemonThreadFactory("SSN-Journal#"));
+		flusher.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+		LOGGER.info("SSN journal {} with {} slots, {} used", file, this.slots, index.size());
+	}
+
+	/**
+	 * Open or create a journal using the {@link OSCoreConfig} definitions.
+	 *
+	 * @param config the configuration
+	 * @return the journal
+	 * @throws IOException if the file could not be opened, is used by an other
+	 *             process or is not a journal
+	 */
+	public static SsnJournal create(Configuration config) throws IOException {
+		String fileName = config.get(OSCoreConfig.SSN_JOURNAL_FILE);
+		File file = fileName == null ? getDefaultFile() : new File(fileName);
+		return new SsnJournal(file, config.get(OSCoreConfig.SSN_JOURNAL_SLOTS),
+				config.get(OSCoreConfig.SSN_SAVE_INTERVAL), config.get(OSCoreConfig.SSN_RESUME_MARGIN),
+				config.get(OSCoreConfig.SSN_JOURNAL_FLUSH_INTERVAL, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Get the journal used by contexts with Appendix B.1 enabled.
+	 *
+	 * @return the journal, or {@code null}, if none has been opened or set
+	 * @see #openDefault(Configuration)
+	 * @see #setDefault(SsnJournal)
+	 */
+	public static synchronized SsnJournal getDefault() {
+		return defaultJournal;
+	}
+
+	/**
+	 * Open the journal used by contexts with Appendix B.1 enabled, if not
+	 * already done.
+	 *
+	 * Called before such contexts are created to use an other configuration
+	 * than the {@link Configuration#getStandard()}, which the first of these
+	 * contexts uses otherwise.
+	 *
+	 * @param config the configuration with the {@link OSCoreConfig}
+	 *            definitions
+	 * @return the journal
+	 * @throws IOException if the file could not be opened, is used by an other
+	 *             process or is not a journal
+	 */
+	public static synchronized SsnJournal openDefault(Configuration config) throws IOException {
+		if (defaultJournal == null) {
+			defaultJournal = create(config);
+		}
+		return defaultJournal;
+	}
+
+	/**
+	 * Set the journal used by contexts with Appendix B.1 enabled.
+	 *
+	 * Must be set before such contexts are created. The previous journal is
+	 * not closed.
+	 *
+	 * @param journal the journal. {@code null} to remove the journal.
+	 */
+	public static synchronized void setDefault(SsnJournal journal) {
+		defaultJournal = journal;
+	}
+
+	/**
+	 * Get the default journal file. The name is derived from the class path,
+	 * if that is a single jar.
+	 *
+	 * @return the default journal file
+	 */
+	public static File getDefaultFile() {
+		String jarFile = System.getProperty("java.class.path", "");
+		if (jarFile.isEmpty() || jarFile.contains(File.pathSeparator)) {
+			return new File(".resume/.ssn-journal");
+		}
+		jarFile = new File(jarFile).getName();
+		if (jarFile.endsWith(".jar")) {
+			jarFile = jarFile.substring(0, jarFile.length() - 4);
+		}
+		return new File(".resume/." + jarFile + "-ssn-journal");
+	}
+
+	/**
+	 * @return the journal file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return parameter K of Appendix B.1
+	 */
+	public int getSaveInterval() {
+		return saveInterval;
+	}
+
+	/**
+	 * @return parameter F of Appendix B.1
+	 */
+	public int getResumeMargin() {
+		return resumeMargin;
+	}
+
+	/**
+	 * Get the slot of a context and add a reference to it. Allocates a new
+	 * slot for unknown contexts, migrating the Sender Sequence Number saved by
+	 * the previous implementation, if any.
+	 *
+	 * @param senderId the sender ID
+	 * @param recipientId the recipient ID
+	 * @param contextId the ID context, may be {@code null}
+	 * @return the slot, or {@code -1}, if the journal is full or a file of the
+	 *         previous implementation could not be read
+	 */
+	public synchronized int register(byte[] senderId, byte[] recipientId, byte[] contextId) {
+		ByteId key = new ByteId(digest(senderId, recipientId, contextId));
+		Integer slot = index.get(key);
+		if (slot != null) {
+			if (references[slot]++ == 0) {
+				buffer.putInt(slot * SLOT_SIZE + OFFSET_STATE, STATE_USED);
+				dirty.set(true);
+			}
+			return slot;
+		}
+		File[] legacyFiles = getLegacyFiles(senderId, recipientId, contextId);
+		int ssn;
+		try {
+			ssn = readLegacySsn(legacyFiles);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to migrate SSN: {}", e.getMessage());
+			return -1;
+		}
+		if (nextSlot > slots) {
+			LOGGER.warn("SSN journal {} is full, {} slots", file, slots);
+			return -1;
+		}
+		slot = nextSlot++;
+		int offset = slot * SLOT_SIZE;
+		byte[] digest = key.getBytes();
+		for (int i = 0; i < DIGEST_LENGTH; i++) {
+			buffer.put(offset + i, digest[i]);
+		}
+		buffer.putInt(offset + OFFSET_SSN, ssn);
+		buffer.putInt(offset + OFFSET_STATE, STATE_USED);
+		dirty.set(true);
+		index.put(key, slot);
+		references[slot] = 1;
+		if (ssn != NO_SSN) {
+			// the journal must hold the SSN before the files are gone
+			flush();
+			LOGGER.info("Migrated SSN {} into SSN journal {}", ssn, file);
+		}
+		for (File legacyFile : legacyFiles) {
+			if (legacyFile.exists() && !legacyFile.delete()) {
+				LOGGER.warn("Failed to delete {}", legacyFile);
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Release a reference to the slot of a context, which is removed.
+	 *
+	 * The slot is still used by other contexts with the same identifiers,
+	 * e.g. the one replacing the removed context. Without other references,
+	 * the slot keeps the last saved Sender Sequence Number, so a context
+	 * created again with the same identifiers resumes from there.
+	 *
+	 * @param slot the slot of the context
+	 */
+	public synchronized void release(int slot) {
+		int offset = checkSlot(slot);
+		if (references[slot] == 0) {
+			return;
+		}
+		if (--references[slot] == 0) {
+			buffer.putInt(offset + OFFSET_STATE, STATE_RELEASED);
+			dirty.set(true);
+		}
+	}
+
+	/**
+	 * Get the Sender Sequence Number to resume from.
+	 *
+	 * @param slot the slot of the context
+	 * @return the last saved Sender Sequence Number plus K and F, or
+	 *         {@code -1}, if none was saved
+	 */
+	public int resume(int slot) {
+		int ssn = buffer.getInt(checkSlot(slot) + OFFSET_SSN);
+		if (ssn == NO_SSN) {
+			return NO_SSN;
+		}
+		return ssn + saveInterval + resumeMargin;
+	}
+
+	/**
+	 * Save a Sender Sequence Number.
+	 *
+	 * Only writes to the mapped memory, never blocks on file I/O.
+	 *
+	 * @param slot the slot of the context
+	 * @param ssn the Sender Sequence Number
+	 */
+	public void save(int slot, int ssn) {
+		buffer.putInt(checkSlot(slot) + OFFSET_SSN, ssn);
+		dirty.set(true);
+	}
+
+	/**
+	 * Force pending changes to the storage.
+	 */
+	public void flush() {
+		if (dirty.getAndSet(false)) {
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Flush pending changes and close the journal.
+	 */
+	@Override
+	public void close() throws IOException {
+		flusher.shutdown();
+		flush();
+		try {
+			lock.release();
+		} finally {
+			raf.close();
+		}
+	}
+
+	private int checkSlot(int slot) {
+		if (slot < 1 || slot > slots) {
+			throw new IllegalArgumentException("Slot " + slot + " out of range [1, " + slots + "]");
+		}
+		return slot * SLOT_SIZE;
+	}
+
+	/**
+	 * Get the files of the previous implementation, which saved the Sender
+	 * Sequence Number of each context in a file of its own.
+	 *
+	 * @param senderId the sender ID
+	 * @param recipientId the recipient ID
+	 * @param contextId the ID context, may be {@code null}
+	 * @return the names used by single jar processes and by all others
+	 */
+	private File[] getLegacyFiles(byte[] senderId, byte[] recipientId, byte[] contextId) {
+		File directory = file.getAbsoluteFile().getParentFile();
+		String ids = toHex(senderId) + "-" + toHex(recipientId) + "-" + toHex(contextId);
+		String jarFile = System.getProperty("java.class.path", "");
+		if (jarFile.length() > 4) {
+			jarFile = jarFile.substring(0, jarFile.length() - 4);
+		}
+		return new File[] { new File(directory, "." + jarFile + "-" + ids), new File(directory, "." + ids) };
+	}
+
+	/**
+	 * Read the Sender Sequence Number saved by the previous implementation.
+	 *
+	 * @param legacyFiles the files of the previous implementation
+	 * @return the largest saved Sender Sequence Number, or {@code -1}, if
+	 *         none was saved
+	 * @throws IOException if a file exists, but could not be read
+	 */
+	private static int readLegacySsn(File[] legacyFiles) throws IOException {
+		int ssn = NO_SSN;
+		for (File legacyFile : legacyFiles) {
+			if (legacyFile.isFile()) {
+				BufferedReader reader = new BufferedReader(new FileReader(legacyFile));
+				try {
+					String line = reader.readLine();
+					ssn = Math.max(ssn, Integer.parseInt(line == null ? "" : line.trim()));
+				} catch (NumberFormatException e) {
+					throw new IOException(legacyFile + " contains no SSN");
+				} finally {
+					reader.close();
+				}
+			}
+		}
+		return ssn;
+	}
+
+	private static String toHex(byte[] id) {
+		return id == null ? "" : StringUtil.byteArray2Hex(id);
+	}
+
+	private static byte[] digest(byte[] senderId, byte[] recipientId, byte[] contextId) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			update(md, senderId);
+			update(md, recipientId);
+			update(md, contextId);
+			byte[] digest = new byte[DIGEST_LENGTH];
+			System.arraycopy(md.digest(), 0, digest, 0, DIGEST_LENGTH);
+			return digest;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not supported", e);
+		}
+	}
+
+	private static void update(MessageDigest md, byte[] id) {
+		if (id == null) {
+			md.update((byte) 0xFF);
+		} else {
+			md.update((byte) id.length);
+			md.update(id);
+		}
+	}
+}
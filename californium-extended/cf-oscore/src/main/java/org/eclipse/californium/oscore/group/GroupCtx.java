@@ -19,8 +19,12 @@ package org.eclipse.californium.oscore.group;
 import java.security.GeneralSecurityException;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.crypto.KeyAgreement;
 
@@ -30,8 +34,8 @@ import org.eclipse.californium.cose.KeyKeys;
 import org.eclipse.californium.cose.OneKey;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.oscore.ByteId;
-import org.eclipse.californium.oscore.HashMapCtxDB;
 import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSCoreCtxDB;
 import org.eclipse.californium.oscore.OSException;
 
 import com.upokecenter.cbor.CBORObject;
@@ -337,28 +341,66 @@ public class GroupCtx {
 	/**
 	 * Add this Group context to the context database. In essence it will its
 	 * sender context and all its recipient context to the database. // TODO:
-	 * Move to HashMapCtxDB?
+	 * Move to the context database?
 	 * 
 	 * @param uri
 	 * @param db
 	 * @throws OSException
 	 */
-	public void addToDb(String uri, HashMapCtxDB db) throws OSException {
+	public void addToDb(String uri, OSCoreCtxDB db) throws OSException {
 
-		// Add the sender context and derive its pairwise keys
-		senderCtx.derivePairwiseKeys();
+		// Add the sender context. Pairwise keys are derived on first use, see
+		// prewarmPairwiseKeys to derive them in advance.
 		db.addContext(uri, senderCtx);
 
-		// Add the recipient contexts and derive their pairwise keys
+		// Add the recipient contexts
 		for (Entry<ByteId, GroupRecipientCtx> entry : recipientCtxMap.entrySet()) {
 			GroupRecipientCtx recipientCtx = entry.getValue();
-			recipientCtx.derivePairwiseKey();
 
 			db.addContext(recipientCtx);
 		}
 
 	}
 
+	/**
+	 * Derive the pairwise keys of the sender context and of all current
+	 * recipient contexts. Otherwise the pairwise keys are derived on first
+	 * use, so groups using only the group mode don't derive them at all.
+	 */
+	public void prewarmPairwiseKeys() {
+		for (GroupRecipientCtx recipientCtx : recipientCtxMap.values()) {
+			derivePairwiseKeys(recipientCtx);
+		}
+	}
+
+	/**
+	 * Derive the pairwise keys of the sender context and of all current
+	 * recipient contexts using the provided executor, one task per recipient
+	 * context.
+	 * 
+	 * @param executor the executor to derive the keys with
+	 * @return the futures of the tasks deriving the keys
+	 * @see #prewarmPairwiseKeys()
+	 */
+	public List<Future<?>> prewarmPairwiseKeys(ExecutorService executor) {
+		List<Future<?>> futures = new ArrayList<Future<?>>(recipientCtxMap.size());
+		for (final GroupRecipientCtx recipientCtx : recipientCtxMap.values()) {
+			futures.add(executor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					derivePairwiseKeys(recipientCtx);
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private void derivePairwiseKeys(GroupRecipientCtx recipientCtx) {
+		senderCtx.derivePairwiseKey(recipientCtx);
+		recipientCtx.derivePairwiseKey();
+	}
+
 	// TODO: Merge with below?
 	byte[] deriveGroupEncryptionKey() {
 
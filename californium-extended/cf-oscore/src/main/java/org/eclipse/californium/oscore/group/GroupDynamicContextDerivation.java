@@ -79,9 +79,7 @@ public class GroupDynamicContextDerivation {
 		GroupRecipientCtx recipientCtx = senderCtx.commonCtx.recipientCtxMap.get(new ByteId(rid));
 		db.addContext(recipientCtx);
 
-		// Derive pairwise keys
-		senderCtx.derivePairwiseKeys();
-		recipientCtx.derivePairwiseKey();
+		// Pairwise keys are derived on first use
 
 		LOGGER.debug("Dynamic context derivation finished successfully");
 
@@ -16,6 +16,7 @@
  ******************************************************************************/
 package org.eclipse.californium.oscore.group;
 
+import org.eclipse.californium.cose.AeadKey;
 import org.eclipse.californium.cose.AlgorithmID;
 import org.eclipse.californium.cose.OneKey;
 import org.eclipse.californium.elements.util.Bytes;
@@ -34,7 +35,11 @@ public class GroupRecipientCtx extends OSCoreCtx {
 	OneKey otherEndpointPubKey;
 	byte[] otherEndpointPubKeyRaw = Bytes.EMPTY;
 
-	byte[] pairwiseRecipientKey;
+	// Pairwise recipient key, derived on first use
+	volatile byte[] pairwiseRecipientKey;
+
+	// Cached cipher state of the pairwise recipient key
+	private volatile AeadKey pairwiseRecipientAeadKey;
 
 	GroupRecipientCtx(byte[] master_secret, boolean client, AlgorithmID alg, byte[] sender_id,
 			byte[] recipient_id, AlgorithmID kdf, Integer replay_size, byte[] master_salt, byte[] contextId,
@@ -71,12 +76,38 @@ public class GroupRecipientCtx extends OSCoreCtx {
 	}
 
 	/**
-	 * Get the pairwise recipient key for this context.
+	 * Get the pairwise recipient key for this context. The key is derived on
+	 * first use.
 	 * 
-	 * @return the pairwise recipient key
+	 * @return the pairwise recipient key, or null if it can't be derived
 	 */
 	public byte[] getPairwiseRecipientKey() {
-		return pairwiseRecipientKey;
+		byte[] pairwiseKey = pairwiseRecipientKey;
+		if (pairwiseKey == null) {
+			pairwiseKey = derivePairwiseKey();
+		}
+		return pairwiseKey;
+	}
+
+	/**
+	 * Get the pairwise recipient key for this context together with its
+	 * cached cipher state.
+	 * 
+	 * @return the pairwise recipient key with cipher state, or null if the
+	 *         pairwise key has not been derived
+	 */
+	public AeadKey getPairwiseRecipientAeadKey() {
+		byte[] pairwiseKey = getPairwiseRecipientKey();
+		if (pairwiseKey == null) {
+			return null;
+		}
+
+		AeadKey key = pairwiseRecipientAeadKey;
+		if (key == null || !key.isFor(pairwiseKey)) {
+			key = new AeadKey(pairwiseKey);
+			pairwiseRecipientAeadKey = key;
+		}
+		return key;
 	}
 
 	/**
@@ -141,18 +172,27 @@ public class GroupRecipientCtx extends OSCoreCtx {
 
 	/**
 	 * Derive pairwise recipient key for this recipient context and the
-	 * associated sender context
+	 * associated sender context, if not already derived.
+	 * 
+	 * Concurrent callers may derive the key more than once, the derived keys
+	 * are equal.
+	 * 
+	 * @return the pairwise recipient key, or null if it can't be derived
 	 */
-	void derivePairwiseKey() {
+	byte[] derivePairwiseKey() {
 
 		// If the key has already been generated skip it
-		if (this.pairwiseRecipientKey != null) {
-			return;
+		byte[] pairwiseKey = this.pairwiseRecipientKey;
+		if (pairwiseKey != null) {
+			return pairwiseKey;
 		}
 
-		this.pairwiseRecipientKey = commonCtx.derivePairwiseRecipientKey(this.getRecipientId(), this.getRecipientKey(),
+		pairwiseKey = commonCtx.derivePairwiseRecipientKey(this.getRecipientId(), this.getRecipientKey(),
 				this.getPublicKey(), this.getPublicKeyRaw());
-
+		if (pairwiseKey != null) {
+			this.pairwiseRecipientKey = pairwiseKey;
+		}
+		return pairwiseKey;
 	}
 
 	// TODO: Change
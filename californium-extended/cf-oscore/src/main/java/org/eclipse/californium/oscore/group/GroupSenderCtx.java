@@ -16,11 +16,11 @@
  ******************************************************************************/
 package org.eclipse.californium.oscore.group;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 
+import org.eclipse.californium.cose.AeadKey;
 import org.eclipse.californium.cose.AlgorithmID;
 import org.eclipse.californium.cose.CoseException;
 import org.eclipse.californium.cose.OneKey;
@@ -42,7 +42,11 @@ public class GroupSenderCtx extends OSCoreCtx {
 	OneKey ownPrivateKey;
 	byte[] ownPublicKeyRaw = Bytes.EMPTY;
 
-	HashMap<ByteId, byte[]> pairwiseSenderKeys;
+	// Pairwise sender keys, derived on first use
+	ConcurrentHashMap<ByteId, byte[]> pairwiseSenderKeys;
+
+	// Cached cipher state of the pairwise sender keys
+	private final ConcurrentHashMap<ByteId, AeadKey> pairwiseSenderAeadKeys;
 
 	GroupSenderCtx(byte[] master_secret, boolean client, AlgorithmID alg, byte[] sender_id, byte[] recipient_id,
 			AlgorithmID kdf, Integer replay_size, byte[] master_salt, byte[] contextId, OneKey ownPrivateKey,
@@ -57,7 +61,8 @@ public class GroupSenderCtx extends OSCoreCtx {
 			this.ownPublicKeyRaw = ownPublicKeyRaw;
 		}
 
-		pairwiseSenderKeys = new HashMap<ByteId, byte[]>();
+		pairwiseSenderKeys = new ConcurrentHashMap<ByteId, byte[]>();
+		pairwiseSenderAeadKeys = new ConcurrentHashMap<ByteId, AeadKey>();
 	}
 
 	/**
@@ -66,21 +71,39 @@ public class GroupSenderCtx extends OSCoreCtx {
 	 */
 	void derivePairwiseKeys() {
 
-		for (Entry<ByteId, GroupRecipientCtx> entry : commonCtx.recipientCtxMap.entrySet()) {
-			GroupRecipientCtx recipientCtx = entry.getValue();
+		for (GroupRecipientCtx recipientCtx : commonCtx.recipientCtxMap.values()) {
+			derivePairwiseKey(recipientCtx);
+		}
+	}
 
-			ByteId rid = new ByteId(recipientCtx.getRecipientId());
-			
-			// If the key has already been generated skip it
-			if (pairwiseSenderKeys.get(rid) != null) {
-				continue;
-			}
+	/**
+	 * Derive the pairwise sender key for an associated recipient context, if
+	 * not already derived.
+	 * 
+	 * Concurrent callers may derive the same key, but only the first derived
+	 * key is kept.
+	 * 
+	 * @param recipientCtx the recipient context
+	 * @return the pairwise sender key, or null if it can't be derived
+	 */
+	byte[] derivePairwiseKey(GroupRecipientCtx recipientCtx) {
+		ByteId rid = new ByteId(recipientCtx.getRecipientId());
 
-			byte[] pairwiseSenderKey = commonCtx.derivePairwiseSenderKey(recipientCtx.getRecipientId(),
-					recipientCtx.getRecipientKey(), recipientCtx.getPublicKey(), recipientCtx.getPublicKeyRaw());
-			pairwiseSenderKeys.put(rid, pairwiseSenderKey);
+		// If the key has already been generated skip it
+		byte[] pairwiseSenderKey = pairwiseSenderKeys.get(rid);
+		if (pairwiseSenderKey != null) {
+			return pairwiseSenderKey;
+		}
 
+		pairwiseSenderKey = commonCtx.derivePairwiseSenderKey(recipientCtx.getRecipientId(),
+				recipientCtx.getRecipientKey(), recipientCtx.getPublicKey(), recipientCtx.getPublicKeyRaw());
+		if (pairwiseSenderKey != null) {
+			byte[] previous = pairwiseSenderKeys.putIfAbsent(rid, pairwiseSenderKey);
+			if (previous != null) {
+				pairwiseSenderKey = previous;
+			}
 		}
+		return pairwiseSenderKey;
 	}
 
 	/**
@@ -101,18 +124,54 @@ public class GroupSenderCtx extends OSCoreCtx {
 
 	/**
 	 * Get the pairwise sender key for this context for a specific other
-	 * recipient.
+	 * recipient. The key is derived on first use.
 	 * 
 	 * @param recipientId the recipient ID of the other party
-	 * @return the pairwise sender key to recipient
+	 * @return the pairwise sender key to recipient, or null if there is no
+	 *         recipient context for that recipient or the key can't be
+	 *         derived
 	 */
 	public byte[] getPairwiseSenderKey(byte[] recipientId) {
-		return pairwiseSenderKeys.get(new ByteId(recipientId));
+		ByteId rid = new ByteId(recipientId);
+		byte[] pairwiseSenderKey = pairwiseSenderKeys.get(rid);
+		if (pairwiseSenderKey == null) {
+			GroupRecipientCtx recipientCtx = commonCtx.recipientCtxMap.get(rid);
+			if (recipientCtx != null) {
+				pairwiseSenderKey = derivePairwiseKey(recipientCtx);
+			}
+		}
+		return pairwiseSenderKey;
+	}
+
+	/**
+	 * Get the pairwise sender key for a specific other recipient together
+	 * with its cached cipher state.
+	 * 
+	 * @param recipientId the recipient ID of the other party
+	 * @return the pairwise sender key with cipher state, or null if no
+	 *         pairwise key is available for that recipient
+	 */
+	public AeadKey getPairwiseSenderAeadKey(byte[] recipientId) {
+		ByteId rid = new ByteId(recipientId);
+		byte[] pairwiseSenderKey = getPairwiseSenderKey(recipientId);
+		if (pairwiseSenderKey == null) {
+			pairwiseSenderAeadKeys.remove(rid);
+			return null;
+		}
+
+		AeadKey key = pairwiseSenderAeadKeys.get(rid);
+		if (key == null || !key.isFor(pairwiseSenderKey)) {
+			key = new AeadKey(pairwiseSenderKey);
+			pairwiseSenderAeadKeys.put(rid, key);
+		}
+		return key;
 	}
 
 	// Just for interop tests
 	public void setAsymmetricSenderKey(OneKey key) {
 		ownPrivateKey = key;
+		// Pairwise keys depend on the private key
+		pairwiseSenderKeys.clear();
 	}
 
 	/**
@@ -252,7 +311,7 @@ public class GroupSenderCtx extends OSCoreCtx {
 		StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
 		System.err.println("Bad call to getRecipientReplayWindow on GroupSenderCtx" + stackTraceElements[2].toString());
 		System.exit(0);
-		return recipient_replay_window;
+		return super.getRecipientReplayWindow();
 	}
 
 	@Override
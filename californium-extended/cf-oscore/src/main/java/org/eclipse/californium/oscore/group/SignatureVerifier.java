@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore.group;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.oscore.OSCoreConfig;
+
+/**
+ * Unprotects the Group OSCORE responses to a multicast request on a bounded
+ * pool of threads.
+ *
+ * The responses to a multicast request belong to a single exchange and are
+ * therefore processed one after the other. The verification of the
+ * countersignature dominates the unprotection of a group mode response, so
+ * the {@link org.eclipse.californium.oscore.ObjectSecurityLayer} hands these
+ * responses to this verifier and continues with the unprotected response on
+ * the exchange's executor.
+ *
+ * The verifier has one lane per thread. The responses of a peer, identified
+ * by its Recipient ID, are always processed in the same lane, and so keep
+ * their order including the replay checks and the delivery to the handler.
+ * The responses of different peers are spread over the lanes and are
+ * processed in parallel.
+ *
+ * If the queue of a lane is full, the caller waits for free space. That
+ * limits the pending responses and slows down the producer.
+ *
+ * The layer uses the verifier set by {@link #setDefault(SignatureVerifier)}.
+ * Without a verifier, the responses are unprotected on the exchange's
+ * executor.
+ */
+public class SignatureVerifier implements Closeable {
+
+	private static volatile SignatureVerifier defaultVerifier;
+
+	private final ThreadPoolExecutor[] lanes;
+
+	/**
+	 * Create a verifier.
+	 *
+	 * @param threads the number of verifying threads
+	 * @param queueSize the number of pending responses per thread
+	 * @throws IllegalArgumentException if threads or queue size is less than 1
+	 */
+	public SignatureVerifier(int threads, int queueSize) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads " + threads + " must be at least 1!");
+		}
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("Queue size " + queueSize + " must be at least 1!");
+		}
+		DaemonThreadFactory factory = new DaemonThreadFactory("OSCORE-Verifier#");
+		RejectedExecutionHandler backPressure = new RejectedExecutionHandler() {
+
+			@Override
+			public void rejectedExecution(Runnable job, ThreadPoolExecutor lane) {
+				if (lane.isShutdown()) {
+					throw new RejectedExecutionException("Verifier already closed!");
+				}
+				try {
+					lane.getQueue().put(job);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException("Interrupted while waiting for the verifier!", e);
+				}
+			}
+		};
+		lanes = new ThreadPoolExecutor[threads];
+		for (int index = 0; index < threads; ++index) {
+			lanes[index] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<Runnable>(queueSize), factory, backPressure);
+		}
+	}
+
+	/**
+	 * Create a verifier using the configuration.
+	 *
+	 * @param config the configuration
+	 * @return the verifier
+	 */
+	public static SignatureVerifier create(Configuration config) {
+		return new SignatureVerifier(config.get(OSCoreConfig.SIGNATURE_VERIFIER_THREADS),
+				config.get(OSCoreConfig.SIGNATURE_VERIFIER_QUEUE_SIZE));
+	}
+
+	/**
+	 * Get the verifier used by the layer.
+	 *
+	 * @return the verifier, or {@code null}, if responses are unprotected on
+	 *         the exchange's executor
+	 */
+	public static SignatureVerifier getDefault() {
+		return defaultVerifier;
+	}
+
+	/**
+	 * Set the verifier used by the layer.
+	 *
+	 * The previous verifier is not closed.
+	 *
+	 * @param verifier the verifier, or {@code null}, to unprotect responses
+	 *            on the exchange's executor
+	 */
+	public static void setDefault(SignatureVerifier verifier) {
+		defaultVerifier = verifier;
+	}
+
+	/**
+	 * Execute the unprotection of a message of a peer.
+	 *
+	 * The jobs of the same peer are executed in the order of submission, the
+	 * jobs of other peers may be executed in parallel. Waits, if too many jobs
+	 * are pending.
+	 *
+	 * @param recipientId the Recipient ID of the peer
+	 * @param job the unprotection of the message
+	 * @throws RejectedExecutionException if the verifier is closed or the
+	 *             caller is interrupted while waiting
+	 */
+	public void execute(byte[] recipientId, Runnable job) {
+		int index = (Arrays.hashCode(recipientId) & Integer.MAX_VALUE) % lanes.length;
+		lanes[index].execute(job);
+	}
+
+	/**
+	 * Get the number of verifying threads.
+	 *
+	 * @return the number of threads
+	 */
+	public int getThreads() {
+		return lanes.length;
+	}
+
+	/**
+	 * Stop the verifying threads. Pending jobs are still executed, new jobs
+	 * are rejected.
+	 */
+	@Override
+	public void close() {
+		for (ThreadPoolExecutor lane : lanes) {
+			lane.shutdown();
+		}
+	}
+}
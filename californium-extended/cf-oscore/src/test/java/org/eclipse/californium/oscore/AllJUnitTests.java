@@ -25,6 +25,7 @@ import org.eclipse.californium.oscore.group.GroupModesTest;
 import org.eclipse.californium.oscore.group.GroupModesTestAlt;
 import org.eclipse.californium.oscore.group.GroupOSCoreServerClientTest;
 import org.eclipse.californium.oscore.group.GroupOscoreCtxTest;
+import org.eclipse.californium.oscore.group.SignatureVerifierTest;
 import org.eclipse.californium.oscore.group.KeyRemappingTest;
 import org.eclipse.californium.oscore.group.SharedSecretCalculationTest;
 import org.eclipse.californium.oscore.group.interop.OneKeyDecoderTest;
@@ -37,13 +38,14 @@ import org.junit.runners.Suite.SuiteClasses;
  *
  */
 @RunWith(Suite.class)
-@SuiteClasses({ ByteIdTest.class, HashMapCtxDBTest.class, OptionJuggleTest.class, OSCoreCtxTest.class, OSCoreTest.class,
+@SuiteClasses({ ByteIdTest.class, HashMapCtxDBTest.class, ConcurrentCtxDBTest.class, OSCoreFastPathTest.class, SsnJournalTest.class, OptionJuggleTest.class, OSCoreCtxTest.class, OSCoreTest.class,
 		OSSerializerTest.class, OSCoreServerClientTest.class, OSCoreObserveTest.class, EncryptorTest.class,
 		DecryptorTest.class, EndpointContextInfoTest.class, ContextRederivationTest.class,
 		OSCoreInnerBlockwiseTest.class, OSCoreOuterBlockwiseTest.class, OSCoreAlgorithmsTest.class,
 		GroupOSCoreServerClientTest.class, KeyRemappingTest.class, SharedSecretCalculationTest.class,
 		GroupEncryptorTest.class, GroupDecryptorTest.class, CountersignAlgorithmsTest.class, GroupModesTest.class,
-		GroupModesTestAlt.class, GroupKeyDerivationTest.class, OneKeyDecoderTest.class, GroupOscoreCtxTest.class })
+		GroupModesTestAlt.class, GroupKeyDerivationTest.class, OneKeyDecoderTest.class, GroupOscoreCtxTest.class,
+		SignatureVerifierTest.class })
 public class AllJUnitTests {
 
 }
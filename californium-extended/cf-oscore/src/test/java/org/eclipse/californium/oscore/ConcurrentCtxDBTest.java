@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.elements.util.ExpectedExceptionWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests for the concurrent OSCORE context database.
+ *
+ */
+public class ConcurrentCtxDBTest {
+
+	private final Token token = new Token(new byte[] { 0x09, 0x08, 0x07, 0x06 });
+	private final Token modifiedToken = new Token(new byte[] { 0x08, 0x07, 0x06, 0x05 });
+	private final String uri = "coap/hello/1";
+	private final byte[] master_secret = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D,
+			0x0E, 0x0F, 0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18, 0x19, 0x1A, 0x1B, 0x1C, 0x1D, 0x1E, 0x1F,
+			0x20, 0x21, 0x22, 0x23 };
+	private final AlgorithmID alg = AlgorithmID.AES_CCM_16_64_128;
+	private final byte[] rid = new byte[] { 0x73, 0x65, 0x72, 0x76, 0x65, 0x72 };
+	private final byte[] rid_2 = new byte[] { 0x14, 0x15, 0x16, 0x17, 0x18, 0x19 };
+	private final byte[] sid = new byte[] { 0x63, 0x6C, 0x69, 0x65, 0x6E, 0x74 };
+	private final byte[] modifiedRid = new byte[] { 0x01, 0x65, 0x72, 0x76, 0x65, 0x72 };
+	private final byte[] context_id = { 0x74, 0x65, 0x73, 0x74, 0x74, 0x65, 0x73, 0x74 };
+	private final byte[] context_id_2 = { 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x10, 0x11 };
+	private final Integer seq = 42;
+	private final static int MAX_UNFRAGMENTED_SIZE = 4096;
+
+	private final static int CONCURRENT_ROUNDS = 2000;
+
+	@Rule
+	public final ExpectedException exception = ExpectedExceptionWrapper.none();
+
+	@Test
+	public void testAddGetContextRidIDContextMultiple() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id, MAX_UNFRAGMENTED_SIZE);
+		OSCoreCtx ctx2 = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id_2, MAX_UNFRAGMENTED_SIZE);
+		db.addContext(ctx);
+		db.addContext(ctx2);
+
+		assertEquals(ctx, db.getContext(rid, ctx.getIdContext()));
+		assertEquals(ctx2, db.getContext(rid, ctx2.getIdContext()));
+		assertNull(db.getContext(modifiedRid, context_id));
+		assertNull(db.getContext(uri));
+		assertNull(db.getContextByToken(token));
+	}
+
+	@Test
+	public void testAddGetContextRidMultipleSuccess() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id, MAX_UNFRAGMENTED_SIZE);
+		OSCoreCtx ctx2 = new OSCoreCtx(master_secret, true, alg, sid, rid_2, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id_2, MAX_UNFRAGMENTED_SIZE);
+
+		db.addContext(ctx);
+		db.addContext(ctx2);
+
+		assertEquals(ctx, db.getContext(rid, null));
+		assertEquals(ctx, db.getContext(rid));
+		assertNull(db.getContext(modifiedRid, context_id));
+	}
+
+	@Test
+	public void testAddGetContextRidMultipleFail() throws OSException {
+		exception.expect(CoapOSException.class);
+		exception.expectMessage(ErrorDescriptions.CONTEXT_NOT_FOUND_IDCONTEXT);
+
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id, MAX_UNFRAGMENTED_SIZE);
+		OSCoreCtx ctx2 = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id_2, MAX_UNFRAGMENTED_SIZE);
+
+		db.addContext(ctx);
+		db.addContext(ctx2);
+
+		db.getContext(rid, null);
+	}
+
+	@Test
+	public void testRemoveContext() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id, MAX_UNFRAGMENTED_SIZE);
+		OSCoreCtx ctx2 = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				context_id_2, MAX_UNFRAGMENTED_SIZE);
+
+		db.addContext(ctx);
+		db.addContext(ctx2);
+		db.removeContext(ctx);
+
+		assertNull(db.getContext(rid, context_id));
+		assertEquals(ctx2, db.getContext(rid, null));
+
+		db.removeContext(ctx2);
+		assertNull(db.getContext(rid));
+	}
+
+	@Test
+	public void testAddGetContextUriAndToken() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+				null, MAX_UNFRAGMENTED_SIZE);
+		db.addContext(uri, ctx);
+		db.addContext(token, ctx);
+
+		assertEquals(ctx, db.getContext(rid));
+		assertEquals(ctx, db.getContext(uri));
+		assertEquals(ctx, db.getContextByToken(token));
+		assertNull(db.getContextByToken(modifiedToken));
+	}
+
+	@Test
+	public void testSeqByToken() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		db.addSeqByToken(token, seq);
+
+		assertEquals(seq, db.getSeqByToken(token));
+		assertTrue(db.tokenExist(token));
+		assertFalse(db.tokenExist(modifiedToken));
+
+		db.removeSeqByToken(token);
+		assertNull(db.getSeqByToken(token));
+		assertFalse(db.tokenExist(token));
+	}
+
+	@Test
+	public void testNullSeqByToken() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		exception.expect(NullPointerException.class);
+
+		db.addSeqByToken(token, null);
+	}
+
+	/**
+	 * Let several threads add, look up and remove contexts sharing the same
+	 * recipient ID, each with its own ID context, while keeping token
+	 * bookkeeping of their own. Every lookup must return the context of the
+	 * thread and no context must remain afterwards.
+	 *
+	 * @throws Exception on test failure
+	 */
+	@Test
+	public void testConcurrentAddLookupRemove() throws Exception {
+		final ConcurrentCtxDB db = new ConcurrentCtxDB();
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		final OSCoreCtx[] contexts = new OSCoreCtx[threads];
+		for (int i = 0; i < threads; i++) {
+			byte[] idContext = new byte[] { 0x01, (byte) i };
+			contexts[i] = new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null,
+					idContext, MAX_UNFRAGMENTED_SIZE);
+		}
+
+		final AtomicInteger failures = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			final OSCoreCtx ctx = contexts[t];
+			final int threadIndex = t;
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = 0; i < CONCURRENT_ROUNDS; i++) {
+							db.addContext(ctx);
+							if (db.getContext(rid, ctx.getIdContext()) != ctx) {
+								failures.incrementAndGet();
+							}
+							Token requestToken = new Token(new byte[] { (byte) threadIndex, (byte) (i & 0x3F) });
+							db.addSeqByToken(requestToken, i);
+							if (!Integer.valueOf(i).equals(db.getSeqByToken(requestToken))) {
+								failures.incrementAndGet();
+							}
+							db.removeSeqByToken(requestToken);
+							if (db.tokenExist(requestToken)) {
+								failures.incrementAndGet();
+							}
+							db.removeContext(ctx);
+							if (db.getContext(rid, ctx.getIdContext()) != null) {
+								failures.incrementAndGet();
+							}
+						}
+						db.addContext(ctx);
+					} catch (CoapOSException | InterruptedException e) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		assertEquals(0, failures.get());
+
+		for (OSCoreCtx ctx : contexts) {
+			assertEquals(ctx, db.getContext(rid, ctx.getIdContext()));
+			db.removeContext(ctx);
+		}
+		assertNull(db.getContext(rid));
+	}
+}
@@ -19,11 +19,17 @@ package org.eclipse.californium.oscore;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 
+import org.eclipse.californium.cose.AeadKey;
 import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.util.ExpectedExceptionWrapper;
 import org.junit.After;
 import org.junit.Before;
@@ -185,4 +191,118 @@ public class OSCoreCtxTest {
 		
 		assertArrayEquals(predictedCommonIVContextID, ctx.getCommonIV());
 	}
+
+	/**
+	 * Test that the cached cipher state of the sender and recipient keys is
+	 * reused between calls and rebuilt when a key is replaced.
+	 * 
+	 * @throws OSException if context generation fails
+	 */
+	@Test
+	public void testAeadKeyCache() throws OSException {
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, cipher, sid, rid, kdf, 32, null, null, MAX_UNFRAGMENTED_SIZE);
+
+		AeadKey senderKey = ctx.getSenderAeadKey();
+		AeadKey recipientKey = ctx.getRecipientAeadKey();
+		assertSame(senderKey, ctx.getSenderAeadKey());
+		assertSame(recipientKey, ctx.getRecipientAeadKey());
+		assertTrue(senderKey.isFor(ctx.getSenderKey()));
+
+		byte[] newKey = Arrays.copyOf(ctx.getRecipientKey(), ctx.getRecipientKey().length);
+		newKey[0] ^= 0x01;
+		ctx.setSenderKey(newKey);
+		ctx.setRecipientKey(newKey);
+
+		assertNotSame(senderKey, ctx.getSenderAeadKey());
+		assertNotSame(recipientKey, ctx.getRecipientAeadKey());
+		assertTrue(ctx.getSenderAeadKey().isFor(ctx.getSenderKey()));
+		assertTrue(ctx.getRecipientAeadKey().isFor(ctx.getRecipientKey()));
+	}
+
+	@Test
+	public void testReplayWindowConfiguration() throws OSException {
+		Configuration config = new Configuration();
+		config.set(OSCoreConfig.REPLAY_WINDOW_SIZE, 1000);
+		assertEquals(1000, new OSCoreCtx(master_secret, false, config).getRecipientReplaySize());
+		assertEquals(OSCoreConfig.DEFAULT_REPLAY_WINDOW_SIZE, new OSCoreCtx(master_secret, false).getRecipientReplaySize());
+	}
+
+	@Test
+	public void testReplayWindowSizeTooLarge() throws OSException {
+		exception.expect(IllegalArgumentException.class);
+		new OSCoreCtx(master_secret, false, cipher, sid, rid, kdf, OSCoreConfig.MAX_REPLAY_WINDOW_SIZE + 1, null, null,
+				MAX_UNFRAGMENTED_SIZE);
+	}
+
+	@Test
+	public void testReplayWindowConfigurationTooLarge() {
+		assertEquals(OSCoreConfig.MAX_REPLAY_WINDOW_SIZE, (int) OSCoreConfig.REPLAY_WINDOW_SIZE
+				.readValue(Integer.toString(OSCoreConfig.MAX_REPLAY_WINDOW_SIZE)));
+		try {
+			OSCoreConfig.REPLAY_WINDOW_SIZE.readValue(Integer.toString(OSCoreConfig.MAX_REPLAY_WINDOW_SIZE + 1));
+			fail("replay window size above maximum loaded");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		exception.expect(IllegalArgumentException.class);
+		new Configuration().set(OSCoreConfig.REPLAY_WINDOW_SIZE, OSCoreConfig.MAX_REPLAY_WINDOW_SIZE + 1);
+	}
+
+	/**
+	 * Receive a burst of reordered messages larger than the default window,
+	 * then check that replays are detected after the ring bitmap wrapped
+	 * around.
+	 */
+	@Test
+	public void testWideReplayWindow() throws OSException {
+		int windowSize = 1000;
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, false, cipher, sid, rid, kdf, windowSize, null, null,
+				MAX_UNFRAGMENTED_SIZE);
+
+		// reverse order
+		for (int seq = windowSize - 1; seq >= 0; seq--) {
+			ctx.checkIncomingSeq(seq);
+		}
+		assertEquals(0, ctx.getInternalReceiverSeq());
+		assertEquals(-1, ctx.getRecipientReplayWindow());
+		for (int seq = 0; seq < windowSize; seq++) {
+			assertReplay(ctx, seq);
+		}
+
+		// move the window several times over the ring, skipping every third
+		for (int seq = windowSize; seq < 10 * windowSize; seq++) {
+			if (seq % 3 != 0) {
+				ctx.checkIncomingSeq(seq);
+			}
+		}
+		int lowest = ctx.getInternalReceiverSeq();
+		// the last received sequence number is 10 * windowSize - 2
+		assertEquals(9 * windowSize - 1, lowest);
+		assertReplay(ctx, lowest - 1);
+		for (int seq = lowest; seq < lowest + windowSize; seq++) {
+			if (seq % 3 != 0) {
+				assertReplay(ctx, seq);
+			} else {
+				ctx.checkIncomingSeq(seq);
+			}
+		}
+
+		// jump ahead by more than the window
+		int seq = lowest + 5 * windowSize;
+		ctx.checkIncomingSeq(seq);
+		assertEquals(seq - windowSize + 1, ctx.getInternalReceiverSeq());
+		assertReplay(ctx, seq);
+		ctx.checkIncomingSeq(seq - 1);
+		ctx.checkIncomingSeq(seq - windowSize + 1);
+		assertFalse(ctx.getRecipientReplayWindow() == 0);
+	}
+
+	private static void assertReplay(OSCoreCtx ctx, int seq) {
+		try {
+			ctx.checkIncomingSeq(seq);
+			throw new AssertionError("replay of " + seq + " not detected");
+		} catch (OSException e) {
+			assertEquals(ErrorDescriptions.REPLAY_DETECT, e.getMessage());
+		}
+	}
 }
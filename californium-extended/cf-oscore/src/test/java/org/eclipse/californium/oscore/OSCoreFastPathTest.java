@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.californium.core.coap.CoAP.Code;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.Message;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.network.serialization.UdpDataParser;
+import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests that the OSCORE fast path produces the same messages as the generic
+ * path based on the COSE object model, and that messages protected by one
+ * path are accepted by the other.
+ *
+ */
+public class OSCoreFastPathTest {
+
+	private final static byte[] master_secret = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B,
+			0x0C, 0x0D, 0x0E, 0x0F, 0x10 };
+	private final static byte[] master_salt = new byte[] { (byte) 0x9e, 0x7c, (byte) 0xa9, 0x22, 0x23, 0x78, 0x63,
+			0x40 };
+	private final static byte[] sid = new byte[] { 0x00 };
+	private final static byte[] rid = new byte[] { 0x01 };
+	private final static byte[] long_sid = new byte[] { 0x63, 0x6C, 0x69, 0x65, 0x6E, 0x74 };
+	private final static byte[] context_id = { 0x37, (byte) 0xcb, (byte) 0xf3, 0x21, 0x00, 0x17, (byte) 0xa2,
+			(byte) 0xd3 };
+	private final static AlgorithmID kdf = AlgorithmID.HKDF_HMAC_SHA_256;
+	private final static int MAX_UNFRAGMENTED_SIZE = 4096;
+	private final static Token token = new Token(new byte[] { 0x01, 0x02, 0x03, 0x04 });
+
+	/**
+	 * Sequence numbers are never reused, as AES-GCM refuses to encrypt twice
+	 * with the same key and nonce.
+	 */
+	private static int sequence = 1;
+
+	@After
+	public void after() {
+		OSCoreFastPath.setEnabled(true);
+	}
+
+	@Test
+	public void testApplicable() throws OSException {
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid, kdf, 32, null,
+				null, MAX_UNFRAGMENTED_SIZE);
+		assertTrue(OSCoreFastPath.isApplicable(ctx));
+		OSCoreFastPath.setEnabled(false);
+		assertFalse(OSCoreFastPath.isApplicable(ctx));
+	}
+
+	@Test
+	public void testAesCcm16_64_128() throws OSException {
+		assertSameOutput(AlgorithmID.AES_CCM_16_64_128, sid, rid);
+		assertSameOutput(AlgorithmID.AES_CCM_16_64_128, long_sid, new byte[0]);
+	}
+
+	@Test
+	public void testAesCcm64_64_128() throws OSException {
+		assertSameOutput(AlgorithmID.AES_CCM_64_64_128, sid, rid);
+	}
+
+	@Test
+	public void testAesGcm128() throws OSException {
+		assertSameOutput(AlgorithmID.AES_GCM_128, sid, rid);
+		assertSameOutput(AlgorithmID.AES_GCM_128, long_sid, new byte[0]);
+	}
+
+	@Test
+	public void testAesGcm256() throws OSException {
+		assertSameOutput(AlgorithmID.AES_GCM_256, sid, rid);
+	}
+
+	@Test
+	public void testRoundTripAesCcm() throws Exception {
+		roundTrip(AlgorithmID.AES_CCM_16_64_128, true, false);
+		roundTrip(AlgorithmID.AES_CCM_16_64_128, false, true);
+		roundTrip(AlgorithmID.AES_CCM_16_64_128, true, true);
+	}
+
+	@Test
+	public void testRoundTripAesGcm() throws Exception {
+		roundTrip(AlgorithmID.AES_GCM_128, true, false);
+		roundTrip(AlgorithmID.AES_GCM_128, false, true);
+		roundTrip(AlgorithmID.AES_GCM_128, true, true);
+	}
+
+	@Test
+	public void testTamperedMessageRejected() throws Exception {
+		OSCoreCtx client = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid, kdf, 32,
+				master_salt, null, MAX_UNFRAGMENTED_SIZE);
+		OSCoreCtx server = new OSCoreCtx(master_secret, false, AlgorithmID.AES_CCM_16_64_128, rid, sid, kdf, 32,
+				master_salt, null, MAX_UNFRAGMENTED_SIZE);
+		Request request = createRequest();
+		HashMapCtxDB clientDb = new HashMapCtxDB();
+		clientDb.addContext(request.getURI(), client);
+		request = RequestEncryptor.encrypt(clientDb, request);
+
+		byte[] payload = request.getPayload();
+		payload[0] ^= 0x01;
+		request.setPayload(payload);
+		try {
+			RequestDecryptor.decrypt(new HashMapCtxDB(), transfer(request), server);
+			throw new AssertionError("tampered request accepted");
+		} catch (CoapOSException e) {
+			assertEquals(ErrorDescriptions.DECRYPTION_FAILED, e.getMessage());
+		}
+	}
+
+	/**
+	 * Protect requests and responses with both paths and compare option and
+	 * ciphertext. Uses partial IVs of different lengths, with and without ID
+	 * Context.
+	 */
+	private static void assertSameOutput(AlgorithmID alg, byte[] senderId, byte[] recipientId) throws OSException {
+		for (int base : new int[] { 0, 0x100, 0x10000, 0x1000000 }) {
+			for (boolean includeContextId : new boolean[] { false, true }) {
+				OSCoreCtx ctx = new OSCoreCtx(master_secret, true, alg, senderId, recipientId, kdf, 32, master_salt,
+						context_id, MAX_UNFRAGMENTED_SIZE);
+				ctx.setIncludeContextId(includeContextId);
+				assertTrue(OSCoreFastPath.isApplicable(ctx));
+
+				assertSameRequest(ctx, base + sequence++);
+				assertSameResponse(ctx, base + sequence++, base + sequence++, true);
+				assertSameResponse(ctx, base + sequence++, base + sequence++, false);
+			}
+		}
+	}
+
+	private static void assertSameRequest(OSCoreCtx ctx, int seq) throws OSException {
+		Request request = createRequest();
+		HashMapCtxDB db = new HashMapCtxDB();
+		db.addContext(request.getURI(), ctx);
+
+		ctx.setSenderSeq(seq);
+		OSCoreFastPath.setEnabled(true);
+		Request fast = RequestEncryptor.encrypt(db, request);
+
+		ctx.setSenderSeq(seq);
+		OSCoreFastPath.setEnabled(false);
+		Request generic = RequestEncryptor.encrypt(db, createRequest());
+		OSCoreFastPath.setEnabled(true);
+
+		assertNotNull(fast.getOptions().getOscore());
+		assertArrayEquals(generic.getOptions().getOscore(), fast.getOptions().getOscore());
+		assertArrayEquals(generic.getPayload(), fast.getPayload());
+		assertEquals(generic.getCode(), fast.getCode());
+	}
+
+	private static void assertSameResponse(OSCoreCtx ctx, int senderSeq, int requestSeq, boolean newPartialIV)
+			throws OSException {
+		ctx.setSenderSeq(senderSeq);
+		ctx.setReceiverSeq(requestSeq);
+		OSCoreFastPath.setEnabled(true);
+		Response fast = ResponseEncryptor.encrypt(null, createResponse(), ctx, newPartialIV, false, null);
+
+		ctx.setSenderSeq(senderSeq);
+		OSCoreFastPath.setEnabled(false);
+		Response generic = ResponseEncryptor.encrypt(null, createResponse(), ctx, newPartialIV, false, null);
+		OSCoreFastPath.setEnabled(true);
+
+		assertNotNull(fast.getOptions().getOscore());
+		assertNotNull(fast.getPayload());
+		assertArrayEquals(generic.getOptions().getOscore(), fast.getOptions().getOscore());
+		assertArrayEquals(generic.getPayload(), fast.getPayload());
+		assertEquals(generic.getCode(), fast.getCode());
+	}
+
+	/**
+	 * Exchange a request and response, protecting with one path and
+	 * verifying with the other.
+	 */
+	private static void roundTrip(AlgorithmID alg, boolean fastProtect, boolean fastUnprotect) throws Exception {
+		OSCoreCtx client = new OSCoreCtx(master_secret, true, alg, sid, rid, kdf, 32, master_salt, null,
+				MAX_UNFRAGMENTED_SIZE);
+		OSCoreCtx server = new OSCoreCtx(master_secret, false, alg, rid, sid, kdf, 32, master_salt, null,
+				MAX_UNFRAGMENTED_SIZE);
+		int seq = sequence++;
+		client.setSenderSeq(seq);
+		server.setSenderSeq(sequence++);
+
+		Request request = createRequest();
+		HashMapCtxDB clientDb = new HashMapCtxDB();
+		clientDb.addContext(request.getURI(), client);
+		OSCoreFastPath.setEnabled(fastProtect);
+		request = RequestEncryptor.encrypt(clientDb, request);
+
+		HashMapCtxDB serverDb = new HashMapCtxDB();
+		OSCoreFastPath.setEnabled(fastUnprotect);
+		Request received = RequestDecryptor.decrypt(serverDb, transfer(request), server);
+		assertEquals(Code.POST, received.getCode());
+		assertEquals("request", received.getPayloadString());
+		assertEquals(seq, server.getReceiverSeq());
+
+		for (boolean newPartialIV : new boolean[] { false, true }) {
+			Response response = createResponse();
+			OSCoreFastPath.setEnabled(fastProtect);
+			response = ResponseEncryptor.encrypt(serverDb, response, server, newPartialIV, false, null);
+
+			clientDb.addContext(token, client);
+			clientDb.addSeqByToken(token, seq);
+			OSCoreFastPath.setEnabled(fastUnprotect);
+			Response decrypted = ResponseDecryptor.decrypt(clientDb, transfer(response));
+			assertEquals(ResponseCode.CONTENT, decrypted.getCode());
+			assertEquals("response", decrypted.getPayloadString());
+		}
+	}
+
+	/**
+	 * Serialize and parse a message, as done when sending it.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Message> T transfer(T message) {
+		return (T) new UdpDataParser().parseMessage(new UdpDataSerializer().getByteArray(message));
+	}
+
+	private static Request createRequest() {
+		Request request = Request.newPost();
+		request.setMID(0x1234);
+		request.setURI("coap://localhost/test");
+		request.setToken(token);
+		request.setPayload("request");
+		return request;
+	}
+
+	private static Response createResponse() {
+		Response response = new Response(ResponseCode.CONTENT);
+		response.setType(Type.ACK);
+		response.setMID(0x1234);
+		response.setToken(token);
+		response.setPayload("response");
+		return response;
+	}
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.ExpectedExceptionWrapper;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the memory-mapped Sender Sequence Number journal (Appendix B.1).
+ *
+ */
+public class SsnJournalTest {
+
+	private static final int K = 12;
+	private static final int F = 3;
+
+	private final byte[] master_secret = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D,
+			0x0E, 0x0F, 0x10 };
+	private final byte[] sid = new byte[] { 0x01 };
+	private final byte[] rid = new byte[] { 0x02 };
+	private final byte[] context_id = { 0x74, 0x65, 0x73, 0x74 };
+	private final static int MAX_UNFRAGMENTED_SIZE = 4096;
+
+	@Rule
+	public final ExpectedException exception = ExpectedExceptionWrapper.none();
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void tearDown() {
+		SsnJournal.setDefault(null);
+		Configuration.setStandard(null);
+	}
+
+	@Test
+	public void testSaveAndResume() throws IOException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		SsnJournal journal = new SsnJournal(file, 4, K, F, 10);
+		int slot = journal.register(sid, rid, context_id);
+		int other = journal.register(rid, sid, context_id);
+		assertNotEquals(slot, other);
+		assertEquals(slot, journal.register(sid, rid, context_id));
+		assertEquals(-1, journal.resume(slot));
+		journal.save(slot, 120);
+		journal.save(other, 7);
+		journal.close();
+
+		journal = new SsnJournal(file, 2, K, F, 10);
+		assertEquals(slot, journal.register(sid, rid, context_id));
+		assertEquals(other, journal.register(rid, sid, context_id));
+		assertEquals(120 + K + F, journal.resume(slot));
+		assertEquals(7 + K + F, journal.resume(other));
+		journal.close();
+	}
+
+	@Test
+	public void testFull() throws IOException {
+		SsnJournal journal = new SsnJournal(new File(folder.getRoot(), "ssn.journal"), 2, K, F, 10);
+		journal.register(sid, rid, null);
+		journal.register(sid, rid, context_id);
+		assertEquals(-1, journal.register(rid, sid, null));
+		journal.close();
+	}
+
+	/**
+	 * Released slots keep the last saved SSN and are not reused, a slot is
+	 * only released with the last reference.
+	 */
+	@Test
+	public void testReleaseSlot() throws IOException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		SsnJournal journal = new SsnJournal(file, 3, K, F, 10);
+		int slot = journal.register(sid, rid, null);
+		assertEquals(slot, journal.register(sid, rid, null));
+		journal.release(slot);
+		journal.save(slot, 120);
+		journal.release(slot);
+		journal.release(slot);
+		int other = journal.register(rid, sid, null);
+		assertNotEquals(slot, other);
+		assertEquals(slot, journal.register(sid, rid, null));
+		assertEquals(120 + K + F, journal.resume(slot));
+		journal.release(slot);
+		journal.close();
+
+		// released slots are kept after reopening
+		journal = new SsnJournal(file, 3, K, F, 10);
+		assertEquals(slot, journal.register(sid, rid, null));
+		assertEquals(120 + K + F, journal.resume(slot));
+		assertEquals(other, journal.register(rid, sid, null));
+		assertEquals(3, journal.register(sid, rid, context_id));
+		assertEquals(-1, journal.register(rid, sid, context_id));
+		journal.close();
+	}
+
+	@Test
+	public void testMigrateLegacyFile() throws IOException {
+		File legacyFile = new File(folder.getRoot(), ".01-02-74657374");
+		FileWriter writer = new FileWriter(legacyFile);
+		writer.write("120\n");
+		writer.close();
+
+		SsnJournal journal = new SsnJournal(new File(folder.getRoot(), "ssn.journal"), 2, K, F, 10);
+		int slot = journal.register(sid, rid, context_id);
+		assertEquals(120 + K + F, journal.resume(slot));
+		assertFalse(legacyFile.exists());
+		journal.close();
+	}
+
+	@Test
+	public void testUnreadableLegacyFile() throws IOException {
+		File legacyFile = new File(folder.getRoot(), ".01-02-74657374");
+		FileWriter writer = new FileWriter(legacyFile);
+		writer.write("no ssn\n");
+		writer.close();
+
+		SsnJournal journal = new SsnJournal(new File(folder.getRoot(), "ssn.journal"), 2, K, F, 10);
+		assertEquals(-1, journal.register(sid, rid, context_id));
+		journal.close();
+	}
+
+	@Test
+	public void testUsedByOtherJournal() throws IOException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		SsnJournal journal = new SsnJournal(file, 2, K, F, 10);
+		try {
+			exception.expect(IOException.class);
+			new SsnJournal(file, 2, K, F, 10);
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Send messages with a context, then create the context again and check,
+	 * that the Sender Sequence Number is resumed beyond the used ones.
+	 */
+	@Test
+	public void testContextResumption() throws IOException, OSException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		SsnJournal journal = new SsnJournal(file, 4, K, F, 10);
+		SsnJournal.setDefault(journal);
+
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		assertEquals(0, ctx.getSenderSeq());
+		for (int i = 0; i < 30; i++) {
+			ctx.increaseSenderSeq();
+		}
+		journal.close();
+
+		journal = new SsnJournal(file, 4, K, F, 10);
+		SsnJournal.setDefault(journal);
+		ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		// last saved SSN is 24
+		assertEquals(24 + K + F, ctx.getSenderSeq());
+		journal.close();
+	}
+
+	/**
+	 * Without a journal, the first context opens it with the standard
+	 * configuration.
+	 */
+	@Test
+	public void testContextWithoutJournal() throws IOException, OSException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		Configuration config = new Configuration(OSCoreConfig.DEFINITIONS);
+		config.set(OSCoreConfig.SSN_JOURNAL_FILE, file.getPath());
+		Configuration.setStandard(config);
+		assertNull(SsnJournal.getDefault());
+
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		SsnJournal journal = SsnJournal.getDefault();
+		assertNotNull(journal);
+		try {
+			assertEquals(file, journal.getFile());
+			for (int i = 0; i < 30; i++) {
+				ctx.increaseSenderSeq();
+			}
+		} finally {
+			journal.close();
+		}
+
+		SsnJournal.setDefault(null);
+		ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		SsnJournal.getDefault().close();
+		// last saved SSN is 24
+		assertEquals(24 + K + F, ctx.getSenderSeq());
+	}
+
+	@Test
+	public void testContextWithFullJournal() throws IOException, OSException {
+		SsnJournal journal = new SsnJournal(new File(folder.getRoot(), "ssn.journal"), 1, K, F, 10);
+		SsnJournal.setDefault(journal);
+		journal.register(rid, sid, null);
+		try {
+			exception.expect(OSException.class);
+			new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+					AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * A second process using the same journal file must not get a journal.
+	 */
+	@Test
+	public void testContextWithJournalOfOtherProcess() throws IOException, OSException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		SsnJournal other = new SsnJournal(file, 2, K, F, 10);
+		Configuration config = new Configuration(OSCoreConfig.DEFINITIONS);
+		config.set(OSCoreConfig.SSN_JOURNAL_FILE, file.getPath());
+		Configuration.setStandard(config);
+		try {
+			SsnJournal.openDefault(config);
+			fail("journal used by other process opened");
+		} catch (IOException e) {
+			// expected
+		}
+		assertNull(SsnJournal.getDefault());
+		try {
+			exception.expect(OSException.class);
+			new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+					AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		} finally {
+			other.close();
+		}
+	}
+
+	/**
+	 * Removing a context from the database releases its slot, and the removed
+	 * context can't send anymore. A context created again with the same
+	 * identifiers resumes from the last saved SSN.
+	 */
+	@Test
+	public void testRemoveContextReleasesSlot() throws IOException, OSException {
+		SsnJournal journal = new SsnJournal(new File(folder.getRoot(), "ssn.journal"), 1, K, F, 10);
+		SsnJournal.setDefault(journal);
+		try {
+			OSCoreCtxDB db = new HashMapCtxDB();
+			OSCoreCtx ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+					AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+			db.addContext(ctx);
+			for (int i = 0; i < 2 * K; i++) {
+				ctx.increaseSenderSeq();
+			}
+			db.removeContext(ctx);
+
+			OSCoreCtx next = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+					AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+			// last saved SSN is K
+			assertEquals(K + K + F, next.getSenderSeq());
+			next.increaseSenderSeq();
+
+			// the next SSN to save
+			exception.expect(OSException.class);
+			ctx.increaseSenderSeq();
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Removing a context, which was replaced by a context with the same
+	 * identifiers, doesn't release the slot of the replacing context.
+	 */
+	@Test
+	public void testRemoveReplacedContext() throws IOException, OSException {
+		File file = new File(folder.getRoot(), "ssn.journal");
+		SsnJournal journal = new SsnJournal(file, 2, K, F, 10);
+		SsnJournal.setDefault(journal);
+		OSCoreCtxDB db = new HashMapCtxDB();
+		OSCoreCtx ctx = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		db.addContext(ctx);
+		OSCoreCtx replacement = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		db.removeContext(ctx);
+
+		// the other context must not get the slot of the replacement
+		OSCoreCtx other = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, rid, sid,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+		for (int i = 0; i < 30; i++) {
+			replacement.increaseSenderSeq();
+		}
+		other.increaseSenderSeq();
+		journal.close();
+
+		journal = new SsnJournal(file, 2, K, F, 10);
+		SsnJournal.setDefault(journal);
+		try {
+			replacement = new OSCoreCtx(master_secret, true, AlgorithmID.AES_CCM_16_64_128, sid, rid,
+					AlgorithmID.HKDF_HMAC_SHA_256, 32, null, context_id, MAX_UNFRAGMENTED_SIZE, true);
+			// last saved SSN is 24
+			assertEquals(24 + K + F, replacement.getSenderSeq());
+		} finally {
+			journal.close();
+		}
+	}
+}
@@ -20,6 +20,9 @@ package org.eclipse.californium.oscore.group;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
@@ -29,6 +32,9 @@ import java.security.Security;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.crypto.KeyAgreement;
 
@@ -41,6 +47,7 @@ import org.eclipse.californium.elements.rule.TestNameLoggerRule;
 import org.eclipse.californium.elements.util.Base64;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.elements.util.StringUtil;
+import org.eclipse.californium.oscore.ByteId;
 import org.eclipse.californium.oscore.HashMapCtxDB;
 import org.eclipse.californium.oscore.OSException;
 import org.junit.BeforeClass;
@@ -305,8 +312,60 @@ public class GroupKeyDerivationTest {
 				sharedSecret2);
 	}
 
+	@Test
+	public void testLazyAndPrewarmedPairwiseKeys() throws Exception {
+		GroupCtx lazyCtx = createEddsaCtx();
+		GroupCtx prewarmedCtx = createEddsaCtx();
+		lazyCtx.addToDb(groupEddsa, new HashMapCtxDB());
+		prewarmedCtx.addToDb(groupEddsa, new HashMapCtxDB());
+
+		// No pairwise keys are derived when adding the context
+		GroupRecipientCtx lazyRecipient1 = lazyCtx.recipientCtxMap.get(new ByteId(rid1));
+		assertTrue(lazyCtx.senderCtx.pairwiseSenderKeys.isEmpty());
+		assertNull(lazyRecipient1.pairwiseRecipientKey);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (Future<?> future : prewarmedCtx.prewarmPairwiseKeys(executor)) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		GroupRecipientCtx prewarmedRecipient1 = prewarmedCtx.recipientCtxMap.get(new ByteId(rid1));
+		assertEquals(2, prewarmedCtx.senderCtx.pairwiseSenderKeys.size());
+		assertNotNull(prewarmedRecipient1.pairwiseRecipientKey);
+
+		// Derived on first use, equal to the prewarmed keys
+		assertArrayEquals(prewarmedCtx.senderCtx.getPairwiseSenderKey(rid1),
+				lazyCtx.senderCtx.getPairwiseSenderKey(rid1));
+		assertEquals(1, lazyCtx.senderCtx.pairwiseSenderKeys.size());
+		assertArrayEquals(prewarmedRecipient1.getPairwiseRecipientKey(), lazyRecipient1.getPairwiseRecipientKey());
+		assertNull(lazyCtx.senderCtx.getPairwiseSenderKey(new byte[] { 0x7F }));
+	}
+
 	/* --- End of tests --- */
 
+	/**
+	 * Creates a Group OSCORE context using EdDSA, without adding it to a
+	 * database.
+	 * 
+	 * @return the context
+	 * @throws OSException on failure to create the context
+	 * @throws CoseException on failure to create the context
+	 * @throws IOException on test failure
+	 */
+	private static GroupCtx createEddsaCtx() throws OSException, CoseException, IOException {
+		GroupCtx groupCtx = new GroupCtx(master_secret, master_salt, alg, kdf, context_id, AlgorithmID.EDDSA,
+				gmPublicKey);
+		groupCtx.addSenderCtx(sid, new OneKey(CBORObject.DecodeFromBytes(Base64.decode(senderFullKeyEddsa))));
+		groupCtx.addRecipientCtx(rid1, REPLAY_WINDOW,
+				new OneKey(CBORObject.DecodeFromBytes(Base64.decode(recipient1PublicKeyEddsa))));
+		groupCtx.addRecipientCtx(rid2, REPLAY_WINDOW,
+				new OneKey(CBORObject.DecodeFromBytes(Base64.decode(recipient2PublicKeyEddsa))));
+		return groupCtx;
+	}
+
 	/**
 	 * Derives OSCORE context information for tests
 	 *
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.californium.elements.rule.TestNameLoggerRule;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Tests the execution of the unprotection of responses by the
+ * {@link SignatureVerifier}.
+ */
+public class SignatureVerifierTest {
+
+	@Rule
+	public TestNameLoggerRule name = new TestNameLoggerRule();
+
+	private static final byte[] PEER_A = new byte[] { 0x0A };
+	private static final byte[] PEER_B = new byte[] { 0x0B };
+
+	private SignatureVerifier verifier;
+
+	@After
+	public void tearDown() {
+		if (verifier != null) {
+			verifier.close();
+		}
+	}
+
+	@Test
+	public void testSamePeerKeepsOrder() throws Exception {
+		verifier = new SignatureVerifier(4, 100);
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++) {
+			final int index = i;
+			verifier.execute(PEER_A.clone(), new Runnable() {
+
+				@Override
+				public void run() {
+					order.add(index);
+					done.countDown();
+				}
+			});
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(Integer.valueOf(i), order.get(i));
+		}
+	}
+
+	@Test
+	public void testOtherPeersInParallel() throws Exception {
+		verifier = new SignatureVerifier(2, 4);
+		// find a peer in the other lane
+		byte[] peerB = PEER_B;
+		while (lane(peerB) == lane(PEER_A)) {
+			peerB = new byte[] { (byte) (peerB[0] + 1) };
+		}
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch executedA = new CountDownLatch(1);
+		final CountDownLatch executedB = new CountDownLatch(1);
+		verifier.execute(PEER_A, new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+				}
+				executedA.countDown();
+			}
+		});
+		verifier.execute(peerB, new Runnable() {
+
+			@Override
+			public void run() {
+				executedB.countDown();
+			}
+		});
+
+		// peer B is not blocked by the pending job of peer A
+		assertTrue(executedB.await(5, TimeUnit.SECONDS));
+		assertEquals(1, executedA.getCount());
+		release.countDown();
+		assertTrue(executedA.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testBackPressure() throws Exception {
+		verifier = new SignatureVerifier(1, 1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch executed = new CountDownLatch(3);
+		Runnable job = new Runnable() {
+
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+				}
+				executed.countDown();
+			}
+		};
+		verifier.execute(PEER_A, job);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		// fills the queue
+		verifier.execute(PEER_A, job);
+
+		final AtomicBoolean submitted = new AtomicBoolean();
+		Thread producer = new Thread() {
+
+			@Override
+			public void run() {
+				verifier.execute(PEER_A, executedJob(executed));
+				submitted.set(true);
+			}
+		};
+		producer.start();
+		producer.join(200);
+
+		// the producer waits for free space
+		assertFalse(submitted.get());
+		release.countDown();
+		producer.join(5000);
+		assertTrue(submitted.get());
+		assertTrue(executed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void testExecuteAfterClose() throws Exception {
+		verifier = new SignatureVerifier(1, 1);
+		verifier.close();
+		verifier.execute(PEER_A, executedJob(new CountDownLatch(1)));
+	}
+
+	private int lane(byte[] peer) throws InterruptedException {
+		final String[] thread = new String[1];
+		final CountDownLatch executed = new CountDownLatch(1);
+		verifier.execute(peer, new Runnable() {
+
+			@Override
+			public void run() {
+				thread[0] = Thread.currentThread().getName();
+				executed.countDown();
+			}
+		});
+		assertTrue(executed.await(5, TimeUnit.SECONDS));
+		return thread[0].hashCode();
+	}
+
+	private static Runnable executedJob(final CountDownLatch executed) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				executed.countDown();
+			}
+		};
+	}
+}
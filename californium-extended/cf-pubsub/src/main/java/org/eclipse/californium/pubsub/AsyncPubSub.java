@@ -0,0 +1,485 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.core.CoapClient;
+import org.eclipse.californium.core.CoapHandler;
+import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.CoapEndpoint;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.eclipse.californium.elements.util.NotForAndroid;
+
+/**
+ * An asynchronous variant of {@link PubSub} for clients with a high rate of
+ * requests, e.g. gateways publishing the readings of many sensors.
+ *
+ * All requests are sent by one {@link CoapClient} over one {@link Endpoint}
+ * and return a {@link CompletableFuture}, which is completed with the
+ * response, or exceptionally with a {@link TimeoutException}, if no response
+ * arrives within the timeout, or an {@link IOException}, if the request failed.
+ * The futures are completed by a thread of the endpoint, dependent actions
+ * which block should use one of the async methods of the future.
+ *
+ * At most NSTART requests are in flight at the same time. Further requests
+ * are queued and sent in order when a response arrives. Publications may be
+ * sent as NON requests, see {@link #setNonPublish(boolean)}.
+ *
+ * {@link #close()} completes the futures of all queued and in-flight requests
+ * exceptionally with an {@link IOException}.
+ *
+ * Requires Java 8, the other classes of this module are also available on
+ * Android.
+ */
+@NotForAndroid
+public class AsyncPubSub implements Closeable {
+
+    private static final String SCHEME = "coap";
+    private final String host;
+    private final int port;
+    private final long timeout;
+    private final int nstart;
+    /** the client sending all requests */
+    private final CoapClient client;
+    /** the endpoint, if created by this instance */
+    private final Endpoint ownEndpoint;
+    /** the scheduler for the timeouts */
+    private final ScheduledExecutorService timer;
+    /** the requests waiting for one of the NSTART slots */
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<Pending>();
+    /** the requests in flight, completed exceptionally on {@link #close()} */
+    private final Set<Pending> started = Collections.newSetFromMap(new ConcurrentHashMap<Pending, Boolean>());
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean nonPublish;
+    private volatile boolean closed;
+
+    /**
+     * Creates an instance of AsyncPubSub with the port set to 5683 (CoAP default port), timeout 5000 milliseconds
+     * and NSTART from the standard configuration
+     * @param host ip address of the broker
+     */
+    public AsyncPubSub(String host) {
+        this(host, 5683, 5000, Configuration.getStandard().get(CoapConfig.NSTART));
+    }
+
+    /**
+     * Creates an instance of AsyncPubSub with specified parameters and its own endpoint
+     * @param host ip address of the broker as a String
+     * @param port number of the broker
+     * @param timeout time the client waits for a response (timeout = 0 -&gt; waits indefinitely)
+     * @param nstart maximum number of requests in flight
+     */
+    public AsyncPubSub(String host, int port, long timeout, int nstart) {
+        this(host, port, timeout, nstart, null);
+    }
+
+    /**
+     * Creates an instance of AsyncPubSub with specified parameters
+     * @param host ip address of the broker as a String
+     * @param port number of the broker
+     * @param timeout time the client waits for a response (timeout = 0 -&gt; waits indefinitely)
+     * @param nstart maximum number of requests in flight
+     * @param endpoint the endpoint to send the requests, which may be shared and is not destroyed on {@link #close()}.
+     *                 If null, an endpoint is created and destroyed on {@link #close()}
+     * @throws IllegalArgumentException if nstart is less than 1 or the timeout is negative
+     */
+    public AsyncPubSub(String host, int port, long timeout, int nstart, Endpoint endpoint) {
+        if (nstart < 1) {
+            throw new IllegalArgumentException("NSTART " + nstart + " must be at least 1!");
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout " + timeout + " must not be negative!");
+        }
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+        this.nstart = nstart;
+        if (endpoint == null) {
+            CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+            builder.setConfiguration(Configuration.getStandard());
+            endpoint = builder.build();
+            this.ownEndpoint = endpoint;
+        } else {
+            this.ownEndpoint = null;
+        }
+        this.client = new CoapClient();
+        this.client.setEndpoint(endpoint);
+        this.timer = ExecutorsUtil.newSingleThreadScheduledExecutor(new DaemonThreadFactory("PubSub-Timeout#"));
+    }
+
+    /**
+     * @return host ip as a String
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return port number
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return timeout - time the client waits for response
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the maximum number of requests in flight
+     */
+    public int getNstart() {
+        return nstart;
+    }
+
+    /**
+     * @return the number of requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of requests waiting to be sent
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return true if publications are sent as NON requests
+     */
+    public boolean isNonPublish() {
+        return nonPublish;
+    }
+
+    /**
+     * Sets whether publications are sent as NON requests. The broker still responds,
+     * but lost publications are not retransmitted
+     * @param nonPublish true to send publications as NON requests
+     */
+    public void setNonPublish(boolean nonPublish) {
+        this.nonPublish = nonPublish;
+    }
+
+    /**
+     * Sends an asynchronous GET request to the broker with a specified query
+     * @param query String e.g. rt=core.ps, empty for all topics
+     * @return the future response, which contains the topics with the attributes specified by the query
+     */
+    public CompletableFuture<CoapResponse> discover(String query) {
+        Request discover = Request.newGet();
+        discover.setURI(uri(".well-known/core"));
+        if (query != null && !query.isEmpty()) {
+            discover.getOptions().setUriQuery(query);
+        }
+        return send(discover);
+    }
+
+    /**
+     * Sends an asynchronous POST request to the broker which creates a topic at the broker
+     * @param name String is the name of the topic
+     * @param ct int is the content type of the topic (ct=40 for parent folder, ct=0 for plain text)
+     * @param uri String or String[] is the path where the topic should be created
+     * @return the future response
+     */
+    public CompletableFuture<CoapResponse> create(String name, int ct, String... uri) {
+        Request req = Request.newPost();
+        req.setURI(uri(uri));
+        req.setPayload("<" + name + ">;ct=" + ct);
+        req.getOptions().setContentFormat(ct);
+        return send(req);
+    }
+
+    /**
+     * Sends an asynchronous PUT request to the broker which publishes data to a topic
+     * @param payload String is data to be published
+     * @param ct int is the content type of the data (has to match ct of the topic)
+     * @param uri String or String[] is the path of the topic to which data should be published
+     * @return the future response
+     */
+    public CompletableFuture<CoapResponse> publish(String payload, int ct, String... uri) {
+        return publish(payload.getBytes(StandardCharsets.UTF_8), ct, uri);
+    }
+
+    /**
+     * Sends an asynchronous PUT request to the broker which publishes data to a topic
+     * @param payload byte[] is data to be published
+     * @param ct int is the content type of the data (has to match ct of the topic)
+     * @param uri String or String[] is the path of the topic to which data should be published
+     * @return the future response
+     */
+    public CompletableFuture<CoapResponse> publish(byte[] payload, int ct, String... uri) {
+        Request req = Request.newPut();
+        req.setURI(uri(uri));
+        if (nonPublish) {
+            req.setType(Type.NON);
+        }
+        req.setPayload(payload);
+        req.getOptions().setContentFormat(ct);
+        return send(req);
+    }
+
+    /**
+     * Publishes data to many topics. The requests are queued at once and sent
+     * as NSTART permits
+     * @param payloads the data to be published, by path of the topic (e.g. ps/t1/t2)
+     * @param ct int is the content type of the data (has to match ct of the topics)
+     * @return the future responses, by path of the topic in the order of the payloads
+     */
+    public Map<String, CompletableFuture<CoapResponse>> publishAll(Map<String, byte[]> payloads, int ct) {
+        Map<String, CompletableFuture<CoapResponse>> responses =
+                new LinkedHashMap<String, CompletableFuture<CoapResponse>>();
+        for (Map.Entry<String, byte[]> entry : payloads.entrySet()) {
+            responses.put(entry.getKey(), publish(entry.getValue(), ct, entry.getKey()));
+        }
+        return responses;
+    }
+
+    /**
+     * Sends an asynchronous GET request to the broker which retrieves data from the topic
+     * @param uri String or String[] is the path of the topic from which the data should be read
+     * @return the future response, which contains the data
+     */
+    public CompletableFuture<CoapResponse> read(String... uri) {
+        Request req = Request.newGet();
+        req.setURI(uri(uri));
+        return send(req);
+    }
+
+    /**
+     * Sends an asynchronous DELETE request to the broker which removes the specified topic from the broker
+     * @param uri String or String[] is the path of the topic which should be removed
+     * @return the future response
+     */
+    public CompletableFuture<CoapResponse> remove(String... uri) {
+        Request req = Request.newDelete();
+        req.setURI(uri(uri));
+        return send(req);
+    }
+
+    /**
+     * @return true if this instance is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Cancels the queued and in-flight requests, completing their futures
+     * exceptionally, and stops the timeouts. The endpoint is destroyed,
+     * if it was created by this instance. Requests sent afterwards fail
+     * immediately
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            queued.decrementAndGet();
+            pending.fail();
+        }
+        for (Pending request : started) {
+            request.fail();
+        }
+        client.shutdown();
+        timer.shutdownNow();
+        if (ownEndpoint != null) {
+            ownEndpoint.destroy();
+        }
+    }
+
+    /**
+     * Queues a request and sends it, if less than NSTART requests are in flight
+     * @param request the request
+     * @return the future response
+     */
+    private CompletableFuture<CoapResponse> send(Request request) {
+        Pending pending = new Pending(request);
+        if (closed) {
+            pending.fail();
+            return pending.future;
+        }
+        queued.incrementAndGet();
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            // raced with close
+            queued.decrementAndGet();
+            pending.fail();
+        }
+        sendQueued();
+        return pending.future;
+    }
+
+    /**
+     * Sends queued requests while less than NSTART requests are in flight
+     */
+    private void sendQueued() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= nstart) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Pending pending = queue.poll();
+            if (pending == null) {
+                inFlight.decrementAndGet();
+                // a request may have been queued after the poll
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            queued.decrementAndGet();
+            pending.start();
+        }
+    }
+
+    /**
+     * Builds the uri of a resource of the broker
+     * @param path String or String[] is the path of the resource
+     * @return the uri
+     */
+    private String uri(String... path) {
+        StringBuilder builder = new StringBuilder();
+        for (String segment : path) {
+            if (builder.length() == 0 || builder.charAt(builder.length() - 1) != '/') {
+                builder.append('/');
+            }
+            builder.append(segment.startsWith("/") ? segment.substring(1) : segment);
+        }
+        try {
+            return new URI(SCHEME, null, host, port, builder.toString(), null, null).toASCIIString();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid uri for " + builder + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A request waiting for its response. The members used by
+     * {@link AsyncPubSub} are package-private.
+     */
+    @NotForAndroid
+    private class Pending implements CoapHandler, Runnable {
+
+        private final Request request;
+        final CompletableFuture<CoapResponse> future = new CompletableFuture<CoapResponse>();
+        private volatile ScheduledFuture<?> timeoutTask;
+
+        Pending(Request request) {
+            this.request = request;
+        }
+
+        /**
+         * Sends the request, unless the future is already canceled by the
+         * caller or this instance is closed. When the future is completed,
+         * the request releases its slot.
+         */
+        void start() {
+            started.add(this);
+            future.whenComplete((response, error) -> {
+                ScheduledFuture<?> task = timeoutTask;
+                if (task != null) {
+                    task.cancel(false);
+                }
+                if (error != null) {
+                    request.cancel();
+                }
+                started.remove(this);
+                inFlight.decrementAndGet();
+                sendQueued();
+            });
+            if (closed) {
+                fail();
+                return;
+            }
+            if (timeout > 0) {
+                try {
+                    timeoutTask = timer.schedule(this, timeout, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // raced with close
+                    fail();
+                    return;
+                }
+            }
+            if (!future.isDone()) {
+                client.advanced(this, request);
+            }
+        }
+
+        /**
+         * Completes the future exceptionally, because this instance is closed.
+         */
+        void fail() {
+            future.completeExceptionally(new IOException("Request to " + request.getURI() + " canceled, closed"));
+        }
+
+        @Override
+        public void run() {
+            future.completeExceptionally(new TimeoutException(
+                    "No response for " + request.getURI() + " within " + timeout + " ms"));
+        }
+
+        @Override
+        public void onLoad(CoapResponse response) {
+            future.complete(response);
+        }
+
+        @Override
+        public void onError() {
+            Throwable error = request.getSendError();
+            if (error != null) {
+                future.completeExceptionally(new IOException("Request to " + request.getURI() + " failed", error));
+            } else if (request.isTimedOut()) {
+                future.completeExceptionally(new TimeoutException("Request to " + request.getURI() + " timed out"));
+            } else {
+                future.completeExceptionally(new IOException("Request to " + request.getURI() + " failed"));
+            }
+        }
+    }
+}
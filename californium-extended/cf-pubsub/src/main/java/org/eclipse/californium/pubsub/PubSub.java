@@ -325,7 +325,7 @@ public class PubSub {
 
             config.set(CoapConfig.TOKEN_SIZE_LIMIT, 4);
             RandomTokenGenerator rand = new RandomTokenGenerator(config);
-            Token token = rand.createToken(Scope.SHORT_TERM_CLIENT_LOCAL);
+            Token token = rand.createToken(Scope.LONG_TERM);
             req.setToken(token);
 
             relation = client.observe(req, handler);
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.server.resources.Resource;
+import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+
+/**
+ * A broker according to the IETF Publish-Subscribe Model for the Constrained
+ * Application Protocol (CoAP) RFC draft, to be used by the
+ * {@link org.eclipse.californium.pubsub.PubSub} client.
+ *
+ * The topics are {@link TopicResource}s below the root of the function set,
+ * by default "ps", which can be discovered with the query "rt=core.ps". The
+ * root is a parent topic.
+ *
+ * Requests and notifications of the topics are processed by the executor of
+ * the broker. A publisher gets its response when the publication is retained,
+ * the observing subscribers are notified afterwards.
+ *
+ * Example:
+ * <pre>
+ * PubSubBroker broker = new PubSubBroker();
+ * CoapServer server = new CoapServer();
+ * broker.addTo(server);
+ * server.start();
+ * </pre>
+ */
+public class PubSubBroker {
+
+    /** the default name of the root of the function set */
+    public static final String DEFAULT_ROOT = "ps";
+    /** the default number of queued publications per local subscriber */
+    public static final int DEFAULT_QUEUE_SIZE = 16;
+    /** the resource type of the root of the function set */
+    public static final String RESOURCE_TYPE = "core.ps";
+
+    /** the root topic */
+    private final TopicResource root;
+    /** the number of queued publications per local subscriber */
+    private final int queueSize;
+    /** the executor for requests, notifications and local subscribers */
+    private final ExecutorService executor;
+    /** the executor is created and shut down by the broker */
+    private final boolean ownExecutor;
+
+    /**
+     * Creates a broker with root "ps", a queue size of 16 and an executor
+     * with one thread per available processor
+     */
+    public PubSubBroker() {
+        this(DEFAULT_ROOT, DEFAULT_QUEUE_SIZE, null);
+    }
+
+    /**
+     * Creates a broker with specified parameters
+     * @param rootName the name of the root of the function set
+     * @param queueSize the number of queued publications per local subscriber
+     * @param executor the executor for requests, notifications and local subscribers.
+     *                 If null, an executor with one thread per available processor is
+     *                 created and shut down by {@link #destroy()}
+     * @throws IllegalArgumentException if the queue size is less than 1
+     */
+    public PubSubBroker(String rootName, int queueSize, ExecutorService executor) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("Queue size " + queueSize + " must be at least 1!");
+        }
+        this.queueSize = queueSize;
+        this.ownExecutor = executor == null;
+        if (executor == null) {
+            executor = ExecutorsUtil.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    new DaemonThreadFactory("PubSub-Broker#"));
+        }
+        this.executor = executor;
+        this.root = new TopicResource(this, rootName, TopicResource.PARENT);
+        this.root.getAttributes().addResourceType(RESOURCE_TYPE);
+    }
+
+    /**
+     * @return the root topic
+     */
+    public TopicResource getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of queued publications per local subscriber
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return the executor for requests, notifications and local subscribers
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Adds the root of the function set to a server
+     * @param server the server
+     */
+    public void addTo(CoapServer server) {
+        server.add(root);
+    }
+
+    /**
+     * Creates a topic
+     * @param name the name of the topic
+     * @param ct the content format of the topic ({@link TopicResource#PARENT} for a parent topic)
+     * @param path the path of the parent topic below the root, empty for a topic of the root
+     * @return the created topic, or null if the topic already exists
+     * @throws IllegalArgumentException if the parent topic doesn't exist
+     * @throws IllegalStateException if the parent is not a parent topic
+     */
+    public TopicResource createTopic(String name, int ct, String... path) {
+        TopicResource parent = getTopic(path);
+        if (parent == null) {
+            throw new IllegalArgumentException("Parent topic " + Arrays.toString(path) + " doesn't exist!");
+        }
+        return parent.createTopic(name, ct);
+    }
+
+    /**
+     * Gets a topic
+     * @param path the path of the topic below the root, empty for the root
+     * @return the topic, or null if the topic doesn't exist
+     */
+    public TopicResource getTopic(String... path) {
+        Resource topic = root;
+        for (String name : path) {
+            topic = topic.getChild(name);
+            if (topic == null) {
+                return null;
+            }
+        }
+        return topic instanceof TopicResource ? (TopicResource) topic : null;
+    }
+
+    /**
+     * Shuts down the executor, if it was created by the broker
+     */
+    public void destroy() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+}
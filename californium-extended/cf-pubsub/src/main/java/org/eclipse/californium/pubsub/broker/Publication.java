@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+/**
+ * Data published to a topic of the {@link PubSubBroker}.
+ *
+ * The last publication of a topic is retained by the broker and returned to
+ * readers and new subscribers.
+ */
+public final class Publication {
+
+    /** the uri of the topic */
+    private final String topic;
+    /** the published data */
+    private final byte[] payload;
+    /** the content format of the data */
+    private final int contentFormat;
+    /** the sequence number of the publication within the topic */
+    private final long sequence;
+
+    /**
+     * Creates a publication
+     * @param topic uri of the topic
+     * @param payload published data
+     * @param contentFormat content format of the data
+     * @param sequence number of the publication within the topic, starting with 1
+     */
+    Publication(String topic, byte[] payload, int contentFormat, long sequence) {
+        this.topic = topic;
+        this.payload = payload;
+        this.contentFormat = contentFormat;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return the uri of the topic
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * The data is shared with all subscribers and must not be modified.
+     * @return the published data
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return the content format of the data
+     */
+    public int getContentFormat() {
+        return contentFormat;
+    }
+
+    /**
+     * A gap in the sequence numbers received by a subscriber indicates
+     * publications dropped from its queue.
+     * @return the sequence number of the publication within the topic
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local subscriber of a topic of the {@link PubSubBroker}, e.g. to bridge
+ * the publications to another transport or to store them.
+ *
+ * Publications are queued per subscriber and delivered to its
+ * {@link Listener} by the executor of the broker, one at a time and in the
+ * order of publication. The queue is bounded: if the listener does not keep
+ * up, the oldest queued publication is dropped, so a slow subscriber neither
+ * blocks the publishers nor the other subscribers.
+ *
+ * CoAP subscribers observe the topic instead. For them, the observe layer of
+ * Californium keeps at most one postponed notification per relation and
+ * always sends the freshest one.
+ */
+public class Subscriber {
+
+    /**
+     * The logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(Subscriber.class);
+
+    /**
+     * Receives the publications of a topic.
+     */
+    public interface Listener {
+
+        /**
+         * Called for each publication, which was not dropped from the queue
+         * @param publication Publication
+         */
+        void onPublication(Publication publication);
+    }
+
+    /** the subscribed topic */
+    private final TopicResource topic;
+    /** the listener for the publications */
+    private final Listener listener;
+    /** the executor delivering the publications */
+    private final Executor executor;
+    /** the maximum number of queued publications */
+    private final int capacity;
+    /** the queued publications, guarded by this */
+    private final ArrayDeque<Publication> queue;
+    /** delivery of the queue is scheduled, guarded by this */
+    private boolean scheduled;
+    /** the number of dropped publications, guarded by this */
+    private long dropped;
+    /** the subscription is canceled */
+    private volatile boolean canceled;
+
+    private final Runnable deliverer = new Runnable() {
+
+        @Override
+        public void run() {
+            deliver();
+        }
+    };
+
+    /**
+     * Creates a subscriber, which is added to the topic by
+     * {@link TopicResource#subscribe(Listener)}
+     * @param topic the subscribed topic
+     * @param listener the listener for the publications
+     * @param capacity the maximum number of queued publications
+     * @param executor the executor delivering the publications
+     */
+    Subscriber(TopicResource topic, Listener listener, int capacity, Executor executor) {
+        this.topic = topic;
+        this.listener = listener;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.queue = new ArrayDeque<Publication>(capacity);
+    }
+
+    /**
+     * @return the subscribed topic
+     */
+    public TopicResource getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return the number of publications dropped because the queue was full
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of queued publications
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return true if the subscription is canceled, either by the subscriber or by removing the topic
+     */
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Cancels the subscription. Queued publications are not delivered anymore.
+     */
+    public void cancel() {
+        canceled = true;
+        topic.unsubscribe(this);
+        synchronized (this) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Queues a publication, dropping the oldest queued one if the queue is full
+     * @param publication Publication
+     */
+    void offer(Publication publication) {
+        synchronized (this) {
+            if (canceled) {
+                return;
+            }
+            if (queue.size() == capacity) {
+                queue.poll();
+                ++dropped;
+            }
+            queue.add(publication);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            executor.execute(deliverer);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("broker stopped, publication for {} not delivered", topic.getURI());
+            synchronized (this) {
+                scheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Delivers up to the capacity of queued publications and reschedules
+     * itself, if more are queued, to share the executor with the other
+     * subscribers.
+     */
+    private void deliver() {
+        for (int count = 0; count < capacity; ++count) {
+            Publication publication;
+            synchronized (this) {
+                publication = canceled ? null : queue.poll();
+                if (publication == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            try {
+                listener.onPublication(publication);
+            } catch (RuntimeException e) {
+                LOGGER.warn("subscriber of {} failed: {}", topic.getURI(), e.getMessage());
+            }
+        }
+        try {
+            executor.execute(deliverer);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("broker stopped, publications for {} not delivered", topic.getURI());
+            synchronized (this) {
+                scheduled = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.core.server.resources.Resource;
+
+/**
+ * A topic of the {@link PubSubBroker}.
+ *
+ * A topic with content format 40 (link-format) is a parent topic. It lists
+ * its child topics on GET, creates a child topic on POST with a payload like
+ * {@code <name>;ct=0}, as sent by
+ * {@link org.eclipse.californium.pubsub.PubSub#create(String, int, String...)},
+ * and removes itself including all child topics on DELETE.
+ *
+ * Any other topic holds data of its content format. PUT publishes data, if
+ * the content format of the request matches the one of the topic, otherwise
+ * the broker responds with 4.15 (Unsupported Content-Format). The last
+ * publication is retained and returned on GET. The topic is observable,
+ * each publication notifies the observing CoAP subscribers and is queued for
+ * the local {@link Subscriber}s.
+ *
+ * The children of a topic are kept in the concurrent map of
+ * {@link CoapResource}, topics are created and removed while others are
+ * read or published.
+ */
+public class TopicResource extends CoapResource {
+
+    /** content format of parent topics */
+    public static final int PARENT = MediaTypeRegistry.APPLICATION_LINK_FORMAT;
+
+    /** the payload of a create request, e.g. "&lt;name&gt;;ct=0" */
+    private static final Pattern CREATE = Pattern.compile("<([^<>/]+)>.*;ct=(\\d+).*");
+
+    /** the broker */
+    private final PubSubBroker broker;
+    /** the content format of the topic */
+    private final int contentFormat;
+    /** the local subscribers */
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+    /** the retained publication, guarded by this for updates */
+    private volatile Publication retained;
+    /** the topic is removed */
+    private volatile boolean removed;
+
+    /**
+     * Creates a topic
+     * @param broker the broker
+     * @param name the name of the topic
+     * @param contentFormat the content format of the topic, {@link #PARENT} for a parent topic
+     */
+    TopicResource(PubSubBroker broker, String name, int contentFormat) {
+        super(name);
+        this.broker = broker;
+        this.contentFormat = contentFormat;
+        getAttributes().addContentType(contentFormat);
+        if (!isParent()) {
+            setObservable(true);
+            getAttributes().setObservable();
+        }
+    }
+
+    /**
+     * @return the content format of the topic
+     */
+    public int getContentFormat() {
+        return contentFormat;
+    }
+
+    /**
+     * @return true if the topic is a parent topic, which holds other topics instead of data
+     */
+    public boolean isParent() {
+        return contentFormat == PARENT;
+    }
+
+    /**
+     * @return the retained publication, or null if nothing was published yet
+     */
+    public Publication getRetained() {
+        return retained;
+    }
+
+    /**
+     * @return the number of local subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Notifications and requests are processed by the executor of the broker,
+     * so publishers do not wait for the fan-out to the subscribers.
+     */
+    @Override
+    public Executor getExecutor() {
+        return broker.getExecutor();
+    }
+
+    /**
+     * Creates a child topic
+     * @param name the name of the child topic
+     * @param contentFormat the content format of the child topic
+     * @return the created topic, or null if a child with that name already exists
+     * @throws IllegalStateException if this topic is not a parent topic or removed
+     */
+    public TopicResource createTopic(String name, int contentFormat) {
+        if (!isParent()) {
+            throw new IllegalStateException("Topic " + getURI() + " is not a parent topic!");
+        }
+        TopicResource topic = new TopicResource(broker, name, contentFormat);
+        synchronized (this) {
+            if (removed) {
+                throw new IllegalStateException("Topic " + getURI() + " is removed!");
+            }
+            if (getChild(name) != null) {
+                return null;
+            }
+            add(topic);
+        }
+        return topic;
+    }
+
+    /**
+     * Publishes data to this topic. The data is retained and delivered to the subscribers.
+     * @param payload the data, which must not be modified afterwards
+     * @param contentFormat the content format of the data
+     * @return the publication
+     * @throws IllegalArgumentException if the content format doesn't match the one of the topic
+     * @throws IllegalStateException if this topic is a parent topic or removed
+     */
+    public Publication publish(byte[] payload, int contentFormat) {
+        if (isParent()) {
+            throw new IllegalStateException("Topic " + getURI() + " is a parent topic!");
+        }
+        if (contentFormat != this.contentFormat) {
+            throw new IllegalArgumentException("Content format " + contentFormat + " doesn't match "
+                    + this.contentFormat + " of topic " + getURI() + "!");
+        }
+        Publication publication;
+        synchronized (this) {
+            if (removed) {
+                throw new IllegalStateException("Topic " + getURI() + " is removed!");
+            }
+            Publication previous = retained;
+            publication = new Publication(getURI(), payload, contentFormat,
+                    previous == null ? 1 : previous.getSequence() + 1);
+            retained = publication;
+            // queue while holding the lock to keep the order of concurrent publishers
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(publication);
+            }
+        }
+        changed();
+        return publication;
+    }
+
+    /**
+     * Subscribes locally to this topic. The retained publication is delivered first.
+     * @param listener the listener for the publications
+     * @return the subscriber
+     * @throws IllegalStateException if this topic is a parent topic or removed
+     */
+    public Subscriber subscribe(Subscriber.Listener listener) {
+        if (isParent()) {
+            throw new IllegalStateException("Topic " + getURI() + " is a parent topic!");
+        }
+        Subscriber subscriber = new Subscriber(this, listener, broker.getQueueSize(), broker.getExecutor());
+        synchronized (this) {
+            if (removed) {
+                throw new IllegalStateException("Topic " + getURI() + " is removed!");
+            }
+            subscribers.add(subscriber);
+            if (retained != null) {
+                subscriber.offer(retained);
+            }
+        }
+        return subscriber;
+    }
+
+    /**
+     * Removes a local subscriber
+     * @param subscriber the subscriber
+     */
+    void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Removes this topic including all child topics. The subscriptions are canceled,
+     * observing CoAP subscribers are notified with 4.04 (Not Found).
+     */
+    public void remove() {
+        synchronized (this) {
+            // no more child topics, publications or subscribers
+            removed = true;
+        }
+        for (Resource child : getChildren()) {
+            if (child instanceof TopicResource) {
+                ((TopicResource) child).remove();
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.cancel();
+        }
+        delete();
+    }
+
+    @Override
+    public void handleGET(CoapExchange exchange) {
+        if (isParent()) {
+            StringBuilder links = new StringBuilder();
+            for (Resource child : getChildren()) {
+                if (child instanceof TopicResource) {
+                    if (links.length() > 0) {
+                        links.append(',');
+                    }
+                    links.append('<').append(child.getURI()).append(">;ct=")
+                            .append(((TopicResource) child).getContentFormat());
+                }
+            }
+            exchange.respond(ResponseCode.CONTENT, links.toString(), PARENT);
+            return;
+        }
+        Publication publication = retained;
+        if (publication != null) {
+            exchange.respond(ResponseCode.CONTENT, publication.getPayload(), contentFormat);
+        } else if (exchange.getRequestOptions().hasObserve()) {
+            // subscribe before the first publication
+            exchange.respond(ResponseCode.CONTENT, new byte[0], contentFormat);
+        } else {
+            exchange.respond(ResponseCode.NOT_FOUND, "no data published");
+        }
+    }
+
+    @Override
+    public void handlePOST(CoapExchange exchange) {
+        if (!isParent()) {
+            exchange.respond(ResponseCode.METHOD_NOT_ALLOWED);
+            return;
+        }
+        Matcher matcher = CREATE.matcher(exchange.getRequestText());
+        if (!matcher.matches()) {
+            exchange.respond(ResponseCode.BAD_REQUEST, "expected <name>;ct=<content format>");
+            return;
+        }
+        int ct;
+        try {
+            ct = Integer.parseInt(matcher.group(2));
+        } catch (NumberFormatException e) {
+            ct = -1;
+        }
+        if (ct < 0 || ct > 0xffff) {
+            exchange.respond(ResponseCode.BAD_REQUEST, "invalid content format");
+            return;
+        }
+        TopicResource topic;
+        try {
+            topic = createTopic(matcher.group(1), ct);
+        } catch (IllegalStateException e) {
+            exchange.respond(ResponseCode.NOT_FOUND);
+            return;
+        }
+        if (topic == null) {
+            exchange.respond(ResponseCode.FORBIDDEN, "topic already exists");
+            return;
+        }
+        exchange.setLocationPath(topic.getURI().substring(1));
+        exchange.respond(ResponseCode.CREATED);
+    }
+
+    @Override
+    public void handlePUT(CoapExchange exchange) {
+        if (isParent()) {
+            exchange.respond(ResponseCode.METHOD_NOT_ALLOWED);
+            return;
+        }
+        int ct = exchange.getRequestOptions().getContentFormat();
+        if (ct != contentFormat) {
+            exchange.respond(ResponseCode.UNSUPPORTED_CONTENT_FORMAT);
+            return;
+        }
+        try {
+            publish(exchange.getRequestPayload(), ct);
+        } catch (IllegalStateException e) {
+            exchange.respond(ResponseCode.NOT_FOUND);
+            return;
+        }
+        exchange.respond(ResponseCode.CHANGED);
+    }
+
+    @Override
+    public void handleDELETE(CoapExchange exchange) {
+        if (this == broker.getRoot()) {
+            exchange.respond(ResponseCode.METHOD_NOT_ALLOWED);
+            return;
+        }
+        remove();
+        exchange.respond(ResponseCode.DELETED);
+    }
+}
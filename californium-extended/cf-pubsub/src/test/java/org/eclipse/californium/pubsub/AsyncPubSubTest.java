@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.californium.TestTools;
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.network.CoapEndpoint;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.pubsub.broker.PubSubBroker;
+import org.eclipse.californium.rule.CoapNetworkRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the futures, the NSTART limit and the close of {@link AsyncPubSub}
+ * against a {@link PubSubBroker}.
+ */
+@Category(Medium.class)
+public class AsyncPubSubTest {
+
+    @ClassRule
+    public static CoapNetworkRule network = new CoapNetworkRule(CoapNetworkRule.Mode.DIRECT,
+            CoapNetworkRule.Mode.NATIVE);
+
+    private static final int TEXT = MediaTypeRegistry.TEXT_PLAIN;
+    private static final String HELD = "held";
+
+    private CoapServer server;
+    private PubSubBroker broker;
+    /** the requests held by the {@link HeldResource}s */
+    private final BlockingQueue<CoapExchange> held = new LinkedBlockingQueue<CoapExchange>();
+    private AsyncPubSub client;
+
+    @Before
+    public void setUp() {
+        CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+        builder.setInetSocketAddress(TestTools.LOCALHOST_EPHEMERAL);
+        Endpoint endpoint = builder.build();
+        server = new CoapServer();
+        server.addEndpoint(endpoint);
+        broker = new PubSubBroker();
+        broker.addTo(server);
+        for (int index = 0; index < 5; ++index) {
+            server.add(new HeldResource(HELD + index, held));
+        }
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        server.destroy();
+        broker.destroy();
+    }
+
+    private AsyncPubSub newClient(long timeout, int nstart) {
+        InetSocketAddress address = server.getEndpoints().get(0).getAddress();
+        client = new AsyncPubSub(address.getHostString(), address.getPort(), timeout, nstart);
+        return client;
+    }
+
+    @Test
+    public void testCreatePublishReadRemove() throws Exception {
+        newClient(5000, 1);
+
+        CoapResponse response = client.create("temperature", TEXT, PubSubBroker.DEFAULT_ROOT).get();
+        assertEquals(ResponseCode.CREATED, response.getCode());
+
+        response = client.publish("21.5", TEXT, PubSubBroker.DEFAULT_ROOT, "temperature").get();
+        assertEquals(ResponseCode.CHANGED, response.getCode());
+        assertEquals("21.5", new String(broker.getTopic("temperature").getRetained().getPayload()));
+
+        response = client.read(PubSubBroker.DEFAULT_ROOT, "temperature").get();
+        assertEquals(ResponseCode.CONTENT, response.getCode());
+        assertEquals("21.5", response.getResponseText());
+
+        response = client.remove(PubSubBroker.DEFAULT_ROOT, "temperature").get();
+        assertEquals(ResponseCode.DELETED, response.getCode());
+        assertEquals(null, broker.getTopic("temperature"));
+    }
+
+    @Test
+    public void testNonPublish() throws Exception {
+        broker.createTopic("temperature", TEXT);
+        newClient(5000, 1);
+        client.setNonPublish(true);
+
+        CoapResponse response = client.publish("21.5", TEXT, PubSubBroker.DEFAULT_ROOT, "temperature").get();
+        assertEquals(ResponseCode.CHANGED, response.getCode());
+        assertEquals(Type.NON, response.advanced().getType());
+    }
+
+    @Test
+    public void testPublishAllWithinNstart() throws Exception {
+        newClient(0, 2);
+        Map<String, byte[]> payloads = new LinkedHashMap<String, byte[]>();
+        for (int index = 0; index < 5; ++index) {
+            payloads.put(HELD + index, ("value" + index).getBytes());
+        }
+        Map<String, CompletableFuture<CoapResponse>> responses = client.publishAll(payloads, TEXT);
+
+        // only NSTART requests reach the server, the others are queued
+        CoapExchange first = held.poll(2000, TimeUnit.MILLISECONDS);
+        CoapExchange second = held.poll(2000, TimeUnit.MILLISECONDS);
+        assertTrue(first != null && second != null);
+        assertEquals(null, held.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, client.getInFlight());
+        assertEquals(3, client.getQueued());
+
+        // each response releases a slot for the next queued request
+        first.respond(ResponseCode.CHANGED);
+        second.respond(ResponseCode.CHANGED);
+        for (int index = 2; index < 5; ++index) {
+            CoapExchange exchange = held.poll(2000, TimeUnit.MILLISECONDS);
+            assertTrue("request " + index + " not sent", exchange != null);
+            exchange.respond(ResponseCode.CHANGED);
+        }
+        for (CompletableFuture<CoapResponse> response : responses.values()) {
+            assertEquals(ResponseCode.CHANGED, response.get(2000, TimeUnit.MILLISECONDS).getCode());
+        }
+        assertEquals(0, client.getInFlight());
+        assertEquals(0, client.getQueued());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        newClient(200, 1);
+        CompletableFuture<CoapResponse> timedOut = client.read(HELD + 0);
+        CompletableFuture<CoapResponse> next = client.read(HELD + 0);
+
+        assertFailure(timedOut, TimeoutException.class);
+        // the timeout releases the slot for the queued request
+        assertTrue(held.poll(2000, TimeUnit.MILLISECONDS) != null);
+        assertTrue(held.poll(2000, TimeUnit.MILLISECONDS) != null);
+        assertFailure(next, TimeoutException.class);
+    }
+
+    @Test
+    public void testCloseFailsInFlightAndQueued() throws Exception {
+        newClient(0, 1);
+        CompletableFuture<CoapResponse> inFlight = client.read(HELD + 0);
+        CompletableFuture<CoapResponse> queued = client.read(HELD + 0);
+        assertTrue(held.poll(2000, TimeUnit.MILLISECONDS) != null);
+        assertEquals(1, client.getInFlight());
+        assertEquals(1, client.getQueued());
+
+        client.close();
+
+        assertTrue(client.isClosed());
+        assertFailure(inFlight, IOException.class);
+        assertFailure(queued, IOException.class);
+        assertEquals(0, client.getInFlight());
+        assertEquals(0, client.getQueued());
+    }
+
+    @Test
+    public void testSendAfterClose() throws Exception {
+        newClient(5000, 1);
+        client.close();
+
+        CompletableFuture<CoapResponse> response = client.read(PubSubBroker.DEFAULT_ROOT);
+        assertTrue(response.isDone());
+        assertFailure(response, IOException.class);
+    }
+
+    private static void assertFailure(CompletableFuture<CoapResponse> future, Class<? extends Throwable> type)
+            throws InterruptedException, TimeoutException {
+        try {
+            future.get(2000, TimeUnit.MILLISECONDS);
+            fail("expected " + type.getSimpleName());
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), type.isInstance(e.getCause()));
+        }
+    }
+
+    /**
+     * Holds the requests until the test responds.
+     */
+    private static class HeldResource extends CoapResource {
+
+        private final BlockingQueue<CoapExchange> exchanges;
+
+        private HeldResource(String name, BlockingQueue<CoapExchange> exchanges) {
+            super(name);
+            this.exchanges = exchanges;
+        }
+
+        @Override
+        public void handleGET(CoapExchange exchange) {
+            exchanges.add(exchange);
+        }
+
+        @Override
+        public void handlePUT(CoapExchange exchange) {
+            exchanges.add(exchange);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.elements.category.Small;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the topic lifecycle and the publications of the {@link PubSubBroker}.
+ */
+@Category(Small.class)
+public class PubSubBrokerTest {
+
+    private static final int TEXT = MediaTypeRegistry.TEXT_PLAIN;
+
+    private PubSubBroker broker;
+
+    @Before
+    public void setUp() {
+        broker = new PubSubBroker();
+    }
+
+    @After
+    public void tearDown() {
+        broker.destroy();
+    }
+
+    @Test
+    public void testCreateTopic() {
+        TopicResource parent = broker.createTopic("sensors", TopicResource.PARENT);
+        TopicResource topic = broker.createTopic("temperature", TEXT, "sensors");
+
+        assertTrue(parent.isParent());
+        assertFalse(topic.isParent());
+        assertEquals(TEXT, topic.getContentFormat());
+        assertEquals("temperature", topic.getName());
+        assertSame(parent, topic.getParent());
+        assertSame(topic, broker.getTopic("sensors", "temperature"));
+        assertSame(broker.getRoot(), broker.getTopic());
+        assertNull(broker.getTopic("sensors", "humidity"));
+    }
+
+    @Test
+    public void testCreateExistingTopic() {
+        assertNotNull(broker.createTopic("temperature", TEXT));
+        assertNull(broker.createTopic("temperature", TEXT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateTopicWithoutParent() {
+        broker.createTopic("temperature", TEXT, "sensors");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateTopicInDataTopic() {
+        broker.createTopic("sensors", TEXT);
+        broker.createTopic("temperature", TEXT, "sensors");
+    }
+
+    @Test
+    public void testPublishRetainsLastPublication() {
+        TopicResource topic = broker.createTopic("temperature", TEXT);
+        assertNull(topic.getRetained());
+
+        Publication first = topic.publish("21".getBytes(), TEXT);
+        Publication second = topic.publish("22".getBytes(), TEXT);
+
+        assertEquals(1, first.getSequence());
+        assertEquals(2, second.getSequence());
+        assertEquals(topic.getURI(), second.getTopic());
+        assertEquals(TEXT, second.getContentFormat());
+        assertSame(second, topic.getRetained());
+        assertArrayEquals("22".getBytes(), topic.getRetained().getPayload());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPublishWithOtherContentFormat() {
+        TopicResource topic = broker.createTopic("temperature", TEXT);
+        topic.publish("{}".getBytes(), MediaTypeRegistry.APPLICATION_JSON);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPublishToParentTopic() {
+        broker.createTopic("sensors", TopicResource.PARENT).publish("21".getBytes(), TopicResource.PARENT);
+    }
+
+    @Test
+    public void testRemoveParentTopic() {
+        TopicResource parent = broker.createTopic("sensors", TopicResource.PARENT);
+        TopicResource topic = broker.createTopic("temperature", TEXT, "sensors");
+        Subscriber subscriber = topic.subscribe(new Subscriber.Listener() {
+
+            @Override
+            public void onPublication(Publication publication) {
+            }
+        });
+
+        parent.remove();
+
+        assertNull(broker.getTopic("sensors"));
+        assertTrue(subscriber.isCanceled());
+        assertEquals(0, topic.getSubscriberCount());
+        try {
+            topic.publish("21".getBytes(), TEXT);
+            fail("publication to removed topic");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            parent.createTopic("humidity", TEXT);
+            fail("topic created in removed topic");
+        } catch (IllegalStateException expected) {
+        }
+        // the name is free again
+        assertNotNull(broker.createTopic("sensors", TopicResource.PARENT));
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.elements.category.Small;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the delivery of publications to local {@link Subscriber}s.
+ */
+@Category(Small.class)
+public class SubscriberTest {
+
+    private static final int TEXT = MediaTypeRegistry.TEXT_PLAIN;
+    private static final int QUEUE_SIZE = 4;
+
+    private ExecutorService executor;
+    private PubSubBroker broker;
+    private TopicResource topic;
+
+    @Before
+    public void setUp() {
+        // a single thread makes the delivery order observable
+        executor = Executors.newSingleThreadExecutor();
+        broker = new PubSubBroker(PubSubBroker.DEFAULT_ROOT, QUEUE_SIZE, executor);
+        topic = broker.createTopic("temperature", TEXT);
+    }
+
+    @After
+    public void tearDown() {
+        broker.destroy();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDeliveryInOrder() throws Exception {
+        Collector collector = new Collector(100);
+        Subscriber subscriber = topic.subscribe(collector);
+        for (int i = 0; i < 100; i++) {
+            topic.publish(Integer.toString(i).getBytes(), TEXT);
+            // stay within the queue size
+            while (subscriber.getQueueSize() == QUEUE_SIZE) {
+                Thread.sleep(1);
+            }
+        }
+
+        assertTrue(collector.await());
+        assertEquals(100, collector.sequences.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Long.valueOf(i + 1), collector.sequences.get(i));
+        }
+    }
+
+    @Test
+    public void testRetainedPublicationFirst() throws Exception {
+        topic.publish("21".getBytes(), TEXT);
+        Collector collector = new Collector(2);
+        topic.subscribe(collector);
+        topic.publish("22".getBytes(), TEXT);
+
+        assertTrue(collector.await());
+        assertEquals(Long.valueOf(1), collector.sequences.get(0));
+        assertEquals(Long.valueOf(2), collector.sequences.get(1));
+    }
+
+    @Test
+    public void testSlowSubscriberDropsOldest() throws Exception {
+        Collector collector = new Collector(QUEUE_SIZE);
+        Subscriber subscriber = topic.subscribe(collector);
+        CountDownLatch release = block();
+        for (int i = 0; i < 10; i++) {
+            topic.publish(Integer.toString(i).getBytes(), TEXT);
+        }
+
+        assertEquals(QUEUE_SIZE, subscriber.getQueueSize());
+        assertEquals(10 - QUEUE_SIZE, subscriber.getDropped());
+        release.countDown();
+        assertTrue(collector.await());
+        // the freshest publications are delivered
+        for (int i = 0; i < QUEUE_SIZE; i++) {
+            assertEquals(Long.valueOf(10 - QUEUE_SIZE + i + 1), collector.sequences.get(i));
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Collector collector = new Collector(1);
+        Subscriber subscriber = topic.subscribe(collector);
+        assertEquals(1, topic.getSubscriberCount());
+        CountDownLatch release = block();
+        topic.publish("21".getBytes(), TEXT);
+
+        subscriber.cancel();
+        release.countDown();
+
+        assertTrue(subscriber.isCanceled());
+        assertEquals(0, topic.getSubscriberCount());
+        assertEquals(0, subscriber.getQueueSize());
+        // the queued publication is not delivered
+        assertFalse(collector.await(200));
+        topic.publish("22".getBytes(), TEXT);
+        assertFalse(collector.await(200));
+    }
+
+    @Test
+    public void testFailingListener() throws Exception {
+        topic.subscribe(new Subscriber.Listener() {
+
+            @Override
+            public void onPublication(Publication publication) {
+                throw new IllegalStateException("listener failure");
+            }
+        });
+        Collector collector = new Collector(2);
+        topic.subscribe(collector);
+        topic.publish("21".getBytes(), TEXT);
+        topic.publish("22".getBytes(), TEXT);
+
+        assertTrue(collector.await());
+    }
+
+    /**
+     * Block the executor of the broker.
+     * 
+     * @return latch to release the executor
+     * @throws InterruptedException if interrupted while waiting for the executor
+     */
+    private CountDownLatch block() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static class Collector implements Subscriber.Listener {
+
+        private final List<Long> sequences = Collections.synchronizedList(new ArrayList<Long>());
+        private final CountDownLatch received;
+
+        private Collector(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onPublication(Publication publication) {
+            sequences.add(publication.getSequence());
+            received.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return await(5000);
+        }
+
+        private boolean await(long millis) throws InterruptedException {
+            return received.await(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
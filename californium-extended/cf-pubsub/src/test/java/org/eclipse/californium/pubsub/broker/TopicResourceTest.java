@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.pubsub.broker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.TestTools;
+import org.eclipse.californium.core.CoapHandler;
+import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.network.CoapEndpoint;
+import org.eclipse.californium.core.network.EndpointManager;
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.pubsub.PubSub;
+import org.eclipse.californium.rule.CoapNetworkRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the CoAP interface of the {@link TopicResource}s using the
+ * {@link PubSub} client.
+ */
+@Category(Medium.class)
+public class TopicResourceTest {
+
+    @ClassRule
+    public static CoapNetworkRule network = new CoapNetworkRule(CoapNetworkRule.Mode.DIRECT,
+            CoapNetworkRule.Mode.NATIVE);
+
+    private static final int TEXT = MediaTypeRegistry.TEXT_PLAIN;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private PubSubBroker broker;
+    private CoapServer server;
+    private PubSub client;
+
+    @Before
+    public void setUp() {
+        EndpointManager.clear();
+        broker = new PubSubBroker();
+        CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+        builder.setInetSocketAddress(TestTools.LOCALHOST_EPHEMERAL);
+        CoapEndpoint endpoint = builder.build();
+        server = new CoapServer();
+        server.addEndpoint(endpoint);
+        broker.addTo(server);
+        server.start();
+        client = new PubSub(endpoint.getAddress().getAddress().getHostAddress(), endpoint.getAddress().getPort(),
+                TIMEOUT_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        server.destroy();
+        broker.destroy();
+    }
+
+    @Test
+    public void testTopicLifecycle() throws Exception {
+        CoapResponse response = client.create("sensors", TopicResource.PARENT, "ps");
+        assertEquals(ResponseCode.CREATED, response.getCode());
+        assertEquals("ps/sensors", response.getOptions().getLocationPathString());
+        response = client.create("temperature", TEXT, "ps", "sensors");
+        assertEquals(ResponseCode.CREATED, response.getCode());
+        assertNotNull(broker.getTopic("sensors", "temperature"));
+
+        // already exists
+        response = client.create("temperature", TEXT, "ps", "sensors");
+        assertEquals(ResponseCode.FORBIDDEN, response.getCode());
+
+        response = client.read("ps", "sensors");
+        assertEquals(ResponseCode.CONTENT, response.getCode());
+        assertEquals("</ps/sensors/temperature>;ct=0", response.getResponseText());
+
+        response = client.remove("ps", "sensors");
+        assertEquals(ResponseCode.DELETED, response.getCode());
+        assertNull(broker.getTopic("sensors"));
+        response = client.read("ps", "sensors", "temperature");
+        assertEquals(ResponseCode.NOT_FOUND, response.getCode());
+
+        // the root is not removed
+        response = client.remove("ps");
+        assertEquals(ResponseCode.METHOD_NOT_ALLOWED, response.getCode());
+    }
+
+    @Test
+    public void testPublishAndRead() throws Exception {
+        broker.createTopic("temperature", TEXT);
+        CoapResponse response = client.read("ps", "temperature");
+        assertEquals(ResponseCode.NOT_FOUND, response.getCode());
+
+        response = client.publish("21", TEXT, "ps", "temperature");
+        assertEquals(ResponseCode.CHANGED, response.getCode());
+        response = client.read("ps", "temperature");
+        assertEquals(ResponseCode.CONTENT, response.getCode());
+        assertEquals("21", response.getResponseText());
+
+        response = client.publish("{}", MediaTypeRegistry.APPLICATION_JSON, "ps", "temperature");
+        assertEquals(ResponseCode.UNSUPPORTED_CONTENT_FORMAT, response.getCode());
+        assertEquals(1, broker.getTopic("temperature").getRetained().getSequence());
+    }
+
+    @Test
+    public void testPublishNotifiesSubscribers() throws Exception {
+        TopicResource topic = broker.createTopic("temperature", TEXT);
+        topic.publish("20".getBytes(), TEXT);
+        Notifications notifications = new Notifications();
+        PubSub.Subscription subscription = client.new Subscription(notifications, "ps", "temperature");
+        subscription.subscribe();
+
+        // the retained publication
+        assertEquals("20", notifications.next().getResponseText());
+        assertEquals(1, topic.getObserverCount());
+
+        client.publish("21", TEXT, "ps", "temperature");
+        assertEquals("21", notifications.next().getResponseText());
+        topic.publish("22".getBytes(), TEXT);
+        assertEquals("22", notifications.next().getResponseText());
+
+        subscription.unsubscribe();
+        assertEquals(0, topic.getObserverCount());
+    }
+
+    @Test
+    public void testRemoveNotifiesSubscribers() throws Exception {
+        TopicResource topic = broker.createTopic("temperature", TEXT);
+        Notifications notifications = new Notifications();
+        PubSub.Subscription subscription = client.new Subscription(notifications, "ps", "temperature");
+        subscription.subscribe();
+
+        // subscribed before the first publication
+        CoapResponse response = notifications.next();
+        assertEquals(ResponseCode.CONTENT, response.getCode());
+        assertEquals(0, response.getPayload().length);
+
+        assertEquals(ResponseCode.DELETED, client.remove("ps", "temperature").getCode());
+        response = notifications.next();
+        assertEquals(ResponseCode.NOT_FOUND, response.getCode());
+        assertEquals(0, topic.getObserverCount());
+    }
+
+    private static class Notifications implements CoapHandler {
+
+        private final BlockingQueue<CoapResponse> responses = new LinkedBlockingQueue<CoapResponse>();
+
+        @Override
+        public void onLoad(CoapResponse response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError() {
+        }
+
+        private CoapResponse next() throws InterruptedException {
+            CoapResponse response = responses.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertTrue("notification missing", response != null);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.edhoc;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.cose.OneKey;
+import org.eclipse.californium.edhoc.AppProfile;
+import org.eclipse.californium.edhoc.Constants;
+import org.eclipse.californium.edhoc.EdhocSession;
+import org.eclipse.californium.edhoc.EphemeralKeyPool;
+import org.eclipse.californium.edhoc.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate of EDHOC handshakes, that the ephemeral key generation
+ * of {@link EdhocSession#setEphemeralKey()} allows on the handshake thread,
+ * with and without an {@link EphemeralKeyPool}.
+ *
+ * With the pool, the keys are generated by the pool threads. The rate is
+ * therefore limited by the number of pool threads and cores, the hits and
+ * misses of the pool are printed after each iteration.
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar EphemeralKeyBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EphemeralKeyBenchmark {
+
+	@Param({ "0", "2" })
+	public int cipherSuite;
+
+	/**
+	 * Number of pool threads, {@code 0} to generate the keys inline.
+	 */
+	@Param({ "0", "1", "2" })
+	public int poolThreads;
+
+	private EphemeralKeyPool pool;
+	private EdhocSession session;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Util.installCryptoProvider();
+		Set<Integer> authMethods = new HashSet<Integer>();
+		authMethods.add(Constants.EDHOC_AUTH_METHOD_0);
+		AppProfile appProfile = new AppProfile(authMethods, false, true, false);
+		session = new EdhocSession(false, true, Constants.EDHOC_AUTH_METHOD_0, new byte[] { 0x01 }, null, null, null,
+				Arrays.asList(cipherSuite), null, null, appProfile, Constants.TRUST_MODEL_STRICT, null);
+		session.setSelectedCipherSuite(cipherSuite);
+		if (poolThreads > 0) {
+			pool = new EphemeralKeyPool(Arrays.asList(cipherSuite), 1024, 512, poolThreads);
+		}
+		EphemeralKeyPool.setDefault(pool);
+	}
+
+	@TearDown(Level.Iteration)
+	public void report() {
+		if (pool != null) {
+			System.out.println();
+			System.out.println("pool hits: " + pool.getHits(cipherSuite) + ", misses: " + pool.getMisses(cipherSuite));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		EphemeralKeyPool.setDefault(null);
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	/**
+	 * Set a new ephemeral key, as done when writing message_1 or message_2.
+	 *
+	 * @return the ephemeral key
+	 */
+	@Benchmark
+	public OneKey setEphemeralKey() {
+		session.setEphemeralKey();
+		return session.getEphemeralKey();
+	}
+}
@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.edhoc;
+
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.cose.OneKey;
+import org.eclipse.californium.edhoc.AppProfile;
+import org.eclipse.californium.edhoc.Constants;
+import org.eclipse.californium.edhoc.EdhocSession;
+import org.eclipse.californium.edhoc.EphemeralKeyPool;
+import org.eclipse.californium.edhoc.MessageProcessor;
+import org.eclipse.californium.edhoc.SideProcessor;
+import org.eclipse.californium.edhoc.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import com.upokecenter.cbor.CBORObject;
+
+import net.i2p.crypto.eddsa.EdDSASecurityProvider;
+
+/**
+ * Measures writing and reading of the EDHOC messages by the
+ * {@link MessageProcessor}, for each authentication method and cipher suite.
+ *
+ * Each benchmark measures a single step of a handshake between an initiator
+ * and a responder in memory, with message_4 and the strict trust model. The
+ * steps before it are executed for each invocation, but not measured. The
+ * authentication credentials are CCS identified by 'kid', the keys are
+ * generated during the setup. The {@link #handshake()} benchmark measures all
+ * steps.
+ *
+ * With {@link #pool} enabled, the ephemeral keys are taken from a default
+ * {@link EphemeralKeyPool}, refilled by a background thread, instead of being
+ * generated by the measured step.
+ *
+ * The {@link MessageProcessor} prints its debug output for every message, it
+ * is written to a discarding stream and is part of the measurement.
+ *
+ * Run with {@code -prof gc} to include the allocation per step
+ * ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar MessageProcessorBenchmark -p method=0 -p suite=2 -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageProcessorBenchmark {
+
+	/**
+	 * The steps of a handshake in the order of execution, named as the
+	 * benchmarks measuring them.
+	 */
+	private static final List<String> STEPS = Arrays.asList("writeMessage1", "readMessage1", "writeMessage2",
+			"readMessage2", "writeMessage3", "readMessage3", "writeMessage4", "readMessage4");
+
+	/**
+	 * EDHOC authentication method, 0 to 3.
+	 */
+	@Param({ "0", "1", "2", "3" })
+	public int method;
+
+	/**
+	 * EDHOC cipher suite, 0 to 3.
+	 */
+	@Param({ "0", "1", "2", "3" })
+	public int suite;
+
+	/**
+	 * Take the ephemeral keys from an {@link EphemeralKeyPool}.
+	 */
+	@Param({ "false", "true" })
+	public boolean pool;
+
+	private Peer initiatorPeer;
+	private Peer responderPeer;
+	private AppProfile appProfile;
+	private List<Integer> cipherSuites;
+	private Set<Integer> supportedEADs;
+	private EphemeralKeyPool keyPool;
+
+	private EdhocSession initiator;
+	private EdhocSession responder;
+	private SideProcessor responderSideProcessor;
+	private HashMap<CBORObject, EdhocSession> initiatorSessions;
+	private HashMap<CBORObject, EdhocSession> responderSessions;
+	private Set<CBORObject> initiatorConnectionIds;
+	private Set<CBORObject> responderConnectionIds;
+	private byte[] message1;
+	private byte[] message2;
+	private byte[] message3;
+	private byte[] message4;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Provider EdDSA = new EdDSASecurityProvider();
+		Security.insertProviderAt(EdDSA, 1);
+
+		initiatorPeer = new Peer(0x00);
+		responderPeer = new Peer(0x10);
+		initiatorPeer.trust(responderPeer);
+		responderPeer.trust(initiatorPeer);
+
+		Set<Integer> authMethods = new HashSet<Integer>();
+		for (int i = 0; i <= Constants.EDHOC_AUTH_METHOD_3; i++) {
+			authMethods.add(i);
+		}
+		appProfile = new AppProfile(authMethods, true, false, false);
+		cipherSuites = new ArrayList<Integer>();
+		cipherSuites.add(suite);
+		supportedEADs = new HashSet<Integer>();
+		if (pool) {
+			keyPool = new EphemeralKeyPool(cipherSuites, 64, 16, 1);
+			EphemeralKeyPool.setDefault(keyPool);
+		}
+
+		// fail early, if the combination doesn't complete
+		start();
+		for (String step : STEPS) {
+			execute(step);
+		}
+	}
+
+	/**
+	 * Prepare the handshake up to the step measured by the benchmark.
+	 *
+	 * @param params the parameters of the running benchmark
+	 */
+	@Setup(Level.Invocation)
+	public void prepare(BenchmarkParams params) {
+		String benchmark = params.getBenchmark();
+		String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+		// no steps before the complete handshake
+		int steps = Math.max(STEPS.indexOf(name), 0);
+		start();
+		for (int index = 0; index < steps; ++index) {
+			execute(STEPS.get(index));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (keyPool != null) {
+			EphemeralKeyPool.setDefault(null);
+			keyPool.close();
+			keyPool = null;
+		}
+	}
+
+	@Benchmark
+	public byte[] writeMessage1() {
+		return execute("writeMessage1");
+	}
+
+	@Benchmark
+	public byte[] readMessage1() {
+		return execute("readMessage1");
+	}
+
+	@Benchmark
+	public byte[] writeMessage2() {
+		return execute("writeMessage2");
+	}
+
+	@Benchmark
+	public byte[] readMessage2() {
+		return execute("readMessage2");
+	}
+
+	@Benchmark
+	public byte[] writeMessage3() {
+		return execute("writeMessage3");
+	}
+
+	@Benchmark
+	public byte[] readMessage3() {
+		return execute("readMessage3");
+	}
+
+	@Benchmark
+	public byte[] writeMessage4() {
+		return execute("writeMessage4");
+	}
+
+	@Benchmark
+	public byte[] readMessage4() {
+		return execute("readMessage4");
+	}
+
+	/**
+	 * Complete handshake, including the generation of the ephemeral keys.
+	 *
+	 * @return the result of reading message_4
+	 */
+	@Benchmark
+	public byte[] handshake() {
+		byte[] result = null;
+		for (String step : STEPS) {
+			result = execute(step);
+		}
+		return result;
+	}
+
+	/**
+	 * Start a new handshake with a new initiator session.
+	 */
+	private void start() {
+		initiatorSessions = new HashMap<CBORObject, EdhocSession>();
+		responderSessions = new HashMap<CBORObject, EdhocSession>();
+		initiatorConnectionIds = new HashSet<CBORObject>();
+		responderConnectionIds = new HashSet<CBORObject>();
+		initiator = MessageProcessor.createSessionAsInitiator(method, initiatorPeer.keyPairs, initiatorPeer.idCreds,
+				initiatorPeer.creds, cipherSuites, new ArrayList<Integer>(), supportedEADs, null,
+				initiatorConnectionIds, appProfile, Constants.TRUST_MODEL_STRICT, null);
+		SideProcessor sideProcessor = new SideProcessor(Constants.TRUST_MODEL_STRICT, initiatorPeer.peerCredentials,
+				null);
+		sideProcessor.setEdhocSession(initiator);
+		responder = null;
+		responderSideProcessor = new SideProcessor(Constants.TRUST_MODEL_STRICT, responderPeer.peerCredentials, null);
+	}
+
+	/**
+	 * Execute a step of the handshake, as the EDHOC client and resource do.
+	 *
+	 * @param step the step
+	 * @return the written message, or the result of reading a message
+	 * @throws IllegalStateException if the step fails
+	 */
+	private byte[] execute(String step) {
+		byte[] result;
+		if ("writeMessage1".equals(step)) {
+			message1 = result = MessageProcessor.writeMessage1(initiator);
+			initiator.setHashMessage1(Arrays.copyOfRange(message1, 1, message1.length));
+			initiator.setCurrentStep(Constants.EDHOC_SENT_M1);
+			initiatorSessions.put(CBORObject.FromObject(initiator.getConnectionId()), initiator);
+		} else if ("readMessage1".equals(step)) {
+			result = check(step, MessageProcessor.readMessage1(message1, true, cipherSuites, supportedEADs,
+					appProfile, responderSideProcessor));
+			responder = MessageProcessor.createSessionAsResponder(message1, true, responderPeer.keyPairs,
+					responderPeer.idCreds, responderPeer.creds, cipherSuites, supportedEADs, responderConnectionIds,
+					appProfile, Constants.TRUST_MODEL_STRICT, null);
+			responderSideProcessor.setEdhocSession(responder);
+		} else if ("writeMessage2".equals(step)) {
+			message2 = result = MessageProcessor.writeMessage2(responder);
+			responder.setCurrentStep(Constants.EDHOC_SENT_M2);
+			responderSessions.put(CBORObject.FromObject(responder.getConnectionId()), responder);
+		} else if ("readMessage2".equals(step)) {
+			result = check(step, MessageProcessor.readMessage2(message2, false, initiator.getConnectionId(),
+					initiatorSessions, initiatorPeer.peerPublicKeys, initiatorPeer.peerCredentials,
+					initiatorConnectionIds, initiatorPeer.ownIdCreds));
+			initiator.setCurrentStep(Constants.EDHOC_AFTER_M2);
+		} else if ("writeMessage3".equals(step)) {
+			message3 = result = MessageProcessor.writeMessage3(initiator);
+			initiator.setCurrentStep(Constants.EDHOC_SENT_M3);
+		} else if ("readMessage3".equals(step)) {
+			result = check(step, MessageProcessor.readMessage3(message3, true, null, responderSessions,
+					responderPeer.peerPublicKeys, responderPeer.peerCredentials, responderConnectionIds));
+		} else if ("writeMessage4".equals(step)) {
+			message4 = result = MessageProcessor.writeMessage4(responder);
+		} else if ("readMessage4".equals(step)) {
+			result = check(step, MessageProcessor.readMessage4(message4, false, initiator.getConnectionId(),
+					initiatorSessions, initiatorConnectionIds));
+		} else {
+			throw new IllegalArgumentException("Unknown step " + step);
+		}
+		if (result == null) {
+			throw new IllegalStateException(step + " failed for method " + method + " and suite " + suite);
+		}
+		return result;
+	}
+
+	/**
+	 * Check the result of reading a message.
+	 *
+	 * @param step the step reading the message
+	 * @param processingResult the result of reading the message
+	 * @return the empty byte string of a successfully read message
+	 * @throws IllegalStateException if an EDHOC error message is returned
+	 *             instead
+	 */
+	private byte[] check(String step, List<CBORObject> processingResult) {
+		byte[] result = processingResult.get(0).GetByteString();
+		if (result.length != 0) {
+			throw new IllegalStateException(step + " failed for method " + method + " and suite " + suite);
+		}
+		return result;
+	}
+
+	/**
+	 * The authentication keys and credentials of a peer, and the trusted
+	 * credentials of the other peer.
+	 */
+	private static class Peer {
+
+		private final HashMap<Integer, HashMap<Integer, OneKey>> keyPairs = new HashMap<Integer, HashMap<Integer, OneKey>>();
+		private final HashMap<Integer, HashMap<Integer, CBORObject>> creds = new HashMap<Integer, HashMap<Integer, CBORObject>>();
+		private final HashMap<Integer, HashMap<Integer, CBORObject>> idCreds = new HashMap<Integer, HashMap<Integer, CBORObject>>();
+		private final Set<CBORObject> ownIdCreds = new HashSet<CBORObject>();
+		private final HashMap<CBORObject, OneKey> peerPublicKeys = new HashMap<CBORObject, OneKey>();
+		private final HashMap<CBORObject, CBORObject> peerCredentials = new HashMap<CBORObject, CBORObject>();
+
+		/**
+		 * Generate the signature and static Diffie-Hellman keys of a peer.
+		 *
+		 * @param kid the 'kid' of the first key, the following keys use the
+		 *            next values
+		 */
+		private Peer(int kid) {
+			keyPairs.put(Constants.SIGNATURE_KEY, new HashMap<Integer, OneKey>());
+			keyPairs.put(Constants.ECDH_KEY, new HashMap<Integer, OneKey>());
+			creds.put(Constants.SIGNATURE_KEY, new HashMap<Integer, CBORObject>());
+			creds.put(Constants.ECDH_KEY, new HashMap<Integer, CBORObject>());
+			idCreds.put(Constants.SIGNATURE_KEY, new HashMap<Integer, CBORObject>());
+			idCreds.put(Constants.ECDH_KEY, new HashMap<Integer, CBORObject>());
+			add(Constants.SIGNATURE_KEY, Constants.CURVE_Ed25519, kid);
+			add(Constants.ECDH_KEY, Constants.CURVE_X25519, kid + 1);
+			add(Constants.SIGNATURE_KEY, Constants.CURVE_P256, kid + 2);
+			add(Constants.ECDH_KEY, Constants.CURVE_P256, kid + 3);
+		}
+
+		private void add(int keyUsage, int curve, int kid) {
+			OneKey keyPair = Util.generateKeyPair(curve);
+			CBORObject kidCbor = CBORObject.FromObject(new byte[] { (byte) kid });
+			byte[] cred = Util.buildCredRawPublicKeyCcs(keyPair, "", kidCbor);
+			CBORObject idCred = Util.buildIdCredKid(new byte[] { (byte) kid });
+			keyPairs.get(keyUsage).put(curve, keyPair);
+			creds.get(keyUsage).put(curve, CBORObject.FromObject(cred));
+			idCreds.get(keyUsage).put(curve, idCred);
+			ownIdCreds.add(idCred);
+		}
+
+		/**
+		 * Trust all credentials of the other peer.
+		 *
+		 * @param peer the other peer
+		 */
+		private void trust(Peer peer) {
+			for (Integer keyUsage : peer.keyPairs.keySet()) {
+				for (Integer curve : peer.keyPairs.get(keyUsage).keySet()) {
+					CBORObject idCred = peer.idCreds.get(keyUsage).get(curve);
+					peerPublicKeys.put(idCred, peer.keyPairs.get(keyUsage).get(curve).PublicKey());
+					peerCredentials.put(idCred, peer.creds.get(keyUsage).get(curve));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.oscore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.oscore.ConcurrentCtxDB;
+import org.eclipse.californium.oscore.CoapOSException;
+import org.eclipse.californium.oscore.HashMapCtxDB;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSCoreCtxDB;
+import org.eclipse.californium.oscore.OSException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the multi-threaded throughput of {@link HashMapCtxDB} and
+ * {@link ConcurrentCtxDB} for context lookups and the token bookkeeping of
+ * outgoing requests.
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar CtxDBBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class CtxDBBenchmark {
+
+	private static final byte[] MASTER_SECRET = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B,
+			0x0C, 0x0D, 0x0E, 0x0F, 0x10 };
+	private static final byte[] SENDER_ID = { 0x00 };
+	private static final byte[] ID_CONTEXT = { 0x37, (byte) 0xcb, (byte) 0xf3, 0x21, 0x00, 0x17, (byte) 0xa2, (byte) 0xd3 };
+	private static final int MAX_UNFRAGMENTED_SIZE = 4096;
+
+	@Param({ "HashMapCtxDB", "ConcurrentCtxDB" })
+	public String db;
+
+	@Param({ "256" })
+	public int contexts;
+
+	private OSCoreCtxDB ctxDb;
+	private OSCoreCtx[] ctxs;
+	private final AtomicInteger threadIndex = new AtomicInteger();
+
+	/**
+	 * Per thread position in the contexts and the tokens of the thread.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private int thread;
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setup(CtxDBBenchmark benchmark) {
+			thread = benchmark.threadIndex.getAndIncrement();
+			next = thread;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws OSException {
+		ctxDb = "ConcurrentCtxDB".equals(db) ? new ConcurrentCtxDB() : new HashMapCtxDB();
+		ctxs = new OSCoreCtx[contexts];
+		for (int i = 0; i < contexts; i++) {
+			byte[] recipientId = new byte[] { (byte) (i >> 8), (byte) i, 0x01 };
+			ctxs[i] = new OSCoreCtx(MASTER_SECRET, true, AlgorithmID.AES_CCM_16_64_128, SENDER_ID, recipientId,
+					AlgorithmID.HKDF_HMAC_SHA_256, 32, null, ID_CONTEXT, MAX_UNFRAGMENTED_SIZE);
+			ctxDb.addContext(ctxs[i]);
+		}
+	}
+
+	/**
+	 * Look up a context by recipient ID and ID context, as done for every
+	 * incoming request.
+	 * 
+	 * @param state per thread state
+	 * @return the context
+	 * @throws CoapOSException if the lookup fails
+	 */
+	@Benchmark
+	public OSCoreCtx lookup(ThreadState state) throws CoapOSException {
+		OSCoreCtx ctx = ctxs[state.next++ % contexts];
+		return ctxDb.getContext(ctx.getRecipientId(), ID_CONTEXT);
+	}
+
+	/**
+	 * Add, check and remove the sequence number of a request token, as done
+	 * for every outgoing request.
+	 * 
+	 * @param state per thread state
+	 * @return {@code true}, if the token was found
+	 */
+	@Benchmark
+	public boolean tokenBookkeeping(ThreadState state) {
+		int i = state.next++;
+		Token token = new Token(new byte[] { (byte) state.thread, (byte) (i & 0x3F) });
+		ctxDb.addSeqByToken(token, i);
+		boolean exists = ctxDb.tokenExist(token);
+		ctxDb.removeSeqByToken(token);
+		return exists;
+	}
+}
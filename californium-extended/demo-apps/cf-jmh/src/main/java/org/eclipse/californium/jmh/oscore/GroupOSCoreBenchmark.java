@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.oscore;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.network.Exchange.Origin;
+import org.eclipse.californium.core.network.stack.AbstractLayer;
+import org.eclipse.californium.core.network.serialization.UdpDataParser;
+import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.cose.CoseException;
+import org.eclipse.californium.cose.OneKey;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.EndpointContext;
+import org.eclipse.californium.oscore.CoapOSException;
+import org.eclipse.californium.oscore.HashMapCtxDB;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSException;
+import org.eclipse.californium.oscore.ObjectSecurityLayer;
+import org.eclipse.californium.oscore.RequestDecryptor;
+import org.eclipse.californium.oscore.RequestEncryptor;
+import org.eclipse.californium.oscore.ResponseEncryptor;
+import org.eclipse.californium.oscore.group.GroupCtx;
+import org.eclipse.californium.oscore.group.GroupRecipientCtx;
+import org.eclipse.californium.oscore.group.OptionEncoder;
+import org.eclipse.californium.oscore.group.SignatureVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.i2p.crypto.eddsa.EdDSASecurityProvider;
+
+/**
+ * Measures Group OSCORE protection and unprotection of requests in group mode,
+ * with a countersignature, and in pairwise mode, for each signature
+ * algorithm.
+ *
+ * The keys of both group members are generated during the setup, the
+ * pairwise keys are derived before the measurement. Each unprotected request
+ * has a new sequence number, so it passes the replay checks of the server.
+ * The requests are protected during the setup, when all are unprotected, the
+ * server continues with a new group context and an empty replay window. The
+ * countersignature is verified by the calling thread.
+ *
+ * {@link #receiveResponses(Responses)} measures the fan-in of the responses
+ * of several servers to a multicast request by the
+ * {@link ObjectSecurityLayer}, until all responses are delivered to the upper
+ * layer. With {@link Responses#verifierThreads} greater than 0, the group
+ * mode responses are unprotected by a {@link SignatureVerifier}.
+ *
+ * Run with {@code -prof gc} to include the allocation per message
+ * ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar GroupOSCoreBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupOSCoreBenchmark {
+
+	private static final byte[] MASTER_SECRET = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B,
+			0x0C, 0x0D, 0x0E, 0x0F, 0x10 };
+	private static final byte[] MASTER_SALT = { (byte) 0x9e, 0x7c, (byte) 0xa9, 0x22, 0x23, 0x78, 0x63, 0x40 };
+	private static final byte[] GROUP_ID = { 0x37, (byte) 0xcb, (byte) 0xf3, 0x21, 0x00, 0x17, (byte) 0xa2,
+			(byte) 0xd3 };
+	private static final byte[] GM_PUBLIC_KEY = { (byte) 0xa2, 0x01, 0x01, 0x20, 0x06 };
+	private static final byte[] CLIENT_ID = { 0x25 };
+	private static final byte[] SERVER_ID = { 0x77 };
+	private static final int REPLAY_WINDOW = 32;
+	/**
+	 * Number of requests protected during the setup.
+	 */
+	private static final int REQUESTS = 1024;
+	private static final Token TOKEN = new Token(new byte[] { 0x01, 0x02, 0x03, 0x04 });
+	/**
+	 * Literal address, avoids name resolution when setting the URI.
+	 */
+	private static final String URI = "coap://127.0.0.1/benchmark";
+	/**
+	 * Source of received requests. Group OSCORE tells incoming from outgoing
+	 * messages by the source context.
+	 */
+	private static final EndpointContext SOURCE = new AddressEndpointContext(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 5683));
+
+	/**
+	 * Countersignature algorithm of the group.
+	 */
+	@Param({ "EDDSA", "ECDSA_256" })
+	public String signAlgorithm;
+
+	/**
+	 * "group" for the group mode, "pairwise" for the pairwise mode.
+	 */
+	@Param({ "group", "pairwise" })
+	public String mode;
+
+	private boolean pairwise;
+	private OneKey clientKey;
+	private OneKey serverKey;
+	private HashMapCtxDB clientDb;
+	private OSCoreCtx server;
+	private HashMapCtxDB serverDb;
+	private byte[][] protectedRequests;
+	private int nextRequest;
+
+	@Setup(Level.Trial)
+	public void setup() throws OSException, CoseException {
+		Security.insertProviderAt(new EdDSASecurityProvider(), 1);
+		pairwise = "pairwise".equals(mode);
+
+		AlgorithmID alg = AlgorithmID.valueOf(signAlgorithm);
+		clientKey = OneKey.generateKey(alg);
+		serverKey = OneKey.generateKey(alg);
+
+		GroupCtx clientGroup = new GroupCtx(MASTER_SECRET, MASTER_SALT, AlgorithmID.AES_CCM_16_64_128,
+				AlgorithmID.HKDF_HMAC_SHA_256, GROUP_ID, alg, GM_PUBLIC_KEY);
+		clientGroup.addSenderCtx(CLIENT_ID, clientKey);
+		clientGroup.addRecipientCtx(SERVER_ID, REPLAY_WINDOW, serverKey.PublicKey());
+		clientDb = new HashMapCtxDB();
+		clientGroup.addToDb(URI, clientDb);
+		// derive the pairwise keys before the measurement
+		clientGroup.prewarmPairwiseKeys();
+		createServer();
+
+		UdpDataSerializer serializer = new UdpDataSerializer();
+		protectedRequests = new byte[REQUESTS][];
+		for (int index = 0; index < REQUESTS; ++index) {
+			Request request = RequestEncryptor.encrypt(clientDb, createRequest());
+			request.setMID(index);
+			protectedRequests[index] = serializer.getByteArray(request);
+		}
+	}
+
+	/**
+	 * Create the group context of the server with an empty replay window
+	 * and derive its pairwise keys.
+	 *
+	 * @throws OSException if the context can't be derived
+	 */
+	private void createServer() throws OSException {
+		GroupCtx serverGroup = new GroupCtx(MASTER_SECRET, MASTER_SALT, AlgorithmID.AES_CCM_16_64_128,
+				AlgorithmID.HKDF_HMAC_SHA_256, GROUP_ID, AlgorithmID.valueOf(signAlgorithm), GM_PUBLIC_KEY);
+		serverGroup.addSenderCtx(SERVER_ID, serverKey);
+		serverGroup.addRecipientCtx(CLIENT_ID, REPLAY_WINDOW, clientKey.PublicKey());
+		serverDb = new HashMapCtxDB();
+		serverGroup.addToDb("", serverDb);
+		server = serverGroup.getRecipientContexts().values().iterator().next();
+		serverGroup.prewarmPairwiseKeys();
+	}
+
+	/**
+	 * Protect a request with {@link RequestEncryptor}, including the
+	 * countersignature in group mode.
+	 *
+	 * @return the protected request
+	 * @throws OSException if encryption fails
+	 */
+	@Benchmark
+	public Request protectRequest() throws OSException {
+		return RequestEncryptor.encrypt(clientDb, createRequest());
+	}
+
+	/**
+	 * Parse the next protected request and unprotect it with
+	 * {@link RequestDecryptor}, including the verification of the
+	 * countersignature in group mode.
+	 *
+	 * @return the unprotected request
+	 * @throws OSException if the new context of the server can't be derived
+	 * @throws CoapOSException if decryption fails
+	 */
+	@Benchmark
+	public Request unprotectRequest() throws OSException, CoapOSException {
+		if (nextRequest == REQUESTS) {
+			// the sequence numbers of all requests are received
+			createServer();
+			nextRequest = 0;
+		}
+		Request request = (Request) new UdpDataParser().parseMessage(protectedRequests[nextRequest++]);
+		request.setSourceContext(SOURCE);
+		return RequestDecryptor.decrypt(serverDb, request, server);
+	}
+
+	/**
+	 * Receive the protected responses of all servers to a multicast request
+	 * with the {@link ObjectSecurityLayer}, including the verification of the
+	 * countersignatures in group mode.
+	 *
+	 * @param responses the protected responses
+	 * @throws InterruptedException if interrupted while waiting for the
+	 *             responses
+	 */
+	@Benchmark
+	public void receiveResponses(Responses responses) throws InterruptedException {
+		responses.receive();
+	}
+
+	private Request createRequest() {
+		Request request = Request.newGet();
+		request.setURI(URI);
+		request.setToken(TOKEN);
+		request.getOptions().setOscore(OptionEncoder.set(pairwise, URI, SERVER_ID));
+		return request;
+	}
+
+	/**
+	 * The responses of several servers to a group mode multicast request. The
+	 * responses are in the mode of the benchmark.
+	 */
+	@State(Scope.Thread)
+	public static class Responses {
+
+		private static final String MULTICAST_URI = "coap://224.0.1.187/benchmark";
+
+		/**
+		 * Number of responding servers.
+		 */
+		@Param({ "16" })
+		public int servers;
+
+		/**
+		 * Number of threads of the {@link SignatureVerifier}, 0 to unprotect
+		 * the responses on the exchange's executor.
+		 */
+		@Param({ "0", "4" })
+		public int verifierThreads;
+
+		private final List<byte[]> protectedResponses = new ArrayList<byte[]>();
+		private final List<EndpointContext> sources = new ArrayList<EndpointContext>();
+		private Request request;
+		private ObjectSecurityLayer layer;
+		private ExecutorService protocolExecutor;
+		private SignatureVerifier verifier;
+		private volatile CountDownLatch delivered;
+
+		@Setup(Level.Trial)
+		public void setup(GroupOSCoreBenchmark benchmark) throws OSException, CoseException {
+			AlgorithmID alg = AlgorithmID.valueOf(benchmark.signAlgorithm);
+			OneKey clientKey = OneKey.generateKey(alg);
+
+			GroupCtx clientGroup = new GroupCtx(MASTER_SECRET, MASTER_SALT, AlgorithmID.AES_CCM_16_64_128,
+					AlgorithmID.HKDF_HMAC_SHA_256, GROUP_ID, alg, GM_PUBLIC_KEY);
+			clientGroup.addSenderCtx(CLIENT_ID, clientKey);
+			List<GroupCtx> serverGroups = new ArrayList<GroupCtx>();
+			for (int index = 0; index < servers; ++index) {
+				byte[] serverId = { (byte) (0x40 + index) };
+				OneKey serverKey = OneKey.generateKey(alg);
+				clientGroup.addRecipientCtx(serverId, REPLAY_WINDOW, serverKey.PublicKey());
+				GroupCtx serverGroup = new GroupCtx(MASTER_SECRET, MASTER_SALT, AlgorithmID.AES_CCM_16_64_128,
+						AlgorithmID.HKDF_HMAC_SHA_256, GROUP_ID, alg, GM_PUBLIC_KEY);
+				serverGroup.addSenderCtx(serverId, serverKey);
+				serverGroup.addRecipientCtx(CLIENT_ID, REPLAY_WINDOW, clientKey.PublicKey());
+				serverGroup.setPairwiseModeResponses("pairwise".equals(benchmark.mode));
+				serverGroup.prewarmPairwiseKeys();
+				serverGroups.add(serverGroup);
+			}
+			clientGroup.prewarmPairwiseKeys();
+			HashMapCtxDB clientDb = new HashMapCtxDB();
+			clientGroup.addToDb(MULTICAST_URI, clientDb);
+
+			request = Request.newGet();
+			request.setURI(MULTICAST_URI);
+			request.setType(Type.NON);
+			request.setToken(TOKEN);
+			request.getOptions().setOscore(OptionEncoder.set(false, MULTICAST_URI));
+			// the layer registers the token, when it sends the request
+			OSCoreCtx client = clientDb.getContext(MULTICAST_URI);
+			clientDb.addContext(TOKEN, client);
+			clientDb.addSeqByToken(TOKEN, client.getSenderSeq());
+			Request protectedRequest = RequestEncryptor.encrypt(clientDb, request);
+			protectedRequest.setMID(0x1234);
+			byte[] requestBytes = new UdpDataSerializer().getByteArray(protectedRequest);
+			byte[] requestOption = protectedRequest.getOptions().getOscore();
+
+			UdpDataSerializer serializer = new UdpDataSerializer();
+			for (int index = 0; index < servers; ++index) {
+				// the servers unprotect the request before they protect the
+				// response
+				HashMapCtxDB serverDb = new HashMapCtxDB();
+				GroupCtx serverGroup = serverGroups.get(index);
+				serverGroup.addToDb("", serverDb);
+				GroupRecipientCtx server = serverGroup.getRecipientContexts().values().iterator().next();
+				Request received = (Request) new UdpDataParser().parseMessage(requestBytes);
+				received.setSourceContext(SOURCE);
+				try {
+					RequestDecryptor.decrypt(serverDb, received, server);
+				} catch (CoapOSException e) {
+					throw new OSException(e.getMessage());
+				}
+				Response response = new Response(ResponseCode.CONTENT);
+				response.setType(Type.NON);
+				response.setMID(0x2000 + index);
+				response.setToken(TOKEN);
+				response.setPayload("benchmark response payload");
+				response = ResponseEncryptor.encrypt(serverDb, response, server, false, false, requestOption);
+				protectedResponses.add(serializer.getByteArray(response));
+				sources.add(new AddressEndpointContext(
+						new InetSocketAddress(InetAddress.getLoopbackAddress(), 5684 + index)));
+			}
+
+			layer = new ObjectSecurityLayer(clientDb);
+			layer.setUpperLayer(new AbstractLayer() {
+
+				@Override
+				public void receiveResponse(Exchange exchange, Response response) {
+					delivered.countDown();
+				}
+			});
+			protocolExecutor = Executors.newFixedThreadPool(2);
+			if (verifierThreads > 0) {
+				verifier = new SignatureVerifier(verifierThreads, servers);
+				SignatureVerifier.setDefault(verifier);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			if (verifier != null) {
+				SignatureVerifier.setDefault(null);
+				verifier.close();
+			}
+			protocolExecutor.shutdown();
+		}
+
+		/**
+		 * Pass all responses to the layer on the exchange's executor, as
+		 * the endpoint does, and wait until they are delivered.
+		 *
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		private void receive() throws InterruptedException {
+			delivered = new CountDownLatch(servers);
+			final Exchange exchange = new Exchange(request, SOURCE, Origin.LOCAL, protocolExecutor);
+			for (int index = 0; index < servers; ++index) {
+				final Response response = (Response) new UdpDataParser().parseMessage(protectedResponses.get(index));
+				response.setSourceContext(sources.get(index));
+				exchange.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						layer.receiveResponse(exchange, response);
+					}
+				});
+			}
+			if (!delivered.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException(delivered.getCount() + " responses missing!");
+			}
+		}
+	}
+}
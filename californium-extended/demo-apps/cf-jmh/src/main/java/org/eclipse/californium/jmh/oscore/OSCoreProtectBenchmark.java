@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.oscore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.network.serialization.UdpDataParser;
+import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.oscore.CoapOSException;
+import org.eclipse.californium.oscore.HashMapCtxDB;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSCoreFastPath;
+import org.eclipse.californium.oscore.OSException;
+import org.eclipse.californium.oscore.RequestDecryptor;
+import org.eclipse.californium.oscore.RequestEncryptor;
+import org.eclipse.californium.oscore.ResponseDecryptor;
+import org.eclipse.californium.oscore.ResponseEncryptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures OSCORE protection and unprotection of requests and responses for
+ * each AEAD algorithm, with the {@link OSCoreFastPath} enabled and disabled.
+ *
+ * The client protects requests and unprotects responses, the server
+ * unprotects requests and protects responses. Each unprotected request has a
+ * new sequence number, so it passes the replay checks of the server. The
+ * requests are protected during the setup, when all are unprotected, the
+ * server continues with a new context and an empty replay window. Each
+ * protected response uses the partial IV of a new request, so no nonce is
+ * used twice.
+ *
+ * Run with {@code -prof gc} to compare the allocation per message
+ * ({@code gc.alloc.rate.norm}) of both paths:
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar OSCoreProtectBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OSCoreProtectBenchmark {
+
+	private static final byte[] MASTER_SECRET = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B,
+			0x0C, 0x0D, 0x0E, 0x0F, 0x10 };
+	private static final byte[] MASTER_SALT = { (byte) 0x9e, 0x7c, (byte) 0xa9, 0x22, 0x23, 0x78, 0x63, 0x40 };
+	private static final byte[] CLIENT_ID = { 0x00 };
+	private static final byte[] SERVER_ID = { 0x01 };
+	private static final int MAX_UNFRAGMENTED_SIZE = 4096;
+	private static final int REQUEST_SEQ = 42;
+	/**
+	 * Number of requests protected during the setup.
+	 */
+	private static final int REQUESTS = 4096;
+	private static final Token TOKEN = new Token(new byte[] { 0x01, 0x02, 0x03, 0x04 });
+	/**
+	 * Literal address, avoids name resolution when setting the URI.
+	 */
+	private static final String URI = "coap://127.0.0.1/benchmark";
+
+	@Param({ "AES_CCM_16_64_128", "AES_CCM_16_128_128", "AES_CCM_16_128_256", "AES_CCM_64_64_128",
+			"AES_CCM_64_128_128", "AES_GCM_128", "AES_GCM_192", "AES_GCM_256" })
+	public String algorithm;
+
+	@Param({ "true", "false" })
+	public boolean fastPath;
+
+	private OSCoreCtx client;
+	private HashMapCtxDB clientDb;
+	private OSCoreCtx server;
+	private HashMapCtxDB serverDb;
+	private byte[][] protectedRequests;
+	private int nextRequest;
+	private int requestSeq;
+	private byte[] protectedResponse;
+
+	@Setup(Level.Trial)
+	public void setup() throws OSException {
+		OSCoreFastPath.setEnabled(fastPath);
+
+		AlgorithmID alg = AlgorithmID.valueOf(algorithm);
+		client = new OSCoreCtx(MASTER_SECRET, true, alg, CLIENT_ID, SERVER_ID, AlgorithmID.HKDF_HMAC_SHA_256, 32,
+				MASTER_SALT, null, MAX_UNFRAGMENTED_SIZE);
+		clientDb = new HashMapCtxDB();
+		clientDb.addContext(createRequest().getURI(), client);
+		serverDb = new HashMapCtxDB();
+		server = createServer();
+
+		UdpDataSerializer serializer = new UdpDataSerializer();
+		protectedRequests = new byte[REQUESTS][];
+		for (int index = 0; index < REQUESTS; ++index) {
+			Request request = RequestEncryptor.encrypt(clientDb, createRequest());
+			request.setMID(index);
+			protectedRequests[index] = serializer.getByteArray(request);
+		}
+
+		server.setReceiverSeq(REQUEST_SEQ);
+		Response response = ResponseEncryptor.encrypt(new HashMapCtxDB(), createResponse(), server, false, false,
+				null);
+		protectedResponse = serializer.getByteArray(response);
+		requestSeq = REQUEST_SEQ + 1;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		OSCoreFastPath.setEnabled(true);
+	}
+
+	/**
+	 * Create the context of the server with an empty replay window.
+	 *
+	 * @return the context of the server
+	 * @throws OSException if the context can't be derived
+	 */
+	private OSCoreCtx createServer() throws OSException {
+		OSCoreCtx ctx = new OSCoreCtx(MASTER_SECRET, false, AlgorithmID.valueOf(algorithm), SERVER_ID, CLIENT_ID,
+				AlgorithmID.HKDF_HMAC_SHA_256, 32, MASTER_SALT, null, MAX_UNFRAGMENTED_SIZE);
+		serverDb.addContext(ctx);
+		return ctx;
+	}
+
+	/**
+	 * Protect a request with {@link RequestEncryptor}.
+	 *
+	 * @return the protected request
+	 * @throws OSException if encryption fails
+	 */
+	@Benchmark
+	public Request protectRequest() throws OSException {
+		return RequestEncryptor.encrypt(clientDb, createRequest());
+	}
+
+	/**
+	 * Parse the next protected request and unprotect it with
+	 * {@link RequestDecryptor}.
+	 *
+	 * @return the unprotected request
+	 * @throws OSException if the new context of the server can't be derived
+	 * @throws CoapOSException if decryption fails
+	 */
+	@Benchmark
+	public Request unprotectRequest() throws OSException, CoapOSException {
+		if (nextRequest == REQUESTS) {
+			// the sequence numbers of all requests are received
+			server = createServer();
+			nextRequest = 0;
+		}
+		Request request = (Request) new UdpDataParser().parseMessage(protectedRequests[nextRequest++]);
+		return RequestDecryptor.decrypt(serverDb, request, server);
+	}
+
+	/**
+	 * Protect a response with {@link ResponseEncryptor}, using the partial
+	 * IV of a new request.
+	 *
+	 * @return the protected response
+	 * @throws OSException if encryption fails
+	 */
+	@Benchmark
+	public Response protectResponse() throws OSException {
+		server.setReceiverSeq(requestSeq++);
+		return ResponseEncryptor.encrypt(serverDb, createResponse(), server, false, false, null);
+	}
+
+	/**
+	 * Parse a protected response and unprotect it with
+	 * {@link ResponseDecryptor}.
+	 *
+	 * @return the unprotected response
+	 * @throws OSException if decryption fails
+	 */
+	@Benchmark
+	public Response unprotectResponse() throws OSException {
+		Response response = (Response) new UdpDataParser().parseMessage(protectedResponse);
+		clientDb.addContext(TOKEN, client);
+		clientDb.addSeqByToken(TOKEN, REQUEST_SEQ);
+		return ResponseDecryptor.decrypt(clientDb, response);
+	}
+
+	private static Request createRequest() {
+		Request request = Request.newGet();
+		request.setURI(URI);
+		request.setToken(TOKEN);
+		return request;
+	}
+
+	private static Response createResponse() {
+		Response response = new Response(ResponseCode.CONTENT);
+		response.setType(Type.ACK);
+		response.setMID(0x1234);
+		response.setToken(TOKEN);
+		response.setPayload("benchmark response payload");
+		return response;
+	}
+}
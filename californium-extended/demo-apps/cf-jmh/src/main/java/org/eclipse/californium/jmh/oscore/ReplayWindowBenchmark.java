@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.oscore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.oscore.OSCoreCtx;
+import org.eclipse.californium.oscore.OSException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the replay check of incoming sequence numbers in
+ * {@link OSCoreCtx#checkIncomingSeq(int)} for different replay window sizes.
+ *
+ * {@code inOrder} receives increasing sequence numbers, {@code reordered}
+ * receives blocks of sequence numbers in reverse order, with the block as
+ * large as the replay window.
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar ReplayWindowBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayWindowBenchmark {
+
+	private static final byte[] MASTER_SECRET = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B,
+			0x0C, 0x0D, 0x0E, 0x0F, 0x10 };
+	private static final byte[] CLIENT_ID = { 0x00 };
+	private static final byte[] SERVER_ID = { 0x01 };
+	private static final int MAX_UNFRAGMENTED_SIZE = 4096;
+
+	@Param({ "32", "1024", "4096" })
+	public int windowSize;
+
+	private OSCoreCtx ctx;
+	private int next;
+
+	@Setup(Level.Iteration)
+	public void setup() throws OSException {
+		// fresh context, the sequence numbers must not wrap
+		ctx = new OSCoreCtx(MASTER_SECRET, false, AlgorithmID.AES_CCM_16_64_128, SERVER_ID, CLIENT_ID,
+				AlgorithmID.HKDF_HMAC_SHA_256, windowSize, null, null, MAX_UNFRAGMENTED_SIZE);
+		next = 0;
+	}
+
+	/**
+	 * Check increasing sequence numbers.
+	 * 
+	 * @throws OSException if a replay is detected
+	 */
+	@Benchmark
+	public void inOrder() throws OSException {
+		ctx.checkIncomingSeq(next++);
+	}
+
+	/**
+	 * Check sequence numbers in reverse order within blocks of the window
+	 * size.
+	 * 
+	 * @throws OSException if a replay is detected
+	 */
+	@Benchmark
+	public void reordered() throws OSException {
+		int block = next / windowSize;
+		int offset = next % windowSize;
+		next++;
+		ctx.checkIncomingSeq(block * windowSize + windowSize - 1 - offset);
+	}
+}
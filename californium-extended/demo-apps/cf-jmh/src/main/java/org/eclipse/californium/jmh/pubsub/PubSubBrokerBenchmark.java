@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2026 RISE SICS and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *    agent
+ *
+ ******************************************************************************/
+package org.eclipse.californium.jmh.pubsub;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.CoapClient;
+import org.eclipse.californium.core.CoapHandler;
+import org.eclipse.californium.core.CoapResponse;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.network.CoapEndpoint;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.exception.ConnectorException;
+import org.eclipse.californium.pubsub.broker.Publication;
+import org.eclipse.californium.pubsub.broker.PubSubBroker;
+import org.eclipse.californium.pubsub.broker.Subscriber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the publish rate of a local {@link PubSubBroker} and its fan-out
+ * to the subscribers.
+ *
+ * Each benchmark thread is a publisher, which publishes with PUT requests to
+ * the topics in turn. The number of publishers is set with {@code -t}. Each
+ * subscriber subscribes to all topics, either observing them with its own
+ * CoAP endpoint, or locally with a bounded queue. The received and the
+ * expected notifications are printed after each iteration.
+ *
+ * <pre>
+ * java -jar cf-jmh-*.jar PubSubBrokerBenchmark -t 4 -p topics=16 -p subscribers=10
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class PubSubBrokerBenchmark {
+
+	@Param({ "1", "16" })
+	public int topics;
+
+	@Param({ "1", "10", "100" })
+	public int subscribers;
+
+	/**
+	 * "observe" for CoAP subscribers, "local" for local subscribers.
+	 */
+	@Param({ "observe", "local" })
+	public String subscriberType;
+
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong notified = new AtomicLong();
+	private final List<Endpoint> endpoints = new ArrayList<Endpoint>();
+
+	private Configuration config;
+	private PubSubBroker broker;
+	private CoapServer server;
+	private String[] uris;
+
+	@Setup(Level.Trial)
+	public void setup() throws ConnectorException, IOException {
+		config = Configuration.createStandardWithoutFile();
+		broker = new PubSubBroker();
+		server = new CoapServer(config);
+		CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+		builder.setConfiguration(config);
+		builder.setInetSocketAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		server.addEndpoint(builder.build());
+		broker.addTo(server);
+		server.start();
+		int port = server.getEndpoints().get(0).getAddress().getPort();
+
+		uris = new String[topics];
+		for (int topic = 0; topic < topics; topic++) {
+			broker.createTopic("t" + topic, MediaTypeRegistry.TEXT_PLAIN);
+			uris[topic] = "coap://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/"
+					+ PubSubBroker.DEFAULT_ROOT + "/t" + topic;
+		}
+
+		CoapHandler handler = new CoapHandler() {
+
+			@Override
+			public void onLoad(CoapResponse response) {
+				notified.incrementAndGet();
+			}
+
+			@Override
+			public void onError() {
+			}
+		};
+		Subscriber.Listener listener = new Subscriber.Listener() {
+
+			@Override
+			public void onPublication(Publication publication) {
+				notified.incrementAndGet();
+			}
+		};
+		for (int subscriber = 0; subscriber < subscribers; subscriber++) {
+			if ("local".equals(subscriberType)) {
+				for (int topic = 0; topic < topics; topic++) {
+					broker.getTopic("t" + topic).subscribe(listener);
+				}
+			} else {
+				CoapClient client = new CoapClient();
+				client.setEndpoint(newEndpoint(config));
+				for (String uri : uris) {
+					client.setURI(uri);
+					client.observeAndWait(handler);
+				}
+			}
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		published.set(0);
+		notified.set(0);
+	}
+
+	@TearDown(Level.Iteration)
+	public void report() throws InterruptedException {
+		// let the notifications of the last publications arrive
+		Thread.sleep(200);
+		System.out.println();
+		System.out.println("notifications: " + notified.get() + " of " + published.get() * subscribers);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (Endpoint endpoint : endpoints) {
+			endpoint.destroy();
+		}
+		endpoints.clear();
+		server.destroy();
+		broker.destroy();
+	}
+
+	/**
+	 * A publisher with its own endpoint.
+	 */
+	@State(Scope.Thread)
+	public static class Publisher {
+
+		private CoapClient client;
+		private int next;
+
+		@Setup(Level.Trial)
+		public void setup(PubSubBrokerBenchmark benchmark) throws IOException {
+			client = new CoapClient();
+			client.setEndpoint(benchmark.newEndpoint(benchmark.config));
+		}
+	}
+
+	/**
+	 * Publish to the next topic and wait for the response.
+	 *
+	 * @param publisher the publisher of this thread
+	 * @return the response
+	 * @throws ConnectorException if an issue specific to the connector occurred
+	 * @throws IOException if any other issue occurred
+	 */
+	@Benchmark
+	public CoapResponse publish(Publisher publisher) throws ConnectorException, IOException {
+		Request put = Request.newPut();
+		put.setURI(uris[publisher.next++ % uris.length]);
+		put.setPayload("21.5");
+		put.getOptions().setContentFormat(MediaTypeRegistry.TEXT_PLAIN);
+		CoapResponse response = publisher.client.advanced(put);
+		if (response != null && response.isSuccess()) {
+			published.incrementAndGet();
+		}
+		return response;
+	}
+
+	/**
+	 * Create and start a client endpoint, destroyed at the end of the trial.
+	 *
+	 * @param config the configuration
+	 * @return the started endpoint
+	 * @throws IOException if the endpoint could not be started
+	 */
+	private synchronized Endpoint newEndpoint(Configuration config) throws IOException {
+		CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+		builder.setConfiguration(config);
+		builder.setInetSocketAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		CoapEndpoint endpoint = builder.build();
+		endpoint.start();
+		endpoints.add(endpoint);
+		return endpoint;
+	}
+}
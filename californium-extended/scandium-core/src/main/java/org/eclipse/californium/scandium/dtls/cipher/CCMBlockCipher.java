@@ -359,6 +359,35 @@ public class CCMBlockCipher {
 		Cipher cipher = CIPHER.current();
 		cipher.init(Cipher.ENCRYPT_MODE, key);
 
+		return decrypt(cipher, nonce, additionalData, crypted, cryptedOffset, cryptedLength, numAuthenticationBytes);
+	}
+
+	/**
+	 * See <a href="https://tools.ietf.org/html/rfc3610#section-2.5" target="_blank">RFC 3610</a>
+	 * for details.
+	 * 
+	 * Uses a block cipher, which is already initialized with the key. That
+	 * enables callers, which use the same key for many messages, to reuse the
+	 * initialized cipher. The cipher must not be used concurrently.
+	 * 
+	 * @param cipher the "AES/ECB/NoPadding" cipher, initialized in
+	 *            {@link Cipher#ENCRYPT_MODE} with the key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @param crypted the encrypted and authenticated message c.
+	 * @param cryptedOffset offset within crypted
+	 * @param cryptedLength length within crypted
+	 * @param numAuthenticationBytes Number of octets in authentication field.
+	 * @return the decrypted message
+	 * 
+	 * @throws GeneralSecurityException if the message could not be de-crypted,
+	 *             e.g. because the ciphertext's block size is not correct
+	 * @throws InvalidMacException if the message could not be authenticated
+	 * @since 3.1
+	 */
+	public final static byte[] decrypt(Cipher cipher, byte[] nonce, byte[] additionalData, byte[] crypted,
+			int cryptedOffset, int cryptedLength, int numAuthenticationBytes) throws GeneralSecurityException {
+
 		int lengthM = cryptedLength - numAuthenticationBytes;
 		int blockSize = cipher.getBlockSize();
 
@@ -446,6 +475,33 @@ public class CCMBlockCipher {
 		// instantiate the cipher
 		Cipher cipher = CIPHER.current();
 		cipher.init(Cipher.ENCRYPT_MODE, key);
+
+		return encrypt(outputOffset, cipher, nonce, additionalData, message, numAuthenticationBytes);
+	}
+
+	/**
+	 * See <a href="https://tools.ietf.org/html/rfc3610#section-2.2" target="_blank">RFC 3610</a>
+	 * for details.
+	 * 
+	 * Uses a block cipher, which is already initialized with the key. That
+	 * enables callers, which use the same key for many messages, to reuse the
+	 * initialized cipher. The cipher must not be used concurrently.
+	 * 
+	 * @param outputOffset offset of the encrypted message within the resulting byte
+	 *            array. Leaves space for the explicit nonce.
+	 * @param cipher the "AES/ECB/NoPadding" cipher, initialized in
+	 *            {@link Cipher#ENCRYPT_MODE} with the key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @param message the message to authenticate and encrypt.
+	 * @param numAuthenticationBytes Number of octets in authentication field.
+	 * @return the encrypted and authenticated message.
+	 * @throws GeneralSecurityException if the data could not be encrypted
+	 * @since 3.1
+	 */
+	public final static byte[] encrypt(int outputOffset, Cipher cipher, byte[] nonce, byte[] additionalData,
+			byte[] message, int numAuthenticationBytes) throws GeneralSecurityException {
+
 		int blockSize = cipher.getBlockSize();
 		int lengthM = message.length;
 
@@ -23,10 +23,12 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.californium.core.CoapResource;
 import org.eclipse.californium.core.CoapServer;
@@ -42,7 +44,8 @@ import org.eclipse.californium.edhoc.Constants;
 import org.eclipse.californium.edhoc.EdhocCoapStackFactory;
 import org.eclipse.californium.edhoc.EdhocEndpointInfo;
 import org.eclipse.californium.edhoc.EdhocResource;
-import org.eclipse.californium.edhoc.EdhocSession;
+import org.eclipse.californium.edhoc.EdhocSessionStore;
+import org.eclipse.californium.edhoc.EphemeralKeyPool;
 import org.eclipse.californium.edhoc.SharedSecretCalculation;
 import org.eclipse.californium.edhoc.Util;
 import org.eclipse.californium.elements.config.Configuration;
@@ -115,15 +118,18 @@ public class Phase3Server extends CoapServer {
 	// CRED_X
 	private static HashMap<CBORObject, CBORObject> peerCredentials = new HashMap<CBORObject, CBORObject>();
 
-	// Existing EDHOC Sessions, including completed ones
-	// The map label is C_X, i.e. the connection identifier offered to the other
-	// peer, as a CBOR integer or byte string
-	private static HashMap<CBORObject, EdhocSession> edhocSessions = new HashMap<CBORObject, EdhocSession>();
-
 	// Each element is a used Connection Identifier offered to the other peers.
 	// Connection Identifiers are stored as CBOR integers (if numeric) or as
 	// CBOR byte strings (if binary)
-	private static Set<CBORObject> usedConnectionIds = new HashSet<>();
+	// Concurrent, as the session store releases them from its reaper thread
+	private static Set<CBORObject> usedConnectionIds = Collections
+			.newSetFromMap(new ConcurrentHashMap<CBORObject, Boolean>());
+
+	// Existing EDHOC Sessions, including completed ones
+	// The map label is C_X, i.e. the connection identifier offered to the other
+	// peer, as a CBOR integer or byte string
+	// Sessions not completing the handshake expire and release their C_X
+	private static EdhocSessionStore edhocSessions = new EdhocSessionStore(usedConnectionIds);
 
 	// List of supported ciphersuites, in decreasing order of preference.
 	private static List<Integer> supportedCiphersuites = new ArrayList<Integer>();
@@ -144,6 +150,13 @@ public class Phase3Server extends CoapServer {
 	// The size to consider for MAX_UNFRAGMENTED SIZE
 	private final static int MAX_UNFRAGMENTED_SIZE = 4096;
 
+	// The number of pre-generated ephemeral keys per curve
+	private final static int EPHEMERAL_KEY_POOL_CAPACITY = 64;
+
+	// The number of pre-generated ephemeral keys per curve, below which the
+	// pool is refilled
+	private final static int EPHEMERAL_KEY_POOL_LOW_WATERMARK = 16;
+
 	/**
 	 * Application entry point.
 	 * 
@@ -151,6 +164,8 @@ public class Phase3Server extends CoapServer {
 	 */
 	public static void main(String[] args) {
 
+		edhocSessions.start();
+
 		System.out.println("Phase3Server starting on port: " + COAP_PORT);
 
 		// Insert EdDSA security provider
@@ -163,6 +178,10 @@ public class Phase3Server extends CoapServer {
 		// Add the supported ciphersuites
 		setupSupportedCipherSuites();
 
+		// Pre-generate the ephemeral keys of the supported ciphersuites
+		EphemeralKeyPool.setDefault(new EphemeralKeyPool(supportedCiphersuites, EPHEMERAL_KEY_POOL_CAPACITY,
+				EPHEMERAL_KEY_POOL_LOW_WATERMARK, 1));
+
 		// Set up the authentication credentials for this peer and the other
 		// peer
 		setupOwnAuthenticationCredentials();
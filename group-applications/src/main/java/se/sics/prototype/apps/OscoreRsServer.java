@@ -86,6 +86,7 @@ import se.sics.ace.coap.rs.CoapDeliverer;
 import se.sics.ace.coap.rs.oscoreProfile.OscoreCtxDbSingleton;
 import se.sics.ace.cwt.CwtCryptoCtx;
 import se.sics.ace.examples.KissTime;
+import se.sics.ace.oscore.AuthCredsSnapshot;
 import se.sics.ace.oscore.GroupInfo;
 import se.sics.ace.oscore.GroupOSCOREInputMaterialObjectParameters;
 import se.sics.ace.oscore.OSCOREInputMaterialObjectParameters;
@@ -1524,46 +1525,14 @@ public class OscoreRsServer {
 
 			}
 
-			// Respond to the Authentication Credential Request
-
-			CBORObject myResponse = CBORObject.NewMap();
-
-			CBORObject authCredsArray = CBORObject.NewArray();
-			CBORObject peerRoles = CBORObject.NewArray();
-			CBORObject peerIdentifiers = CBORObject.NewArray();
-
-			Map<CBORObject, CBORObject> authCreds = targetedGroup.getAuthCreds();
-
-			for (CBORObject sid : authCreds.keySet()) {
-
-				// This should never happen; silently ignore
-				if (authCreds.get(sid) == null)
-					continue;
-
-				byte[] peerSenderId = sid.GetByteString();
-				// This should never happen; silently ignore
-				if (peerSenderId == null)
-					continue;
+			// Respond to the Authentication Credential Request, using the
+			// response encoded for the current version and group membership
 
-				authCredsArray.Add(authCreds.get(sid));
-				peerRoles.Add(targetedGroup.getGroupMemberRoles(peerSenderId));
-				peerIdentifiers.Add(peerSenderId);
+			AuthCredsSnapshot authCredsSnapshot = targetedGroup.getAuthCredsSnapshot();
 
-			}
-
-			myResponse.Add(Constants.NUM, CBORObject.FromObject(targetedGroup.getVersion()));
-
-			myResponse.Add(Constants.CREDS, authCredsArray);
-			myResponse.Add(Constants.PEER_ROLES, peerRoles);
-			myResponse.Add(Constants.PEER_IDENTIFIERS, peerIdentifiers);
-
-			byte[] responsePayload = myResponse.EncodeToBytes();
-
-			Response coapResponse = new Response(CoAP.ResponseCode.CONTENT);
-			coapResponse.setPayload(responsePayload);
-			coapResponse.getOptions().setContentFormat(Constants.APPLICATION_ACE_GROUPCOMM_CBOR);
+			byte[] responsePayload = authCredsSnapshot.getEncoded();
 
-			exchange.respond(coapResponse);
+			respondAuthCreds(exchange, authCredsSnapshot, responsePayload);
 
 		}
 
@@ -1743,45 +1712,23 @@ public class OscoreRsServer {
 
 			}
 
-			// Respond to the Authentication Credential Request
-
-			CBORObject myResponse = CBORObject.NewMap();
-
-			CBORObject authCredsArray = CBORObject.NewArray();
-			CBORObject peerRoles = CBORObject.NewArray();
-			CBORObject peerIdentifiers = CBORObject.NewArray();
-			Set<Integer> requestedRoles = new HashSet<Integer>();
-			Set<ByteBuffer> requestedSenderIDs = new HashSet<ByteBuffer>();
+			// Respond to the Authentication Credential Request, using the
+			// response encoded for the current version and group membership
 
-			Map<CBORObject, CBORObject> authCreds = targetedGroup.getAuthCreds();
+			AuthCredsSnapshot authCredsSnapshot = targetedGroup.getAuthCredsSnapshot();
+			byte[] responsePayload = null;
 
 			// Provide the authentication credentials of all the group members
 			if (getCreds.equals(CBORObject.Null)) {
-
-				for (CBORObject sid : authCreds.keySet()) {
-
-					// This should never happen; silently ignore
-					if (authCreds.get(sid) == null)
-						continue;
-
-					byte[] memberSenderId = sid.GetByteString();
-					// This should never happen; silently ignore
-					if (memberSenderId == null)
-						continue;
-
-					int memberRoles = targetedGroup.getGroupMemberRoles(memberSenderId);
-
-					authCredsArray.Add(authCreds.get(sid));
-					peerRoles.Add(memberRoles);
-					peerIdentifiers.Add(memberSenderId);
-
-				}
-
+				responsePayload = authCredsSnapshot.getEncoded();
 			}
 			// Provide the authentication credentials based on the specified
 			// filtering
 			else {
 
+				Set<Integer> requestedRoles = new HashSet<Integer>();
+				Set<ByteBuffer> requestedSenderIDs = new HashSet<ByteBuffer>();
+
 				// Retrieve the inclusion flag
 				boolean inclusionFlag = getCreds.get(0).getType().equals(CBORType.Boolean);
 
@@ -1798,85 +1745,32 @@ public class OscoreRsServer {
 					requestedSenderIDs.add(myBuffer);
 				}
 
-				for (CBORObject sid : authCreds.keySet()) {
-
-					// This should never happen; silently ignore
-					if (authCreds.get(sid) == null)
-						continue;
+				responsePayload = authCredsSnapshot.getEncoded(inclusionFlag, requestedRoles, requestedSenderIDs);
 
-					byte[] memberSenderId = sid.GetByteString();
-					// This should never happen; silently ignore
-					if (memberSenderId == null)
-						continue;
-
-					int memberRoles = targetedGroup.getGroupMemberRoles(memberSenderId);
-
-					boolean include = false;
-
-					for (Integer filter : requestedRoles) {
-						int filterRoles = filter.intValue();
-
-						// The role(s) of the key owner match with the role
-						// filter
-						if (filterRoles == (filterRoles & memberRoles)) {
-
-							// This authentication credential has to be included
-							// anyway,
-							// regardless the Sender ID of the key owner
-							if (inclusionFlag) {
-								include = true;
-							}
-							// This authentication credential has to be included
-							// only if the Sender ID
-							// of the key owner is not in the node identifier
-							// filter
-							else if (!requestedSenderIDs.contains(ByteBuffer.wrap(memberSenderId))) {
-								include = true;
-							}
-							// Stop going through the role filter anyway;
-							// this authentication credential has not to be
-							// included
-							break;
-						}
-					}
-
-					if (!include) {
-						// This authentication credential has to be included if
-						// the Sender ID of
-						// the key owner is in the node identifier filter
-						if (inclusionFlag && requestedSenderIDs.contains(ByteBuffer.wrap(memberSenderId))) {
-							include = true;
-						}
-						// This authentication credential has to be included if
-						// the Sender ID of
-						// the key owner is not in the node identifier filter
-						else if (!inclusionFlag && !requestedSenderIDs.contains(ByteBuffer.wrap(memberSenderId))) {
-							include = true;
-						}
-					}
-
-					if (include) {
-
-						authCredsArray.Add(authCreds.get(sid));
-						peerRoles.Add(memberRoles);
-						peerIdentifiers.Add(memberSenderId);
-
-					}
-
-				}
 			}
 
-			myResponse.Add(Constants.NUM, CBORObject.FromObject(targetedGroup.getVersion()));
+			respondAuthCreds(exchange, authCredsSnapshot, responsePayload);
 
-			myResponse.Add(Constants.CREDS, authCredsArray);
-			myResponse.Add(Constants.PEER_ROLES, peerRoles);
-			myResponse.Add(Constants.PEER_IDENTIFIERS, peerIdentifiers);
+		}
 
-			byte[] responsePayload = myResponse.EncodeToBytes();
+		/**
+		 * Respond to an Authentication Credential Request. The ETag
+		 * identifies the version and group membership of the response, so
+		 * that the blocks of a large response, transferred using block-wise,
+		 * can be checked to belong to the same snapshot.
+		 * 
+		 * @param exchange the exchange of the request
+		 * @param authCredsSnapshot the snapshot of the authentication
+		 *            credentials
+		 * @param responsePayload the encoded response
+		 */
+		private void respondAuthCreds(CoapExchange exchange, AuthCredsSnapshot authCredsSnapshot,
+				byte[] responsePayload) {
 
 			Response coapResponse = new Response(CoAP.ResponseCode.CONTENT);
 			coapResponse.setPayload(responsePayload);
 			coapResponse.getOptions().setContentFormat(Constants.APPLICATION_ACE_GROUPCOMM_CBOR);
+			coapResponse.getOptions().addETag(authCredsSnapshot.getTag());
 
 			exchange.respond(coapResponse);
 